@@ -210,6 +210,15 @@ public @interface BugPattern {
   /** True if the check can be disabled using command-line flags. */
   boolean disableable() default true;
 
+  /**
+   * Fully-qualified names of types that must be available in a compilation for this check to be
+   * able to report anything, for example the entry point of the library that the check is about.
+   *
+   * <p>The check is skipped for compilations in which any of these types can't be resolved from
+   * the sources or the classpath. By default, checks are run on every compilation.
+   */
+  String[] requiredTypes() default {};
+
   /**
    * A set of annotation types that can be used to suppress the check.
    *
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.benchmarks;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.errorprone.CodeTransformer;
+import com.google.errorprone.ErrorProneTimings;
+import com.google.errorprone.scanner.BuiltInCheckerSuppliers;
+import com.sun.tools.javac.util.Context;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * A regression gate for the cost of individual checks.
+ *
+ * <p>Scans the {@link Corpus} with the default checks, measures the time and allocation of each
+ * check per node it is asked to match, and compares them to the baseline in {@code
+ * check-costs.properties}. Times are relative to the median check, so that baselines recorded on
+ * different machines are comparable. Exits with status 1 if a check has become more than {@code
+ * --threshold} times as expensive as its baseline. A check without a baseline is compared to the
+ * median check, so that a new check that is much slower than its peers is caught as well.
+ *
+ * <p>Usage: {@code CheckCostReport [--threshold N] [--write-baseline FILE]}
+ */
+public final class CheckCostReport {
+
+  private static final String BASELINE = "check-costs.properties";
+  private static final int WARMUP_SCANS = 5;
+  private static final int MEASURED_SCANS = 7;
+
+  /**
+   * Checks that take less than this per node, relative to the median check, are never reported
+   * for their time: the timings of cheap checks vary too much between runs.
+   */
+  private static final double MIN_RELATIVE_TIME = 5;
+
+  /** Checks that allocate less than this per node are never reported for their allocations. */
+  private static final double MIN_BYTES_PER_CALL = 64;
+
+  private CheckCostReport() {}
+
+  public static void main(String[] args) throws IOException {
+    double threshold = 5;
+    String writeBaseline = null;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--threshold":
+          threshold = Double.parseDouble(args[++i]);
+          break;
+        case "--write-baseline":
+          writeBaseline = args[++i];
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown argument: " + args[i]);
+      }
+    }
+
+    ImmutableSortedMap<String, Cost> costs = measure(Corpus.load());
+    if (writeBaseline != null) {
+      try (Writer writer = Files.newBufferedWriter(Paths.get(writeBaseline), UTF_8)) {
+        writeBaseline(costs, writer);
+      }
+      System.out.printf("Wrote the costs of %d checks to %s%n", costs.size(), writeBaseline);
+      return;
+    }
+
+    ImmutableMap<String, Cost> baseline = readBaseline();
+    List<String> regressions = new ArrayList<>();
+    System.out.printf(
+        "%-40s %10s %10s %12s %12s%n", "check", "time", "baseline", "bytes", "baseline");
+    for (Map.Entry<String, Cost> entry : costs.entrySet()) {
+      String check = entry.getKey();
+      Cost cost = entry.getValue();
+      Cost expected = baseline.getOrDefault(check, Cost.MEDIAN);
+      System.out.printf(
+          "%-40s %10.2f %10.2f %12.0f %12.0f%n",
+          check,
+          cost.relativeTime,
+          expected.relativeTime,
+          cost.bytesPerCall,
+          expected.bytesPerCall);
+      if (cost.relativeTime > threshold * Math.max(expected.relativeTime, MIN_RELATIVE_TIME)) {
+        regressions.add(
+            String.format(
+                "%s takes %.1fx as long per node as the median check (baseline: %.1fx)",
+                check, cost.relativeTime, expected.relativeTime));
+      }
+      if (cost.bytesPerCall > threshold * Math.max(expected.bytesPerCall, MIN_BYTES_PER_CALL)) {
+        regressions.add(
+            String.format(
+                "%s allocates %.0f bytes per node (baseline: %.0f)",
+                check, cost.bytesPerCall, expected.bytesPerCall));
+      }
+    }
+    if (!regressions.isEmpty()) {
+      System.out.printf("%nChecks more than %.1fx as expensive as their baseline:%n", threshold);
+      regressions.forEach(r -> System.out.println("  " + r));
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Returns the cost of each check that matched at least one node of the corpus. Each cost is the
+   * median of several scans, so that e.g. a GC pause during one scan doesn't count against
+   * whichever check happened to be running.
+   */
+  static ImmutableSortedMap<String, Cost> measure(Corpus corpus) {
+    CodeTransformer transformer =
+        ScannerBenchmark.transformer(BuiltInCheckerSuppliers.defaultChecks(), corpus);
+    for (int i = 0; i < WARMUP_SCANS; i++) {
+      corpus.scan(transformer);
+    }
+    Map<String, List<Double>> nanosPerCall = new HashMap<>();
+    Map<String, List<Double>> bytesPerCall = new HashMap<>();
+    for (int i = 0; i < MEASURED_SCANS; i++) {
+      Context context = corpus.newCompilationContext();
+      ErrorProneTimings timings = ErrorProneTimings.instance(context);
+      checkState(timings.recordAllocations(), "This JVM can't measure per-thread allocations");
+      corpus.scan(transformer, context);
+      timings
+          .costs()
+          .forEach(
+              (check, cost) -> {
+                nanosPerCall
+                    .computeIfAbsent(check, k -> new ArrayList<>())
+                    .add((double) cost.nanos() / cost.calls());
+                bytesPerCall
+                    .computeIfAbsent(check, k -> new ArrayList<>())
+                    .add((double) cost.allocatedBytes() / cost.calls());
+              });
+    }
+    ImmutableMap<String, Double> medianNanosPerCall = medians(nanosPerCall);
+    ImmutableMap<String, Double> medianBytesPerCall = medians(bytesPerCall);
+    double medianCheck = median(new ArrayList<>(medianNanosPerCall.values()));
+    ImmutableSortedMap.Builder<String, Cost> result = ImmutableSortedMap.naturalOrder();
+    medianNanosPerCall.forEach(
+        (check, nanos) ->
+            result.put(check, new Cost(nanos / medianCheck, medianBytesPerCall.get(check))));
+    return result.build();
+  }
+
+  private static ImmutableMap<String, Double> medians(Map<String, List<Double>> samples) {
+    ImmutableMap.Builder<String, Double> result = ImmutableMap.builder();
+    samples.forEach((check, values) -> result.put(check, median(values)));
+    return result.build();
+  }
+
+  private static double median(List<Double> values) {
+    Collections.sort(values);
+    return values.get(values.size() / 2);
+  }
+
+  private static ImmutableMap<String, Cost> readBaseline() {
+    Properties properties = new Properties();
+    try (InputStream in = CheckCostReport.class.getResourceAsStream(BASELINE)) {
+      checkState(in != null, "No baseline: %s", BASELINE);
+      try (Reader reader = new InputStreamReader(in, UTF_8)) {
+        properties.load(reader);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    ImmutableMap.Builder<String, Cost> baseline = ImmutableMap.builder();
+    for (String check : properties.stringPropertyNames()) {
+      String[] parts = properties.getProperty(check).trim().split("\\s+");
+      baseline.put(check, new Cost(Double.parseDouble(parts[0]), Double.parseDouble(parts[1])));
+    }
+    return baseline.build();
+  }
+
+  /** Writes the baseline as a properties file, sorted by check name so that it diffs well. */
+  private static void writeBaseline(ImmutableSortedMap<String, Cost> costs, Writer writer)
+      throws IOException {
+    writer.write(
+        "# The time (relative to the median check) and bytes allocated per node of each check.\n"
+            + "# Written by CheckCostReport --write-baseline; see README.md.\n");
+    for (Map.Entry<String, Cost> entry : costs.entrySet()) {
+      writer.write(
+          String.format(
+              Locale.ROOT,
+              "%s=%.2f %.0f%n",
+              entry.getKey(),
+              entry.getValue().relativeTime,
+              entry.getValue().bytesPerCall));
+    }
+  }
+
+  /** The cost of a check per node that it is asked to match. */
+  static final class Cost {
+    /** The cost of a check that is as fast as the median check, and doesn't allocate. */
+    static final Cost MEDIAN = new Cost(1, 0);
+
+    /** The time per node, relative to the median check. */
+    final double relativeTime;
+
+    /** The bytes allocated per node. */
+    final double bytesPerCall;
+
+    Cost(double relativeTime, double bytesPerCall) {
+      this.relativeTime = relativeTime;
+      this.bytesPerCall = bytesPerCall;
+    }
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.benchmarks;
+
+import com.google.errorprone.CodeTransformer;
+import com.google.errorprone.scanner.BuiltInCheckerSuppliers;
+import com.google.errorprone.scanner.ScannerSupplier;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how fast individual checks scan the {@link Corpus} in isolation.
+ *
+ * <p>The default parameters are a sample of checks that exercise different parts of the API; any
+ * built-in check can be measured by name with e.g. {@code -p check=ReturnValueIgnored,GuardedBy}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@State(Scope.Benchmark)
+public class CheckerBenchmark {
+
+  @Param({
+    "CheckReturnValue",
+    "FormatString",
+    "GuardedBy",
+    "Immutable",
+    "MissingOverride",
+    "NullableDereference",
+    "ReferenceEquality",
+    "ReturnValueIgnored",
+    "Unused",
+  })
+  public String check;
+
+  private CodeTransformer transformer;
+
+  @Setup(Level.Trial)
+  public void setUp(CorpusState state) {
+    ScannerSupplier scannerSupplier =
+        BuiltInCheckerSuppliers.allChecks().filter(info -> info.canonicalName().equals(check));
+    if (scannerSupplier.getEnabledChecks().isEmpty()) {
+      throw new IllegalArgumentException("No such check: " + check);
+    }
+    transformer = ScannerBenchmark.transformer(scannerSupplier, state.corpus);
+  }
+
+  @Benchmark
+  public int scan(CorpusState state, ScanCounters.Nodes nodes, ScanCounters.Allocation allocation) {
+    return ScanCounters.record(
+        state.corpus, nodes, allocation, () -> state.corpus.scan(transformer));
+  }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.benchmarks;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
+import com.google.errorprone.BaseErrorProneJavaCompiler;
+import com.google.errorprone.CodeTransformer;
+import com.google.errorprone.DescriptionListener;
+import com.google.errorprone.ErrorProneOptions;
+import com.google.errorprone.SubContext;
+import com.google.errorprone.util.SymbolQueryCache;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreeScanner;
+import com.sun.tools.javac.api.JavacTaskImpl;
+import com.sun.tools.javac.api.JavacTool;
+import com.sun.tools.javac.file.JavacFileManager;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Log;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+
+/**
+ * A fixed corpus of Java sources, parsed and attributed once, so that benchmarks only measure the
+ * cost of scanning it.
+ *
+ * <p>The corpus is a small set of sources written for the benchmarks, checked in under {@code
+ * src/main/resources/corpus}. It only depends on the JDK, so results are comparable between
+ * revisions: changing Error Prone doesn't change the code the benchmarks scan.
+ */
+final class Corpus {
+
+  private static final String CORPUS_DIR = "/corpus";
+
+  private final Context context;
+  private final ImmutableList<CompilationUnitTree> units;
+  private final ImmutableMap<String, CompilationUnitTree> additionalUnits;
+  private final int nodeCount;
+
+  private Corpus(
+      Context context,
+      ImmutableList<CompilationUnitTree> units,
+      ImmutableMap<String, CompilationUnitTree> additionalUnits) {
+    this.context = context;
+    this.units = units;
+    this.additionalUnits = additionalUnits;
+    this.nodeCount = units.stream().mapToInt(Corpus::countNodes).sum();
+  }
+
+  /**
+   * Parses and attributes the corpus, together with the given additional sources (which are not
+   * part of {@link #units}, but can be retrieved with {@link #additionalUnit}).
+   *
+   * @throws IllegalStateException if the sources do not compile
+   */
+  static Corpus load(JavaFileObject... additionalSources) {
+    ImmutableList<JavaFileObject> corpus = readCorpus();
+    JavacTool tool = JavacTool.create();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    JavacFileManager fileManager = tool.getStandardFileManager(diagnostics, null, UTF_8);
+    JavacTaskImpl task =
+        (JavacTaskImpl)
+            tool.getTask(
+                null,
+                fileManager,
+                diagnostics,
+                ImmutableList.of("-proc:none", "-Xlint:-options", "-source", "8", "-target", "8"),
+                null,
+                ImmutableList.<JavaFileObject>builder()
+                    .addAll(corpus)
+                    .add(additionalSources)
+                    .build());
+    Context context = task.getContext();
+    BaseErrorProneJavaCompiler.setupMessageBundle(context);
+    // javac wraps the file objects it is given, so they are told apart by name.
+    ImmutableSet<String> corpusNames =
+        corpus.stream().map(JavaFileObject::getName).collect(toImmutableSet());
+    ImmutableList.Builder<CompilationUnitTree> units = ImmutableList.builder();
+    ImmutableMap.Builder<String, CompilationUnitTree> additionalUnits = ImmutableMap.builder();
+    for (CompilationUnitTree unit : task.parse()) {
+      if (corpusNames.contains(unit.getSourceFile().getName())) {
+        units.add(unit);
+      } else {
+        additionalUnits.put(unit.getSourceFile().getName(), unit);
+      }
+    }
+    task.analyze();
+    List<Diagnostic<? extends JavaFileObject>> errors =
+        diagnostics.getDiagnostics().stream()
+            .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+            .collect(toImmutableList());
+    if (!errors.isEmpty()) {
+      throw new IllegalStateException("Corpus failed to compile: " + errors);
+    }
+    Corpus result = new Corpus(context, units.build(), additionalUnits.build());
+    checkState(!result.units.isEmpty(), "The corpus is empty");
+    return result;
+  }
+
+  /** The context of the compilation that attributed the corpus. */
+  Context context() {
+    return context;
+  }
+
+  /** The attributed compilation units of the corpus. */
+  ImmutableList<CompilationUnitTree> units() {
+    return units;
+  }
+
+  /** Returns the compilation unit of the additional source with the given name. */
+  CompilationUnitTree additionalUnit(String name) {
+    return additionalUnits.get(name);
+  }
+
+  /** The number of tree nodes in the corpus. */
+  int nodeCount() {
+    return nodeCount;
+  }
+
+  /**
+   * Applies {@code transformer} to every compilation unit of the corpus, the same way {@link
+   * com.google.errorprone.ErrorProneAnalyzer} does during a compilation, and returns the number of
+   * descriptions reported.
+   */
+  int scan(CodeTransformer transformer) {
+    return scan(transformer, newCompilationContext());
+  }
+
+  /**
+   * Returns a context with fresh compilation-wide caches, as a new compilation would have. It can
+   * be passed to {@link #scan(CodeTransformer, Context)}, e.g. after registering {@link
+   * com.google.errorprone.ErrorProneTimings} in it.
+   */
+  Context newCompilationContext() {
+    Context compilationContext = new SubContext(context);
+    SymbolQueryCache.instance(compilationContext);
+    return compilationContext;
+  }
+
+  /** Like {@link #scan(CodeTransformer)}, but in the given compilation context. */
+  int scan(CodeTransformer transformer, Context compilationContext) {
+    Log log = Log.instance(context);
+    int[] descriptions = {0};
+    DescriptionListener listener = d -> descriptions[0]++;
+    for (CompilationUnitTree unit : units) {
+      Context subContext = new SubContext(compilationContext);
+      subContext.put(ErrorProneOptions.class, ErrorProneOptions.empty());
+      JavaFileObject originalSource = log.useSource(unit.getSourceFile());
+      try {
+        transformer.apply(new TreePath(unit), subContext, listener);
+      } finally {
+        log.useSource(originalSource);
+      }
+    }
+    return descriptions[0];
+  }
+
+  private static int countNodes(Tree tree) {
+    int[] count = {0};
+    new TreeScanner<Void, Void>() {
+      @Override
+      public Void scan(Tree tree, Void unused) {
+        if (tree != null) {
+          count[0]++;
+        }
+        return super.scan(tree, null);
+      }
+    }.scan(tree, null);
+    return count[0];
+  }
+
+  private static ImmutableList<JavaFileObject> readCorpus() {
+    try {
+      URI root = Corpus.class.getResource(CORPUS_DIR).toURI();
+      if (root.getScheme().equals("jar")) {
+        try (FileSystem jar = FileSystems.newFileSystem(root, ImmutableMap.of())) {
+          return readSources(jar.getPath(CORPUS_DIR));
+        }
+      }
+      return readSources(Paths.get(root));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (URISyntaxException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static ImmutableList<JavaFileObject> readSources(Path root) throws IOException {
+    ImmutableList.Builder<JavaFileObject> sources = ImmutableList.builder();
+    List<Path> paths;
+    try (Stream<Path> files = Files.walk(root)) {
+      paths = files.filter(p -> p.toString().endsWith(".java")).sorted().collect(toImmutableList());
+    }
+    for (Path path : paths) {
+      String name = root.relativize(path).toString().replace('\\', '/');
+      sources.add(source(name, new String(Files.readAllBytes(path), UTF_8)));
+    }
+    return sources.build();
+  }
+
+  /** Returns an in-memory source file with the given (relative) path and content. */
+  static JavaFileObject source(String name, String content) {
+    return new SimpleJavaFileObject(URI.create("string:///" + name), JavaFileObject.Kind.SOURCE) {
+      @Override
+      public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+        return content;
+      }
+    };
+  }
+
+  /** Returns an in-memory source file with the content of the given class path resource. */
+  static JavaFileObject resource(String resourceName) {
+    try (InputStream in = Corpus.class.getResourceAsStream(resourceName)) {
+      if (in == null) {
+        throw new IllegalArgumentException("No such resource: " + resourceName);
+      }
+      return source(resourceName.substring(1), new String(ByteStreams.toByteArray(in), UTF_8));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
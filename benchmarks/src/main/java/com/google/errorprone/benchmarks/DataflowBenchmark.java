@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.SubContext;
+import com.google.errorprone.dataflow.DataFlow;
+import com.google.errorprone.dataflow.nullnesspropagation.NullnessAnalysis;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import com.sun.tools.javac.util.Context;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the default dataflow driver, which runs Error Prone's {@code DenseAnalysis} on small
+ * methods without loops, with the checker framework's {@code Analysis}, by computing the nullness
+ * of every method argument in the {@link Corpus}. Each operation starts from empty caches, so it builds the control flow graph of and
+ * analyzes every method once.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@State(Scope.Benchmark)
+public class DataflowBenchmark {
+
+  private CorpusState corpusState;
+  private ImmutableList<TreePath> arguments;
+
+  @Setup(Level.Trial)
+  public void setUp(CorpusState state) {
+    corpusState = state;
+    List<TreePath> arguments = new ArrayList<>();
+    for (CompilationUnitTree unit : state.corpus.units()) {
+      new TreePathScanner<Void, Void>() {
+        @Override
+        public Void visitMethodInvocation(MethodInvocationTree tree, Void unused) {
+          for (ExpressionTree argument : tree.getArguments()) {
+            arguments.add(new TreePath(getCurrentPath(), argument));
+          }
+          return super.visitMethodInvocation(tree, null);
+        }
+      }.scan(unit, null);
+    }
+    this.arguments = ImmutableList.copyOf(arguments);
+  }
+
+  @Benchmark
+  public void defaultAnalysis(Blackhole bh) {
+    nullness(new SubContext(corpusState.corpus.context()), bh);
+  }
+
+  @Benchmark
+  public void checkerFrameworkAnalysis(Blackhole bh) {
+    Context context = new SubContext(corpusState.corpus.context());
+    DataFlow.useCheckerFrameworkAnalysis(context);
+    nullness(context, bh);
+  }
+
+  private void nullness(Context context, Blackhole bh) {
+    NullnessAnalysis nullnessAnalysis = NullnessAnalysis.instance(context);
+    for (TreePath argument : arguments) {
+      bh.consume(nullnessAnalysis.getNullness(argument, context));
+    }
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.benchmarks;
+
+import com.google.common.collect.Iterables;
+import com.google.errorprone.CodeTransformer;
+import com.google.errorprone.refaster.RefasterRuleBuilderScanner;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures how fast a Refaster rule is unified against the {@link Corpus}. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@State(Scope.Benchmark)
+public class RefasterBenchmark {
+
+  private static final String TEMPLATE = "/com/google/errorprone/benchmarks/StringIsEmpty.java";
+
+  private Corpus corpus;
+  private CodeTransformer rule;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    corpus = Corpus.load(Corpus.resource(TEMPLATE));
+    CompilationUnitTree template = corpus.additionalUnit(TEMPLATE);
+    ClassTree templateClass = (ClassTree) Iterables.getOnlyElement(template.getTypeDecls());
+    rule =
+        Iterables.getOnlyElement(
+            RefasterRuleBuilderScanner.extractRules(templateClass, corpus.context()));
+  }
+
+  @Benchmark
+  public int unify(ScanCounters.Nodes nodes, ScanCounters.Allocation allocation) {
+    return ScanCounters.record(corpus, nodes, allocation, () -> corpus.scan(rule));
+  }
+}
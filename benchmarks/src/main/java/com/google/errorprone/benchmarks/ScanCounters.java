@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.benchmarks;
+
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.function.IntSupplier;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Secondary results for benchmarks that scan the {@link Corpus}: the scanning throughput in tree
+ * nodes per second, and the bytes allocated per scanned node.
+ */
+public final class ScanCounters {
+
+  private ScanCounters() {}
+
+  /** Reported by JMH as a rate, in nodes per unit of time. */
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Nodes {
+    public long nodes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      nodes = 0;
+    }
+  }
+
+  /** Reported by JMH as-is, for each iteration. */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Allocation {
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private long bytes;
+    private long nodes;
+    private long start;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      bytes = 0;
+      nodes = 0;
+    }
+
+    void start() {
+      start = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    void stop(int scannedNodes) {
+      bytes += THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) - start;
+      nodes += scannedNodes;
+    }
+
+    public double bytesPerNode() {
+      return nodes == 0 ? 0 : (double) bytes / nodes;
+    }
+  }
+
+  /**
+   * Scans the corpus with {@code scan}, recording the nodes scanned and the bytes allocated, and
+   * returns the result of {@code scan} so that it can be consumed by JMH.
+   */
+  static int record(Corpus corpus, Nodes nodes, Allocation allocation, IntSupplier scan) {
+    allocation.start();
+    int result = scan.getAsInt();
+    allocation.stop(corpus.nodeCount());
+    nodes.nodes += corpus.nodeCount();
+    return result;
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.benchmarks;
+
+import com.google.errorprone.CodeTransformer;
+import com.google.errorprone.scanner.BuiltInCheckerSuppliers;
+import com.google.errorprone.scanner.ErrorProneScannerTransformer;
+import com.google.errorprone.scanner.ScannerSupplier;
+import com.sun.tools.javac.model.JavacElements;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures how fast the default set of checks scans the {@link Corpus}. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 10)
+@Measurement(iterations = 5, time = 10)
+@State(Scope.Benchmark)
+public class ScannerBenchmark {
+
+  private CodeTransformer transformer;
+
+  @Setup(Level.Trial)
+  public void setUp(CorpusState state) {
+    transformer = transformer(BuiltInCheckerSuppliers.defaultChecks(), state.corpus);
+  }
+
+  @Benchmark
+  public int defaultChecks(
+      CorpusState state, ScanCounters.Nodes nodes, ScanCounters.Allocation allocation) {
+    return ScanCounters.record(
+        state.corpus, nodes, allocation, () -> state.corpus.scan(transformer));
+  }
+
+  /**
+   * Returns a transformer that runs the enabled checks of {@code scannerSupplier} whose required
+   * types are available to the corpus, as {@link com.google.errorprone.ErrorProneAnalyzer} would.
+   */
+  static CodeTransformer transformer(ScannerSupplier scannerSupplier, Corpus corpus) {
+    JavacElements elements = JavacElements.instance(corpus.context());
+    return ErrorProneScannerTransformer.create(
+        scannerSupplier
+            .disableChecksWithMissingTypes(name -> elements.getTypeElement(name) != null)
+            .get());
+  }
+}
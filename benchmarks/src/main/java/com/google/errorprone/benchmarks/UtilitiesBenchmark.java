@@ -0,0 +1,236 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.benchmarks;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.errorprone.SubContext;
+import com.google.errorprone.SuppressionHelper;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.fixes.Replacement;
+import com.google.errorprone.fixes.Replacements;
+import com.google.errorprone.names.LevenshteinEditDistance;
+import com.google.errorprone.names.NeedlemanWunschEditDistance;
+import com.google.errorprone.names.TermEditDistance;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreeScanner;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
+import com.sun.tools.javac.tree.EndPosTable;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the utilities that many checks call on hot paths, with inputs taken from the {@link
+ * Corpus}. Each operation processes all of the inputs once.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@State(Scope.Benchmark)
+public class UtilitiesBenchmark {
+
+  private static final String NULLABLE = "javax.annotation.Nullable";
+
+  private CorpusState corpusState;
+  private ImmutableList<Tree> trees;
+  private ImmutableList<Symbol> declarations;
+  private ImmutableList<MethodSymbol> methods;
+  private ImmutableList<String> names;
+  private ImmutableList<ImmutableList<Replacement>> replacements;
+  private final SuppressionHelper suppressionHelper = new SuppressionHelper(ImmutableSet.of());
+  private final TermEditDistance termEditDistance = new TermEditDistance();
+
+  @Setup(Level.Trial)
+  public void setUp(CorpusState state) {
+    corpusState = state;
+    List<Tree> trees = new ArrayList<>();
+    TreeSet<String> names = new TreeSet<>();
+    List<ImmutableList<Replacement>> replacements = new ArrayList<>();
+    Random random = new Random(0);
+    for (CompilationUnitTree unit : state.corpus.units()) {
+      EndPosTable endPositions = ((JCCompilationUnit) unit).endPositions;
+      List<Replacement> unitReplacements = new ArrayList<>();
+      new TreeScanner<Void, Void>() {
+        @Override
+        public Void scan(Tree tree, Void unused) {
+          if (tree != null) {
+            trees.add(tree);
+          }
+          return super.scan(tree, null);
+        }
+
+        @Override
+        public Void visitIdentifier(IdentifierTree tree, Void unused) {
+          names.add(tree.getName().toString());
+          JCTree ident = (JCTree) tree;
+          int start = ident.getStartPosition();
+          int end = ident.getEndPosition(endPositions);
+          if (start >= 0 && end > start) {
+            unitReplacements.add(Replacement.create(start, end, tree.getName() + "_"));
+          }
+          return super.visitIdentifier(tree, null);
+        }
+      }.scan(unit, null);
+      // Replacements are usually added out of order, as checks report findings.
+      Collections.shuffle(unitReplacements, random);
+      replacements.add(ImmutableList.copyOf(unitReplacements));
+    }
+    this.trees = ImmutableList.copyOf(trees);
+    this.declarations =
+        trees.stream()
+            .map(ASTHelpers::getDeclaredSymbol)
+            .filter(s -> s != null)
+            .collect(toImmutableList());
+    this.methods =
+        declarations.stream()
+            .filter(MethodSymbol.class::isInstance)
+            .map(MethodSymbol.class::cast)
+            .collect(toImmutableList());
+    this.names = ImmutableList.copyOf(names);
+    this.replacements = ImmutableList.copyOf(replacements);
+  }
+
+  /** Returns a visitor state with fresh compilation-wide caches. */
+  private VisitorState newState() {
+    return new VisitorState(new SubContext(corpusState.corpus.context()));
+  }
+
+  @Benchmark
+  public void getSymbol(Blackhole bh) {
+    for (Tree tree : trees) {
+      bh.consume(ASTHelpers.getSymbol(tree));
+    }
+  }
+
+  @Benchmark
+  public void getType(Blackhole bh) {
+    for (Tree tree : trees) {
+      bh.consume(ASTHelpers.getType(tree));
+    }
+  }
+
+  @Benchmark
+  public void hasAnnotation(Blackhole bh) {
+    VisitorState state = newState();
+    for (Symbol sym : declarations) {
+      bh.consume(ASTHelpers.hasAnnotation(sym, NULLABLE, state));
+    }
+  }
+
+  @Benchmark
+  public void findSuperMethods(Blackhole bh) {
+    VisitorState state = newState();
+    for (MethodSymbol sym : methods) {
+      bh.consume(ASTHelpers.findSuperMethods(sym, state));
+    }
+  }
+
+  @Benchmark
+  public void extendSuppressionSets(Blackhole bh) {
+    VisitorState state = newState();
+    for (Symbol sym : declarations) {
+      bh.consume(
+          suppressionHelper.extendSuppressionSets(
+              sym,
+              state.getSymtab().suppressWarningsType,
+              ImmutableSet.of(),
+              ImmutableSet.of(),
+              /* inGeneratedCode= */ false,
+              state));
+    }
+  }
+
+  @Benchmark
+  public void levenshteinEditDistance(Blackhole bh) {
+    for (int i = 1; i < names.size(); i++) {
+      bh.consume(
+          LevenshteinEditDistance.getEditDistance(
+              names.get(i - 1), names.get(i), /* caseSensitive= */ false));
+    }
+  }
+
+  /** As {@link #levenshteinEditDistance}, but only interested in close matches. */
+  @Benchmark
+  public void boundedLevenshteinEditDistance(Blackhole bh) {
+    for (int i = 1; i < names.size(); i++) {
+      bh.consume(
+          LevenshteinEditDistance.getEditDistance(
+              names.get(i - 1),
+              names.get(i),
+              /* caseSensitive= */ false,
+              /* maxDistance= */ 4));
+    }
+  }
+
+  @Benchmark
+  public void needlemanWunschEditDistance(Blackhole bh) {
+    for (int i = 1; i < names.size(); i++) {
+      bh.consume(
+          NeedlemanWunschEditDistance.getNormalizedEditDistance(
+              names.get(i - 1),
+              names.get(i),
+              /* caseSensitive= */ false,
+              /* changeCost= */ 8,
+              /* openGapCost= */ 8,
+              /* continueGapCost= */ 1));
+    }
+  }
+
+  @Benchmark
+  public void termEditDistance(Blackhole bh) {
+    for (int i = 1; i < names.size(); i++) {
+      bh.consume(termEditDistance.getNormalizedEditDistance(names.get(i - 1), names.get(i)));
+    }
+  }
+
+  @Benchmark
+  public void replacements(Blackhole bh) {
+    for (ImmutableList<Replacement> unitReplacements : replacements) {
+      Replacements result = new Replacements();
+      for (Replacement replacement : unitReplacements) {
+        result.add(replacement);
+      }
+      bh.consume(result.descending());
+    }
+  }
+}
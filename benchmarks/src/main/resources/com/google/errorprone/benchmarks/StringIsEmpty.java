@@ -0,0 +1,41 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.benchmarks;
+
+import com.google.errorprone.refaster.annotation.AfterTemplate;
+import com.google.errorprone.refaster.annotation.BeforeTemplate;
+
+/**
+ * The Refaster rule used by {@code RefasterBenchmark}. Its templates are unified against every
+ * expression in the corpus.
+ */
+class StringIsEmpty {
+  @BeforeTemplate
+  boolean lengthIsZero(String s) {
+    return s.length() == 0;
+  }
+
+  @BeforeTemplate
+  boolean equalsEmptyString(String s) {
+    return s.equals("");
+  }
+
+  @AfterTemplate
+  boolean isEmpty(String s) {
+    return s.isEmpty();
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package corpus;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/** A small event bus, and a parser for a line-based event log. */
+public final class Events {
+
+  /** The severity of an event. */
+  public enum Level {
+    DEBUG {
+      @Override
+      boolean isProblem() {
+        return false;
+      }
+    },
+    INFO {
+      @Override
+      boolean isProblem() {
+        return false;
+      }
+    },
+    WARNING {
+      @Override
+      boolean isProblem() {
+        return true;
+      }
+    },
+    ERROR {
+      @Override
+      boolean isProblem() {
+        return true;
+      }
+    };
+
+    abstract boolean isProblem();
+
+    static Level parse(String name) {
+      return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+  }
+
+  /** Something that happened. */
+  public abstract static class Event {
+    private final Instant time;
+    private final Level level;
+
+    protected Event(Instant time, Level level) {
+      this.time = time;
+      this.level = level;
+    }
+
+    public Instant time() {
+      return time;
+    }
+
+    public Level level() {
+      return level;
+    }
+
+    public abstract String describe();
+  }
+
+  /** An event with a free-form message. */
+  public static final class Message extends Event {
+    private final String text;
+
+    public Message(Instant time, Level level, String text) {
+      super(time, level);
+      this.text = text;
+    }
+
+    @Override
+    public String describe() {
+      return text;
+    }
+  }
+
+  /** An event that records how long an operation took. */
+  public static final class Timing extends Event {
+    private final String operation;
+    private final Duration duration;
+
+    public Timing(Instant time, String operation, Duration duration) {
+      super(time, duration.compareTo(Duration.ofSeconds(1)) > 0 ? Level.WARNING : Level.DEBUG);
+      this.operation = operation;
+      this.duration = duration;
+    }
+
+    @Override
+    public String describe() {
+      return operation + " took " + duration.toMillis() + "ms";
+    }
+  }
+
+  /** Receives events. */
+  public interface Listener {
+    void onEvent(Event event);
+
+    /** Returns a listener that only passes on events at or above {@code level}. */
+    default Listener atLeast(Level level) {
+      Listener delegate = this;
+      return new Listener() {
+        @Override
+        public void onEvent(Event event) {
+          if (event.level().compareTo(level) >= 0) {
+            delegate.onEvent(event);
+          }
+        }
+      };
+    }
+  }
+
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+  private final List<Event> problems = Collections.synchronizedList(new ArrayList<>());
+
+  public void register(Listener... newListeners) {
+    listeners.addAll(Arrays.asList(newListeners));
+  }
+
+  public void unregister(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  public void post(Event event) {
+    if (event.level().isProblem()) {
+      problems.add(event);
+    }
+    for (Listener listener : listeners) {
+      try {
+        listener.onEvent(event);
+      } catch (RuntimeException e) {
+        if (!(event instanceof Message) || event.level() != Level.ERROR) {
+          post(
+              new Message(
+                  Instant.now(), Level.ERROR, "listener failed on " + event.describe() + ": " + e));
+        }
+      }
+    }
+  }
+
+  public List<Event> problems() {
+    synchronized (problems) {
+      return new ArrayList<>(problems);
+    }
+  }
+
+  /**
+   * Parses a log with one event per line, e.g. {@code 2018-01-01T00:00:00Z WARNING disk full} or
+   * {@code 2018-01-01T00:00:00Z TIMING compile 1500}.
+   */
+  public static List<Event> parse(Reader log) {
+    List<Event> events = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(log)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.length() == 0 || line.charAt(0) == '#') {
+          continue;
+        }
+        String[] fields = line.split(" ", 3);
+        if (fields.length < 3) {
+          throw new IllegalArgumentException("malformed line: " + line);
+        }
+        Instant time = Instant.parse(fields[0]);
+        if (fields[1].equals("TIMING")) {
+          int space = fields[2].lastIndexOf(' ');
+          String operation = space < 0 ? fields[2] : fields[2].substring(0, space);
+          long millis = space < 0 ? 0 : Long.parseLong(fields[2].substring(space + 1));
+          events.add(new Timing(time, operation, Duration.ofMillis(millis)));
+        } else {
+          events.add(new Message(time, Level.parse(fields[1]), fields[2]));
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return events;
+  }
+
+  public static List<Event> parse(String log) {
+    return parse(new StringReader(log));
+  }
+
+  /** Summarizes events: the number at each level, and the slowest timing. */
+  public static String summarize(List<? extends Event> events) {
+    int[] counts = new int[Level.values().length];
+    Timing slowest = null;
+    for (Event event : events) {
+      counts[event.level().ordinal()]++;
+      if (event instanceof Timing) {
+        Timing timing = (Timing) event;
+        if (slowest == null || timing.duration.compareTo(slowest.duration) > 0) {
+          slowest = timing;
+        }
+      }
+    }
+    StringBuilder sb = new StringBuilder();
+    for (Level level : Level.values()) {
+      if (counts[level.ordinal()] > 0) {
+        if (sb.length() > 0) {
+          sb.append(", ");
+        }
+        sb.append(counts[level.ordinal()])
+            .append(' ')
+            .append(level.name().toLowerCase(Locale.ROOT));
+      }
+    }
+    if (slowest != null) {
+      sb.append("; slowest: ").append(slowest.describe());
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package corpus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/** A directed graph with weighted edges, and the usual algorithms on it. */
+public class Graph<N> {
+
+  /** An edge to a node, with a weight. */
+  public static final class Edge<N> {
+    private final N target;
+    private final double weight;
+
+    Edge(N target, double weight) {
+      this.target = target;
+      this.weight = weight;
+    }
+
+    public N target() {
+      return target;
+    }
+
+    public double weight() {
+      return weight;
+    }
+  }
+
+  private final Map<N, List<Edge<N>>> edges = new LinkedHashMap<>();
+
+  public void addNode(N node) {
+    edges.computeIfAbsent(node, n -> new ArrayList<>());
+  }
+
+  public void addEdge(N source, N target, double weight) {
+    if (weight < 0) {
+      throw new IllegalArgumentException("negative weight " + weight);
+    }
+    addNode(target);
+    edges.computeIfAbsent(source, n -> new ArrayList<>()).add(new Edge<>(target, weight));
+  }
+
+  public Set<N> nodes() {
+    return Collections.unmodifiableSet(edges.keySet());
+  }
+
+  public List<Edge<N>> successors(N node) {
+    List<Edge<N>> result = edges.get(node);
+    return result == null ? Collections.<Edge<N>>emptyList() : result;
+  }
+
+  /** Visits the nodes reachable from {@code start} in breadth-first order. */
+  public void breadthFirst(N start, Consumer<? super N> visitor) {
+    Set<N> seen = new HashSet<>();
+    Deque<N> queue = new ArrayDeque<>();
+    seen.add(start);
+    queue.add(start);
+    while (!queue.isEmpty()) {
+      N node = queue.poll();
+      visitor.accept(node);
+      for (Edge<N> edge : successors(node)) {
+        if (seen.add(edge.target())) {
+          queue.add(edge.target());
+        }
+      }
+    }
+  }
+
+  /** Returns the nodes in topological order, or throws if the graph has a cycle. */
+  public List<N> topologicalOrder() {
+    Map<N, Integer> inDegree = new HashMap<>();
+    for (N node : edges.keySet()) {
+      inDegree.putIfAbsent(node, 0);
+      for (Edge<N> edge : edges.get(node)) {
+        inDegree.merge(edge.target(), 1, Integer::sum);
+      }
+    }
+    Deque<N> ready = new ArrayDeque<>();
+    for (Map.Entry<N, Integer> entry : inDegree.entrySet()) {
+      if (entry.getValue() == 0) {
+        ready.add(entry.getKey());
+      }
+    }
+    List<N> order = new ArrayList<>();
+    while (!ready.isEmpty()) {
+      N node = ready.poll();
+      order.add(node);
+      for (Edge<N> edge : successors(node)) {
+        int remaining = inDegree.merge(edge.target(), -1, Integer::sum);
+        if (remaining == 0) {
+          ready.add(edge.target());
+        }
+      }
+    }
+    if (order.size() != edges.size()) {
+      throw new IllegalStateException("the graph has a cycle");
+    }
+    return order;
+  }
+
+  /** Returns the strongly connected components, with Tarjan's algorithm. */
+  public List<Set<N>> components() {
+    Tarjan tarjan = new Tarjan();
+    for (N node : edges.keySet()) {
+      if (!tarjan.index.containsKey(node)) {
+        tarjan.visit(node);
+      }
+    }
+    return tarjan.components;
+  }
+
+  private final class Tarjan {
+    final Map<N, Integer> index = new HashMap<>();
+    final Map<N, Integer> lowLink = new HashMap<>();
+    final Deque<N> stack = new ArrayDeque<>();
+    final Set<N> onStack = new HashSet<>();
+    final List<Set<N>> components = new ArrayList<>();
+    int next = 0;
+
+    void visit(N node) {
+      index.put(node, next);
+      lowLink.put(node, next);
+      next++;
+      stack.push(node);
+      onStack.add(node);
+      for (Edge<N> edge : successors(node)) {
+        N target = edge.target();
+        if (!index.containsKey(target)) {
+          visit(target);
+          lowLink.put(node, Math.min(lowLink.get(node), lowLink.get(target)));
+        } else if (onStack.contains(target)) {
+          lowLink.put(node, Math.min(lowLink.get(node), index.get(target)));
+        }
+      }
+      if (lowLink.get(node).equals(index.get(node))) {
+        Set<N> component = new LinkedHashSet<>();
+        N member;
+        do {
+          member = stack.pop();
+          onStack.remove(member);
+          component.add(member);
+        } while (!member.equals(node));
+        components.add(component);
+      }
+    }
+  }
+
+  /** The shortest distances from a node, and the paths that achieve them. */
+  public static final class ShortestPaths<N> {
+    private final Map<N, Double> distance;
+    private final Map<N, N> previous;
+
+    ShortestPaths(Map<N, Double> distance, Map<N, N> previous) {
+      this.distance = distance;
+      this.previous = previous;
+    }
+
+    public double distanceTo(N node) {
+      Double d = distance.get(node);
+      return d == null ? Double.POSITIVE_INFINITY : d;
+    }
+
+    public List<N> pathTo(N node) {
+      if (!distance.containsKey(node)) {
+        return Collections.emptyList();
+      }
+      List<N> path = new ArrayList<>();
+      for (N n = node; n != null; n = previous.get(n)) {
+        path.add(n);
+      }
+      Collections.reverse(path);
+      return path;
+    }
+  }
+
+  /** Runs Dijkstra's algorithm from {@code source}. */
+  public ShortestPaths<N> shortestPaths(N source) {
+    Map<N, Double> distance = new HashMap<>();
+    Map<N, N> previous = new HashMap<>();
+    PriorityQueue<Map.Entry<N, Double>> queue =
+        new PriorityQueue<>((a, b) -> Double.compare(a.getValue(), b.getValue()));
+    distance.put(source, 0.0);
+    queue.add(new java.util.AbstractMap.SimpleImmutableEntry<>(source, 0.0));
+    Set<N> done = new HashSet<>();
+    while (!queue.isEmpty()) {
+      Map.Entry<N, Double> head = queue.poll();
+      N node = head.getKey();
+      if (!done.add(node)) {
+        continue;
+      }
+      for (Edge<N> edge : successors(node)) {
+        double candidate = head.getValue() + edge.weight();
+        Double current = distance.get(edge.target());
+        if (current == null || candidate < current) {
+          distance.put(edge.target(), candidate);
+          previous.put(edge.target(), node);
+          queue.add(new java.util.AbstractMap.SimpleImmutableEntry<>(edge.target(), candidate));
+        }
+      }
+    }
+    return new ShortestPaths<>(distance, previous);
+  }
+
+  /** Returns the subgraph induced by {@code nodes}. */
+  public Graph<N> subgraph(Collection<? extends N> nodes) {
+    Set<N> keep = new HashSet<>(nodes);
+    Graph<N> result = new Graph<>();
+    for (N node : edges.keySet()) {
+      if (!keep.contains(node)) {
+        continue;
+      }
+      result.addNode(node);
+      for (Edge<N> edge : edges.get(node)) {
+        if (keep.contains(edge.target())) {
+          result.addEdge(node, edge.target(), edge.weight());
+        }
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    String separator = "";
+    for (Map.Entry<N, List<Edge<N>>> entry : edges.entrySet()) {
+      for (Edge<N> edge : entry.getValue()) {
+        sb.append(separator)
+            .append(entry.getKey())
+            .append(" -> ")
+            .append(edge.target())
+            .append(" (")
+            .append(edge.weight())
+            .append(')');
+        separator = ", ";
+      }
+    }
+    return sb.append('}').toString();
+  }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package corpus;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/** The stock of a warehouse: items, their quantities, and the orders that change them. */
+public final class Inventory {
+
+  /** The category of an item, which decides how it is taxed and stored. */
+  public enum Category {
+    FOOD(new BigDecimal("0.07")),
+    CLOTHING(new BigDecimal("0.19")),
+    ELECTRONICS(new BigDecimal("0.19")),
+    BOOKS(BigDecimal.ZERO);
+
+    private final BigDecimal taxRate;
+
+    Category(BigDecimal taxRate) {
+      this.taxRate = taxRate;
+    }
+
+    BigDecimal tax(BigDecimal price) {
+      return price.multiply(taxRate).setScale(2, RoundingMode.HALF_UP);
+    }
+  }
+
+  /** An item that can be stocked. */
+  public static final class Item {
+    private final String sku;
+    private final String name;
+    private final Category category;
+    private final BigDecimal price;
+    @Nullable private final String description;
+
+    public Item(
+        String sku,
+        String name,
+        Category category,
+        BigDecimal price,
+        @Nullable String description) {
+      this.sku = Objects.requireNonNull(sku);
+      this.name = Objects.requireNonNull(name);
+      this.category = Objects.requireNonNull(category);
+      this.price = Objects.requireNonNull(price);
+      this.description = description;
+    }
+
+    public String sku() {
+      return sku;
+    }
+
+    public String name() {
+      return name;
+    }
+
+    public Category category() {
+      return category;
+    }
+
+    public BigDecimal price() {
+      return price;
+    }
+
+    public BigDecimal priceWithTax() {
+      return price.add(category.tax(price));
+    }
+
+    public Optional<String> description() {
+      return Optional.ofNullable(description);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Item)) {
+        return false;
+      }
+      Item that = (Item) o;
+      return sku.equals(that.sku)
+          && name.equals(that.name)
+          && category == that.category
+          && price.compareTo(that.price) == 0
+          && Objects.equals(description, that.description);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(sku, name, category, price.stripTrailingZeros(), description);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s (%s, %s)", name, sku, category.name().toLowerCase());
+    }
+  }
+
+  /** A change to the stock of one item. */
+  public static final class Order {
+    private final String sku;
+    private final int quantity;
+
+    public Order(String sku, int quantity) {
+      if (quantity == 0) {
+        throw new IllegalArgumentException("empty order for " + sku);
+      }
+      this.sku = sku;
+      this.quantity = quantity;
+    }
+
+    public String sku() {
+      return sku;
+    }
+
+    public int quantity() {
+      return quantity;
+    }
+
+    public boolean isRestock() {
+      return quantity > 0;
+    }
+  }
+
+  private final Map<String, Item> items = new LinkedHashMap<>();
+  private final Map<String, Integer> stock = new HashMap<>();
+  private final List<Order> history = new ArrayList<>();
+
+  public void add(Item item, int quantity) {
+    Item previous = items.put(item.sku(), item);
+    if (previous != null && !previous.equals(item)) {
+      throw new IllegalStateException("conflicting items for " + item.sku());
+    }
+    stock.merge(item.sku(), quantity, Integer::sum);
+  }
+
+  @Nullable
+  public Item find(String sku) {
+    return items.get(sku);
+  }
+
+  public int quantity(String sku) {
+    Integer quantity = stock.get(sku);
+    return quantity == null ? 0 : quantity;
+  }
+
+  /**
+   * Applies the orders in sequence, and returns the ones that couldn't be applied because there
+   * wasn't enough stock.
+   */
+  public List<Order> apply(List<Order> orders) {
+    List<Order> rejected = new ArrayList<>();
+    for (Order order : orders) {
+      Item item = find(order.sku());
+      if (item == null) {
+        rejected.add(order);
+        continue;
+      }
+      int available = quantity(order.sku());
+      if (!order.isRestock() && available + order.quantity() < 0) {
+        rejected.add(order);
+        continue;
+      }
+      stock.put(order.sku(), available + order.quantity());
+      history.add(order);
+    }
+    return rejected;
+  }
+
+  /** Undoes the most recent orders, newest first, until {@code count} have been undone. */
+  public void undo(int count) {
+    for (int i = 0; i < count && !history.isEmpty(); i++) {
+      Order last = history.remove(history.size() - 1);
+      stock.compute(last.sku(), (sku, quantity) -> quantity - last.quantity());
+    }
+  }
+
+  public BigDecimal totalValue() {
+    BigDecimal total = BigDecimal.ZERO;
+    for (Map.Entry<String, Integer> entry : stock.entrySet()) {
+      Item item = items.get(entry.getKey());
+      total = total.add(item.priceWithTax().multiply(BigDecimal.valueOf(entry.getValue())));
+    }
+    return total;
+  }
+
+  public Map<Category, BigDecimal> valueByCategory() {
+    Map<Category, BigDecimal> result = new EnumMap<>(Category.class);
+    for (Item item : items.values()) {
+      BigDecimal value = item.price().multiply(BigDecimal.valueOf(quantity(item.sku())));
+      result.merge(item.category(), value, BigDecimal::add);
+    }
+    return result;
+  }
+
+  public List<Item> search(String query) {
+    String needle = query.trim().toLowerCase();
+    if (needle.length() == 0) {
+      return Collections.emptyList();
+    }
+    return items.values().stream()
+        .filter(
+            item ->
+                item.name().toLowerCase().contains(needle)
+                    || item.description().map(d -> d.toLowerCase().contains(needle)).orElse(false))
+        .sorted(Comparator.comparing(Item::name).thenComparing(Item::sku))
+        .collect(Collectors.toList());
+  }
+
+  public List<Item> lowStock(int threshold) {
+    return select(item -> quantity(item.sku()) < threshold);
+  }
+
+  public List<Item> select(Predicate<? super Item> predicate) {
+    List<Item> result = new ArrayList<>();
+    for (Iterator<Item> it = items.values().iterator(); it.hasNext(); ) {
+      Item item = it.next();
+      if (predicate.test(item)) {
+        result.add(item);
+      }
+    }
+    return result;
+  }
+
+  public <K extends Comparable<K>> TreeMap<K, List<Item>> groupBy(Function<Item, K> key) {
+    TreeMap<K, List<Item>> groups = new TreeMap<>();
+    for (Item item : items.values()) {
+      groups.computeIfAbsent(key.apply(item), k -> new ArrayList<>()).add(item);
+    }
+    return groups;
+  }
+
+  public String report() {
+    StringBuilder sb = new StringBuilder();
+    for (Map.Entry<Category, List<Item>> group : groupBy(Item::category).entrySet()) {
+      sb.append(group.getKey()).append(":\n");
+      for (Item item : group.getValue()) {
+        String description = item.description().orElse("");
+        sb.append("  ").append(item).append(" x").append(quantity(item.sku()));
+        if (!description.equals("")) {
+          sb.append(" - ").append(description);
+        }
+        sb.append('\n');
+      }
+    }
+    return sb.toString();
+  }
+}
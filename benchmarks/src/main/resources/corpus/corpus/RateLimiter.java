@@ -0,0 +1,198 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package corpus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/** Token-bucket rate limiting per client, with statistics. */
+public final class RateLimiter implements AutoCloseable {
+
+  /** A source of time, so that tests can control it. */
+  public interface Clock {
+    long nanoTime();
+
+    Clock SYSTEM = System::nanoTime;
+  }
+
+  /** A bucket of permits that refills at a fixed rate. */
+  private static final class Bucket {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final double capacity;
+    private final double permitsPerNano;
+    private double permits;
+    private long lastRefill;
+
+    Bucket(double capacity, double permitsPerSecond, long now) {
+      this.capacity = capacity;
+      this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+      this.permits = capacity;
+      this.lastRefill = now;
+    }
+
+    boolean tryAcquire(int count, long now) {
+      lock.lock();
+      try {
+        refill(now);
+        if (permits < count) {
+          return false;
+        }
+        permits -= count;
+        return true;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    long nanosUntilAvailable(int count, long now) {
+      lock.lock();
+      try {
+        refill(now);
+        double missing = count - permits;
+        return missing <= 0 ? 0 : (long) Math.ceil(missing / permitsPerNano);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private void refill(long now) {
+      long elapsed = now - lastRefill;
+      if (elapsed > 0) {
+        permits = Math.min(capacity, permits + elapsed * permitsPerNano);
+        lastRefill = now;
+      }
+    }
+  }
+
+  /** Counts of the decisions made for one client. */
+  public static final class Stats {
+    private final AtomicLong granted = new AtomicLong();
+    private final AtomicLong denied = new AtomicLong();
+
+    public long granted() {
+      return granted.get();
+    }
+
+    public long denied() {
+      return denied.get();
+    }
+
+    public double denialRate() {
+      long total = granted() + denied();
+      return total == 0 ? 0 : (double) denied() / total;
+    }
+  }
+
+  private final Clock clock;
+  private final double capacity;
+  private final double permitsPerSecond;
+  private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+  private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService cleaner;
+  private volatile boolean closed;
+
+  public RateLimiter(double capacity, double permitsPerSecond, Clock clock) {
+    if (capacity <= 0 || permitsPerSecond <= 0) {
+      throw new IllegalArgumentException(
+          String.format("capacity %s and rate %s must be positive", capacity, permitsPerSecond));
+    }
+    this.capacity = capacity;
+    this.permitsPerSecond = permitsPerSecond;
+    this.clock = clock;
+    this.cleaner =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "rate-limiter-cleaner");
+              thread.setDaemon(true);
+              return thread;
+            });
+    cleaner.scheduleAtFixedRate(this::removeIdle, 1, 1, TimeUnit.MINUTES);
+  }
+
+  public boolean tryAcquire(String client) {
+    return tryAcquire(client, 1);
+  }
+
+  public boolean tryAcquire(String client, int permits) {
+    if (closed) {
+      throw new IllegalStateException("closed");
+    }
+    long now = clock.nanoTime();
+    Bucket bucket =
+        buckets.computeIfAbsent(client, c -> new Bucket(capacity, permitsPerSecond, now));
+    boolean granted = bucket.tryAcquire(permits, now);
+    Stats clientStats = stats.computeIfAbsent(client, c -> new Stats());
+    (granted ? clientStats.granted : clientStats.denied).incrementAndGet();
+    return granted;
+  }
+
+  /** Blocks until {@code permits} are available to {@code client}, and acquires them. */
+  public void acquire(String client, int permits) throws InterruptedException {
+    while (!tryAcquire(client, permits)) {
+      Bucket bucket = buckets.get(client);
+      long wait = bucket == null ? 0 : bucket.nanosUntilAvailable(permits, clock.nanoTime());
+      TimeUnit.NANOSECONDS.sleep(Math.max(wait, TimeUnit.MILLISECONDS.toNanos(1)));
+    }
+  }
+
+  @Nullable
+  public Stats stats(String client) {
+    return stats.get(client);
+  }
+
+  /** Returns the clients with the highest denial rates, most denied first. */
+  public List<String> mostDenied(int limit) {
+    List<Map.Entry<String, Stats>> entries = new ArrayList<>(stats.entrySet());
+    Collections.sort(
+        entries,
+        (a, b) -> Double.compare(b.getValue().denialRate(), a.getValue().denialRate()));
+    List<String> result = new ArrayList<>();
+    for (Map.Entry<String, Stats> entry : entries) {
+      if (result.size() == limit) {
+        break;
+      }
+      result.add(entry.getKey());
+    }
+    return result;
+  }
+
+  private void removeIdle() {
+    long now = clock.nanoTime();
+    buckets
+        .entrySet()
+        .removeIf(e -> e.getValue().nanosUntilAvailable((int) capacity, now) == 0);
+  }
+
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+    }
+    cleaner.shutdownNow();
+  }
+}
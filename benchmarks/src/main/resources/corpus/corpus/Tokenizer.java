@@ -0,0 +1,281 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package corpus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Tokenizes and evaluates arithmetic expressions with variables, e.g. {@code 2 * (x + 1)}. */
+public final class Tokenizer {
+
+  /** The kinds of tokens. */
+  public enum Kind {
+    NUMBER,
+    IDENTIFIER,
+    OPERATOR,
+    LEFT_PAREN,
+    RIGHT_PAREN,
+    END
+  }
+
+  /** A token and its position in the input. */
+  public static final class Token {
+    final Kind kind;
+    final String text;
+    final int position;
+
+    Token(Kind kind, String text, int position) {
+      this.kind = kind;
+      this.text = text;
+      this.position = position;
+    }
+
+    @Override
+    public String toString() {
+      return kind == Kind.END ? "<end>" : text;
+    }
+  }
+
+  /** Thrown for malformed input. */
+  public static final class ParseException extends Exception {
+    private final int position;
+
+    ParseException(String message, int position) {
+      super(message + " at position " + position);
+      this.position = position;
+    }
+
+    public int position() {
+      return position;
+    }
+  }
+
+  private final String input;
+  private int pos;
+
+  public Tokenizer(String input) {
+    this.input = input;
+  }
+
+  public List<Token> tokenize() throws ParseException {
+    List<Token> tokens = new ArrayList<>();
+    Token token;
+    do {
+      token = next();
+      tokens.add(token);
+    } while (token.kind != Kind.END);
+    return tokens;
+  }
+
+  private Token next() throws ParseException {
+    while (pos < input.length() && Character.isWhitespace(input.charAt(pos))) {
+      pos++;
+    }
+    if (pos == input.length()) {
+      return new Token(Kind.END, "", pos);
+    }
+    int start = pos;
+    char c = input.charAt(pos);
+    if (Character.isDigit(c) || c == '.') {
+      boolean seenDot = false;
+      while (pos < input.length()) {
+        char d = input.charAt(pos);
+        if (d == '.') {
+          if (seenDot) {
+            throw new ParseException("second decimal point", pos);
+          }
+          seenDot = true;
+        } else if (!Character.isDigit(d)) {
+          break;
+        }
+        pos++;
+      }
+      return new Token(Kind.NUMBER, input.substring(start, pos), start);
+    }
+    if (Character.isJavaIdentifierStart(c)) {
+      while (pos < input.length() && Character.isJavaIdentifierPart(input.charAt(pos))) {
+        pos++;
+      }
+      return new Token(Kind.IDENTIFIER, input.substring(start, pos), start);
+    }
+    pos++;
+    switch (c) {
+      case '+':
+      case '-':
+      case '*':
+      case '/':
+      case '%':
+      case '^':
+        return new Token(Kind.OPERATOR, String.valueOf(c), start);
+      case '(':
+        return new Token(Kind.LEFT_PAREN, "(", start);
+      case ')':
+        return new Token(Kind.RIGHT_PAREN, ")", start);
+      default:
+        throw new ParseException("unexpected character '" + c + "'", start);
+    }
+  }
+
+  private static int precedence(String operator) {
+    switch (operator) {
+      case "+":
+      case "-":
+        return 1;
+      case "*":
+      case "/":
+      case "%":
+        return 2;
+      case "^":
+        return 3;
+      default:
+        throw new AssertionError(operator);
+    }
+  }
+
+  private static boolean isRightAssociative(String operator) {
+    return operator.equals("^");
+  }
+
+  /** Converts the tokens to reverse Polish notation with the shunting-yard algorithm. */
+  public static List<Token> toPostfix(List<Token> tokens) throws ParseException {
+    List<Token> output = new ArrayList<>();
+    Deque<Token> operators = new ArrayDeque<>();
+    for (Token token : tokens) {
+      switch (token.kind) {
+        case NUMBER:
+        case IDENTIFIER:
+          output.add(token);
+          break;
+        case OPERATOR:
+          while (!operators.isEmpty() && operators.peek().kind == Kind.OPERATOR) {
+            String top = operators.peek().text;
+            int difference = precedence(top) - precedence(token.text);
+            if (difference > 0 || (difference == 0 && !isRightAssociative(token.text))) {
+              output.add(operators.pop());
+            } else {
+              break;
+            }
+          }
+          operators.push(token);
+          break;
+        case LEFT_PAREN:
+          operators.push(token);
+          break;
+        case RIGHT_PAREN:
+          while (!operators.isEmpty() && operators.peek().kind != Kind.LEFT_PAREN) {
+            output.add(operators.pop());
+          }
+          if (operators.isEmpty()) {
+            throw new ParseException("unbalanced ')'", token.position);
+          }
+          operators.pop();
+          break;
+        case END:
+          break;
+      }
+    }
+    while (!operators.isEmpty()) {
+      Token token = operators.pop();
+      if (token.kind == Kind.LEFT_PAREN) {
+        throw new ParseException("unbalanced '('", token.position);
+      }
+      output.add(token);
+    }
+    return output;
+  }
+
+  /** Evaluates an expression, looking up identifiers in {@code variables}. */
+  public static double evaluate(String expression, Map<String, Double> variables)
+      throws ParseException {
+    Deque<Double> values = new ArrayDeque<>();
+    for (Token token : toPostfix(new Tokenizer(expression).tokenize())) {
+      switch (token.kind) {
+        case NUMBER:
+          values.push(Double.parseDouble(token.text));
+          break;
+        case IDENTIFIER:
+          {
+            Double value = variables.get(token.text);
+            if (value == null) {
+              throw new ParseException("unknown variable " + token.text, token.position);
+            }
+            values.push(value);
+            break;
+          }
+        default:
+          {
+            if (values.size() < 2) {
+              throw new ParseException("missing operand for " + token.text, token.position);
+            }
+            double right = values.pop();
+            double left = values.pop();
+            values.push(apply(token.text, left, right));
+          }
+      }
+    }
+    if (values.size() != 1) {
+      throw new ParseException("malformed expression", expression.length());
+    }
+    return values.pop();
+  }
+
+  private static double apply(String operator, double left, double right) {
+    switch (operator) {
+      case "+":
+        return left + right;
+      case "-":
+        return left - right;
+      case "*":
+        return left * right;
+      case "/":
+        return left / right;
+      case "%":
+        return left % right;
+      case "^":
+        return Math.pow(left, right);
+      default:
+        throw new IllegalArgumentException(operator);
+    }
+  }
+
+  /** Parses assignments of the form {@code name = expression}, one per line. */
+  public static Map<String, Double> run(String program) throws ParseException {
+    Map<String, Double> variables = new HashMap<>();
+    int lineNumber = 0;
+    for (String line : program.split("\n")) {
+      lineNumber++;
+      String trimmed = line.trim();
+      if (trimmed.length() == 0 || trimmed.startsWith("#")) {
+        continue;
+      }
+      int equals = trimmed.indexOf('=');
+      if (equals < 0) {
+        throw new ParseException("missing '=' on line " + lineNumber, 0);
+      }
+      String name = trimmed.substring(0, equals).trim();
+      if (name.equals("")) {
+        throw new ParseException("missing name on line " + lineNumber, 0);
+      }
+      variables.put(name, evaluate(trimmed.substring(equals + 1), variables));
+    }
+    return variables;
+  }
+}
@@ -37,11 +37,14 @@ import java.io.PrintWriter;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Function;
 import javax.annotation.Nullable;
 import javax.lang.model.SourceVersion;
 import javax.tools.DiagnosticListener;
@@ -91,7 +94,7 @@ public class BaseErrorProneJavaCompiler implements JavaCompiler {
     if (refactoringCollection[0] != null) {
       task.addTaskListener(new RefactoringTask(task.getContext(), refactoringCollection[0]));
     }
-    task.addTaskListener(new CFCacheClearingListener());
+    task.addTaskListener(new CFCacheClearingListener(task.getContext()));
     return task;
   }
 
@@ -212,26 +215,34 @@ public class BaseErrorProneJavaCompiler implements JavaCompiler {
     }
     refactoringCollection[0] = RefactoringCollection.refactor(epOptions.patchingOptions(), context);
 
-    // Refaster refactorer or using builtin checks
-    CodeTransformer codeTransformer =
-        epOptions
-            .patchingOptions()
-            .customRefactorer()
-            .or(
-                () -> {
-                  ScannerSupplier toUse =
-                      ErrorPronePlugins.loadPlugins(scannerSupplier, context)
-                          .applyOverrides(epOptions);
-                  Set<String> namedCheckers = epOptions.patchingOptions().namedCheckers();
-                  if (!namedCheckers.isEmpty()) {
-                    toUse = toUse.filter(bci -> namedCheckers.contains(bci.canonicalName()));
-                  }
-                  return ErrorProneScannerTransformer.create(toUse.get());
-                })
-            .get();
+    // Refaster refactorer
+    if (epOptions.patchingOptions().customRefactorer().isPresent()) {
+      return ErrorProneAnalyzer.createWithCustomDescriptionListener(
+          epOptions.patchingOptions().customRefactorer().get().get(),
+          /* scannerFactory= */ null,
+          epOptions,
+          context,
+          refactoringCollection[0]);
+    }
 
+    // Using builtin checks. The scanner factory also creates the scanners for files with
+    // path-specific overrides, so the overrides apply when patching too.
+    ScannerSupplier checks = ErrorPronePlugins.loadPlugins(scannerSupplier, context);
+    Set<String> namedCheckers = epOptions.patchingOptions().namedCheckers();
+    Function<ErrorProneOptions, CodeTransformer> scannerFactory =
+        options -> {
+          ScannerSupplier toUse = checks.applyOverrides(options);
+          if (!namedCheckers.isEmpty()) {
+            toUse = toUse.filter(bci -> namedCheckers.contains(bci.canonicalName()));
+          }
+          return ErrorProneScannerTransformer.create(toUse.get());
+        };
     return ErrorProneAnalyzer.createWithCustomDescriptionListener(
-        codeTransformer, epOptions, context, refactoringCollection[0]);
+        scannerFactory.apply(epOptions),
+        scannerFactory,
+        epOptions,
+        context,
+        refactoringCollection[0]);
   }
 
   static class RefactoringTask implements TaskListener {
@@ -274,14 +285,44 @@ public class BaseErrorProneJavaCompiler implements JavaCompiler {
    * prevents a memory leak in cases where the compiler is being run in memory as part of a daemon
    * process.
    *
+   * <p>The cache is shared by every compilation in the JVM, so it is only cleared once no
+   * compilation is using it; clearing it while another compilation (e.g. a concurrently running
+   * test) is using it would race with that compilation. The compilations that are using it are
+   * tracked by their javac {@link Context}, which is only weakly reachable from here: a compilation
+   * that is abandoned without a COMPILATION finished event stops counting as soon as its context is
+   * garbage collected, instead of keeping the cache alive for the lifetime of the JVM.
+   *
    * <p>See https://github.com/typetools/checker-framework/issues/1482
    */
   private static class CFCacheClearingListener implements TaskListener {
 
+    /** The contexts of the compilations that have started but not yet finished. */
+    private static final Set<Context> LIVE = Collections.newSetFromMap(new WeakHashMap<>());
+
+    private final Context context;
+
+    CFCacheClearingListener(Context context) {
+      this.context = context;
+    }
+
+    @Override
+    public void started(TaskEvent e) {
+      if (e.getKind() == Kind.COMPILATION) {
+        synchronized (LIVE) {
+          LIVE.add(context);
+        }
+      }
+    }
+
     @Override
     public void finished(TaskEvent e) {
       if (e.getKind() == Kind.COMPILATION) {
-        AnnotationUtils.clear();
+        synchronized (LIVE) {
+          LIVE.remove(context);
+          if (LIVE.isEmpty()) {
+            AnnotationUtils.clear();
+          }
+        }
       }
     }
   }
@@ -86,6 +86,12 @@ public class BugCheckerInfo implements Serializable {
   /** True if the check can be disabled using command-line flags. */
   private final boolean disableable;
 
+  /**
+   * The names of types that must be available in a compilation for the check to run. Computed from
+   * the {@code requiredTypes} attribute of its {@code BugPattern}.
+   */
+  private final ImmutableSet<String> requiredTypes;
+
   public static BugCheckerInfo create(Class<? extends BugChecker> checker) {
     BugPattern pattern =
         checkNotNull(
@@ -117,7 +123,8 @@ public class BugCheckerInfo implements Serializable {
             .filter(a -> !isSuppressWarnings(a))
             .collect(toImmutableSet()),
         ImmutableSet.copyOf(pattern.tags()),
-        pattern.disableable());
+        pattern.disableable(),
+        ImmutableSet.copyOf(pattern.requiredTypes()));
   }
 
   private static boolean isSuppressWarnings(Class<? extends Annotation> annotation) {
@@ -134,7 +141,8 @@ public class BugCheckerInfo implements Serializable {
       boolean supportsSuppressWarnings,
       Set<Class<? extends Annotation>> customSuppressionAnnotations,
       ImmutableSet<String> tags,
-      boolean disableable) {
+      boolean disableable,
+      ImmutableSet<String> requiredTypes) {
     this.checker = checker;
     this.canonicalName = canonicalName;
     this.allNames = allNames;
@@ -145,6 +153,7 @@ public class BugCheckerInfo implements Serializable {
     this.customSuppressionAnnotations = customSuppressionAnnotations;
     this.tags = tags;
     this.disableable = disableable;
+    this.requiredTypes = requiredTypes;
   }
 
   /**
@@ -166,7 +175,8 @@ public class BugCheckerInfo implements Serializable {
         supportsSuppressWarnings,
         customSuppressionAnnotations,
         tags,
-        disableable);
+        disableable,
+        requiredTypes);
   }
 
   private static final String URL_FORMAT = "https://errorprone.info/bugpattern/%s";
@@ -246,6 +256,10 @@ public class BugCheckerInfo implements Serializable {
     return tags;
   }
 
+  public ImmutableSet<String> requiredTypes() {
+    return requiredTypes;
+  }
+
   public Class<? extends BugChecker> checkerClass() {
     return checker;
   }
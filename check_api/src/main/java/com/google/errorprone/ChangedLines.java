@@ -0,0 +1,291 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.errorprone.matchers.Description;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.LineMap;
+import com.sun.source.tree.Tree;
+import com.sun.tools.javac.tree.EndPosTable;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
+import com.sun.tools.javac.tree.TreeInfo;
+import com.sun.tools.javac.util.Context;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+import javax.tools.JavaFileObject;
+
+/**
+ * The lines changed by a changeset, so that a presubmit only pays for analyzing the code it
+ * changes (see {@code -XepChangedLines}).
+ *
+ * <p>Compilation units without changes aren't scanned at all, and classes and methods that don't
+ * contain a changed line are skipped. Checks that run on larger trees, such as the compilation
+ * unit, still run, but only their findings that overlap a changed line are reported.
+ *
+ * <p>The changes are read from a unified diff, e.g. the output of {@code git diff}. Files in the
+ * diff are matched to source files by path suffix, so paths relative to any directory above the
+ * sources work. A deletion counts as a change to the line that follows it.
+ */
+public final class ChangedLines {
+
+  private static final Context.Key<ChangedLines> KEY = new Context.Key<>();
+
+  private static final Pattern HUNK_HEADER =
+      Pattern.compile("^@@ -\\d+(?:,(\\d+))? \\+(\\d+)(?:,(\\d+))? @@");
+
+  /** Returns the changed lines registered in the given context, or {@code null}. */
+  @Nullable
+  public static ChangedLines instance(Context context) {
+    return context.get(KEY);
+  }
+
+  /** Registers the changed lines for the compilation that owns the given context. */
+  public static void register(Context context, ChangedLines changedLines) {
+    context.put(KEY, changedLines);
+  }
+
+  /**
+   * Reads the changed lines from the unified diff at {@code path}.
+   *
+   * @throws InvalidCommandLineOptionException if the file can't be read
+   */
+  public static ChangedLines read(Path path) {
+    try (Reader reader = Files.newBufferedReader(path, UTF_8)) {
+      return parse(reader);
+    } catch (IOException e) {
+      throw new InvalidCommandLineOptionException(
+          "cannot read changed lines from " + path + ": " + e.getMessage());
+    }
+  }
+
+  /** Parses the changed lines from the given unified diff. */
+  public static ChangedLines parse(String diff) {
+    try {
+      return parse(new StringReader(diff));
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private static ChangedLines parse(Reader diff) throws IOException {
+    ImmutableListMultimap.Builder<String, FileChanges> files = ImmutableListMultimap.builder();
+    BufferedReader reader = new BufferedReader(diff);
+    String path = null;
+    List<Integer> lines = new ArrayList<>();
+    // The line in the new file that the next line of the hunk is.
+    int line = 0;
+    // The lines of the old and new file that the rest of the hunk covers, which are both 0 outside
+    // of hunks. Lines are only read as file or hunk headers outside of hunks, so that a removed
+    // line starting with "-- " or an added line starting with "++ " isn't mistaken for one.
+    int oldRemaining = 0;
+    int newRemaining = 0;
+    for (String text = reader.readLine(); text != null; text = reader.readLine()) {
+      if (oldRemaining > 0 || newRemaining > 0) {
+        if (text.startsWith("+")) {
+          lines.add(line++);
+          newRemaining--;
+        } else if (text.startsWith("-")) {
+          lines.add(line);
+          oldRemaining--;
+        } else if (text.startsWith(" ") || text.isEmpty()) {
+          line++;
+          oldRemaining--;
+          newRemaining--;
+        } else if (!text.startsWith("\\")) {
+          // The hunk is shorter than its header says, e.g. the diff was truncated.
+          oldRemaining = 0;
+          newRemaining = 0;
+        }
+      } else if (text.startsWith("+++ ")) {
+        addFile(files, path, lines);
+        path = newPath(text.substring("+++ ".length()));
+        lines.clear();
+      } else if (text.startsWith("@@ ")) {
+        Matcher matcher = HUNK_HEADER.matcher(text);
+        if (matcher.find()) {
+          oldRemaining = count(matcher.group(1));
+          line = Integer.parseInt(matcher.group(2));
+          newRemaining = count(matcher.group(3));
+          if (newRemaining == 0) {
+            // A hunk that only deletes lines starts at the line before the deletion.
+            line++;
+          }
+        }
+      }
+    }
+    addFile(files, path, lines);
+    return new ChangedLines(files.build());
+  }
+
+  /** Returns the number of lines in a hunk header's range, which is 1 if it is omitted. */
+  private static int count(@Nullable String count) {
+    return count == null ? 1 : Integer.parseInt(count);
+  }
+
+  /** Returns the path of the new file in a "+++" line, or {@code null} for a deleted file. */
+  @Nullable
+  private static String newPath(String path) {
+    int tab = path.indexOf('\t');
+    if (tab >= 0) {
+      path = path.substring(0, tab);
+    }
+    if (path.equals("/dev/null")) {
+      return null;
+    }
+    // The prefix that git adds by default. Since files are matched by suffix, removing it is
+    // harmless even if the diff was generated without prefixes.
+    if (path.startsWith("b/")) {
+      path = path.substring("b/".length());
+    }
+    return path.replace('\\', '/');
+  }
+
+  private static void addFile(
+      ImmutableListMultimap.Builder<String, FileChanges> files,
+      @Nullable String path,
+      List<Integer> lines) {
+    if (path == null || lines.isEmpty()) {
+      return;
+    }
+    files.put(fileName(path), new FileChanges(path, lines));
+  }
+
+  private static String fileName(String path) {
+    return path.substring(path.lastIndexOf('/') + 1);
+  }
+
+  /** The changed files, keyed by file name, to avoid matching every file by suffix. */
+  private final ImmutableListMultimap<String, FileChanges> files;
+
+  /** A cache of the changes to the last compilation unit that was looked up. */
+  @Nullable private CompilationUnitTree lastUnit;
+
+  @Nullable private FileChanges lastChanges;
+
+  private ChangedLines(ImmutableListMultimap<String, FileChanges> files) {
+    this.files = files;
+  }
+
+  /** Returns whether the given source file has changed lines. */
+  public boolean isChanged(JavaFileObject sourceFile) {
+    return changesTo(sourceFile) != null;
+  }
+
+  /**
+   * Returns whether {@code tree}, in the given compilation unit, contains a changed line. Trees in
+   * files without changes never do.
+   */
+  public boolean isChanged(CompilationUnitTree unit, Tree tree) {
+    FileChanges changes = changesIn(unit);
+    if (changes == null) {
+      return false;
+    }
+    EndPosTable endPositions = ((JCCompilationUnit) unit).endPositions;
+    if (endPositions == null) {
+      // The extent of the tree is unknown, so it may contain a change.
+      return true;
+    }
+    return changes.intersects(
+        unit.getLineMap(),
+        TreeInfo.getStartPos((JCTree) tree),
+        TreeInfo.getEndPos((JCTree) tree, endPositions));
+  }
+
+  /**
+   * Returns whether the finding described by {@code description}, in the given compilation unit,
+   * overlaps a changed line.
+   */
+  public boolean isChanged(CompilationUnitTree unit, Description description) {
+    FileChanges changes = changesIn(unit);
+    if (changes == null) {
+      return false;
+    }
+    int start = description.position.getStartPosition();
+    int end = description.position.getEndPosition(((JCCompilationUnit) unit).endPositions);
+    return changes.intersects(unit.getLineMap(), start, end);
+  }
+
+  @Nullable
+  private FileChanges changesIn(CompilationUnitTree unit) {
+    if (unit != lastUnit) {
+      lastChanges = changesTo(unit.getSourceFile());
+      lastUnit = unit;
+    }
+    return lastChanges;
+  }
+
+  @Nullable
+  private FileChanges changesTo(JavaFileObject sourceFile) {
+    String path = sourceFile.toUri().getPath();
+    if (path == null) {
+      return null;
+    }
+    path = path.replace('\\', '/');
+    for (FileChanges changes : files.get(fileName(path))) {
+      if (path.equals(changes.path) || path.endsWith("/" + changes.path)) {
+        return changes;
+      }
+    }
+    return null;
+  }
+
+  /** The changed lines of a single file. */
+  private static final class FileChanges {
+    final String path;
+
+    /** The sorted, distinct changed lines. */
+    final int[] lines;
+
+    FileChanges(String path, List<Integer> lines) {
+      this.path = path;
+      this.lines = lines.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+      checkState(this.lines.length > 0, "no changed lines in %s", path);
+    }
+
+    /** Returns whether any of the lines from {@code start} to {@code end} (positions) changed. */
+    boolean intersects(LineMap lineMap, int start, int end) {
+      if (start < 0) {
+        // A finding without a position, e.g. on a synthetic tree.
+        return true;
+      }
+      long firstLine = lineMap.getLineNumber(start);
+      long lastLine = end > start ? lineMap.getLineNumber(end - 1) : firstLine;
+      int index = Arrays.binarySearch(lines, (int) firstLine);
+      if (index >= 0) {
+        return true;
+      }
+      // The first changed line after firstLine.
+      int next = -index - 1;
+      return next < lines.length && lines[next] <= lastLine;
+    }
+  }
+}
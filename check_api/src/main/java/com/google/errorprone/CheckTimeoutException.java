@@ -0,0 +1,29 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone;
+
+/**
+ * Thrown by {@link ErrorProneTimings#checkDeadline} to abandon a check that has exceeded its time
+ * limit for a compilation unit. The scanner reports the timeout, so checks should let it propagate.
+ */
+public class CheckTimeoutException extends RuntimeException {
+
+  public CheckTimeoutException(String message) {
+    // Timeouts are expected, and are reported without a stack trace.
+    super(message, null, false, false);
+  }
+}
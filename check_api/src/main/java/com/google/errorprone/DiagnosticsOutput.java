@@ -0,0 +1,482 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.BugPattern.SeverityLevel;
+import com.google.errorprone.fixes.Fix;
+import com.google.errorprone.fixes.Replacement;
+import com.google.errorprone.matchers.Description;
+import com.sun.source.tree.LineMap;
+import com.sun.tools.javac.tree.EndPosTable;
+import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
+import com.sun.tools.javac.util.Log;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import javax.annotation.Nullable;
+
+/**
+ * Streams findings to a file in a machine-readable format, for tools that would otherwise have to
+ * parse javac's diagnostics (see {@code -XepDiagnosticsOutput}).
+ *
+ * <p>Files whose name ends in {@code .sarif} or {@code .sarif.json} are written as a <a
+ * href="https://docs.oasis-open.org/sarif/sarif/v2.1.0/sarif-v2.1.0.html">SARIF</a> 2.1.0 log;
+ * other files are written as <a href="http://jsonlines.org/">JSON Lines</a>, with one object per
+ * finding. Both record the check, severity, message and position of each finding, and the
+ * replacements of each of its fixes. Unlike {@link JavacErrorDescriptionListener}, fixes are not
+ * applied to the source to render them: that is left to the consumer.
+ *
+ * <p>Findings are formatted and written by a single background thread. The compiler blocks if that
+ * thread falls more than {@link #QUEUE_CAPACITY} findings behind, so memory use is bounded
+ * however many findings there are.
+ *
+ * <p>The output must be closed when the compilation ends, normally or not. As a last resort, e.g.
+ * if javac is never told that the compilation finished, it is closed when the JVM exits, so that
+ * the file is complete.
+ */
+public final class DiagnosticsOutput implements DescriptionListener.Factory, Closeable {
+
+  /** The output formats. */
+  enum Format {
+    JSON_LINES,
+    SARIF;
+
+    static Format forPath(Path path) {
+      String name = path.getFileName().toString();
+      return name.endsWith(".sarif") || name.endsWith(".sarif.json") ? SARIF : JSON_LINES;
+    }
+  }
+
+  private static final int QUEUE_CAPACITY = 1024;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /** Tells the writer thread that there are no more findings. */
+  private static final Finding END = new Finding();
+
+  private final Path path;
+  private final Format format;
+  private final Writer writer;
+  private final BlockingQueue<Finding> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+  private final Thread thread;
+  private final Thread shutdownHook;
+  private boolean closed;
+
+  /** Set by the writer thread if writing fails. It then discards the remaining findings. */
+  @Nullable private volatile IOException failure;
+
+  /**
+   * Creates the file at {@code path} (replacing any existing file), and starts the thread that
+   * writes to it.
+   *
+   * @throws InvalidCommandLineOptionException if the file can't be created
+   */
+  public static DiagnosticsOutput open(Path path) {
+    Writer writer;
+    try {
+      Path parent = path.toAbsolutePath().getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      writer = new BufferedWriter(Files.newBufferedWriter(path, UTF_8), BUFFER_SIZE);
+    } catch (IOException e) {
+      throw new InvalidCommandLineOptionException(
+          "cannot write diagnostics to " + path + ": " + e.getMessage());
+    }
+    return new DiagnosticsOutput(path, Format.forPath(path), writer);
+  }
+
+  private DiagnosticsOutput(Path path, Format format, Writer writer) {
+    this.path = path;
+    this.format = format;
+    this.writer = writer;
+    this.thread = new Thread(this::drain, "error-prone-diagnostics-output");
+    thread.setDaemon(true);
+    thread.start();
+    this.shutdownHook = new Thread(this::closeAtExit, "error-prone-diagnostics-output-exit");
+    Runtime.getRuntime().addShutdownHook(shutdownHook);
+  }
+
+  /** The file the findings are written to. */
+  public Path path() {
+    return path;
+  }
+
+  @Override
+  public DescriptionListener getDescriptionListener(Log log, JCCompilationUnit compilation) {
+    String uri = compilation.getSourceFile().toUri().toString();
+    LineMap lineMap = compilation.getLineMap();
+    EndPosTable endPositions = compilation.endPositions;
+    return description -> enqueue(new Finding(description, uri, lineMap, endPositions));
+  }
+
+  private void enqueue(Finding finding) {
+    try {
+      queue.put(finding);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while writing diagnostics to " + path, e);
+    }
+  }
+
+  /**
+   * Waits for the remaining findings to be written, and closes the file.
+   *
+   * @throws IOException if any of the findings could not be written
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (Thread.currentThread() != shutdownHook) {
+      try {
+        Runtime.getRuntime().removeShutdownHook(shutdownHook);
+      } catch (IllegalStateException e) {
+        // The JVM is already exiting.
+      }
+    }
+    enqueue(END);
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while writing diagnostics to " + path, e);
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /** Runs when the JVM exits, in case the compilation never closed the output. */
+  private void closeAtExit() {
+    try {
+      close();
+    } catch (IOException e) {
+      // There is nothing left to report the failure to.
+    }
+  }
+
+  /** Runs on the writer thread. */
+  private void drain() {
+    StringBuilder sb = new StringBuilder();
+    boolean done = false;
+    try (Writer out = writer) {
+      if (format == Format.SARIF) {
+        writeSarifHeader();
+      }
+      boolean first = true;
+      for (Finding finding = take(); finding != END; finding = take()) {
+        sb.setLength(0);
+        if (format == Format.SARIF) {
+          if (!first) {
+            sb.append(',');
+          }
+          finding.appendSarif(sb);
+        } else {
+          finding.appendJson(sb);
+        }
+        sb.append('\n');
+        out.write(sb.toString());
+        first = false;
+      }
+      done = true;
+      if (format == Format.SARIF) {
+        out.write("]}]}\n");
+      }
+    } catch (IOException e) {
+      failure = e;
+    }
+    // After a failure, keep draining the queue until close(), so that the compiler doesn't block.
+    while (!done) {
+      done = take() == END;
+    }
+  }
+
+  private Finding take() {
+    while (true) {
+      try {
+        return queue.take();
+      } catch (InterruptedException e) {
+        // Only close() can end the thread, so that no finding is lost.
+      }
+    }
+  }
+
+  private void writeSarifHeader() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\"version\":\"2.1.0\",")
+        .append("\"$schema\":\"https://json.schemastore.org/sarif-2.1.0.json\",")
+        .append("\"runs\":[{\"tool\":{\"driver\":{\"name\":\"Error Prone\",")
+        .append("\"informationUri\":\"https://errorprone.info\"");
+    String version = ErrorProneVersion.loadVersionFromPom().orNull();
+    if (version != null) {
+      sb.append(",\"version\":");
+      appendString(sb, version);
+    }
+    sb.append("}},\"results\":[\n");
+    writer.write(sb.toString());
+  }
+
+  /**
+   * A finding, with everything that depends on javac's mutable state (trees, end positions)
+   * resolved on the compiler thread, so that it can be formatted on the writer thread.
+   */
+  private static final class Finding {
+    final String checkName;
+    final SeverityLevel severity;
+    final String message;
+    @Nullable final String link;
+    final String uri;
+    final int startPosition;
+    final int endPosition;
+    final long line;
+    final long column;
+    final ImmutableList<FixRecord> fixes;
+
+    /** Creates the {@link #END} marker. */
+    Finding() {
+      this.checkName = null;
+      this.severity = null;
+      this.message = null;
+      this.link = null;
+      this.uri = null;
+      this.startPosition = -1;
+      this.endPosition = -1;
+      this.line = -1;
+      this.column = -1;
+      this.fixes = ImmutableList.of();
+    }
+
+    Finding(Description description, String uri, LineMap lineMap, EndPosTable endPositions) {
+      this.checkName = description.checkName;
+      this.severity = description.severity;
+      this.message = description.getRawMessage();
+      this.link = description.getLink();
+      this.uri = uri;
+      this.startPosition = description.position.getStartPosition();
+      this.endPosition = Math.max(startPosition, description.position.getEndPosition(endPositions));
+      this.line = startPosition >= 0 ? lineMap.getLineNumber(startPosition) : -1;
+      this.column = startPosition >= 0 ? lineMap.getColumnNumber(startPosition) : -1;
+      this.fixes =
+          description.fixes.stream()
+              .filter(f -> !f.isEmpty())
+              .map(f -> new FixRecord(f, endPositions))
+              .collect(toImmutableList());
+    }
+
+    void appendJson(StringBuilder sb) {
+      sb.append("{\"check\":");
+      appendString(sb, checkName);
+      sb.append(",\"severity\":");
+      appendString(sb, severity.name());
+      sb.append(",\"message\":");
+      appendString(sb, message);
+      if (link != null) {
+        sb.append(",\"link\":");
+        appendString(sb, link);
+      }
+      sb.append(",\"file\":");
+      appendString(sb, uri);
+      sb.append(",\"startPosition\":").append(startPosition);
+      sb.append(",\"endPosition\":").append(endPosition);
+      sb.append(",\"line\":").append(line);
+      sb.append(",\"column\":").append(column);
+      sb.append(",\"fixes\":[");
+      for (int i = 0; i < fixes.size(); i++) {
+        if (i > 0) {
+          sb.append(',');
+        }
+        fixes.get(i).appendJson(sb);
+      }
+      sb.append("]}");
+    }
+
+    void appendSarif(StringBuilder sb) {
+      sb.append("{\"ruleId\":");
+      appendString(sb, checkName);
+      sb.append(",\"level\":");
+      appendString(sb, sarifLevel(severity));
+      sb.append(",\"message\":{\"text\":");
+      appendString(sb, message);
+      sb.append("},\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":");
+      appendString(sb, uri);
+      sb.append("}");
+      if (startPosition >= 0) {
+        sb.append(",\"region\":{\"startLine\":").append(line);
+        sb.append(",\"startColumn\":").append(column);
+        sb.append(",\"charOffset\":").append(startPosition);
+        sb.append(",\"charLength\":").append(endPosition - startPosition);
+        sb.append('}');
+      }
+      sb.append("}}]");
+      if (!fixes.isEmpty()) {
+        sb.append(",\"fixes\":[");
+        for (int i = 0; i < fixes.size(); i++) {
+          if (i > 0) {
+            sb.append(',');
+          }
+          fixes.get(i).appendSarif(sb, uri);
+        }
+        sb.append(']');
+      }
+      if (link != null) {
+        sb.append(",\"properties\":{\"link\":");
+        appendString(sb, link);
+        sb.append('}');
+      }
+      sb.append('}');
+    }
+
+    private static String sarifLevel(SeverityLevel severity) {
+      switch (severity) {
+        case ERROR:
+          return "error";
+        case WARNING:
+          return "warning";
+        case SUGGESTION:
+          return "note";
+      }
+      throw new AssertionError(severity);
+    }
+  }
+
+  /** The replacements of a fix, in source order. */
+  private static final class FixRecord {
+    final String description;
+    final ImmutableList<Replacement> replacements;
+    final ImmutableList<String> importsToAdd;
+    final ImmutableList<String> importsToRemove;
+
+    FixRecord(Fix fix, EndPosTable endPositions) {
+      this.description = fix.getShortDescription();
+      this.replacements =
+          fix.getReplacements(endPositions).stream()
+              .sorted(Comparator.comparingInt(Replacement::startPosition))
+              .collect(toImmutableList());
+      this.importsToAdd = ImmutableList.copyOf(fix.getImportsToAdd());
+      this.importsToRemove = ImmutableList.copyOf(fix.getImportsToRemove());
+    }
+
+    void appendJson(StringBuilder sb) {
+      sb.append("{\"description\":");
+      appendString(sb, description);
+      sb.append(",\"replacements\":[");
+      for (int i = 0; i < replacements.size(); i++) {
+        Replacement replacement = replacements.get(i);
+        if (i > 0) {
+          sb.append(',');
+        }
+        sb.append("{\"startPosition\":").append(replacement.startPosition());
+        sb.append(",\"endPosition\":").append(replacement.endPosition());
+        sb.append(",\"replaceWith\":");
+        appendString(sb, replacement.replaceWith());
+        sb.append('}');
+      }
+      sb.append("],\"importsToAdd\":");
+      appendStrings(sb, importsToAdd);
+      sb.append(",\"importsToRemove\":");
+      appendStrings(sb, importsToRemove);
+      sb.append('}');
+    }
+
+    /**
+     * Appends the fix as a SARIF {@code fix} object. SARIF has no notion of imports, so the
+     * imports to add and remove are recorded as properties.
+     */
+    void appendSarif(StringBuilder sb, String uri) {
+      sb.append("{\"description\":{\"text\":");
+      appendString(sb, description);
+      sb.append("},\"artifactChanges\":[{\"artifactLocation\":{\"uri\":");
+      appendString(sb, uri);
+      sb.append("},\"replacements\":[");
+      for (int i = 0; i < replacements.size(); i++) {
+        Replacement replacement = replacements.get(i);
+        if (i > 0) {
+          sb.append(',');
+        }
+        sb.append("{\"deletedRegion\":{\"charOffset\":").append(replacement.startPosition());
+        sb.append(",\"charLength\":").append(replacement.length());
+        sb.append("},\"insertedContent\":{\"text\":");
+        appendString(sb, replacement.replaceWith());
+        sb.append("}}");
+      }
+      sb.append("]}]");
+      if (!importsToAdd.isEmpty() || !importsToRemove.isEmpty()) {
+        sb.append(",\"properties\":{\"importsToAdd\":");
+        appendStrings(sb, importsToAdd);
+        sb.append(",\"importsToRemove\":");
+        appendStrings(sb, importsToRemove);
+        sb.append('}');
+      }
+      sb.append('}');
+    }
+  }
+
+  private static void appendStrings(StringBuilder sb, ImmutableList<String> values) {
+    sb.append('[');
+    for (int i = 0; i < values.size(); i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      appendString(sb, values.get(i));
+    }
+    sb.append(']');
+  }
+
+  /** Appends {@code value} as a JSON string literal. */
+  static void appendString(StringBuilder sb, String value) {
+    sb.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          sb.append("\\\"");
+          break;
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            sb.append(String.format("\\u%04x", (int) c));
+          } else {
+            sb.append(c);
+          }
+      }
+    }
+    sb.append('"');
+  }
+}
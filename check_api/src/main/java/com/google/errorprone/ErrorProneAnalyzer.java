@@ -22,10 +22,13 @@ import static com.google.common.base.Verify.verify;
 
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
 import com.google.errorprone.BugPattern.SeverityLevel;
+import com.google.errorprone.ErrorProneOptions.Severity;
 import com.google.errorprone.scanner.ErrorProneScannerTransformer;
 import com.google.errorprone.scanner.ScannerSupplier;
 import com.google.errorprone.util.ASTHelpers;
+import com.google.errorprone.util.SymbolQueryCache;
 import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.util.TaskEvent;
@@ -36,80 +39,189 @@ import com.sun.tools.javac.api.ClientCodeWrapper.Trusted;
 import com.sun.tools.javac.api.JavacTrees;
 import com.sun.tools.javac.code.Symbol.CompletionFailure;
 import com.sun.tools.javac.main.JavaCompiler;
+import com.sun.tools.javac.model.JavacElements;
 import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
 import com.sun.tools.javac.util.Context;
 import com.sun.tools.javac.util.Log;
 import com.sun.tools.javac.util.PropagatedException;
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.regex.Pattern;
+import javax.annotation.Nullable;
 import javax.tools.JavaFileObject;
 
 /** A {@link TaskListener} that runs Error Prone over attributed compilation units. */
 @Trusted
 public class ErrorProneAnalyzer implements TaskListener {
 
+  private static final Logger logger = Logger.getLogger(ErrorProneAnalyzer.class.getName());
+
   // The set of trees that have already been scanned.
   private final Set<Tree> seen = new HashSet<>();
 
   private final Supplier<CodeTransformer> transformer;
+
+  /**
+   * Creates the transformer for the given options, to create the transformers for files with
+   * path-specific overrides, or {@code null} if the transformer doesn't run checks that overrides
+   * apply to.
+   */
+  @Nullable private final Function<ErrorProneOptions, CodeTransformer> scannerFactory;
+
+  /** The transformers for each set of path-specific overrides. */
+  private final Map<ImmutableMap<String, Severity>, CodeTransformer> pathTransformers =
+      new HashMap<>();
+
   private final ErrorProneOptions errorProneOptions;
   private final Context context;
   private final DescriptionListener.Factory descriptionListenerFactory;
+  @Nullable private final DiagnosticsOutput diagnosticsOutput;
+  @Nullable private final FindingsBaseline baseline;
+  @Nullable private final ChangedLines changedLines;
 
   public static ErrorProneAnalyzer createByScanningForPlugins(
       ScannerSupplier scannerSupplier, ErrorProneOptions errorProneOptions, Context context) {
+    DescriptionListener.Factory descriptionListenerFactory =
+        JavacErrorDescriptionListener.provider(context);
+    DiagnosticsOutput diagnosticsOutput = null;
+    if (errorProneOptions.getDiagnosticsOutput() != null) {
+      diagnosticsOutput = DiagnosticsOutput.open(errorProneOptions.getDiagnosticsOutput());
+      descriptionListenerFactory = both(descriptionListenerFactory, diagnosticsOutput);
+    }
+    Supplier<ScannerSupplier> checks = loadPlugins(scannerSupplier, context);
     return new ErrorProneAnalyzer(
-        scansPlugins(scannerSupplier, errorProneOptions, context),
+        scansPlugins(checks, errorProneOptions, context),
+        options -> scanner(checks.get(), options, context),
         errorProneOptions,
         context,
-        JavacErrorDescriptionListener.provider(context));
+        descriptionListenerFactory,
+        diagnosticsOutput);
+  }
+
+  /** Returns a factory for listeners that report each description to both listeners. */
+  private static DescriptionListener.Factory both(
+      DescriptionListener.Factory first, DescriptionListener.Factory second) {
+    return (log, compilation) -> {
+      DescriptionListener firstListener = first.getDescriptionListener(log, compilation);
+      DescriptionListener secondListener = second.getDescriptionListener(log, compilation);
+      return description -> {
+        firstListener.onDescribed(description);
+        secondListener.onDescribed(description);
+      };
+    };
+  }
+
+  private static Supplier<ScannerSupplier> loadPlugins(
+      ScannerSupplier scannerSupplier, Context context) {
+    // we can't load plugins from the processorpath until the filemanager has been
+    // initialized, so do it lazily
+    return Suppliers.memoize(() -> ErrorPronePlugins.loadPlugins(scannerSupplier, context));
   }
 
   private static Supplier<CodeTransformer> scansPlugins(
-      ScannerSupplier scannerSupplier, ErrorProneOptions errorProneOptions, Context context) {
-    return Suppliers.memoize(
-        () -> {
-          // we can't load plugins from the processorpath until the filemanager has been
-          // initialized, so do it lazily
-          try {
-            return ErrorProneScannerTransformer.create(
-                ErrorPronePlugins.loadPlugins(scannerSupplier, context)
-                    .applyOverrides(errorProneOptions)
-                    .get());
-          } catch (InvalidCommandLineOptionException e) {
-            throw new PropagatedException(e);
-          }
-        });
+      Supplier<ScannerSupplier> checks, ErrorProneOptions errorProneOptions, Context context) {
+    return Suppliers.memoize(() -> scanner(checks.get(), errorProneOptions, context));
+  }
+
+  private static CodeTransformer scanner(
+      ScannerSupplier checks, ErrorProneOptions errorProneOptions, Context context) {
+    try {
+      // All sources have been entered by the time the first class is analyzed, so required
+      // types are found whether they come from the classpath or from the compilation.
+      JavacElements elements = JavacElements.instance(context);
+      return ErrorProneScannerTransformer.create(
+          checks
+              .applyOverrides(errorProneOptions)
+              .disableChecksWithMissingTypes(name -> elements.getTypeElement(name) != null)
+              .get());
+    } catch (InvalidCommandLineOptionException e) {
+      throw new PropagatedException(e);
+    }
   }
 
+  /**
+   * Creates an analyzer that runs the given transformer. If the transformer runs checks, {@code
+   * scannerFactory} creates the scanners that run them with path-specific overrides applied;
+   * otherwise it is {@code null}, and {@link ErrorProneOptions} rejects path-specific overrides.
+   */
   static ErrorProneAnalyzer createWithCustomDescriptionListener(
       CodeTransformer codeTransformer,
+      @Nullable Function<ErrorProneOptions, CodeTransformer> scannerFactory,
       ErrorProneOptions errorProneOptions,
       Context context,
       DescriptionListener.Factory descriptionListenerFactory) {
     return new ErrorProneAnalyzer(
         Suppliers.ofInstance(codeTransformer),
+        scannerFactory,
         errorProneOptions,
         context,
-        descriptionListenerFactory);
+        descriptionListenerFactory,
+        /* diagnosticsOutput= */ null);
   }
 
   private ErrorProneAnalyzer(
       Supplier<CodeTransformer> transformer,
+      @Nullable Function<ErrorProneOptions, CodeTransformer> scannerFactory,
       ErrorProneOptions errorProneOptions,
       Context context,
-      DescriptionListener.Factory descriptionListenerFactory) {
+      DescriptionListener.Factory descriptionListenerFactory,
+      @Nullable DiagnosticsOutput diagnosticsOutput) {
     this.transformer = checkNotNull(transformer);
+    this.scannerFactory = scannerFactory;
     this.errorProneOptions = checkNotNull(errorProneOptions);
     this.context = checkNotNull(context);
     this.descriptionListenerFactory = checkNotNull(descriptionListenerFactory);
+    this.diagnosticsOutput = diagnosticsOutput;
+    this.baseline = FindingsBaseline.forOptions(errorProneOptions);
+    this.changedLines =
+        errorProneOptions.getChangedLines() != null
+            ? ChangedLines.read(errorProneOptions.getChangedLines())
+            : null;
+    // Register the query cache and timings in the compilation's context, rather than in the
+    // per-compilation unit sub-contexts, so they are shared by all compilation units.
+    SymbolQueryCache.instance(context);
+    ErrorProneTimings timings = ErrorProneTimings.instance(context);
+    timings.setCheckTimeBudget(errorProneOptions.getCheckTimeBudget());
+    timings.setCheckFileTimeLimit(errorProneOptions.getCheckFileTimeLimit());
+    if (logger.isLoggable(Level.FINE)) {
+      // The timings are logged when the compilation finishes.
+      timings.recordCosts();
+    }
+    if (changedLines != null) {
+      // The scanner skips the classes and methods that don't contain changes.
+      ChangedLines.register(context, changedLines);
+    }
   }
 
   private int errorProneErrors = 0;
 
   @Override
   public void finished(TaskEvent taskEvent) {
+    if (taskEvent.getKind() == Kind.COMPILATION) {
+      ErrorProneTimings timings = ErrorProneTimings.instance(context);
+      if (logger.isLoggable(Level.FINE)) {
+        logger.fine(SymbolQueryCache.instance(context).toString());
+        logger.fine(timings.toString());
+      }
+      if (!timings.throttledChecks().isEmpty()) {
+        // A note rather than a warning, so that -Werror builds don't fail because of a slow check.
+        Log.instance(context)
+            .note(
+                "error.prone",
+                String.format(
+                    "Skipped checks that exceeded the time budget of %d ms: %s",
+                    timings.checkTimeBudget().toMillis(),
+                    String.join(", ", timings.throttledChecks())));
+      }
+      closeOutputs();
+      return;
+    }
     if (taskEvent.getKind() != Kind.ANALYZE) {
       return;
     }
@@ -135,23 +247,42 @@ public class ErrorProneAnalyzer implements TaskListener {
           }
           descriptionListener.onDescribed(d);
         };
+    if (changedLines != null) {
+      DescriptionListener listener = countingDescriptionListener;
+      countingDescriptionListener =
+          d -> {
+            if (changedLines.isChanged(compilation, d)) {
+              listener.onDescribed(d);
+            }
+          };
+    }
+    if (baseline != null) {
+      // Known findings are dropped before they are counted, so they don't hide javac's errors.
+      countingDescriptionListener = baseline.filter(compilation, countingDescriptionListener);
+    }
     JavaFileObject originalSource = log.useSource(compilation.getSourceFile());
     try {
       if (shouldExcludeSourceFile(compilation.getSourceFile())) {
         return;
       }
+      if (changedLines != null && !changedLines.isChanged(compilation.getSourceFile())) {
+        return;
+      }
       if (path.getLeaf().getKind() == Tree.Kind.COMPILATION_UNIT) {
         // We only get TaskEvents for compilation units if they contain no package declarations
         // (e.g. package-info.java files).  In this case it's safe to analyze the
         // CompilationUnitTree immediately.
-        transformer.get().apply(path, subContext, countingDescriptionListener);
+        transformerFor(compilation).apply(path, subContext, countingDescriptionListener);
       } else if (finishedCompilation(path.getCompilationUnit())) {
         // Otherwise this TaskEvent is for a ClassTree, and we can scan the whole
         // CompilationUnitTree once we've seen all the enclosed classes.
-        transformer.get().apply(new TreePath(compilation), subContext, countingDescriptionListener);
+        transformerFor(compilation)
+            .apply(new TreePath(compilation), subContext, countingDescriptionListener);
       }
     } catch (ErrorProneError e) {
       e.logFatalError(log, context);
+      // Write out the findings so far: the listeners may not hear the end of the compilation.
+      closeOutputs();
       // let the exception propagate to javac's main, where it will cause the compilation to
       // terminate with Result.ABNORMAL
       throw e;
@@ -159,6 +290,7 @@ public class ErrorProneAnalyzer implements TaskListener {
       // similar to ErrorProneError
       String version = ErrorProneVersion.loadVersionFromPom().or("unknown version");
       log.error("error.prone.crash", getStackTraceAsString(e), version, "(see stack trace)");
+      closeOutputs();
       throw e;
     } catch (CompletionFailure e) {
       // A CompletionFailure can be triggered when error-prone tries to complete a symbol
@@ -173,6 +305,66 @@ public class ErrorProneAnalyzer implements TaskListener {
     }
   }
 
+  private boolean outputsClosed = false;
+
+  /**
+   * Finishes writing the diagnostics output and the baseline, if any. Called when the compilation
+   * finishes, or when Error Prone crashes and aborts it; only the first call has any effect.
+   */
+  private void closeOutputs() {
+    if (outputsClosed) {
+      return;
+    }
+    outputsClosed = true;
+    if (diagnosticsOutput != null) {
+      try {
+        diagnosticsOutput.close();
+      } catch (IOException e) {
+        Log.instance(context)
+            .error(
+                "error.prone",
+                String.format(
+                    "Failed to write diagnostics to %s: %s", diagnosticsOutput.path(), e));
+      }
+    }
+    if (baseline != null) {
+      try {
+        baseline.close();
+      } catch (IOException e) {
+        Log.instance(context)
+            .error(
+                "error.prone",
+                String.format("Failed to write the baseline to %s: %s", baseline.path(), e));
+      }
+    }
+  }
+
+  /**
+   * Returns the transformer for the given compilation unit. Files with path-specific severity
+   * overrides get their own scanner, so that the checks that are disabled for them don't run at
+   * all.
+   */
+  private CodeTransformer transformerFor(CompilationUnitTree compilation) {
+    PathSeverities pathSeverities = errorProneOptions.getPathSeverities();
+    String path = compilation.getSourceFile().toUri().getPath();
+    if (scannerFactory == null || pathSeverities.isEmpty() || path == null) {
+      return transformer.get();
+    }
+    ImmutableMap<String, Severity> overrides = pathSeverities.forPath(path);
+    if (overrides.isEmpty()) {
+      return transformer.get();
+    }
+    return pathTransformers.computeIfAbsent(
+        overrides,
+        o -> {
+          try {
+            return scannerFactory.apply(errorProneOptions.withSeverities(o));
+          } catch (InvalidCommandLineOptionException e) {
+            throw new PropagatedException(e);
+          }
+        });
+  }
+
   /** Returns true if the given source file should be excluded from analysis. */
   private boolean shouldExcludeSourceFile(JavaFileObject sourceFile) {
     Pattern excludedPattern = errorProneOptions.getExcludedPattern();
@@ -30,13 +30,18 @@ import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
+import javax.annotation.Nullable;
 
 /**
  * Processes command-line options specific to error-prone.
@@ -59,6 +64,12 @@ public class ErrorProneOptions {
       "-XepDisableWarningsInGeneratedCode";
   private static final String COMPILING_TEST_ONLY_CODE = "-XepCompilingTestOnlyCode";
   private static final String EXCLUDED_PATHS_PREFIX = "-XepExcludedPaths:";
+  private static final String CHECK_TIME_BUDGET_PREFIX = "-XepCheckTimeBudget:";
+  private static final String CHECK_FILE_TIME_LIMIT_PREFIX = "-XepCheckFileTimeLimit:";
+  private static final String DIAGNOSTICS_OUTPUT_PREFIX = "-XepDiagnosticsOutput:";
+  private static final String BASELINE_PREFIX = "-XepBaseline:";
+  private static final String WRITE_BASELINE_FLAG = "-XepWriteBaseline";
+  private static final String CHANGED_LINES_PREFIX = "-XepChangedLines:";
 
   /** see {@link javax.tools.OptionChecker#isSupportedOption(String)} */
   public static int isSupportedOption(String option) {
@@ -68,12 +79,18 @@ public class ErrorProneOptions {
             || option.startsWith(PATCH_OUTPUT_LOCATION)
             || option.startsWith(PATCH_CHECKS_PREFIX)
             || option.startsWith(EXCLUDED_PATHS_PREFIX)
+            || option.startsWith(CHECK_TIME_BUDGET_PREFIX)
+            || option.startsWith(CHECK_FILE_TIME_LIMIT_PREFIX)
+            || option.startsWith(DIAGNOSTICS_OUTPUT_PREFIX)
+            || option.startsWith(BASELINE_PREFIX)
+            || option.startsWith(CHANGED_LINES_PREFIX)
             || option.equals(IGNORE_UNKNOWN_CHECKS_FLAG)
             || option.equals(DISABLE_WARNINGS_IN_GENERATED_CODE_FLAG)
             || option.equals(ERRORS_AS_WARNINGS_FLAG)
             || option.equals(ENABLE_ALL_CHECKS)
             || option.equals(DISABLE_ALL_CHECKS)
-            || option.equals(COMPILING_TEST_ONLY_CODE);
+            || option.equals(COMPILING_TEST_ONLY_CODE)
+            || option.equals(WRITE_BASELINE_FLAG);
     return isSupported ? 0 : -1;
   }
 
@@ -161,6 +178,13 @@ public class ErrorProneOptions {
   private final ErrorProneFlags flags;
   private final PatchingOptions patchingOptions;
   private final Pattern excludedPattern;
+  @Nullable private final Duration checkTimeBudget;
+  @Nullable private final Duration checkFileTimeLimit;
+  @Nullable private final Path diagnosticsOutput;
+  @Nullable private final Path baseline;
+  private final boolean writeBaseline;
+  @Nullable private final Path changedLines;
+  private final PathSeverities pathSeverities;
 
   private ErrorProneOptions(
       ImmutableMap<String, Severity> severityMap,
@@ -173,7 +197,14 @@ public class ErrorProneOptions {
       boolean isTestOnlyTarget,
       ErrorProneFlags flags,
       PatchingOptions patchingOptions,
-      Pattern excludedPattern) {
+      Pattern excludedPattern,
+      @Nullable Duration checkTimeBudget,
+      @Nullable Duration checkFileTimeLimit,
+      @Nullable Path diagnosticsOutput,
+      @Nullable Path baseline,
+      boolean writeBaseline,
+      @Nullable Path changedLines,
+      PathSeverities pathSeverities) {
     this.severityMap = severityMap;
     this.remainingArgs = remainingArgs;
     this.ignoreUnknownChecks = ignoreUnknownChecks;
@@ -185,6 +216,13 @@ public class ErrorProneOptions {
     this.flags = flags;
     this.patchingOptions = patchingOptions;
     this.excludedPattern = excludedPattern;
+    this.checkTimeBudget = checkTimeBudget;
+    this.checkFileTimeLimit = checkFileTimeLimit;
+    this.diagnosticsOutput = diagnosticsOutput;
+    this.baseline = baseline;
+    this.writeBaseline = writeBaseline;
+    this.changedLines = changedLines;
+    this.pathSeverities = pathSeverities;
   }
 
   public String[] getRemainingArgs() {
@@ -223,6 +261,95 @@ public class ErrorProneOptions {
     return excludedPattern;
   }
 
+  /**
+   * The time that each check may spend in a compilation before it is skipped for the rest of the
+   * compilation, or {@code null} if checks may take as long as they need.
+   */
+  @Nullable
+  public Duration getCheckTimeBudget() {
+    return checkTimeBudget;
+  }
+
+  /**
+   * The time that each check may spend on a compilation unit before it is abandoned for the rest of
+   * that compilation unit, or {@code null} if checks may take as long as they need.
+   */
+  @Nullable
+  public Duration getCheckFileTimeLimit() {
+    return checkFileTimeLimit;
+  }
+
+  /**
+   * The file that findings are written to in a machine-readable format (see {@link
+   * DiagnosticsOutput}), or {@code null} if they are only reported as javac diagnostics.
+   */
+  @Nullable
+  public Path getDiagnosticsOutput() {
+    return diagnosticsOutput;
+  }
+
+  /**
+   * The file of known findings that are not reported (see {@link FindingsBaseline}), or {@code
+   * null} if all findings are reported.
+   */
+  @Nullable
+  public Path getBaseline() {
+    return baseline;
+  }
+
+  /**
+   * Whether the findings of this compilation are added to the {@linkplain #getBaseline baseline}
+   * file, instead of being checked against it.
+   */
+  public boolean isWriteBaseline() {
+    return writeBaseline;
+  }
+
+  /**
+   * The unified diff whose changed lines are the only ones analyzed (see {@link ChangedLines}), or
+   * {@code null} if all code is analyzed.
+   */
+  @Nullable
+  public Path getChangedLines() {
+    return changedLines;
+  }
+
+  /**
+   * The severity overrides that only apply to some source files, e.g. {@code
+   * -Xep:Foo:OFF@legacy/**}. They are not part of the {@linkplain #getSeverityMap severity map}.
+   */
+  public PathSeverities getPathSeverities() {
+    return pathSeverities;
+  }
+
+  /**
+   * Returns a copy of these options, with the given overrides (e.g. from {@link
+   * #getPathSeverities}) added to the severity map.
+   */
+  ErrorProneOptions withSeverities(Map<String, Severity> overrides) {
+    Map<String, Severity> severities = new LinkedHashMap<>(severityMap);
+    severities.putAll(overrides);
+    return new ErrorProneOptions(
+        ImmutableMap.copyOf(severities),
+        remainingArgs,
+        ignoreUnknownChecks,
+        disableWarningsInGeneratedCode,
+        dropErrorsToWarnings,
+        enableAllChecksAsWarnings,
+        disableAllChecks,
+        isTestOnlyTarget,
+        flags,
+        patchingOptions,
+        excludedPattern,
+        checkTimeBudget,
+        checkFileTimeLimit,
+        diagnosticsOutput,
+        baseline,
+        writeBaseline,
+        changedLines,
+        pathSeverities);
+  }
+
   private static class Builder {
     private boolean ignoreUnknownChecks = false;
     private boolean disableWarningsInGeneratedCode = false;
@@ -234,10 +361,24 @@ public class ErrorProneOptions {
     private final ErrorProneFlags.Builder flagsBuilder = ErrorProneFlags.builder();
     private final PatchingOptions.Builder patchingOptionsBuilder = PatchingOptions.builder();
     private Pattern excludedPattern;
+    private Duration checkTimeBudget;
+    private Duration checkFileTimeLimit;
+    private Path diagnosticsOutput;
+    private Path baseline;
+    private boolean writeBaseline = false;
+    private Path changedLines;
+    private final PathSeverities.Builder pathSeverities = new PathSeverities.Builder();
 
     private void parseSeverity(String arg) {
       // Strip prefix
       String remaining = arg.substring(SEVERITY_PREFIX.length());
+      // An override for the files under a directory, e.g. -Xep:Foo:OFF@legacy/**
+      String path = null;
+      int at = remaining.indexOf('@');
+      if (at >= 0) {
+        path = remaining.substring(at + 1);
+        remaining = remaining.substring(0, at);
+      }
       // Split on ':'
       List<String> parts = Splitter.on(':').splitToList(remaining);
       if (parts.size() > 2 || parts.get(0).isEmpty()) {
@@ -254,7 +395,11 @@ public class ErrorProneOptions {
           throw new InvalidCommandLineOptionException("invalid flag: " + arg);
         }
       }
-      severityMap.put(checkName, severity);
+      if (path != null) {
+        pathSeverities.add(path, checkName, severity);
+      } else {
+        severityMap.put(checkName, severity);
+      }
     }
 
     public void parseFlag(String flag) {
@@ -294,11 +439,26 @@ public class ErrorProneOptions {
       this.isTestOnlyTarget = isTestOnlyTarget;
     }
 
+    public void setWriteBaseline(boolean writeBaseline) {
+      this.writeBaseline = writeBaseline;
+    }
+
     public PatchingOptions.Builder patchingOptionsBuilder() {
       return patchingOptionsBuilder;
     }
 
     public ErrorProneOptions build(ImmutableList<String> remainingArgs) {
+      if (writeBaseline && baseline == null) {
+        throw new InvalidCommandLineOptionException(
+            WRITE_BASELINE_FLAG + " must be specified together with -XepBaseline");
+      }
+      PatchingOptions patchingOptions = patchingOptionsBuilder.build();
+      PathSeverities pathSeverities = this.pathSeverities.build();
+      if (patchingOptions.customRefactorer().isPresent() && !pathSeverities.isEmpty()) {
+        // A Refaster rule isn't a check, so there is nothing for the overrides to apply to.
+        throw new InvalidCommandLineOptionException(
+            PATCH_CHECKS_PREFIX + "refaster: can't be combined with path-specific overrides");
+      }
       return new ErrorProneOptions(
           ImmutableMap.copyOf(severityMap),
           remainingArgs,
@@ -309,13 +469,65 @@ public class ErrorProneOptions {
           disableAllChecks,
           isTestOnlyTarget,
           flagsBuilder.build(),
-          patchingOptionsBuilder.build(),
-          excludedPattern);
+          patchingOptions,
+          excludedPattern,
+          checkTimeBudget,
+          checkFileTimeLimit,
+          diagnosticsOutput,
+          baseline,
+          writeBaseline,
+          changedLines,
+          pathSeverities);
     }
 
     public void setExcludedPattern(Pattern excludedPattern) {
       this.excludedPattern = excludedPattern;
     }
+
+    public void parseCheckTimeBudget(String arg) {
+      checkTimeBudget = parseMillis(arg, CHECK_TIME_BUDGET_PREFIX);
+    }
+
+    public void parseCheckFileTimeLimit(String arg) {
+      checkFileTimeLimit = parseMillis(arg, CHECK_FILE_TIME_LIMIT_PREFIX);
+    }
+
+    public void parseDiagnosticsOutput(String arg) {
+      String path = arg.substring(DIAGNOSTICS_OUTPUT_PREFIX.length());
+      if (path.isEmpty()) {
+        throw new InvalidCommandLineOptionException("invalid flag: " + arg);
+      }
+      diagnosticsOutput = Paths.get(path);
+    }
+
+    public void parseBaseline(String arg) {
+      String path = arg.substring(BASELINE_PREFIX.length());
+      if (path.isEmpty()) {
+        throw new InvalidCommandLineOptionException("invalid flag: " + arg);
+      }
+      baseline = Paths.get(path);
+    }
+
+    public void parseChangedLines(String arg) {
+      String path = arg.substring(CHANGED_LINES_PREFIX.length());
+      if (path.isEmpty()) {
+        throw new InvalidCommandLineOptionException("invalid flag: " + arg);
+      }
+      changedLines = Paths.get(path);
+    }
+
+    private static Duration parseMillis(String arg, String prefix) {
+      Duration duration;
+      try {
+        duration = Duration.ofMillis(Long.parseLong(arg.substring(prefix.length())));
+      } catch (NumberFormatException e) {
+        throw new InvalidCommandLineOptionException("invalid flag: " + arg);
+      }
+      if (duration.isNegative()) {
+        throw new InvalidCommandLineOptionException("invalid flag: " + arg);
+      }
+      return duration;
+    }
   }
 
   private static final ErrorProneOptions EMPTY = new Builder().build(ImmutableList.of());
@@ -364,6 +576,9 @@ public class ErrorProneOptions {
         case COMPILING_TEST_ONLY_CODE:
           builder.setTestOnlyTarget(true);
           break;
+        case WRITE_BASELINE_FLAG:
+          builder.setWriteBaseline(true);
+          break;
         default:
           if (arg.startsWith(SEVERITY_PREFIX)) {
             builder.parseSeverity(arg);
@@ -407,6 +622,16 @@ public class ErrorProneOptions {
           } else if (arg.startsWith(EXCLUDED_PATHS_PREFIX)) {
             String pathRegex = arg.substring(EXCLUDED_PATHS_PREFIX.length());
             builder.setExcludedPattern(Pattern.compile(pathRegex));
+          } else if (arg.startsWith(CHECK_TIME_BUDGET_PREFIX)) {
+            builder.parseCheckTimeBudget(arg);
+          } else if (arg.startsWith(CHECK_FILE_TIME_LIMIT_PREFIX)) {
+            builder.parseCheckFileTimeLimit(arg);
+          } else if (arg.startsWith(DIAGNOSTICS_OUTPUT_PREFIX)) {
+            builder.parseDiagnosticsOutput(arg);
+          } else if (arg.startsWith(BASELINE_PREFIX)) {
+            builder.parseBaseline(arg);
+          } else if (arg.startsWith(CHANGED_LINES_PREFIX)) {
+            builder.parseChangedLines(arg);
           } else {
             remainingArgs.add(arg);
           }
@@ -0,0 +1,405 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone;
+
+import static java.util.Comparator.comparingLong;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.errorprone.BugPattern.SeverityLevel;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.matchers.Suppressible;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.util.Context;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import javax.annotation.Nullable;
+
+/**
+ * Records how much time each check spends matching nodes during a compilation, and enforces the
+ * per-check time budgets.
+ *
+ * <p>A check that has used up its budget for the compilation (see {@code -XepCheckTimeBudget}) is
+ * <em>throttled</em>: it is skipped for the rest of the compilation, so that one slow check (e.g.
+ * from a plugin) can't hold up the whole build. The throttled checks are reported when the
+ * compilation finishes.
+ *
+ * <p>A check that exceeds its time limit for a single compilation unit (see {@code
+ * -XepCheckFileTimeLimit}) is abandoned for the rest of that compilation unit, with a warning at
+ * the node it was matching that is reported like the check's own findings. Since javac can't
+ * interrupt a check, long-running analyses poll {@link #checkDeadline(Context)}, which throws a
+ * {@link CheckTimeoutException} once the check that is running has exceeded its limit.
+ *
+ * <p>Checks are only timed if a budget or limit is set, or costs are recorded (see {@link
+ * #isEnabled}); otherwise the scanner calls them directly.
+ *
+ * <p>There is one instance per compilation (see {@link #instance}). Like the rest of javac, this
+ * class is not thread-safe.
+ */
+public final class ErrorProneTimings {
+
+  private static final Context.Key<ErrorProneTimings> KEY = new Context.Key<>();
+
+  /** Returns the timings for the compilation that owns the given context. */
+  public static ErrorProneTimings instance(Context context) {
+    ErrorProneTimings instance = context.get(KEY);
+    if (instance == null) {
+      instance = new ErrorProneTimings();
+      context.put(KEY, instance);
+    }
+    return instance;
+  }
+
+  /**
+   * Throws a {@link CheckTimeoutException} if the check that is running in the given context has
+   * exceeded its time limit for the current compilation unit. This is cheap enough to call once
+   * per iteration of an expensive analysis, such as dataflow or unification.
+   */
+  public static void checkDeadline(Context context) {
+    ErrorProneTimings timings = context.get(KEY);
+    if (timings != null && timings.deadline != Long.MAX_VALUE) {
+      timings.checkDeadline();
+    }
+  }
+
+  private final Map<Suppressible, CheckTiming> timings = new IdentityHashMap<>();
+  private final List<CheckTimeout> timeouts = new ArrayList<>();
+  private long budgetNanos = Long.MAX_VALUE;
+  @Nullable private Duration budget;
+  private long fileLimitNanos = Long.MAX_VALUE;
+  @Nullable private Duration fileLimit;
+  private boolean recordCosts;
+  @Nullable private com.sun.management.ThreadMXBean allocationCounter;
+  @Nullable private CompilationUnitTree currentUnit;
+
+  /** The {@link System#nanoTime} at which the check that is running exceeds its limit. */
+  private long deadline = Long.MAX_VALUE;
+
+  private ErrorProneTimings() {}
+
+  /** Sets the time each check may take in this compilation, or {@code null} for no limit. */
+  public void setCheckTimeBudget(@Nullable Duration budget) {
+    this.budget = budget;
+    this.budgetNanos = budget == null ? Long.MAX_VALUE : budget.toNanos();
+  }
+
+  /** Returns the time each check may take in this compilation, or {@code null} for no limit. */
+  @Nullable
+  public Duration checkTimeBudget() {
+    return budget;
+  }
+
+  /**
+   * Sets the time each check may take on a single compilation unit, or {@code null} for no limit.
+   */
+  public void setCheckFileTimeLimit(@Nullable Duration limit) {
+    this.fileLimit = limit;
+    this.fileLimitNanos = limit == null ? Long.MAX_VALUE : limit.toNanos();
+  }
+
+  /**
+   * Records the time each check takes for {@link #costs}, even if it has no time budget or limit.
+   */
+  public void recordCosts() {
+    this.recordCosts = true;
+  }
+
+  /**
+   * Returns whether calls to checks have to be timed, because a time budget or limit is set, or
+   * costs are recorded. If not, {@link #onMatcherStart} and {@link #isThrottled} needn't be called.
+   */
+  public boolean isEnabled() {
+    return budget != null || fileLimit != null || recordCosts;
+  }
+
+  /**
+   * Records the time each check takes, as {@link #recordCosts} does, and also the bytes that each
+   * check allocates. This is only supported on JVMs that can
+   * report per-thread allocation, and is too expensive to enable in production builds.
+   *
+   * @return whether allocations will be recorded
+   */
+  public boolean recordAllocations() {
+    recordCosts = true;
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+      if (counter.isThreadAllocatedMemorySupported() && counter.isThreadAllocatedMemoryEnabled()) {
+        allocationCounter = counter;
+      }
+    }
+    return allocationCounter != null;
+  }
+
+  /**
+   * Starts the time limits for a new compilation unit. Scanning the same compilation unit again
+   * (e.g. for another of its top-level classes) doesn't reset them.
+   */
+  public void startCompilationUnit(CompilationUnitTree unit) {
+    if (unit == currentUnit) {
+      return;
+    }
+    currentUnit = unit;
+    for (CheckTiming timing : timings.values()) {
+      timing.fileNanos = 0;
+      timing.abandoned = false;
+    }
+  }
+
+  /**
+   * Starts timing a call to {@code matcher} on the node at the given state's path. The returned
+   * object must be closed when the call returns, typically with a try-with-resources statement.
+   */
+  public AutoCloseable onMatcherStart(Suppressible matcher, VisitorState state) {
+    CheckTiming timing = timings.get(matcher);
+    if (timing == null) {
+      timing = new CheckTiming(matcher);
+      timings.put(matcher, timing);
+    }
+    timing.start(state);
+    return timing;
+  }
+
+  /**
+   * Returns whether {@code matcher} should be skipped, because it has used up its time budget for
+   * the compilation, or its time limit for the current compilation unit.
+   */
+  public boolean isThrottled(Suppressible matcher) {
+    CheckTiming timing = timings.get(matcher);
+    return timing != null && (timing.throttled || timing.abandoned);
+  }
+
+  private void checkDeadline() {
+    if (System.nanoTime() > deadline) {
+      throw new CheckTimeoutException(
+          "Exceeded the time limit of " + fileLimit.toMillis() + " ms for this file");
+    }
+  }
+
+  /** Returns where checks exceeded their time limit for a compilation unit, in order. */
+  public ImmutableList<CheckTimeout> timeouts() {
+    return ImmutableList.copyOf(timeouts);
+  }
+
+  /** Returns the names of the checks that used up their time budget, in alphabetical order. */
+  public ImmutableSortedSet<String> throttledChecks() {
+    TreeSet<String> result = new TreeSet<>();
+    for (CheckTiming timing : timings.values()) {
+      if (timing.throttled) {
+        result.add(timing.checkName);
+      }
+    }
+    return ImmutableSortedSet.copyOf(result);
+  }
+
+  /**
+   * Returns the time spent in each check, keyed by check name, slowest first. Only checks that were
+   * timed (see {@link #isEnabled}) are included.
+   */
+  public ImmutableMap<String, CheckCost> costs() {
+    Map<String, CheckCost> result = new LinkedHashMap<>();
+    timings.values().stream()
+        .sorted(comparingLong((CheckTiming t) -> t.nanos).reversed())
+        .forEach(
+            t ->
+                result.merge(
+                    t.checkName,
+                    new CheckCost(t.invocations, t.nanos, t.allocatedBytes),
+                    CheckCost::plus));
+    return ImmutableMap.copyOf(result);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("ErrorProneTimings:");
+    costs()
+        .forEach(
+            (name, cost) ->
+                sb.append(
+                    String.format(
+                        "%n  %s: %d ms, %d calls", name, cost.nanos() / 1_000_000, cost.calls())));
+    for (CheckTimeout timeout : timeouts) {
+      sb.append(String.format("%n  timeout: %s", timeout));
+    }
+    return sb.toString();
+  }
+
+  /** A check that exceeded its time limit for a compilation unit. */
+  public static final class CheckTimeout {
+    private final String checkName;
+    private final String file;
+    private final long line;
+    private final Duration elapsed;
+
+    CheckTimeout(String checkName, String file, long line, Duration elapsed) {
+      this.checkName = checkName;
+      this.file = file;
+      this.line = line;
+      this.elapsed = elapsed;
+    }
+
+    /** The name of the check. */
+    public String checkName() {
+      return checkName;
+    }
+
+    /** The name of the compilation unit's source file. */
+    public String file() {
+      return file;
+    }
+
+    /** The line of the node the check was matching when it exceeded its limit. */
+    public long line() {
+      return line;
+    }
+
+    /** The time the check had spent on the compilation unit. */
+    public Duration elapsed() {
+      return elapsed;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s at %s:%d after %d ms", checkName, file, line, elapsed.toMillis());
+    }
+  }
+
+  /** The time and memory a check used. */
+  public static final class CheckCost {
+    private final long calls;
+    private final long nanos;
+    private final long allocatedBytes;
+
+    CheckCost(long calls, long nanos, long allocatedBytes) {
+      this.calls = calls;
+      this.nanos = nanos;
+      this.allocatedBytes = allocatedBytes;
+    }
+
+    /** The number of times the check was asked to match a node. */
+    public long calls() {
+      return calls;
+    }
+
+    /** The total time spent matching nodes. */
+    public long nanos() {
+      return nanos;
+    }
+
+    /** The bytes allocated while matching nodes, if {@link #recordAllocations} was enabled. */
+    public long allocatedBytes() {
+      return allocatedBytes;
+    }
+
+    CheckCost plus(CheckCost other) {
+      return new CheckCost(
+          calls + other.calls, nanos + other.nanos, allocatedBytes + other.allocatedBytes);
+    }
+  }
+
+  /** The running totals for one check. Re-used for every call, to avoid allocating. */
+  private final class CheckTiming implements AutoCloseable {
+    final String checkName;
+    long invocations;
+    long nanos;
+    long allocatedBytes;
+    boolean throttled;
+
+    /** The time spent on the current compilation unit. */
+    long fileNanos;
+
+    boolean abandoned;
+
+    private long startNanos;
+    private long startBytes;
+    @Nullable private VisitorState state;
+
+    CheckTiming(Suppressible matcher) {
+      this.checkName = matcher.canonicalName();
+    }
+
+    void start(VisitorState state) {
+      this.state = state;
+      invocations++;
+      if (allocationCounter != null) {
+        startBytes = allocationCounter.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+      startNanos = System.nanoTime();
+      if (fileLimitNanos != Long.MAX_VALUE) {
+        deadline = startNanos + (fileLimitNanos - fileNanos);
+      }
+    }
+
+    @Override
+    public void close() {
+      long elapsed = System.nanoTime() - startNanos;
+      deadline = Long.MAX_VALUE;
+      nanos += elapsed;
+      fileNanos += elapsed;
+      if (allocationCounter != null) {
+        allocatedBytes +=
+            allocationCounter.getThreadAllocatedBytes(Thread.currentThread().getId())
+                - startBytes;
+      }
+      if (nanos > budgetNanos) {
+        throttled = true;
+      }
+      if (fileNanos > fileLimitNanos && !abandoned) {
+        abandoned = true;
+        abandon();
+      }
+      state = null;
+    }
+
+    /** Records and reports that the check exceeded its limit while matching the current node. */
+    private void abandon() {
+      Tree tree = state.getPath().getLeaf();
+      CompilationUnitTree unit = state.getPath().getCompilationUnit();
+      long position = ((JCTree) tree).getStartPosition();
+      CheckTimeout timeout =
+          new CheckTimeout(
+              checkName,
+              unit.getSourceFile().getName(),
+              unit.getLineMap().getLineNumber(position),
+              Duration.ofNanos(fileNanos));
+      timeouts.add(timeout);
+      // Reported like the check's findings, so that it reaches the same description listeners,
+      // e.g. the diagnostics output, and is subject to the same suppressions and filters.
+      state.reportCheckDiagnostic(
+          Description.builder(
+                  tree,
+                  checkName,
+                  /* link= */ null,
+                  SeverityLevel.WARNING,
+                  String.format(
+                      "Skipped for the rest of this file: the check took more than its time limit"
+                          + " of %d ms",
+                      fileLimit.toMillis()))
+              .build());
+    }
+  }
+}
@@ -0,0 +1,371 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.errorprone.matchers.Description;
+import com.sun.tools.javac.code.Kinds.Kind;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.JCTree.JCClassDecl;
+import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
+import com.sun.tools.javac.tree.JCTree.JCMethodDecl;
+import com.sun.tools.javac.tree.JCTree.JCVariableDecl;
+import com.sun.tools.javac.tree.TreeInfo;
+import com.sun.tools.javac.tree.TreeScanner;
+import com.sun.tools.javac.util.Position;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+
+/**
+ * A set of known findings that are not reported, so that a new check can be enabled on a large
+ * codebase without first fixing or suppressing all of its existing findings (see {@code
+ * -XepBaseline} and {@code -XepWriteBaseline}).
+ *
+ * <p>Findings are identified by a 64-bit fingerprint of the check's name, the declaration that
+ * encloses the finding (e.g. {@code com.example.Foo#bar(int)}), and the source code of the finding
+ * with whitespace removed. Line numbers and the indices of anonymous and local classes are not part
+ * of the fingerprint, so a finding stays in the baseline when code above it changes. Identical
+ * findings in the same declaration share a fingerprint, so one entry covers all of them.
+ *
+ * <p>The baseline file is a small header followed by the sorted fingerprints, so that it can be
+ * read in a single pass and looked up by binary search. Writing a baseline adds to the fingerprints
+ * already in the file, so that all the compilations of a multi-module build can write to the same
+ * baseline; delete the file to record a new baseline from scratch.
+ */
+public final class FindingsBaseline {
+
+  /** "EPB1": the format of the file. */
+  private static final int MAGIC = 0x45504231;
+
+  private static final int HEADER_SIZE = 8;
+
+  private static final HashFunction HASH = Hashing.farmHashFingerprint64();
+
+  /** The index of an anonymous or local class in its flat name, e.g. {@code $1} in {@code A$1B}. */
+  private static final Pattern CLASS_INDEX = Pattern.compile("\\$[0-9]+");
+
+  /**
+   * Held while a baseline file is rewritten. The file is also locked, but file locks are held on
+   * behalf of the whole JVM, so they don't keep compilations in the same JVM apart.
+   */
+  private static final Object WRITE_LOCK = new Object();
+
+  private final Path path;
+  private final boolean write;
+
+  /** The sorted, distinct fingerprints that were read, or the fingerprints that were recorded. */
+  private long[] fingerprints;
+
+  /** The number of recorded fingerprints, when writing. */
+  private int size;
+
+  private FindingsBaseline(Path path, boolean write, long[] fingerprints) {
+    this.path = path;
+    this.write = write;
+    this.fingerprints = fingerprints;
+    this.size = write ? 0 : fingerprints.length;
+  }
+
+  /**
+   * Returns the baseline for the given options, or {@code null} if they don't specify one.
+   *
+   * @throws InvalidCommandLineOptionException if the baseline should be read, and can't be
+   */
+  @Nullable
+  public static FindingsBaseline forOptions(ErrorProneOptions options) {
+    Path path = options.getBaseline();
+    if (path == null) {
+      return null;
+    }
+    return options.isWriteBaseline()
+        ? new FindingsBaseline(path, /* write= */ true, new long[1024])
+        : read(path);
+  }
+
+  /**
+   * Reads the baseline at {@code path}.
+   *
+   * @throws InvalidCommandLineOptionException if the file can't be read, or isn't a baseline
+   */
+  public static FindingsBaseline read(Path path) {
+    long[] fingerprints;
+    try (FileChannel channel = FileChannel.open(path)) {
+      fingerprints = readFingerprints(channel);
+    } catch (IOException e) {
+      throw new InvalidCommandLineOptionException(
+          "cannot read baseline " + path + ": " + e.getMessage());
+    }
+    return new FindingsBaseline(path, /* write= */ false, fingerprints);
+  }
+
+  /** Reads the sorted, distinct fingerprints in a baseline file. */
+  private static long[] readFingerprints(FileChannel channel) throws IOException {
+    long fileSize = channel.size();
+    if (fileSize < HEADER_SIZE || fileSize > Integer.MAX_VALUE) {
+      throw new IOException("not a baseline file");
+    }
+    ByteBuffer buffer = ByteBuffer.allocate((int) fileSize);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, buffer.position()) < 0) {
+        throw new IOException("truncated baseline file");
+      }
+    }
+    int count = buffer.getInt(4);
+    if (buffer.getInt(0) != MAGIC
+        || count < 0
+        || fileSize != HEADER_SIZE + (long) count * Long.BYTES) {
+      throw new IOException("not a baseline file");
+    }
+    buffer.position(HEADER_SIZE);
+    long[] fingerprints = new long[count];
+    buffer.asLongBuffer().get(fingerprints);
+    // Files written by writeTo are already sorted, but don't rely on it for correctness.
+    for (int i = 1; i < fingerprints.length; i++) {
+      if (fingerprints[i - 1] >= fingerprints[i]) {
+        return distinct(fingerprints, fingerprints.length);
+      }
+    }
+    return fingerprints;
+  }
+
+  /** The baseline file. */
+  public Path path() {
+    return path;
+  }
+
+  /**
+   * Whether the findings of this compilation are recorded, to be written by {@link #close},
+   * instead of being looked up.
+   */
+  public boolean isWrite() {
+    return write;
+  }
+
+  /** The number of fingerprints that were read, or recorded so far. */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns a listener that reports the findings in {@code compilation} that are not in the
+   * baseline to {@code listener}, and drops the rest. When writing the baseline, all findings are
+   * recorded and dropped.
+   */
+  public DescriptionListener filter(JCCompilationUnit compilation, DescriptionListener listener) {
+    return new DescriptionListener() {
+      // Read lazily, and at most once per compilation unit: most units have no findings.
+      @Nullable private CharSequence source;
+
+      @Override
+      public void onDescribed(Description description) {
+        if (source == null) {
+          source = sourceOf(compilation);
+        }
+        long fingerprint = fingerprint(description, compilation, source);
+        if (write) {
+          add(fingerprint);
+        } else if (!contains(fingerprint)) {
+          listener.onDescribed(description);
+        }
+      }
+    };
+  }
+
+  /** Returns whether the baseline contains the given fingerprint. */
+  boolean contains(long fingerprint) {
+    return Arrays.binarySearch(fingerprints, 0, size, fingerprint) >= 0;
+  }
+
+  private void add(long fingerprint) {
+    if (size == fingerprints.length) {
+      fingerprints = Arrays.copyOf(fingerprints, size * 2);
+    }
+    fingerprints[size++] = fingerprint;
+  }
+
+  /**
+   * Adds the recorded fingerprints to the baseline file, if this baseline is being written. The
+   * fingerprints that are already in the file are kept.
+   */
+  public void close() throws IOException {
+    if (!write) {
+      return;
+    }
+    Path parent = path.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    // Other compilations of the same build, in this JVM or another one, may be writing to the
+    // same file.
+    synchronized (WRITE_LOCK) {
+      try (FileChannel channel = FileChannel.open(path, READ, WRITE, CREATE);
+          FileLock lock = channel.lock()) {
+        if (channel.size() > 0) {
+          for (long fingerprint : readFingerprints(channel)) {
+            add(fingerprint);
+          }
+        }
+        channel.truncate(0);
+        writeTo(distinct(fingerprints, size), Channels.newOutputStream(channel));
+      }
+    }
+  }
+
+  /** Writes the given sorted, distinct fingerprints as a baseline file. */
+  static void writeTo(long[] fingerprints, OutputStream out) throws IOException {
+    DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+    data.writeInt(MAGIC);
+    data.writeInt(fingerprints.length);
+    for (long fingerprint : fingerprints) {
+      data.writeLong(fingerprint);
+    }
+    data.flush();
+  }
+
+  private static long[] distinct(long[] values, int length) {
+    long[] sorted = Arrays.copyOf(values, length);
+    Arrays.sort(sorted);
+    int distinct = 0;
+    for (int i = 0; i < sorted.length; i++) {
+      if (i == 0 || sorted[i] != sorted[distinct - 1]) {
+        sorted[distinct++] = sorted[i];
+      }
+    }
+    return Arrays.copyOf(sorted, distinct);
+  }
+
+  private static CharSequence sourceOf(JCCompilationUnit compilation) {
+    try {
+      return compilation.getSourceFile().getCharContent(/* ignoreEncodingErrors= */ true);
+    } catch (IOException e) {
+      // The fingerprint then only depends on the check and the enclosing declaration.
+      return "";
+    }
+  }
+
+  /** Returns the fingerprint of a finding in the given compilation unit. */
+  static long fingerprint(
+      Description description, JCCompilationUnit compilation, CharSequence source) {
+    int start = description.position.getStartPosition();
+    int end = description.position.getEndPosition(compilation.endPositions);
+    return HASH.newHasher()
+        .putString(description.checkName, UTF_8)
+        .putByte((byte) 0)
+        .putString(enclosingDeclaration(compilation, start), UTF_8)
+        .putByte((byte) 0)
+        .putString(snippet(source, start, end), UTF_8)
+        .hash()
+        .asLong();
+  }
+
+  /**
+   * Returns the first line of the source code in {@code [start, end)}, without whitespace, so that
+   * the fingerprint doesn't change when the code is reformatted, or when a large tree (e.g. a
+   * method) that a finding is reported on changes further down.
+   */
+  private static String snippet(CharSequence source, int start, int end) {
+    if (start < 0 || start >= source.length()) {
+      return "";
+    }
+    if (end <= start || end > source.length()) {
+      end = source.length();
+    }
+    StringBuilder sb = new StringBuilder();
+    for (int i = start; i < end; i++) {
+      char c = source.charAt(i);
+      if (c == '\n' || c == '\r') {
+        break;
+      }
+      if (!Character.isWhitespace(c)) {
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Returns the name of the innermost class, method or field that contains {@code position}, e.g.
+   * {@code com.example.Foo$Bar#baz(int)}, or the package and file name for findings outside of any
+   * class.
+   */
+  private static String enclosingDeclaration(JCCompilationUnit compilation, int position) {
+    Symbol[] enclosing = {null};
+    new TreeScanner() {
+      @Override
+      public void scan(JCTree tree) {
+        if (tree == null || !contains(tree, position)) {
+          return;
+        }
+        Symbol sym = TreeInfo.symbolFor(tree);
+        if (sym != null
+            && (tree instanceof JCClassDecl
+                || tree instanceof JCMethodDecl
+                || (tree instanceof JCVariableDecl && sym.owner.kind == Kind.TYP))) {
+          enclosing[0] = sym;
+        }
+        super.scan(tree);
+      }
+
+      private boolean contains(JCTree tree, int position) {
+        // Without end positions, only the start positions can be used to prune the search.
+        int end =
+            compilation.endPositions != null
+                ? TreeInfo.getEndPos(tree, compilation.endPositions)
+                : Position.NOPOS;
+        return TreeInfo.getStartPos(tree) <= position && (end < 0 || position < end);
+      }
+    }.scan(compilation.getTypeDecls());
+    Symbol sym = enclosing[0];
+    if (sym == null) {
+      String packageName =
+          compilation.getPackageName() != null ? compilation.getPackageName().toString() : "";
+      String fileName = compilation.getSourceFile().getName();
+      int separator = Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\'));
+      return packageName + "/" + fileName.substring(separator + 1);
+    }
+    if (sym.kind == Kind.TYP) {
+      return withoutClassIndices(sym.flatName().toString());
+    }
+    return withoutClassIndices(sym.owner.flatName() + "#" + sym);
+  }
+
+  /**
+   * Removes the indices of anonymous and local classes from a name, e.g. {@code A$1} becomes
+   * {@code A$}, since they change when a class is added or removed above.
+   */
+  private static String withoutClassIndices(String name) {
+    return CLASS_INDEX.matcher(name).replaceAll("\\$");
+  }
+}
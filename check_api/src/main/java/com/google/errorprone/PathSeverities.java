@@ -0,0 +1,168 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.errorprone.ErrorProneOptions.Severity;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Severity overrides that only apply to the source files under a directory, e.g. {@code
+ * -Xep:Foo:OFF@legacy/**}.
+ *
+ * <p>The directories are compiled into a trie of path segments, so that the overrides for a source
+ * file are resolved in a single walk of its path. A directory that starts with {@code /} must be a
+ * prefix of the source file's absolute path; other directories match at any directory boundary,
+ * so {@code legacy/**} matches both {@code /src/legacy/A.java} and {@code /src/a/legacy/B.java}.
+ * Overrides for the directories that end deeper in the source file's path take precedence, so
+ * for {@code /src/main/legacy/A.java} an override for {@code legacy} takes precedence over one for
+ * {@code src/main}. Among directories that end at the same place, longer ones take precedence,
+ * and among overrides for the same directory, later ones take precedence.
+ */
+public final class PathSeverities {
+
+  private static final Splitter PATH_SPLITTER = Splitter.on('/').omitEmptyStrings();
+
+  /** A node of the trie, for one directory. */
+  private static final class Node {
+    final Map<String, Node> children = new HashMap<>();
+
+    /** The overrides for the files under this directory, in the order they were given. */
+    final Map<String, Severity> severities = new LinkedHashMap<>();
+
+    /** The number of segments of this directory. */
+    final int depth;
+
+    Node(int depth) {
+      this.depth = depth;
+    }
+  }
+
+  /** The root of the trie of directories that match at any directory boundary. */
+  private final Node relative;
+
+  /** The root of the trie of absolute directories. */
+  private final Node absolute;
+
+  private final boolean isEmpty;
+
+  private PathSeverities(Node relative, Node absolute) {
+    this.relative = relative;
+    this.absolute = absolute;
+    this.isEmpty = relative.children.isEmpty() && absolute.children.isEmpty();
+  }
+
+  /** Returns whether there are no overrides. */
+  public boolean isEmpty() {
+    return isEmpty;
+  }
+
+  /**
+   * Returns the overrides for the source file with the given path, keyed by check name. The
+   * result is empty if no overrides apply to the file.
+   */
+  public ImmutableMap<String, Severity> forPath(String path) {
+    if (isEmpty) {
+      return ImmutableMap.of();
+    }
+    List<String> segments = PATH_SPLITTER.splitToList(path.replace('\\', '/'));
+    // The file name is the last segment; only the directories that contain it can match.
+    List<String> directories = segments.subList(0, Math.max(0, segments.size() - 1));
+    List<Match> matches = new ArrayList<>();
+    collect(absolute, directories, 0, matches);
+    for (int start = 0; start < directories.size(); start++) {
+      collect(relative, directories, start, matches);
+    }
+    if (matches.isEmpty()) {
+      return ImmutableMap.of();
+    }
+    // Stable, so overrides for the same directory keep their order.
+    matches.sort(Comparator.comparingInt((Match m) -> m.end).thenComparingInt(m -> m.node.depth));
+    Map<String, Severity> result = new LinkedHashMap<>();
+    for (Match match : matches) {
+      result.putAll(match.node.severities);
+    }
+    return ImmutableMap.copyOf(result);
+  }
+
+  /** A directory with overrides that matched the source file's path. */
+  private static final class Match {
+    final Node node;
+
+    /** The number of the source file's directories up to and including the matched one. */
+    final int end;
+
+    Match(Node node, int end) {
+      this.node = node;
+      this.end = end;
+    }
+  }
+
+  /** Adds the nodes with overrides along the path from {@code root} to {@code matches}. */
+  private static void collect(Node root, List<String> directories, int start, List<Match> matches) {
+    Node node = root;
+    for (int i = start; i < directories.size(); i++) {
+      node = node.children.get(directories.get(i));
+      if (node == null) {
+        return;
+      }
+      if (!node.severities.isEmpty()) {
+        matches.add(new Match(node, i + 1));
+      }
+    }
+  }
+
+  /** Builds {@link PathSeverities}. */
+  public static final class Builder {
+    private final Node relative = new Node(0);
+    private final Node absolute = new Node(0);
+
+    /**
+     * Adds an override for the files under the directory {@code pattern}, which is either a
+     * directory (e.g. {@code legacy}) or all files under a directory (e.g. {@code legacy/**}).
+     *
+     * @throws InvalidCommandLineOptionException if the pattern isn't a directory
+     */
+    public Builder add(String pattern, String checkName, Severity severity) {
+      String directory = pattern;
+      if (directory.endsWith("/**")) {
+        directory = directory.substring(0, directory.length() - "/**".length());
+      }
+      if (directory.contains("*") || directory.isEmpty()) {
+        throw new InvalidCommandLineOptionException(
+            "invalid path " + pattern + " for " + checkName + ": expected a directory");
+      }
+      Node node = directory.startsWith("/") ? absolute : relative;
+      for (String segment : PATH_SPLITTER.split(directory)) {
+        int depth = node.depth + 1;
+        node = node.children.computeIfAbsent(segment, s -> new Node(depth));
+      }
+      node.severities.put(checkName, severity);
+      return this;
+    }
+
+    public PathSeverities build() {
+      return new PathSeverities(relative, absolute);
+    }
+  }
+}
@@ -33,6 +33,18 @@ public final class SubContext extends Context {
     this.base = checkNotNull(base);
   }
 
+  /**
+   * Returns the context of the compilation that {@code context} belongs to, which outlives the
+   * {@link SubContext} that Error Prone creates for the scan of each class. State that should be
+   * shared by the scans of all classes, e.g. caches, belongs in the compilation's context.
+   */
+  public static Context compilationContext(Context context) {
+    while (context instanceof SubContext) {
+      context = ((SubContext) context).base;
+    }
+    return context;
+  }
+
   @Override
   public <T> T get(Key<T> key) {
     T result = super.get(key);
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone;
+
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.util.Context;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The types that {@link VisitorState#getTypeFromString} has resolved in a compilation.
+ *
+ * <p>The fixed type names that checkers use, i.e. those passed to {@link
+ * com.google.errorprone.suppliers.Suppliers#typeFromString}, are interned to slot indices once per
+ * JVM (see {@link #slot}) when the checkers are constructed, so their types are looked up with
+ * {@link VisitorState#getTypeFromSlot} by reading an array. Other names, e.g. ones built from the
+ * source being compiled, don't get a slot, so that they don't accumulate for the lifetime of the
+ * JVM; their types are looked up by name in a map that only lasts for the compilation.
+ *
+ * <p>There is one table per compilation (see {@link #instance}). Types that are found are cached
+ * for the rest of the compilation. Types that are not found, including types whose completion
+ * fails, are only cached for the scan of the current compilation unit: javac loads classes lazily,
+ * so a class that hasn't been loaded while one compilation unit is scanned may have been by the
+ * time the next one is.
+ */
+public final class TypeTable {
+
+  private static final Map<String, Integer> SLOTS = new ConcurrentHashMap<>();
+
+  /** The type names, indexed by slot. Guarded by itself. */
+  private static final List<String> NAMES = new ArrayList<>();
+
+  /**
+   * Returns the slot of the given type name, which is the same for the lifetime of the JVM. Slots
+   * are never released, so this is only for a fixed set of names, not names computed from the code
+   * being compiled.
+   *
+   * @param typeStr the JLS 13.1 binary name of the class, e.g. {@code "java.util.Map$Entry"}
+   */
+  public static int slot(String typeStr) {
+    Integer slot = SLOTS.get(typeStr);
+    if (slot != null) {
+      return slot;
+    }
+    synchronized (NAMES) {
+      slot = SLOTS.get(typeStr);
+      if (slot == null) {
+        slot = NAMES.size();
+        NAMES.add(typeStr);
+        SLOTS.put(typeStr, slot);
+      }
+      return slot;
+    }
+  }
+
+  private static String name(int slot) {
+    synchronized (NAMES) {
+      return NAMES.get(slot);
+    }
+  }
+
+  private static final Context.Key<TypeTable> KEY = new Context.Key<>();
+
+  /** Returns the table for the compilation that owns the given context. */
+  static TypeTable instance(Context context) {
+    context = SubContext.compilationContext(context);
+    TypeTable instance = context.get(KEY);
+    if (instance == null) {
+      instance = new TypeTable();
+      context.put(KEY, instance);
+    }
+    return instance;
+  }
+
+  /** The resolved types, indexed by slot, or null if a type hasn't been found. */
+  private Type[] types = new Type[0];
+
+  /** The scope in which each type was last not found, indexed by slot; zero if never. */
+  private int[] missingIn = new int[0];
+
+  private int scopes = 0;
+
+  /** The types that were found by names without a slot. */
+  private final Map<String, Type> typesByName = new HashMap<>();
+
+  /** The scope in which each name without a slot was last not found. */
+  private final Map<String, Integer> missingByName = new HashMap<>();
+
+  private TypeTable() {}
+
+  /**
+   * Returns a new scope for caching types that are not found, to be used for the scan of one
+   * compilation unit.
+   */
+  int newScope() {
+    return ++scopes;
+  }
+
+  /**
+   * Returns the type in the given slot, resolving it with {@code state} if it hasn't been found yet
+   * in this compilation, and hasn't been looked for yet in {@code scope}.
+   */
+  Type get(int slot, int scope, VisitorState state) {
+    if (slot < types.length) {
+      Type type = types[slot];
+      if (type != null || missingIn[slot] == scope) {
+        return type;
+      }
+    } else {
+      int length = Math.max(slot + 1, types.length * 2);
+      types = Arrays.copyOf(types, length);
+      missingIn = Arrays.copyOf(missingIn, length);
+    }
+    Type type = state.getTypeFromStringInternal(name(slot));
+    if (type != null) {
+      types[slot] = type;
+    } else {
+      missingIn[slot] = scope;
+    }
+    return type;
+  }
+
+  /**
+   * Returns the type with the given name, like {@link #get(int, int, VisitorState)}, but without
+   * reserving a slot for the name if it doesn't have one.
+   */
+  Type get(String typeStr, int scope, VisitorState state) {
+    Integer slot = SLOTS.get(typeStr);
+    if (slot != null) {
+      return get(slot, scope, state);
+    }
+    Type type = typesByName.get(typeStr);
+    if (type != null) {
+      return type;
+    }
+    Integer missing = missingByName.get(typeStr);
+    if (missing != null && missing == scope) {
+      return null;
+    }
+    type = state.getTypeFromStringInternal(typeStr);
+    if (type != null) {
+      typesByName.put(typeStr, type);
+      missingByName.remove(typeStr);
+    } else {
+      missingByName.put(typeStr, scope);
+    }
+    return type;
+  }
+
+  /** Returns the number of names that have a slot. */
+  static int slots() {
+    return SLOTS.size();
+  }
+}
@@ -16,16 +16,16 @@
 
 package com.google.errorprone;
 
-import com.google.common.base.Optional;
 import com.google.common.base.Splitter;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.errorprone.BugPattern.SeverityLevel;
 import com.google.errorprone.dataflow.nullnesspropagation.NullnessAnalysis;
 import com.google.errorprone.matchers.Description;
+import com.google.errorprone.util.CompilationUnitTokens;
+import com.google.errorprone.util.ConstantValues;
 import com.google.errorprone.util.ErrorProneToken;
 import com.google.errorprone.util.ErrorProneTokens;
+import com.google.errorprone.util.SymbolIndex;
+import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.util.TreePath;
 import com.sun.tools.javac.code.Kinds.Kind;
@@ -51,7 +51,7 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
+import javax.annotation.Nullable;
 
 /** @author alexeagle@google.com (Alex Eagle) */
 public class VisitorState {
@@ -61,7 +61,7 @@ public class VisitorState {
   private final TreePath path;
   private final Map<String, SeverityLevel> severityMap;
   private final ErrorProneOptions errorProneOptions;
-  private final LoadingCache<String, Optional<Type>> typeCache;
+  private final SharedState sharedState;
 
   // The default no-op implementation of DescriptionListener. We use this instead of null so callers
   // of getDescriptionListener() don't have to do null-checking.
@@ -97,31 +97,46 @@ public class VisitorState {
       DescriptionListener descriptionListener,
       Map<String, SeverityLevel> severityMap,
       ErrorProneOptions errorProneOptions,
-      LoadingCache<String, Optional<Type>> typeCache) {
+      SharedState sharedState) {
     this.context = context;
     this.path = path;
     this.descriptionListener = descriptionListener;
     this.severityMap = severityMap;
     this.errorProneOptions = errorProneOptions;
-    if (typeCache != null) {
-      this.typeCache = typeCache;
-    } else {
-      this.typeCache =
-          CacheBuilder.newBuilder()
-              .concurrencyLevel(1) // resolving symbols in javac is not is not thread-safe
-              .build(
-                  new CacheLoader<String, Optional<Type>>() {
-                    @Override
-                    public Optional<Type> load(String key) throws Exception {
-                      return Optional.fromNullable(getTypeFromStringInternal(key));
-                    }
-                  });
-    }
+    this.sharedState = sharedState != null ? sharedState : new SharedState();
+  }
+
+  /**
+   * State that is computed lazily and shared by a {@link VisitorState} and all of the states
+   * derived from it with {@link #withPath}, i.e. for the duration of the scan of one compilation
+   * unit.
+   */
+  private static final class SharedState {
+    /** The compilation's {@link TypeTable}, or null if no types have been looked up yet. */
+    private TypeTable typeTable;
+
+    /** The scope in {@link #typeTable} of types that were not found in this compilation unit. */
+    private int typeScope;
+
+    /** The compilation unit that {@link #tokens} were lexed from. */
+    private CompilationUnitTree tokensUnit;
+
+    private CompilationUnitTokens tokens;
+
+    /** The compilation unit that {@link #symbolIndex} indexes. */
+    private CompilationUnitTree symbolIndexUnit;
+
+    private SymbolIndex symbolIndex;
+
+    /** The compilation unit whose expressions {@link #constantValues} are the values of. */
+    private CompilationUnitTree constantValuesUnit;
+
+    private ConstantValues constantValues;
   }
 
   public VisitorState withPath(TreePath path) {
     return new VisitorState(
-        context, path, descriptionListener, severityMap, errorProneOptions, typeCache);
+        context, path, descriptionListener, severityMap, errorProneOptions, sharedState);
   }
 
   public TreePath getPath() {
@@ -161,6 +176,15 @@ public class VisitorState {
     descriptionListener.onDescribed(description);
   }
 
+  /**
+   * Reports a finding about the check that {@code description} names rather than about the code,
+   * e.g. that it ran out of time. Unlike {@link #reportMatch}, the check's severity override isn't
+   * applied, so that configuring a check as an error doesn't turn its timeouts into errors.
+   */
+  void reportCheckDiagnostic(Description description) {
+    descriptionListener.onDescribed(description);
+  }
+
   public Name getName(String nameStr) {
     return Names.instance(context).fromString(nameStr);
   }
@@ -177,14 +201,26 @@ public class VisitorState {
    * @return the {@link Type}, or null if it cannot be found
    */
   public Type getTypeFromString(String typeStr) {
-    try {
-      return typeCache.get(typeStr).orNull();
-    } catch (ExecutionException e) {
-      return null;
+    return typeTable().get(typeStr, sharedState.typeScope, this);
+  }
+
+  /**
+   * Returns the {@link Type} of the class whose name was interned in the given {@link TypeTable}
+   * slot, like {@link #getTypeFromString}.
+   */
+  public Type getTypeFromSlot(int slot) {
+    return typeTable().get(slot, sharedState.typeScope, this);
+  }
+
+  private TypeTable typeTable() {
+    if (sharedState.typeTable == null) {
+      sharedState.typeTable = TypeTable.instance(context);
+      sharedState.typeScope = sharedState.typeTable.newScope();
     }
+    return sharedState.typeTable;
   }
 
-  private Type getTypeFromStringInternal(String typeStr) {
+  Type getTypeFromStringInternal(String typeStr) {
     validateTypeStr(typeStr);
     if (isPrimitiveType(typeStr)) {
       return getPrimitiveType(typeStr);
@@ -355,15 +391,92 @@ public class VisitorState {
   }
 
   /**
-   * Returns the list of {@link Token}s for the given {@link JCTree}.
+   * Returns the list of {@link Token}s for the given {@link JCTree}, with positions relative to the
+   * start of the node.
    *
-   * <p>This is moderately expensive (the source of the node has to be re-lexed), so it should only
-   * be used if a fix is already going to be emitted.
+   * <p>The compilation unit is lexed the first time tokens are requested, and the result is shared
+   * by all checks for the remainder of the scan of that compilation unit.
    */
   public java.util.List<ErrorProneToken> getTokensForNode(Tree tree) {
+    int start = ((JCTree) tree).getStartPosition();
+    int end = getEndPosition(tree);
+    CompilationUnitTokens tokens = getCompilationUnitTokens();
+    if (tokens != null && end >= 0) {
+      java.util.List<ErrorProneToken> result = tokens.getTokens(start, end);
+      if (result != null) {
+        return result;
+      }
+    }
     return ErrorProneTokens.getTokens(getSourceForNode(tree), context);
   }
 
+  /**
+   * Returns the list of {@link Token}s for the given {@link JCTree}, with positions relative to the
+   * start of the compilation unit.
+   */
+  public java.util.List<ErrorProneToken> getOffsetTokensForNode(Tree tree) {
+    return getOffsetTokens(((JCTree) tree).getStartPosition(), getEndPosition(tree));
+  }
+
+  /**
+   * Returns the list of {@link Token}s for the source code in the range {@code [start, end)}, with
+   * positions relative to the start of the compilation unit.
+   */
+  public java.util.List<ErrorProneToken> getOffsetTokens(int start, int end) {
+    CompilationUnitTokens tokens = getCompilationUnitTokens();
+    if (tokens != null) {
+      java.util.List<ErrorProneToken> result = tokens.getOffsetTokens(start, end);
+      if (result != null) {
+        return result;
+      }
+    }
+    return ErrorProneTokens.getTokens(
+        getSourceCode().subSequence(start, end).toString(), start, context);
+  }
+
+  /** Returns the lexed tokens of the current compilation unit, or null if they are unavailable. */
+  @Nullable
+  private CompilationUnitTokens getCompilationUnitTokens() {
+    CompilationUnitTree compilationUnit = getPath().getCompilationUnit();
+    if (sharedState.tokensUnit != compilationUnit) {
+      CharSequence sourceCode = getSourceCode();
+      sharedState.tokens =
+          sourceCode != null ? CompilationUnitTokens.create(sourceCode, context) : null;
+      sharedState.tokensUnit = compilationUnit;
+    }
+    return sharedState.tokens;
+  }
+
+  /**
+   * Returns the declarations of, and references to, the symbols in the current compilation unit.
+   *
+   * <p>The compilation unit is indexed the first time the index is requested, and the result is
+   * shared by all checks for the remainder of the scan of that compilation unit.
+   */
+  public SymbolIndex getSymbolIndex() {
+    CompilationUnitTree compilationUnit = getPath().getCompilationUnit();
+    if (sharedState.symbolIndexUnit != compilationUnit) {
+      sharedState.symbolIndex = SymbolIndex.create(compilationUnit);
+      sharedState.symbolIndexUnit = compilationUnit;
+    }
+    return sharedState.symbolIndex;
+  }
+
+  /**
+   * Returns the constant values of the expressions in the current compilation unit.
+   *
+   * <p>Expressions are evaluated the first time their value is requested, and the result is shared
+   * by all checks for the remainder of the scan of that compilation unit.
+   */
+  public ConstantValues getConstantValues() {
+    CompilationUnitTree compilationUnit = getPath().getCompilationUnit();
+    if (sharedState.constantValuesUnit != compilationUnit) {
+      sharedState.constantValues = ConstantValues.create();
+      sharedState.constantValuesUnit = compilationUnit;
+    }
+    return sharedState.constantValues;
+  }
+
   /** Returns the end position of the node, or -1 if it is not available. */
   public int getEndPosition(Tree node) {
     JCCompilationUnit compilationUnit = (JCCompilationUnit) getPath().getCompilationUnit();
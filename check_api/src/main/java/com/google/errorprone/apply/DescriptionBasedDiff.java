@@ -18,6 +18,7 @@ package com.google.errorprone.apply;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.errorprone.BugPattern.SeverityLevel;
 import com.google.errorprone.DescriptionListener;
 import com.google.errorprone.fixes.Fix;
 import com.google.errorprone.fixes.Replacement;
@@ -27,7 +28,10 @@ import com.sun.tools.javac.tree.EndPosTable;
 import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
 import java.net.URI;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 
@@ -37,6 +41,11 @@ import java.util.Set;
  *
  * <p>If imports are changed, they are resorted as per Google Java style.
  *
+ * <p>A diff created with {@link #createIgnoringOverlaps} defers fixes until the differences are
+ * applied, and then merges them by priority: fixes for more severe findings are applied first,
+ * with ties broken by the order in which they were reported. A fix whose replacements conflict
+ * with an already-accepted fix is dropped as a whole, so that partial fixes are never applied.
+ *
  * @author lowasser@google.com (Louis Wasserman)
  */
 public final class DescriptionBasedDiff implements DescriptionListener, Diff {
@@ -49,6 +58,7 @@ public final class DescriptionBasedDiff implements DescriptionListener, Diff {
   private final EndPosTable endPositions;
   private final Replacements replacements = new Replacements();
   private final ImportOrganizer importOrganizer;
+  private final List<PendingFix> pendingFixes = new ArrayList<>();
 
   public static DescriptionBasedDiff create(
       JCCompilationUnit compilationUnit, ImportOrganizer importOrganizer) {
@@ -83,33 +93,59 @@ public final class DescriptionBasedDiff implements DescriptionListener, Diff {
   }
 
   public boolean isEmpty() {
-    return importsToAdd.isEmpty() && importsToRemove.isEmpty() && replacements.isEmpty();
+    return importsToAdd.isEmpty()
+        && importsToRemove.isEmpty()
+        && replacements.isEmpty()
+        && pendingFixes.isEmpty();
   }
 
   @Override
   public void onDescribed(Description description) {
     // Use only first (most likely) suggested fix
     if (description.fixes.size() > 0) {
-      handleFix(description.fixes.get(0));
+      handleFix(description.fixes.get(0), description.severity);
     }
   }
 
   public void handleFix(Fix fix) {
+    handleFix(fix, SeverityLevel.SUGGESTION);
+  }
+
+  private void handleFix(Fix fix, SeverityLevel severity) {
+    if (ignoreOverlappingFixes) {
+      pendingFixes.add(new PendingFix(fix, severity, pendingFixes.size()));
+      return;
+    }
     importsToAdd.addAll(fix.getImportsToAdd());
     importsToRemove.addAll(fix.getImportsToRemove());
     for (Replacement replacement : fix.getReplacements(endPositions)) {
-      try {
+      replacements.add(replacement, Replacements.CoalescePolicy.EXISTING_FIRST);
+    }
+  }
+
+  /**
+   * Merges the deferred fixes in priority order, dropping any fix that conflicts with a fix that
+   * has already been accepted.
+   */
+  private void mergePendingFixes() {
+    pendingFixes.sort(PendingFix.PRIORITY);
+    for (PendingFix pending : pendingFixes) {
+      Set<Replacement> fixReplacements = pending.fix.getReplacements(endPositions);
+      if (!fixReplacements.stream().allMatch(replacements::isCompatible)) {
+        continue;
+      }
+      importsToAdd.addAll(pending.fix.getImportsToAdd());
+      importsToRemove.addAll(pending.fix.getImportsToRemove());
+      for (Replacement replacement : fixReplacements) {
         replacements.add(replacement, Replacements.CoalescePolicy.EXISTING_FIRST);
-      } catch (IllegalArgumentException iae) {
-        if (!ignoreOverlappingFixes) {
-          throw iae;
-        }
       }
     }
+    pendingFixes.clear();
   }
 
   @Override
   public void applyDifferences(SourceFile sourceFile) throws DiffNotApplicableException {
+    mergePendingFixes();
     if (!importsToAdd.isEmpty() || !importsToRemove.isEmpty()) {
       ImportStatements importStatements = ImportStatements.create(compilationUnit, importOrganizer);
       importStatements.addAll(importsToAdd);
@@ -128,4 +164,22 @@ public final class DescriptionBasedDiff implements DescriptionListener, Diff {
           replacement.startPosition(), replacement.endPosition(), replacement.replaceWith());
     }
   }
+
+  /** A fix that has been reported but not yet merged into the diff. */
+  private static final class PendingFix {
+    /** More severe findings first, then in the order they were reported. */
+    static final Comparator<PendingFix> PRIORITY =
+        Comparator.<PendingFix>comparingInt(p -> p.severity.ordinal())
+            .thenComparingInt(p -> p.sequence);
+
+    final Fix fix;
+    final SeverityLevel severity;
+    final int sequence;
+
+    PendingFix(Fix fix, SeverityLevel severity, int sequence) {
+      this.fix = fix;
+      this.severity = severity;
+      this.sequence = sequence;
+    }
+  }
 }
@@ -19,6 +19,7 @@ package com.google.errorprone.bugpatterns;
 import static com.google.common.base.MoreObjects.firstNonNull;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.BugCheckerInfo;
 import com.google.errorprone.BugPattern.SeverityLevel;
 import com.google.errorprone.VisitorState;
@@ -90,6 +91,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * A base class for implementing bug checkers. The {@code BugChecker} supplies a Scanner
@@ -392,6 +394,22 @@ public abstract class BugChecker implements Suppressible, Serializable {
     Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state);
   }
 
+  /**
+   * A {@link MethodInvocationTreeMatcher} that only matches invocations of methods with certain
+   * simple names. The scanner indexes these checks by name, and doesn't call {@link
+   * #matchMethodInvocation} for invocations of any other method.
+   */
+  public interface NamedMethodInvocationTreeMatcher extends MethodInvocationTreeMatcher {
+    /**
+     * Returns the simple names of the methods whose invocations this check may match, or {@code
+     * null} if it may match any invocation. Called once, when the check is registered.
+     *
+     * @see com.google.errorprone.matchers.method.MethodMatchers#methodNames
+     */
+    @Nullable
+    ImmutableSet<String> matchedMethodNames();
+  }
+
   public interface ModifiersTreeMatcher extends Suppressible {
     Description matchModifiers(ModifiersTree tree, VisitorState state);
   }
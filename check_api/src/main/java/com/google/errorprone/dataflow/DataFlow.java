@@ -22,6 +22,7 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.errorprone.ErrorProneTimings;
 import com.sun.source.tree.BlockTree;
 import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.CompilationUnitTree;
@@ -45,7 +46,9 @@ import org.checkerframework.dataflow.cfg.ControlFlowGraph;
 import org.checkerframework.dataflow.cfg.UnderlyingAST;
 
 /**
- * Provides a wrapper around {@link org.checkerframework.dataflow.analysis.Analysis}.
+ * Provides a wrapper around {@link org.checkerframework.dataflow.analysis.Analysis}. The values of
+ * expressions in small methods without loops, which are most of them, are computed by {@link
+ * DenseAnalysis}, which computes the same values with less bookkeeping.
  *
  * @author konne@google.com (Konstantin Weitz)
  */
@@ -59,6 +62,71 @@ public final class DataFlow {
     ControlFlowGraph getControlFlowGraph();
   }
 
+  private static final Context.Key<DataFlow> KEY = new Context.Key<>();
+
+  /**
+   * Returns the caches for {@code context}. They are scoped to the javac context, so that
+   * compilations running concurrently in the same JVM never observe each other's graphs or
+   * analyses.
+   */
+  private static DataFlow instance(Context context) {
+    DataFlow instance = context.get(KEY);
+    if (instance == null) {
+      instance = new DataFlow();
+      context.put(KEY, instance);
+    }
+    return instance;
+  }
+
+  /**
+   * Runs all the dataflow analyses in {@code context} with the checker framework's {@link
+   * Analysis}, to compare it with {@link DenseAnalysis}. Must be called before any analysis is run
+   * in {@code context}, e.g. on a new {@link com.google.errorprone.SubContext}.
+   */
+  public static void useCheckerFrameworkAnalysis(Context context) {
+    context.put(KEY, new DataFlow(Driver.CHECKER_FRAMEWORK));
+  }
+
+  /**
+   * Runs all the dataflow analyses in {@code context} with {@link DenseAnalysis}, including those
+   * of large methods and methods with loops. Must be called before any analysis is run in {@code
+   * context}.
+   */
+  static void useDenseAnalysis(Context context) {
+    context.put(KEY, new DataFlow(Driver.DENSE));
+  }
+
+  /** Which analysis runs the dataflow analyses of a method. */
+  private enum Driver {
+    /** {@link DenseAnalysis} if the graph {@link DenseAnalysis#isSmallAndAcyclic}. */
+    DEFAULT,
+    /** Always the checker framework's {@link Analysis}. */
+    CHECKER_FRAMEWORK,
+    /** Always {@link DenseAnalysis}. */
+    DENSE
+  }
+
+  private final Driver driver;
+
+  private DataFlow() {
+    this(Driver.DEFAULT);
+  }
+
+  private DataFlow(Driver driver) {
+    this.driver = driver;
+  }
+
+  private boolean isDense(ControlFlowGraph cfg) {
+    switch (driver) {
+      case CHECKER_FRAMEWORK:
+        return false;
+      case DENSE:
+        return true;
+      default:
+        return DenseAnalysis.isSmallAndAcyclic(cfg);
+    }
+  }
+
   /*
    * We cache both the control flow graph and the analyses that are run on it.
    * We tuned performance to the following assumptions (which are currently true for error-prone):
@@ -70,7 +138,7 @@ public final class DataFlow {
    *
    * TODO(user): Write a test that checks these assumptions
    */
-  private static final LoadingCache<AnalysisParams, Analysis<?, ?, ?>> analysisCache =
+  private final LoadingCache<AnalysisParams, Analysis<?, ?, ?>> analysisCache =
       CacheBuilder.newBuilder()
           .build(
               new CacheLoader<AnalysisParams, Analysis<?, ?, ?>>() {
@@ -81,13 +149,14 @@ public final class DataFlow {
                   final TransferFunction<?, ?> transfer = key.transferFunction();
 
                   @SuppressWarnings({"unchecked", "rawtypes"})
-                  final Analysis<?, ?, ?> analysis = new Analysis(transfer, env);
+                  final Analysis<?, ?, ?> analysis =
+                      key.dense() ? new DenseAnalysis(transfer, env) : new Analysis(transfer, env);
                   analysis.performAnalysis(cfg);
                   return analysis;
                 }
               });
 
-  private static final LoadingCache<CfgParams, ControlFlowGraph> cfgCache =
+  private final LoadingCache<CfgParams, ControlFlowGraph> cfgCache =
       CacheBuilder.newBuilder()
           .maximumSize(1)
           .build(
@@ -159,30 +228,57 @@ public final class DataFlow {
    * analysis result is the same.
    */
   private static <A extends AbstractValue<A>, S extends Store<S>, T extends TransferFunction<A, S>>
-      Result<A, S, T> methodDataflow(TreePath methodPath, Context context, T transfer) {
+      MethodResult<A, S, T> methodDataflow(TreePath methodPath, Context context, T transfer) {
     final ProcessingEnvironment env = JavacProcessingEnvironment.instance(context);
+    final DataFlow caches = instance(context);
+    final ControlFlowGraph cfg = caches.cfg(methodPath, context, env);
+    return new MethodResult<>(caches, cfg, transfer, env, context);
+  }
 
-    final ControlFlowGraph cfg;
-    try {
-      cfg = cfgCache.getUnchecked(CfgParams.create(methodPath, env));
-    } catch (UncheckedExecutionException e) {
-      throw e.getCause() instanceof CompletionFailure ? (CompletionFailure) e.getCause() : e;
+  /**
+   * The {@link Result} of a method's dataflow analysis. The analysis is run on demand: {@link
+   * #valueOf} runs it with {@link DenseAnalysis} if the graph allows, but {@link #getAnalysis}
+   * always runs the checker framework's {@link Analysis}, since its caller may ask for more than
+   * the values of nodes, which is all that {@link DenseAnalysis} records.
+   */
+  private static final class MethodResult<
+          A extends AbstractValue<A>, S extends Store<S>, T extends TransferFunction<A, S>>
+      implements Result<A, S, T> {
+    private final DataFlow caches;
+    private final ControlFlowGraph cfg;
+    private final T transfer;
+    private final ProcessingEnvironment env;
+    private final Context context;
+
+    MethodResult(
+        DataFlow caches,
+        ControlFlowGraph cfg,
+        T transfer,
+        ProcessingEnvironment env,
+        Context context) {
+      this.caches = caches;
+      this.cfg = cfg;
+      this.transfer = transfer;
+      this.env = env;
+      this.context = context;
     }
-    final AnalysisParams aparams = AnalysisParams.create(transfer, cfg, env);
-    @SuppressWarnings("unchecked")
-    final Analysis<A, S, T> analysis = (Analysis<A, S, T>) analysisCache.getUnchecked(aparams);
-
-    return new Result<A, S, T>() {
-      @Override
-      public Analysis<A, S, T> getAnalysis() {
-        return analysis;
-      }
 
-      @Override
-      public ControlFlowGraph getControlFlowGraph() {
-        return cfg;
-      }
-    };
+    @Override
+    public Analysis<A, S, T> getAnalysis() {
+      return caches.analysis(transfer, cfg, env, context, /* dense= */ false);
+    }
+
+    @Override
+    public ControlFlowGraph getControlFlowGraph() {
+      return cfg;
+    }
+
+    /** Returns the abstract value of {@code tree}. */
+    @Nullable
+    A valueOf(Tree tree) {
+      boolean dense = caches.isDense(cfg);
+      return caches.<A, S, T>analysis(transfer, cfg, env, context, dense).getValue(tree);
+    }
   }
 
   /**
@@ -223,7 +319,35 @@ public final class DataFlow {
       return null;
     }
 
-    return methodDataflow(enclosingMethodPath, context, transfer).getAnalysis().getValue(expr);
+    return methodDataflow(enclosingMethodPath, context, transfer).valueOf(expr);
+  }
+
+  private ControlFlowGraph cfg(TreePath methodPath, Context context, ProcessingEnvironment env) {
+    // Building the CFG and running the analysis can't be interrupted, so give up before each one
+    // if the check that asked for them has run out of time.
+    ErrorProneTimings.checkDeadline(context);
+    try {
+      return cfgCache.getUnchecked(CfgParams.create(methodPath, env));
+    } catch (UncheckedExecutionException e) {
+      throw e.getCause() instanceof CompletionFailure ? (CompletionFailure) e.getCause() : e;
+    }
+  }
+
+  /**
+   * Returns the {@code transfer} analysis of {@code cfg}, run by {@link DenseAnalysis} if {@code
+   * dense}, or else by the checker framework's {@link Analysis}.
+   */
+  @SuppressWarnings("unchecked")
+  private <A extends AbstractValue<A>, S extends Store<S>, T extends TransferFunction<A, S>>
+      Analysis<A, S, T> analysis(
+          T transfer,
+          ControlFlowGraph cfg,
+          ProcessingEnvironment env,
+          Context context,
+          boolean dense) {
+    ErrorProneTimings.checkDeadline(context);
+    return (Analysis<A, S, T>)
+        analysisCache.getUnchecked(AnalysisParams.create(transfer, cfg, dense, env));
   }
 
   @AutoValue
@@ -251,14 +375,18 @@ public final class DataFlow {
 
     abstract ControlFlowGraph cfg();
 
+    /** Whether the analysis is run by {@link DenseAnalysis}. */
+    abstract boolean dense();
+
     // Should not be used for hashCode or equals
     private ProcessingEnvironment environment;
 
     private static AnalysisParams create(
         TransferFunction<?, ?> transferFunction,
         ControlFlowGraph cfg,
+        boolean dense,
         ProcessingEnvironment environment) {
-      AnalysisParams ap = new AutoValue_DataFlow_AnalysisParams(transferFunction, cfg);
+      AnalysisParams ap = new AutoValue_DataFlow_AnalysisParams(transferFunction, cfg, dense);
       ap.environment = environment;
       return ap;
     }
@@ -0,0 +1,584 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.dataflow;
+
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.type.TypeMirror;
+import org.checkerframework.dataflow.analysis.AbstractValue;
+import org.checkerframework.dataflow.analysis.Analysis;
+import org.checkerframework.dataflow.analysis.AnalysisResult;
+import org.checkerframework.dataflow.analysis.RegularTransferResult;
+import org.checkerframework.dataflow.analysis.Store;
+import org.checkerframework.dataflow.analysis.TransferFunction;
+import org.checkerframework.dataflow.analysis.TransferInput;
+import org.checkerframework.dataflow.analysis.TransferResult;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.UnderlyingAST;
+import org.checkerframework.dataflow.cfg.UnderlyingAST.CFGLambda;
+import org.checkerframework.dataflow.cfg.UnderlyingAST.CFGMethod;
+import org.checkerframework.dataflow.cfg.block.Block;
+import org.checkerframework.dataflow.cfg.block.ConditionalBlock;
+import org.checkerframework.dataflow.cfg.block.ExceptionBlock;
+import org.checkerframework.dataflow.cfg.block.RegularBlock;
+import org.checkerframework.dataflow.cfg.block.SingleSuccessorBlock;
+import org.checkerframework.dataflow.cfg.node.LocalVariableNode;
+import org.checkerframework.dataflow.cfg.node.Node;
+
+/**
+ * A forward dataflow analysis that computes the same node values as the checker framework's {@link
+ * Analysis}, for the common case where only those values are needed.
+ *
+ * <p>{@link Analysis} keys the stores of blocks and the values of nodes by identity hash maps, and
+ * orders its worklist with a priority queue that looks up the depth-first index of each block in
+ * another map. Most methods are short and have no loops, so that bookkeeping costs more than the
+ * transfer functions. Instead, this analysis numbers the reachable blocks in reverse post-order
+ * once, resolves the successors of each block to those numbers, and keeps the stores of blocks and
+ * the values of nodes in arrays. Blocks are then visited in reverse post-order:
+ *
+ * <ul>
+ *   <li>if the graph has no back edges, every predecessor of a block is visited before it, so each
+ *       block is visited exactly once and there is no worklist at all
+ *   <li>otherwise the worklist is a bit set of block numbers, and the lowest pending block is
+ *       visited next, until nothing changes
+ * </ul>
+ *
+ * <p>Only {@link #getValue(Node)}, {@link #getValue(Tree)} and the exit stores are supported; the
+ * stores before and after nodes, which error-prone doesn't use, aren't recorded, and asking for
+ * them throws {@link UnsupportedOperationException}.
+ *
+ * <p>{@link DataFlow} only uses this analysis to compute the values of expressions in graphs that
+ * {@link #isSmallAndAcyclic}, and never hands it out: {@link DataFlow.Result#getAnalysis} always
+ * returns the checker framework's {@link Analysis}.
+ */
+final class DenseAnalysis<
+        A extends AbstractValue<A>, S extends Store<S>, T extends TransferFunction<A, S>>
+    extends Analysis<A, S, T> {
+
+  private static final int NONE = -1;
+
+  /** The most reachable blocks that a graph can have to be {@link #isSmallAndAcyclic small}. */
+  static final int MAX_BLOCKS = 64;
+
+  private final T transfer;
+
+  private ControlFlowGraph graph;
+
+  /** The reachable blocks, in reverse post-order. */
+  private Block[] blocks;
+
+  /** The number of each reachable block. */
+  private Map<Block, Integer> blockNumbers;
+
+  /**
+   * The number of the regular successor of each block, or the then successor of a conditional
+   * block, or {@link #NONE}.
+   */
+  private int[] successors;
+
+  /** The number of the else successor of each conditional block, or {@link #NONE}. */
+  private int[] elseSuccessors;
+
+  /** The numbers of the exceptional successors of each exception block, by cause. */
+  private Map<TypeMirror, int[]>[] exceptionalSuccessors;
+
+  /** The first node of each block in {@link #nodes}. */
+  private int[] firstNode;
+
+  private Node[] nodes;
+  private Map<Node, Integer> nodeIndex;
+  private Object[] values;
+
+  private Object[] thenStores;
+  private Object[] elseStores;
+
+  private boolean acyclic;
+  private BitSet worklist;
+
+  private boolean running;
+  @Nullable private Node currentNode;
+
+  DenseAnalysis(T transfer, ProcessingEnvironment env) {
+    super(transfer, env);
+    this.transfer = transfer;
+  }
+
+  /**
+   * Returns whether {@code cfg} has at most {@link #MAX_BLOCKS} reachable blocks and no loops, so
+   * that this analysis visits each of its blocks exactly once.
+   */
+  static boolean isSmallAndAcyclic(ControlFlowGraph cfg) {
+    // An iterative depth-first search, which finds a loop as an edge back to a block on the stack.
+    Map<Block, Boolean> onStack = new IdentityHashMap<>();
+    List<Block> stack = new ArrayList<>();
+    List<List<Block>> pending = new ArrayList<>();
+    Block entry = cfg.getEntryBlock();
+    onStack.put(entry, true);
+    stack.add(entry);
+    pending.add(successorsOf(entry));
+    while (!stack.isEmpty()) {
+      int top = stack.size() - 1;
+      List<Block> next = pending.get(top);
+      if (next.isEmpty()) {
+        onStack.put(stack.remove(top), false);
+        pending.remove(top);
+        continue;
+      }
+      Block successor = next.remove(next.size() - 1);
+      Boolean active = onStack.get(successor);
+      if (active == null) {
+        if (onStack.size() == MAX_BLOCKS) {
+          return false;
+        }
+        onStack.put(successor, true);
+        stack.add(successor);
+        pending.add(successorsOf(successor));
+      } else if (active) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void performAnalysis(ControlFlowGraph cfg) {
+    graph = cfg;
+    number(cfg);
+    values = new Object[nodes.length];
+    thenStores = new Object[blocks.length];
+    elseStores = new Object[blocks.length];
+    worklist = acyclic ? null : new BitSet(blocks.length);
+    S initialStore = transfer.initialStore(cfg.getUnderlyingAST(), parameters(cfg));
+    thenStores[0] = initialStore;
+    elseStores[0] = initialStore;
+    running = true;
+    try {
+      if (acyclic) {
+        for (int b = 0; b < blocks.length; b++) {
+          visit(b);
+        }
+      } else {
+        worklist.set(0);
+        for (int b = worklist.nextSetBit(0); b >= 0; b = worklist.nextSetBit(0)) {
+          worklist.clear(b);
+          visit(b);
+        }
+      }
+    } finally {
+      running = false;
+      currentNode = null;
+    }
+  }
+
+  /** Numbers the reachable blocks in reverse post-order, and then their nodes. */
+  @SuppressWarnings({"unchecked", "rawtypes"}) // generic array creation
+  private void number(ControlFlowGraph cfg) {
+    List<Block> postOrder = new ArrayList<>();
+    Map<Block, Integer> visited = new IdentityHashMap<>();
+    // An iterative depth-first search: each stack entry is a block and the successors it has left.
+    List<Block> stack = new ArrayList<>();
+    List<List<Block>> pending = new ArrayList<>();
+    Block entry = cfg.getEntryBlock();
+    visited.put(entry, NONE);
+    stack.add(entry);
+    pending.add(successorsOf(entry));
+    while (!stack.isEmpty()) {
+      int top = stack.size() - 1;
+      List<Block> next = pending.get(top);
+      if (next.isEmpty()) {
+        postOrder.add(stack.remove(top));
+        pending.remove(top);
+        continue;
+      }
+      Block successor = next.remove(next.size() - 1);
+      if (!visited.containsKey(successor)) {
+        visited.put(successor, NONE);
+        stack.add(successor);
+        pending.add(successorsOf(successor));
+      }
+    }
+    int size = postOrder.size();
+    blocks = new Block[size];
+    for (int i = 0; i < size; i++) {
+      blocks[i] = postOrder.get(size - 1 - i);
+      visited.put(blocks[i], i);
+    }
+    blockNumbers = visited;
+
+    successors = new int[size];
+    elseSuccessors = new int[size];
+    exceptionalSuccessors = new Map[size];
+    firstNode = new int[size + 1];
+    List<Node> allNodes = new ArrayList<>();
+    acyclic = true;
+    for (int b = 0; b < size; b++) {
+      Block block = blocks[b];
+      successors[b] = NONE;
+      elseSuccessors[b] = NONE;
+      firstNode[b] = allNodes.size();
+      switch (block.getType()) {
+        case REGULAR_BLOCK:
+          allNodes.addAll(((RegularBlock) block).getContents());
+          break;
+        case EXCEPTION_BLOCK:
+          ExceptionBlock exceptionBlock = (ExceptionBlock) block;
+          allNodes.add(exceptionBlock.getNode());
+          Map<TypeMirror, int[]> byCause = new IdentityHashMap<>();
+          for (Map.Entry<TypeMirror, Set<Block>> e :
+              exceptionBlock.getExceptionalSuccessors().entrySet()) {
+            int[] targets = new int[e.getValue().size()];
+            int i = 0;
+            for (Block target : e.getValue()) {
+              targets[i++] = visited.get(target);
+              acyclic &= targets[i - 1] > b;
+            }
+            byCause.put(e.getKey(), targets);
+          }
+          exceptionalSuccessors[b] = byCause;
+          break;
+        default:
+          break;
+      }
+      if (block instanceof ConditionalBlock) {
+        successors[b] = visited.get(((ConditionalBlock) block).getThenSuccessor());
+        elseSuccessors[b] = visited.get(((ConditionalBlock) block).getElseSuccessor());
+        acyclic &= successors[b] > b && elseSuccessors[b] > b;
+      } else if (block instanceof SingleSuccessorBlock) {
+        Block successor = ((SingleSuccessorBlock) block).getSuccessor();
+        if (successor != null) {
+          successors[b] = visited.get(successor);
+          acyclic &= successors[b] > b;
+        }
+      }
+    }
+    firstNode[size] = allNodes.size();
+    nodes = allNodes.toArray(new Node[0]);
+    nodeIndex = new IdentityHashMap<>(nodes.length);
+    for (int i = 0; i < nodes.length; i++) {
+      nodeIndex.put(nodes[i], i);
+    }
+  }
+
+  private static List<Block> successorsOf(Block block) {
+    List<Block> result = new ArrayList<>();
+    if (block instanceof ConditionalBlock) {
+      result.add(((ConditionalBlock) block).getElseSuccessor());
+      result.add(((ConditionalBlock) block).getThenSuccessor());
+    } else if (block instanceof SingleSuccessorBlock) {
+      Block successor = ((SingleSuccessorBlock) block).getSuccessor();
+      if (successor != null) {
+        result.add(successor);
+      }
+    }
+    if (block instanceof ExceptionBlock) {
+      for (Set<Block> targets : ((ExceptionBlock) block).getExceptionalSuccessors().values()) {
+        result.addAll(targets);
+      }
+    }
+    return result;
+  }
+
+  @Nullable
+  private static List<LocalVariableNode> parameters(ControlFlowGraph cfg) {
+    UnderlyingAST ast = cfg.getUnderlyingAST();
+    List<? extends VariableTree> parameters;
+    switch (ast.getKind()) {
+      case METHOD:
+        parameters = ((CFGMethod) ast).getMethod().getParameters();
+        break;
+      case LAMBDA:
+        parameters = ((CFGLambda) ast).getLambdaTree().getParameters();
+        break;
+      default:
+        return null;
+    }
+    List<LocalVariableNode> result = new ArrayList<>(parameters.size());
+    for (VariableTree parameter : parameters) {
+      result.add(new LocalVariableNode(parameter));
+    }
+    return result;
+  }
+
+  private void visit(int b) {
+    TransferInput<A, S> input = inputBefore(b);
+    if (input == null) {
+      // only one of the then and else stores has arrived yet
+      return;
+    }
+    Block block = blocks[b];
+    switch (block.getType()) {
+      case REGULAR_BLOCK:
+        {
+          TransferInput<A, S> current = input.copy();
+          boolean changed = false;
+          for (int n = firstNode[b]; n < firstNode[b + 1]; n++) {
+            TransferResult<A, S> result = callTransfer(nodes[n], current);
+            changed |= updateValue(n, result);
+            current = new TransferInput<>(nodes[n], this, result);
+          }
+          propagate(
+              successors[b], current, ((SingleSuccessorBlock) block).getFlowRule(), changed);
+          break;
+        }
+      case EXCEPTION_BLOCK:
+        {
+          int n = firstNode[b];
+          TransferResult<A, S> result = callTransfer(nodes[n], input.copy());
+          boolean changed = updateValue(n, result);
+          if (successors[b] != NONE) {
+            addStoreBefore(successors[b], result.getRegularStore(), Store.Kind.BOTH, changed);
+          }
+          for (Map.Entry<TypeMirror, int[]> e : exceptionalSuccessors[b].entrySet()) {
+            S exceptionalStore = result.getExceptionalStore(e.getKey());
+            for (int target : e.getValue()) {
+              S store =
+                  exceptionalStore != null ? exceptionalStore : input.copy().getRegularStore();
+              addStoreBefore(target, store, Store.Kind.BOTH, changed);
+            }
+          }
+          break;
+        }
+      case CONDITIONAL_BLOCK:
+        {
+          ConditionalBlock conditional = (ConditionalBlock) block;
+          propagate(successors[b], input, conditional.getThenFlowRule(), false);
+          propagate(elseSuccessors[b], input, conditional.getElseFlowRule(), false);
+          break;
+        }
+      default:
+        // special blocks are empty
+        if (successors[b] != NONE) {
+          propagate(successors[b], input, ((SingleSuccessorBlock) block).getFlowRule(), false);
+        }
+        break;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Nullable
+  private TransferInput<A, S> inputBefore(int b) {
+    S thenStore = (S) thenStores[b];
+    S elseStore = (S) elseStores[b];
+    if (thenStore == null || elseStore == null) {
+      return null;
+    }
+    return thenStore == elseStore
+        ? new TransferInput<>(null, this, thenStore)
+        : new TransferInput<>(null, this, thenStore, elseStore);
+  }
+
+  private TransferResult<A, S> callTransfer(Node node, TransferInput<A, S> input) {
+    if (node.isLValue()) {
+      return new RegularTransferResult<>(null, input.getRegularStore());
+    }
+    currentNode = node;
+    try {
+      return node.accept(transfer, input);
+    } finally {
+      currentNode = null;
+    }
+  }
+
+  /** Records the value of node {@code n}, and returns whether its successors need to be visited. */
+  private boolean updateValue(int n, TransferResult<A, S> result) {
+    A value = result.getResultValue();
+    boolean changed = false;
+    if (value != null) {
+      changed = !acyclic && !value.equals(values[n]);
+      values[n] = value;
+    }
+    return changed || result.storeChanged();
+  }
+
+  private void propagate(
+      int successor, TransferInput<A, S> input, Store.FlowRule flowRule, boolean changed) {
+    switch (flowRule) {
+      case EACH_TO_EACH:
+        if (input.containsTwoStores()) {
+          addStoreBefore(successor, input.getThenStore(), Store.Kind.THEN, changed);
+          addStoreBefore(successor, input.getElseStore(), Store.Kind.ELSE, changed);
+        } else {
+          addStoreBefore(successor, input.getRegularStore(), Store.Kind.BOTH, changed);
+        }
+        break;
+      case THEN_TO_BOTH:
+        addStoreBefore(successor, input.getThenStore(), Store.Kind.BOTH, changed);
+        break;
+      case ELSE_TO_BOTH:
+        addStoreBefore(successor, input.getElseStore(), Store.Kind.BOTH, changed);
+        break;
+      case THEN_TO_THEN:
+        addStoreBefore(successor, input.getThenStore(), Store.Kind.THEN, changed);
+        break;
+      case ELSE_TO_ELSE:
+        addStoreBefore(successor, input.getElseStore(), Store.Kind.ELSE, changed);
+        break;
+    }
+  }
+
+  /**
+   * Merges {@code store} into the stores before block {@code b}, and schedules {@code b} if they
+   * changed. Like {@link Analysis}, a block with a single store before it keeps the same store as
+   * its then and else store.
+   */
+  @SuppressWarnings("unchecked")
+  private void addStoreBefore(int b, S store, Store.Kind kind, boolean changed) {
+    S thenStore = (S) thenStores[b];
+    S elseStore = (S) elseStores[b];
+    if (acyclic) {
+      // All the predecessors of b are visited before it, and b is visited exactly once, so there's
+      // no need to find out whether the stores changed.
+      if (kind != Store.Kind.ELSE) {
+        thenStores[b] = merge(thenStore, store);
+      }
+      if (kind == Store.Kind.BOTH && thenStore == elseStore) {
+        elseStores[b] = thenStores[b];
+      } else if (kind != Store.Kind.THEN) {
+        elseStores[b] = merge(elseStore, store);
+      }
+      return;
+    }
+    switch (kind) {
+      case THEN:
+        {
+          S newThenStore = merge(thenStore, store);
+          if (!newThenStore.equals(thenStore)) {
+            thenStores[b] = newThenStore;
+            changed |= elseStore != null;
+          }
+          break;
+        }
+      case ELSE:
+        {
+          S newElseStore = merge(elseStore, store);
+          if (!newElseStore.equals(elseStore)) {
+            elseStores[b] = newElseStore;
+            changed |= thenStore != null;
+          }
+          break;
+        }
+      case BOTH:
+        if (thenStore == elseStore) {
+          S newStore = merge(thenStore, store);
+          if (!newStore.equals(thenStore)) {
+            thenStores[b] = newStore;
+            elseStores[b] = newStore;
+            changed = true;
+          }
+        } else {
+          S newThenStore = merge(thenStore, store);
+          S newElseStore = merge(elseStore, store);
+          if (!newThenStore.equals(thenStore) || !newElseStore.equals(elseStore)) {
+            thenStores[b] = newThenStore;
+            elseStores[b] = newElseStore;
+            changed = true;
+          }
+        }
+        break;
+    }
+    if (changed) {
+      worklist.set(b);
+    }
+  }
+
+  private S merge(@Nullable S existing, S store) {
+    return existing != null ? existing.leastUpperBound(store) : store;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  @Nullable
+  public A getValue(Node n) {
+    Integer index = nodeIndex != null ? nodeIndex.get(n) : null;
+    if (index == null) {
+      return null;
+    }
+    if (running) {
+      // During the analysis, only the operands of the current node have up-to-date values.
+      if (currentNode == null
+          || currentNode == n
+          || (!currentNode.getOperands().contains(n)
+              && !currentNode.getTransitiveOperands().contains(n))) {
+        return null;
+      }
+    }
+    return (A) values[index];
+  }
+
+  @Override
+  @Nullable
+  public S getRegularExitStore() {
+    return exitStore(graph != null ? graph.getRegularExitBlock() : null);
+  }
+
+  @Override
+  @Nullable
+  public S getExceptionalExitStore() {
+    return exitStore(graph != null ? graph.getExceptionalExitBlock() : null);
+  }
+
+  @Nullable
+  private S exitStore(@Nullable Block exit) {
+    Integer b = exit != null ? blockNumbers.get(exit) : null;
+    if (b == null) {
+      return null;
+    }
+    TransferInput<A, S> input = inputBefore(b);
+    return input != null ? input.getRegularStore() : null;
+  }
+
+  @Override
+  public AnalysisResult<A, S> getResult() {
+    throw new UnsupportedOperationException("DenseAnalysis only records the values of nodes");
+  }
+
+  @Override
+  public S getStoreBefore(Tree tree) {
+    throw new UnsupportedOperationException("DenseAnalysis doesn't record the stores of nodes");
+  }
+
+  @Override
+  public S getStoreBefore(Node node) {
+    throw new UnsupportedOperationException("DenseAnalysis doesn't record the stores of nodes");
+  }
+
+  @Override
+  public S getStoreAfter(Tree tree) {
+    throw new UnsupportedOperationException("DenseAnalysis doesn't record the stores of nodes");
+  }
+
+  @Override
+  @Nullable
+  public A getValue(Tree t) {
+    if (graph == null) {
+      return null;
+    }
+    Node node = graph.getNodeCorrespondingToTree(t);
+    if (node == null || node.isLValue()) {
+      return null;
+    }
+    return getValue(node);
+  }
+}
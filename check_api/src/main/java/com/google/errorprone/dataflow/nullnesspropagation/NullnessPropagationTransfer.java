@@ -300,6 +300,8 @@ class NullnessPropagationTransfer extends AbstractNullnessPropagationTransfer
 
       inferenceResults =
           NullnessQualifierInference.getInferredNullability(
+              context,
+              pathToNode.getCompilationUnit(),
               checkNotNull(
                   procedureTree,
                   "Call `%s` is not contained in an lambda, initializer or method.",
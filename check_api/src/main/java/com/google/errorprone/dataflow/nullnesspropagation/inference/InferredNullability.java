@@ -17,15 +17,15 @@ package com.google.errorprone.dataflow.nullnesspropagation.inference;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Maps;
 import com.google.common.graph.Graph;
-import com.google.common.graph.ImmutableGraph;
 import com.google.errorprone.dataflow.nullnesspropagation.Nullness;
 import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.MethodInvocationTree;
 import com.sun.tools.javac.code.Symbol.TypeVariableSymbol;
 import com.sun.tools.javac.tree.JCTree;
 import com.sun.tools.javac.tree.TreeInfo;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
@@ -33,15 +33,81 @@ import java.util.Optional;
  * Results of running {@code NullnessQualifierInference} over a method. The {@code constraintGraph}
  * represents qualifier constraints as a directed graph, where graph reachability encodes a
  * less-than-or-equal-to relationship.
+ *
+ * <p>The bounds of all the inference variables are solved together the first time one of them is
+ * requested. Inference variables in a cycle constrain each other to be equal, so each strongly
+ * connected component of the graph (leaving out the proper bounds, which are constants) shares its
+ * bounds. The components are found once, and the bounds are then propagated over them in
+ * topological order: lower bounds from predecessors, and upper bounds from successors.
  */
 public class InferredNullability {
-  private final ImmutableGraph<InferenceVariable> constraintGraph;
 
-  private final Map<InferenceVariable, Optional<Nullness>> lowerBoundMemoTable = Maps.newHashMap();
-  private final Map<InferenceVariable, Optional<Nullness>> upperBoundMemoTable = Maps.newHashMap();
+  /** Marks a bound that could not be inferred. */
+  private static final byte NONE = -1;
+
+  private static final Nullness[] NULLNESS = Nullness.values();
+
+  /** The index of each inference variable in the arrays below. */
+  private final Map<InferenceVariable, Integer> index;
+
+  /** The lattice element of each proper inference variable, or {@link #NONE}. */
+  private final byte[] proper;
+
+  /**
+   * The successors of variable {@code i} are {@code successors[successorStart[i]]} up to {@code
+   * successors[successorStart[i + 1]]}, and likewise for predecessors.
+   */
+  private final int[] successorStart;
+
+  private final int[] successors;
+  private final int[] predecessorStart;
+  private final int[] predecessors;
+
+  /** The solved upper bound of each variable as a {@link Nullness} ordinal, or {@code null}. */
+  private byte[] upperBounds;
 
   InferredNullability(Graph<InferenceVariable> constraints) {
-    this.constraintGraph = ImmutableGraph.copyOf(constraints);
+    int size = constraints.nodes().size();
+    index = new HashMap<>(size * 2);
+    InferenceVariable[] variables = constraints.nodes().toArray(new InferenceVariable[0]);
+    proper = new byte[size];
+    for (int i = 0; i < size; i++) {
+      index.put(variables[i], i);
+      proper[i] =
+          variables[i] instanceof ProperInferenceVar
+              ? (byte) ((ProperInferenceVar) variables[i]).nullness().ordinal()
+              : NONE;
+    }
+    successorStart = new int[size + 1];
+    predecessorStart = new int[size + 1];
+    int edges = 0;
+    for (int i = 0; i < size; i++) {
+      successorStart[i] = edges;
+      edges += constraints.successors(variables[i]).size();
+    }
+    successorStart[size] = edges;
+    successors = new int[edges];
+    predecessors = new int[edges];
+    int[] inDegree = new int[size];
+    for (int i = 0; i < size; i++) {
+      int next = successorStart[i];
+      for (InferenceVariable successor : constraints.successors(variables[i])) {
+        int j = index.get(successor);
+        successors[next++] = j;
+        inDegree[j]++;
+      }
+    }
+    for (int i = 0, start = 0; i < size; i++) {
+      predecessorStart[i] = start;
+      start += inDegree[i];
+    }
+    predecessorStart[size] = edges;
+    int[] next = Arrays.copyOf(predecessorStart, size);
+    for (int i = 0; i < size; i++) {
+      for (int e = successorStart[i]; e < successorStart[i + 1]; e++) {
+        predecessors[next[successors[e]]++] = i;
+      }
+    }
   }
 
   /**
@@ -63,61 +129,189 @@ public class InferredNullability {
   /** Get inferred nullness qualifier for an expression, if possible. */
   public Optional<Nullness> getExprNullness(ExpressionTree exprTree) {
     InferenceVariable iv = TypeArgInferenceVar.create(ImmutableList.of(), exprTree);
-    return constraintGraph.nodes().contains(iv) ? getUpperBound(iv) : Optional.empty();
+    return getUpperBound(iv);
   }
 
-  private Optional<Nullness> getLowerBound(InferenceVariable iv) {
-    Optional<Nullness> result;
-    // short-circuit and return if...
-    // ...this inference variable is a `proper` bound, i.e. a concrete nullness lattice element
+  private Optional<Nullness> getUpperBound(InferenceVariable iv) {
     if (iv instanceof ProperInferenceVar) {
       return Optional.of(((ProperInferenceVar) iv).nullness());
-      // ...we've already computed and memoized a nullness value for it.
-    } else if ((result = lowerBoundMemoTable.get(iv)) != null) {
-      return result;
-    } else {
-      // In case of cycles in constraint graph, ensures base case to recursion
-      lowerBoundMemoTable.put(iv, Optional.empty());
-
-      result =
-          constraintGraph.predecessors(iv).stream()
-              .map(this::getLowerBound)
-              .filter(Optional::isPresent)
-              .map(Optional::get)
-              .reduce(Nullness::leastUpperBound);
-      lowerBoundMemoTable.put(iv, result);
-      return result;
     }
+    Integer i = index.get(iv);
+    if (i == null) {
+      return Optional.empty();
+    }
+    if (upperBounds == null) {
+      solve();
+    }
+    byte bound = upperBounds[i];
+    return bound == NONE ? Optional.empty() : Optional.of(NULLNESS[bound]);
   }
 
-  private Optional<Nullness> getUpperBound(InferenceVariable iv) {
-    // short-circuit and return if...
-    // ...this inference variable is a `proper` bound, i.e. a concrete nullness lattice element
-    if (iv instanceof ProperInferenceVar) {
-      return Optional.of(((ProperInferenceVar) iv).nullness());
-      // ...we've already computed and memoized a nullness value for it.
+  private void solve() {
+    int size = proper.length;
+    int[] component = new int[size];
+    int[] order = components(component);
+    int components = order.length == 0 ? 0 : max(component) + 1;
+    // The components are numbered in reverse topological order: every edge between two different
+    // components of inference variables goes from a higher to a lower component number.
+    int[][] members = membersOf(component, components, order);
+
+    byte[] componentLower = new byte[components];
+    for (int c = components - 1; c >= 0; c--) {
+      byte bound = NONE;
+      for (int v : members[c]) {
+        for (int e = predecessorStart[v]; e < predecessorStart[v + 1]; e++) {
+          int p = predecessors[e];
+          bound = leastUpperBound(bound, boundOf(p, c, component, componentLower));
+        }
+      }
+      componentLower[c] = bound;
     }
-    Optional<Nullness> result = upperBoundMemoTable.get(iv);
-    if (result != null) {
-      return result;
+
+    byte[] componentUpper = new byte[components];
+    for (int c = 0; c < components; c++) {
+      byte bound = NONE;
+      for (int v : members[c]) {
+        for (int e = successorStart[v]; e < successorStart[v + 1]; e++) {
+          int s = successors[e];
+          bound = greatestLowerBound(bound, boundOf(s, c, component, componentUpper));
+        }
+      }
+      // A lower bound of NULLABLE implies an upper bound of NULLABLE, since NULLABLE is top
+      if (bound == NONE && componentLower[c] == Nullness.NULLABLE.ordinal()) {
+        bound = (byte) Nullness.NULLABLE.ordinal();
+      }
+      componentUpper[c] = bound;
     }
 
-    // In case of cycles in constraint graph, ensures base case to recursion
-    upperBoundMemoTable.put(iv, Optional.empty());
+    upperBounds = new byte[size];
+    for (int v = 0; v < size; v++) {
+      upperBounds[v] = proper[v] != NONE ? proper[v] : componentUpper[component[v]];
+    }
+  }
+
+  /**
+   * Finds the strongly connected components of the inference variables that aren't proper, with an
+   * iterative version of Tarjan's algorithm. Records the component of each of those variables in
+   * {@code component} (and -1 for proper variables), and returns the variables in the order their
+   * components were completed.
+   */
+  private int[] components(int[] component) {
+    int size = proper.length;
+    int[] discovered = new int[size];
+    int[] lowLink = new int[size];
+    int[] stack = new int[size];
+    boolean[] onStack = new boolean[size];
+    int[] callStack = new int[size];
+    int[] nextEdge = new int[size];
+    int[] order = new int[size];
+    Arrays.fill(component, -1);
+    int time = 0;
+    int stackSize = 0;
+    int completed = 0;
+    int components = 0;
+    for (int root = 0; root < size; root++) {
+      if (proper[root] != NONE || discovered[root] != 0) {
+        continue;
+      }
+      int depth = 0;
+      callStack[depth] = root;
+      discovered[root] = lowLink[root] = ++time;
+      nextEdge[root] = successorStart[root];
+      stack[stackSize++] = root;
+      onStack[root] = true;
+      while (depth >= 0) {
+        int v = callStack[depth];
+        if (nextEdge[v] < successorStart[v + 1]) {
+          int w = successors[nextEdge[v]++];
+          if (proper[w] != NONE) {
+            continue;
+          }
+          if (discovered[w] == 0) {
+            discovered[w] = lowLink[w] = ++time;
+            nextEdge[w] = successorStart[w];
+            stack[stackSize++] = w;
+            onStack[w] = true;
+            callStack[++depth] = w;
+          } else if (onStack[w]) {
+            lowLink[v] = Math.min(lowLink[v], discovered[w]);
+          }
+          continue;
+        }
+        if (lowLink[v] == discovered[v]) {
+          int w;
+          do {
+            w = stack[--stackSize];
+            onStack[w] = false;
+            component[w] = components;
+            order[completed++] = w;
+          } while (w != v);
+          components++;
+        }
+        depth--;
+        if (depth >= 0) {
+          int parent = callStack[depth];
+          lowLink[parent] = Math.min(lowLink[parent], lowLink[v]);
+        }
+      }
+    }
+    return Arrays.copyOf(order, completed);
+  }
+
+  /**
+   * Returns the bound that variable {@code v} contributes to component {@code c}: its own nullness
+   * if it's proper, the bound of its component if that has already been solved, or {@link #NONE}
+   * for a member of {@code c} itself.
+   */
+  private byte boundOf(int v, int c, int[] component, byte[] componentBounds) {
+    if (proper[v] != NONE) {
+      return proper[v];
+    }
+    return component[v] != c ? componentBounds[component[v]] : NONE;
+  }
 
-    result =
-        constraintGraph.successors(iv).stream()
-            .map(this::getUpperBound)
-            .filter(Optional::isPresent)
-            .map(Optional::get)
-            .reduce(Nullness::greatestLowerBound);
+  /** Groups the variables in {@code order} by component. */
+  private static int[][] membersOf(int[] component, int components, int[] order) {
+    int[] counts = new int[components];
+    for (int v : order) {
+      counts[component[v]]++;
+    }
+    int[][] members = new int[components][];
+    for (int c = 0; c < components; c++) {
+      members[c] = new int[counts[c]];
+      counts[c] = 0;
+    }
+    for (int v : order) {
+      members[component[v]][counts[component[v]]++] = v;
+    }
+    return members;
+  }
 
-    // A lower bound of NULLABLE implies an upper bound of NULLABLE, since NULLABLE is top
-    if (!result.isPresent() && getLowerBound(iv).equals(Optional.of(Nullness.NULLABLE))) {
-      result = Optional.of(Nullness.NULLABLE);
+  private static int max(int[] values) {
+    int max = -1;
+    for (int value : values) {
+      max = Math.max(max, value);
     }
+    return max;
+  }
 
-    upperBoundMemoTable.put(iv, result);
-    return result;
+  private static byte leastUpperBound(byte a, byte b) {
+    if (a == NONE) {
+      return b;
+    }
+    if (b == NONE) {
+      return a;
+    }
+    return (byte) NULLNESS[a].leastUpperBound(NULLNESS[b]).ordinal();
+  }
+
+  private static byte greatestLowerBound(byte a, byte b) {
+    if (a == NONE) {
+      return b;
+    }
+    if (b == NONE) {
+      return a;
+    }
+    return (byte) NULLNESS[a].greatestLowerBound(NULLNESS[b]).ordinal();
   }
 }
@@ -18,18 +18,16 @@ package com.google.errorprone.dataflow.nullnesspropagation.inference;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Streams;
 import com.google.common.graph.GraphBuilder;
 import com.google.common.graph.MutableGraph;
-import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.errorprone.SubContext;
 import com.sun.source.tree.ArrayAccessTree;
 import com.sun.source.tree.AssignmentTree;
 import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.IdentifierTree;
 import com.sun.source.tree.LambdaExpressionTree;
@@ -43,7 +41,6 @@ import com.sun.source.tree.Tree;
 import com.sun.source.tree.Tree.Kind;
 import com.sun.source.tree.VariableTree;
 import com.sun.source.util.TreeScanner;
-import com.sun.tools.javac.code.Symbol.CompletionFailure;
 import com.sun.tools.javac.code.Symbol.MethodSymbol;
 import com.sun.tools.javac.code.Symbol.TypeVariableSymbol;
 import com.sun.tools.javac.code.Symbol.VarSymbol;
@@ -55,9 +52,12 @@ import com.sun.tools.javac.tree.JCTree.JCFieldAccess;
 import com.sun.tools.javac.tree.JCTree.JCIdent;
 import com.sun.tools.javac.tree.JCTree.JCMethodInvocation;
 import com.sun.tools.javac.tree.TreeInfo;
+import com.sun.tools.javac.util.Context;
 import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Eagerly traverse one {@code MethodTree} at a time and accumulate constraints between nullness
@@ -68,21 +68,48 @@ import java.util.List;
  */
 public class NullnessQualifierInference extends TreeScanner<Void, Void> {
 
-  private static final LoadingCache<Tree, InferredNullability> inferenceCache =
-      CacheBuilder.newBuilder()
-          .maximumSize(1)
-          .build(
-              new CacheLoader<Tree, InferredNullability>() {
-                @Override
-                public InferredNullability load(Tree methodOrInitializer) {
-                  NullnessQualifierInference inferenceEngine =
-                      new NullnessQualifierInference(methodOrInitializer);
-                  inferenceEngine.scan(methodOrInitializer, null);
-                  return new InferredNullability(inferenceEngine.qualifierConstraints);
-                }
-              });
-
-  public static InferredNullability getInferredNullability(Tree methodOrInitializerOrLambda) {
+  private static final Context.Key<InferenceCache> INFERENCE_CACHE_KEY = new Context.Key<>();
+
+  /**
+   * The inference results for the methods, initializers and lambdas of the compilation unit that
+   * is being analyzed. Dataflow is run separately for each lambda and for the method enclosing it,
+   * and by each check that uses nullness, so the results are kept until the compilation moves on
+   * to the next compilation unit rather than just for the most recently analyzed tree.
+   */
+  private static final class InferenceCache {
+    private CompilationUnitTree compilationUnit;
+    private final Map<Tree, InferredNullability> results = new IdentityHashMap<>();
+
+    Map<Tree, InferredNullability> resultsFor(CompilationUnitTree compilationUnit) {
+      if (this.compilationUnit != compilationUnit) {
+        this.compilationUnit = compilationUnit;
+        results.clear();
+      }
+      return results;
+    }
+  }
+
+  /**
+   * Returns the inference cache of the compilation that owns {@code context}. The cache is scoped
+   * to the compilation rather than static so that concurrent compilations don't evict, or observe,
+   * each other's results.
+   */
+  private static InferenceCache inferenceCache(Context context) {
+    context = SubContext.compilationContext(context);
+    InferenceCache cache = context.get(INFERENCE_CACHE_KEY);
+    if (cache == null) {
+      cache = new InferenceCache();
+      context.put(INFERENCE_CACHE_KEY, cache);
+    }
+    return cache;
+  }
+
+  /**
+   * Returns the inferred nullness qualifiers of {@code methodOrInitializerOrLambda}, which is part
+   * of {@code compilationUnit}.
+   */
+  public static InferredNullability getInferredNullability(
+      Context context, CompilationUnitTree compilationUnit, Tree methodOrInitializerOrLambda) {
     checkArgument(
         methodOrInitializerOrLambda instanceof MethodTree
             || methodOrInitializerOrLambda instanceof LambdaExpressionTree
@@ -90,11 +117,16 @@ public class NullnessQualifierInference extends TreeScanner<Void, Void> {
             || methodOrInitializerOrLambda instanceof VariableTree,
         "Tree `%s` is not a lambda, initializer, or method.",
         methodOrInitializerOrLambda);
-    try {
-      return inferenceCache.getUnchecked(methodOrInitializerOrLambda);
-    } catch (UncheckedExecutionException e) {
-      throw e.getCause() instanceof CompletionFailure ? (CompletionFailure) e.getCause() : e;
+    Map<Tree, InferredNullability> results = inferenceCache(context).resultsFor(compilationUnit);
+    InferredNullability result = results.get(methodOrInitializerOrLambda);
+    if (result == null) {
+      NullnessQualifierInference inferenceEngine =
+          new NullnessQualifierInference(methodOrInitializerOrLambda);
+      inferenceEngine.scan(methodOrInitializerOrLambda, null);
+      result = new InferredNullability(inferenceEngine.qualifierConstraints);
+      results.put(methodOrInitializerOrLambda, result);
     }
+    return result;
   }
 
   private final MutableGraph<InferenceVariable> qualifierConstraints;
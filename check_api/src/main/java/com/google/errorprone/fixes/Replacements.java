@@ -19,39 +19,27 @@ package com.google.errorprone.fixes;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import com.google.common.base.Joiner;
-import com.google.common.collect.ComparisonChain;
-import com.google.common.collect.Ordering;
-import com.google.common.collect.Range;
-import com.google.common.collect.RangeMap;
-import com.google.common.collect.TreeRangeMap;
-import java.util.Collection;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.TreeMap;
-import java.util.TreeSet;
 
 /** A collection of {@link Replacement}s to be made to a source file. */
 public class Replacements {
 
   /**
-   * We apply replacements in reverse order of start position, so that replacements that change the
-   * length of the input don't affect the position of earlier replacements.
+   * The replacements, sorted in ascending order by start and then end position. The ranges of
+   * non-empty replacements are pairwise disjoint, and no zero-length replacement is strictly
+   * contained in a non-empty one, so conflicts can be found by a binary search and an inspection
+   * of the neighbouring entries.
+   *
+   * <p>Positions are stored in parallel {@code int} arrays to avoid boxing every endpoint.
    */
-  private static final Comparator<Range<Integer>> DESCENDING =
-      new Comparator<Range<Integer>>() {
-        @Override
-        public int compare(Range<Integer> o1, Range<Integer> o2) {
-          return ComparisonChain.start()
-              .compare(o1.lowerEndpoint(), o2.lowerEndpoint(), Ordering.natural().reverse())
-              .compare(o1.upperEndpoint(), o2.upperEndpoint(), Ordering.natural().reverse())
-              .result();
-        }
-      };
-
-  private final TreeMap<Range<Integer>, Replacement> replacements = new TreeMap<>(DESCENDING);
-  private final RangeMap<Integer, Replacement> overlaps = TreeRangeMap.create();
-  private final TreeSet<Integer> zeroLengthRanges = new TreeSet<>();
+  private int[] starts = new int[8];
+  private int[] ends = new int[8];
+  private Replacement[] values = new Replacement[8];
+  private int size = 0;
 
   /** A policy for handling overlapping insertions. */
   public enum CoalescePolicy {
@@ -92,14 +80,24 @@ public class Replacements {
     return add(replacement, CoalescePolicy.REJECT);
   }
 
+  /**
+   * Adds a replacement, and throws an {@link IllegalArgumentException} if it overlaps an existing
+   * replacement. An insertion overlaps a non-empty replacement that strictly contains its
+   * position, whichever of them is added first: the insertion would be lost when the surrounding
+   * range is replaced. Insertions at the boundaries of a replacement don't overlap it, and
+   * insertions at the same position are combined according to {@code coalescePolicy}.
+   */
   public Replacements add(Replacement replacement, CoalescePolicy coalescePolicy) {
-    if (replacements.containsKey(replacement.range())) {
-      Replacement existing = replacements.get(replacement.range());
+    int start = replacement.startPosition();
+    int end = replacement.endPosition();
+    int idx = search(start, end);
+    if (idx >= 0) {
+      Replacement existing = values[idx];
       if (!existing.equals(replacement)) {
-        if (replacement.range().isEmpty()) {
+        if (start == end) {
           // The replacement is an insertion, and there's an existing insertion at the same point.
           // In that case, we coalesce the additional insertion with the existing one.
-          replacement =
+          values[idx] =
               Replacement.create(
                   existing.startPosition(),
                   existing.endPosition(),
@@ -109,46 +107,136 @@ public class Replacements {
               String.format("%s conflicts with existing replacement %s", replacement, existing));
         }
       }
-    } else {
-      checkOverlaps(replacement);
+      return this;
     }
-    replacements.put(replacement.range(), replacement);
+    int insertionPoint = -(idx + 1);
+    checkOverlaps(replacement, insertionPoint);
+    insert(insertionPoint, replacement);
     return this;
   }
 
-  private void checkOverlaps(Replacement replacement) {
-    Range<Integer> replacementRange = replacement.range();
-    Collection<Replacement> overlap =
-        overlaps.subRangeMap(replacementRange).asMapOfRanges().values();
+  /**
+   * Returns true if {@code replacement} could be added to this collection without conflicting
+   * with an existing replacement. Insertions at the same point as an existing insertion are
+   * compatible, since they can be coalesced.
+   */
+  public boolean isCompatible(Replacement replacement) {
+    int start = replacement.startPosition();
+    int end = replacement.endPosition();
+    int idx = search(start, end);
+    if (idx >= 0) {
+      return start == end || values[idx].equals(replacement);
+    }
+    int insertionPoint = -(idx + 1);
+    return overlapping(start, end, insertionPoint).isEmpty();
+  }
+
+  private void checkOverlaps(Replacement replacement, int insertionPoint) {
+    List<Replacement> overlap =
+        overlapping(replacement.startPosition(), replacement.endPosition(), insertionPoint);
+    if (overlap.isEmpty()) {
+      return;
+    }
+    List<Replacement> nonEmpty = new ArrayList<>();
+    List<Integer> zeroLengthStarts = new ArrayList<>();
+    for (Replacement existing : overlap) {
+      if (existing.length() == 0) {
+        zeroLengthStarts.add(existing.startPosition());
+      } else {
+        nonEmpty.add(existing);
+      }
+    }
     checkArgument(
-        overlap.isEmpty(),
+        nonEmpty.isEmpty(),
         "%s overlaps with existing replacements: %s",
         replacement,
-        Joiner.on(", ").join(overlap));
-    Set<Integer> containedZeroLengthRangeStarts =
-        zeroLengthRanges.subSet(
-            replacementRange.lowerEndpoint(),
-            /* fromInclusive= */ false,
-            replacementRange.upperEndpoint(),
-            /* toInclusive= */ false);
+        Joiner.on(", ").join(nonEmpty));
     checkArgument(
-        containedZeroLengthRangeStarts.isEmpty(),
+        zeroLengthStarts.isEmpty(),
         "%s overlaps with existing zero-length replacements: %s",
         replacement,
-        Joiner.on(", ").join(containedZeroLengthRangeStarts));
-    overlaps.put(replacementRange, replacement);
-    if (replacementRange.isEmpty()) {
-      zeroLengthRanges.add(replacementRange.lowerEndpoint());
+        Joiner.on(", ").join(zeroLengthStarts));
+  }
+
+  /**
+   * Returns the existing replacements that conflict with a new replacement of {@code [start,
+   * end)}, which is not already present and would be inserted at {@code insertionPoint}.
+   */
+  private List<Replacement> overlapping(int start, int end, int insertionPoint) {
+    List<Replacement> result = new ArrayList<>(0);
+    // The predecessor starts at or before the new replacement; because the existing ranges are
+    // disjoint, it is the only earlier entry that can extend past the new start.
+    int prev = insertionPoint - 1;
+    if (prev >= 0 && starts[prev] < ends[prev] && ends[prev] > start) {
+      result.add(values[prev]);
+    }
+    if (start == end) {
+      // Insertions only conflict with non-empty replacements that strictly contain them.
+      return result;
+    }
+    for (int i = insertionPoint; i < size && starts[i] < end; i++) {
+      if (starts[i] == ends[i] && starts[i] == start) {
+        continue;
+      }
+      result.add(values[i]);
+    }
+    return result;
+  }
+
+  /**
+   * Binary search for the replacement with the given range; returns its index if present, and
+   * otherwise {@code -(insertionPoint + 1)}.
+   */
+  private int search(int start, int end) {
+    int lo = 0;
+    int hi = size - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      int cmp =
+          starts[mid] != start
+              ? Integer.compare(starts[mid], start)
+              : Integer.compare(ends[mid], end);
+      if (cmp < 0) {
+        lo = mid + 1;
+      } else if (cmp > 0) {
+        hi = mid - 1;
+      } else {
+        return mid;
+      }
     }
+    return -(lo + 1);
+  }
+
+  private void insert(int idx, Replacement replacement) {
+    if (size == starts.length) {
+      int capacity = size * 2;
+      starts = Arrays.copyOf(starts, capacity);
+      ends = Arrays.copyOf(ends, capacity);
+      values = Arrays.copyOf(values, capacity);
+    }
+    int tail = size - idx;
+    System.arraycopy(starts, idx, starts, idx + 1, tail);
+    System.arraycopy(ends, idx, ends, idx + 1, tail);
+    System.arraycopy(values, idx, values, idx + 1, tail);
+    starts[idx] = replacement.startPosition();
+    ends[idx] = replacement.endPosition();
+    values[idx] = replacement;
+    size++;
   }
 
   /** Non-overlapping replacements, sorted in descending order by position. */
   public Set<Replacement> descending() {
+    // We apply replacements in reverse order of start position, so that replacements that change
+    // the length of the input don't affect the position of earlier replacements.
     // TODO(cushon): refactor SuggestedFix#getReplacements and just return a Collection,
-    return new LinkedHashSet<>(replacements.values());
+    Set<Replacement> result = new LinkedHashSet<>();
+    for (int i = size - 1; i >= 0; i--) {
+      result.add(values[i]);
+    }
+    return result;
   }
 
   public boolean isEmpty() {
-    return replacements.isEmpty();
+    return size == 0;
   }
 }
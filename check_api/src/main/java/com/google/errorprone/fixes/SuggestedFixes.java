@@ -39,6 +39,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.io.CharStreams;
+import com.google.errorprone.ErrorProneTimings;
 import com.google.errorprone.VisitorState;
 import com.google.errorprone.apply.DescriptionBasedDiff;
 import com.google.errorprone.apply.ImportOrganizer;
@@ -46,7 +47,6 @@ import com.google.errorprone.apply.SourceFile;
 import com.google.errorprone.fixes.SuggestedFix.Builder;
 import com.google.errorprone.util.ASTHelpers;
 import com.google.errorprone.util.ErrorProneToken;
-import com.google.errorprone.util.ErrorProneTokens;
 import com.google.errorprone.util.FindIdentifiers;
 import com.sun.source.doctree.DocTree;
 import com.sun.source.tree.AnnotationTree;
@@ -447,13 +447,11 @@ public class SuggestedFixes {
         tree.getBody() != null
             ? ((JCTree) tree.getBody()).getStartPosition()
             : state.getEndPosition(tree);
-    List<ErrorProneToken> methodTokens =
-        ErrorProneTokens.getTokens(
-            state.getSourceCode().subSequence(basePos, endPos).toString(), state.context);
+    List<ErrorProneToken> methodTokens = state.getOffsetTokens(basePos, endPos);
     for (ErrorProneToken token : methodTokens) {
       if (token.kind() == TokenKind.IDENTIFIER && token.name().equals(tree.getName())) {
-        int nameStartPosition = basePos + token.pos();
-        int nameEndPosition = basePos + token.endPos();
+        int nameStartPosition = token.pos();
+        int nameEndPosition = token.endPos();
         return SuggestedFix.builder()
             .replace(nameStartPosition, nameEndPosition, replacement)
             .build();
@@ -750,6 +748,8 @@ public class SuggestedFixes {
     if (fix.isEmpty()) {
       return true;
     }
+    // Recompiling can't be interrupted, so don't start if the check has run out of time.
+    ErrorProneTimings.checkDeadline(state.context);
     JCCompilationUnit compilationUnit = (JCCompilationUnit) state.getPath().getCompilationUnit();
     JavaFileObject modifiedFile = compilationUnit.getSourceFile();
     BasicJavacTask javacTask = (BasicJavacTask) state.context.get(JavacTask.class);
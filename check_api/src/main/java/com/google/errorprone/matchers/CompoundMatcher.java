@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.matchers;
+
+import static com.google.errorprone.matchers.CostedMatcher.costOf;
+
+import com.google.errorprone.VisitorState;
+import com.sun.source.tree.Tree;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The matchers built by {@link Matchers#allOf}, {@link Matchers#anyOf} and {@link Matchers#not}.
+ *
+ * <p>Checks usually write the operands of a combinator in whatever order reads best, and nest
+ * combinators to group related operands. When a combinator is built, operands that are themselves
+ * the same kind of combinator are flattened into it, operands that occur more than once are only
+ * kept once, and each run of consecutive operands of known {@link CostedMatcher.Cost} is sorted by
+ * cost. Operands of unknown cost stay where they were written, and no operand is moved past them:
+ * an earlier operand may guard a later one (e.g. check the kind of a tree before casting it), and
+ * only the known costs say that evaluating an operand early is cheap and safe. The sort is stable,
+ * so operands of the same cost are evaluated in the order they were written.
+ */
+final class CompoundMatcher<T extends Tree> implements CostedMatcher<T> {
+
+  static <T extends Tree> Matcher<T> allOf(Iterable<? extends Matcher<? super T>> matchers) {
+    return create(/* all= */ true, matchers);
+  }
+
+  static <T extends Tree> Matcher<T> anyOf(Iterable<? extends Matcher<? super T>> matchers) {
+    return create(/* all= */ false, matchers);
+  }
+
+  @SuppressWarnings("unchecked") // the negation of a Matcher<T> is a Matcher<T>
+  static <T extends Tree> Matcher<T> not(Matcher<T> matcher) {
+    if (matcher instanceof Not) {
+      return ((Not<T>) matcher).matcher;
+    }
+    return new Not<>(matcher);
+  }
+
+  @SuppressWarnings("unchecked") // Matcher<? super T> is a Matcher<T>
+  private static <T extends Tree> Matcher<T> create(
+      boolean all, Iterable<? extends Matcher<? super T>> matchers) {
+    List<Matcher<? super T>> operands = new ArrayList<>();
+    flatten(all, matchers, operands, Collections.newSetFromMap(new IdentityHashMap<>()));
+    if (operands.size() == 1) {
+      return (Matcher<T>) operands.get(0);
+    }
+    int runStart = 0;
+    for (int i = 0; i <= operands.size(); i++) {
+      if (i == operands.size() || costOf(operands.get(i)) == Cost.UNKNOWN) {
+        operands.subList(runStart, i).sort(Comparator.comparing(CostedMatcher::costOf));
+        runStart = i + 1;
+      }
+    }
+    Cost cost = Cost.TREE;
+    for (Matcher<? super T> operand : operands) {
+      if (costOf(operand).compareTo(cost) > 0) {
+        cost = costOf(operand);
+      }
+    }
+    return new CompoundMatcher<>(all, operands.toArray(new Matcher[0]), cost);
+  }
+
+  private static <T extends Tree> void flatten(
+      boolean all,
+      Iterable<? extends Matcher<? super T>> matchers,
+      List<Matcher<? super T>> operands,
+      Set<Matcher<?>> seen) {
+    for (Matcher<? super T> matcher : matchers) {
+      if (matcher instanceof CompoundMatcher && ((CompoundMatcher<?>) matcher).all == all) {
+        @SuppressWarnings("unchecked") // the operands of a Matcher<? super T> match supertypes of T
+        List<Matcher<? super T>> nested =
+            Arrays.asList(((CompoundMatcher<T>) matcher).operands);
+        flatten(all, nested, operands, seen);
+      } else if (seen.add(matcher)) {
+        operands.add(matcher);
+      }
+    }
+  }
+
+  /** True for {@code allOf}, false for {@code anyOf}. */
+  private final boolean all;
+
+  private final Matcher<? super T>[] operands;
+
+  /** The cost of the most expensive operand. */
+  private final Cost cost;
+
+  private CompoundMatcher(boolean all, Matcher<? super T>[] operands, Cost cost) {
+    this.all = all;
+    this.operands = operands;
+    this.cost = cost;
+  }
+
+  @Override
+  public boolean matches(T t, VisitorState state) {
+    for (Matcher<? super T> operand : operands) {
+      if (operand.matches(t, state) != all) {
+        return !all;
+      }
+    }
+    return all;
+  }
+
+  @Override
+  public Cost cost() {
+    return cost;
+  }
+
+  /** The negation of a matcher, which costs the same as the matcher. */
+  private static final class Not<T extends Tree> implements CostedMatcher<T> {
+
+    private final Matcher<T> matcher;
+
+    Not(Matcher<T> matcher) {
+      this.matcher = matcher;
+    }
+
+    @Override
+    public boolean matches(T t, VisitorState state) {
+      return !matcher.matches(t, state);
+    }
+
+    @Override
+    public Cost cost() {
+      return costOf(matcher);
+    }
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.matchers;
+
+import com.sun.source.tree.Tree;
+
+/**
+ * A {@link Matcher} whose cost is known statically. {@link Matchers#allOf} and {@link
+ * Matchers#anyOf} sort each run of consecutive operands of known cost by cost, so that e.g. a test
+ * of the kind of a tree rules it out before its type is compared to anything. Operands of unknown
+ * cost act as barriers: they stay where they were written, and no operand is moved past them.
+ *
+ * <p>A matcher may only declare a cost other than {@link Cost#UNKNOWN} if it has no side effects
+ * and can be evaluated on any tree of its type, since it may be evaluated before the operands of
+ * known cost that precede it. For example, it must not assume that a preceding {@code isInstance}
+ * operand has checked the class of the tree.
+ */
+public interface CostedMatcher<T extends Tree> extends Matcher<T> {
+
+  /** The classes of cost, from cheapest to most expensive. */
+  enum Cost {
+    /** Only inspects the tree itself, e.g. its kind or name. */
+    TREE,
+    /** Looks up the symbol or type of the tree. */
+    SYMBOL,
+    /** Compares types or looks up annotations, which may complete other classes. */
+    TYPE,
+    /** Anything else; matchers that don't implement {@link CostedMatcher} have this cost. */
+    UNKNOWN;
+  }
+
+  Cost cost();
+
+  /** Returns the cost of {@code matcher}. */
+  static Cost costOf(Matcher<?> matcher) {
+    return matcher instanceof CostedMatcher ? ((CostedMatcher<?>) matcher).cost() : Cost.UNKNOWN;
+  }
+}
@@ -29,14 +29,19 @@ import com.sun.tools.javac.code.Type;
  *
  * @author yanx@google.com (Yan Xie)
  */
-public class IsSameType<T extends Tree> extends AbstractTypeMatcher<T> {
+public class IsSameType<T extends Tree> extends AbstractTypeMatcher<T>
+    implements CostedMatcher<T> {
+
+  private final Cost cost;
 
   public IsSameType(Supplier<Type> typeToCompareSupplier) {
     super(typeToCompareSupplier);
+    this.cost = Cost.UNKNOWN;
   }
 
   public IsSameType(String typeString) {
     super(typeString);
+    this.cost = Cost.TYPE;
   }
 
   @Override
@@ -44,4 +49,15 @@ public class IsSameType<T extends Tree> extends AbstractTypeMatcher<T> {
     Type typeToCompare = typeToCompareSupplier.get(state);
     return ASTHelpers.isSameType(ASTHelpers.getType(tree), typeToCompare, state);
   }
+
+  /**
+   * Returns {@link Cost#TYPE} if the type was given by name. A caller-supplied {@link Supplier} may
+   * have side effects or depend on earlier operands, so its cost is {@link Cost#UNKNOWN}.
+   * Subclasses that override {@link #matches} must also override this method if their matcher
+   * doesn't meet the requirements of {@link CostedMatcher}.
+   */
+  @Override
+  public Cost cost() {
+    return cost;
+  }
 }
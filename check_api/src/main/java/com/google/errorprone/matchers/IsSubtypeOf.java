@@ -25,18 +25,34 @@ import com.sun.source.tree.Tree;
 import com.sun.tools.javac.code.Type;
 
 /** @author eaftan@google.com (Eddie Aftandilian) */
-public class IsSubtypeOf<T extends Tree> extends AbstractTypeMatcher<T> {
+public class IsSubtypeOf<T extends Tree> extends AbstractTypeMatcher<T>
+    implements CostedMatcher<T> {
+
+  private final Cost cost;
 
   public IsSubtypeOf(Supplier<Type> typeToCompareSupplier) {
     super(typeToCompareSupplier);
+    this.cost = Cost.UNKNOWN;
   }
 
   public IsSubtypeOf(String typeString) {
     super(typeString);
+    this.cost = Cost.TYPE;
   }
 
   @Override
   public boolean matches(T tree, VisitorState state) {
     return isSubtype(getType(tree), typeToCompareSupplier.get(state), state);
   }
+
+  /**
+   * Returns {@link Cost#TYPE} if the type was given by name. A caller-supplied {@link Supplier} may
+   * have side effects or depend on earlier operands, so its cost is {@link Cost#UNKNOWN}.
+   * Subclasses that override {@link #matches} must also override this method if their matcher
+   * doesn't meet the requirements of {@link CostedMatcher}.
+   */
+  @Override
+  public Cost cost() {
+    return cost;
+  }
 }
@@ -20,7 +20,6 @@ import static com.google.errorprone.suppliers.Suppliers.BOOLEAN_TYPE;
 import static com.google.errorprone.suppliers.Suppliers.INT_TYPE;
 import static com.google.errorprone.suppliers.Suppliers.JAVA_LANG_BOOLEAN_TYPE;
 import static com.google.errorprone.suppliers.Suppliers.STRING_TYPE;
-import static com.google.errorprone.suppliers.Suppliers.typeFromClass;
 import static com.google.errorprone.util.ASTHelpers.getType;
 import static com.google.errorprone.util.ASTHelpers.stripParentheses;
 
@@ -96,51 +95,50 @@ public class Matchers {
 
   /** A matcher that matches any AST node. */
   public static <T extends Tree> Matcher<T> anything() {
-    return new Matcher<T>() {
+    return new CostedMatcher<T>() {
       @Override
       public boolean matches(T t, VisitorState state) {
         return true;
       }
+
+      @Override
+      public Cost cost() {
+        return Cost.TREE;
+      }
     };
   }
 
   /** A matcher that matches no AST node. */
   public static <T extends Tree> Matcher<T> nothing() {
-    return new Matcher<T>() {
+    return new CostedMatcher<T>() {
       @Override
       public boolean matches(T t, VisitorState state) {
         return false;
       }
+
+      @Override
+      public Cost cost() {
+        return Cost.TREE;
+      }
     };
   }
 
   /** Matches an AST node iff it does not match the given matcher. */
   public static <T extends Tree> Matcher<T> not(final Matcher<T> matcher) {
-    return new Matcher<T>() {
-      @Override
-      public boolean matches(T t, VisitorState state) {
-        return !matcher.matches(t, state);
-      }
-    };
+    return CompoundMatcher.not(matcher);
   }
 
   /**
    * Compose several matchers together, such that the composite matches an AST node iff all the
    * given matchers do.
+   *
+   * <p>The matchers are not necessarily evaluated in the given order: among consecutive matchers
+   * that are known to be safe to evaluate on any tree, the cheaper ones go first (see {@link
+   * CostedMatcher}). No matcher is moved past one that isn't known to be safe.
    */
   @SafeVarargs
   public static <T extends Tree> Matcher<T> allOf(final Matcher<? super T>... matchers) {
-    return new Matcher<T>() {
-      @Override
-      public boolean matches(T t, VisitorState state) {
-        for (Matcher<? super T> matcher : matchers) {
-          if (!matcher.matches(t, state)) {
-            return false;
-          }
-        }
-        return true;
-      }
-    };
+    return CompoundMatcher.allOf(Arrays.asList(matchers));
   }
 
   /**
@@ -149,17 +147,7 @@ public class Matchers {
    */
   public static <T extends Tree> Matcher<T> anyOf(
       final Iterable<? extends Matcher<? super T>> matchers) {
-    return new Matcher<T>() {
-      @Override
-      public boolean matches(T t, VisitorState state) {
-        for (Matcher<? super T> matcher : matchers) {
-          if (matcher.matches(t, state)) {
-            return true;
-          }
-        }
-        return false;
-      }
-    };
+    return CompoundMatcher.anyOf(matchers);
   }
 
   @SafeVarargs
@@ -169,31 +157,46 @@ public class Matchers {
 
   /** Matches if an AST node is an instance of the given class. */
   public static <T extends Tree> Matcher<T> isInstance(final java.lang.Class<?> klass) {
-    return new Matcher<T>() {
+    return new CostedMatcher<T>() {
       @Override
       public boolean matches(T t, VisitorState state) {
         return klass.isInstance(t);
       }
+
+      @Override
+      public Cost cost() {
+        return Cost.TREE;
+      }
     };
   }
 
   /** Matches an AST node of a given kind, for example, an Annotation or a switch block. */
   public static <T extends Tree> Matcher<T> kindIs(final Kind kind) {
-    return new Matcher<T>() {
+    return new CostedMatcher<T>() {
       @Override
       public boolean matches(T tree, VisitorState state) {
         return tree.getKind() == kind;
       }
+
+      @Override
+      public Cost cost() {
+        return Cost.TREE;
+      }
     };
   }
 
   /** Matches an AST node which is the same object reference as the given node. */
   public static <T extends Tree> Matcher<T> isSame(final Tree t) {
-    return new Matcher<T>() {
+    return new CostedMatcher<T>() {
       @Override
       public boolean matches(T tree, VisitorState state) {
         return tree == t;
       }
+
+      @Override
+      public Cost cost() {
+        return Cost.TREE;
+      }
     };
   }
 
@@ -435,7 +438,7 @@ public class Matchers {
    * @param clazz a class representation of the type, e.g., Action.class.
    */
   public static <T extends Tree> Matcher<T> isSubtypeOf(Class<?> clazz) {
-    return new IsSubtypeOf<>(typeFromClass(clazz));
+    return new IsSubtypeOf<>(clazz.getName());
   }
 
   /** Matches an AST node if it has the same erased type as the given type. */
@@ -450,23 +453,28 @@ public class Matchers {
 
   /** Matches an AST node if it has the same erased type as the given class. */
   public static <T extends Tree> Matcher<T> isSameType(Class<?> clazz) {
-    return new IsSameType<>(typeFromClass(clazz));
+    return new IsSameType<>(clazz.getName());
   }
 
   /** Matches an AST node if its type is an array type. */
   public static <T extends Tree> Matcher<T> isArrayType() {
-    return new Matcher<T>() {
+    return new CostedMatcher<T>() {
       @Override
       public boolean matches(Tree t, VisitorState state) {
         Type type = getType(t);
         return type != null && state.getTypes().isArray(type);
       }
+
+      @Override
+      public Cost cost() {
+        return Cost.SYMBOL;
+      }
     };
   }
 
   /** Matches an AST node if its type is a primitive array type. */
   public static <T extends Tree> Matcher<T> isPrimitiveArrayType() {
-    return new Matcher<T>() {
+    return new CostedMatcher<T>() {
       @Override
       public boolean matches(Tree t, VisitorState state) {
         Type type = getType(t);
@@ -474,39 +482,59 @@ public class Matchers {
             && state.getTypes().isArray(type)
             && state.getTypes().elemtype(type).isPrimitive();
       }
+
+      @Override
+      public Cost cost() {
+        return Cost.SYMBOL;
+      }
     };
   }
 
   /** Matches an AST node if its type is a primitive type. */
   public static <T extends Tree> Matcher<T> isPrimitiveType() {
-    return new Matcher<T>() {
+    return new CostedMatcher<T>() {
       @Override
       public boolean matches(Tree t, VisitorState state) {
         Type type = getType(t);
         return type != null && type.isPrimitive();
       }
+
+      @Override
+      public Cost cost() {
+        return Cost.SYMBOL;
+      }
     };
   }
 
   /** Matches an AST node if its type is either a primitive type or a {@code void} type. */
   public static <T extends Tree> Matcher<T> isPrimitiveOrVoidType() {
-    return new Matcher<T>() {
+    return new CostedMatcher<T>() {
       @Override
       public boolean matches(T t, VisitorState state) {
         Type type = getType(t);
         return type != null && type.isPrimitiveOrVoid();
       }
+
+      @Override
+      public Cost cost() {
+        return Cost.SYMBOL;
+      }
     };
   }
 
   /** Matches an AST node if its type is a {@code void} type. */
   public static <T extends Tree> Matcher<T> isVoidType() {
-    return new Matcher<T>() {
+    return new CostedMatcher<T>() {
       @Override
       public boolean matches(T t, VisitorState state) {
         Type type = getType(t);
         return type != null && state.getTypes().isSameType(type, state.getSymtab().voidType);
       }
+
+      @Override
+      public Cost cost() {
+        return Cost.SYMBOL;
+      }
     };
   }
 
@@ -757,11 +785,16 @@ public class Matchers {
    *     "javax.annotation.Nullable", or "some.package.OuterClassName$InnerClassName")
    */
   public static <T extends Tree> Matcher<T> hasAnnotation(final String annotationClass) {
-    return new Matcher<T>() {
+    return new CostedMatcher<T>() {
       @Override
       public boolean matches(T tree, VisitorState state) {
         return ASTHelpers.hasAnnotation(ASTHelpers.getDeclaredSymbol(tree), annotationClass, state);
       }
+
+      @Override
+      public Cost cost() {
+        return Cost.TYPE;
+      }
     };
   }
 
@@ -811,11 +844,16 @@ public class Matchers {
    *     "javax.annotation.Nullable", or "some.package.OuterClassName$InnerClassName")
    */
   public static <T extends Tree> Matcher<T> symbolHasAnnotation(final String annotationClass) {
-    return new Matcher<T>() {
+    return new CostedMatcher<T>() {
       @Override
       public boolean matches(T tree, VisitorState state) {
         return ASTHelpers.hasAnnotation(ASTHelpers.getSymbol(tree), annotationClass, state);
       }
+
+      @Override
+      public Cost cost() {
+        return Cost.TYPE;
+      }
     };
   }
 
@@ -827,11 +865,16 @@ public class Matchers {
    */
   public static <T extends Tree> Matcher<T> hasAnnotation(
       final Class<? extends Annotation> inputClass) {
-    return new Matcher<T>() {
+    return new CostedMatcher<T>() {
       @Override
       public boolean matches(T tree, VisitorState state) {
         return ASTHelpers.hasAnnotation(ASTHelpers.getDeclaredSymbol(tree), inputClass, state);
       }
+
+      @Override
+      public Cost cost() {
+        return Cost.TYPE;
+      }
     };
   }
 
@@ -843,11 +886,16 @@ public class Matchers {
    */
   public static <T extends Tree> Matcher<T> symbolHasAnnotation(
       final Class<? extends Annotation> inputClass) {
-    return new Matcher<T>() {
+    return new CostedMatcher<T>() {
       @Override
       public boolean matches(T tree, VisitorState state) {
         return ASTHelpers.hasAnnotation(ASTHelpers.getSymbol(tree), inputClass, state);
       }
+
+      @Override
+      public Cost cost() {
+        return Cost.TYPE;
+      }
     };
   }
 
@@ -870,7 +918,7 @@ public class Matchers {
         if (ASTHelpers.hasAnnotation(methodSym, annotationClass, state)) {
           return true;
         }
-        for (MethodSymbol method : ASTHelpers.findSuperMethods(methodSym, state.getTypes())) {
+        for (MethodSymbol method : ASTHelpers.findSuperMethods(methodSym, state)) {
           if (ASTHelpers.hasAnnotation(method, annotationClass, state)) {
             return true;
           }
@@ -918,11 +966,16 @@ public class Matchers {
    * @param methodName The name of the method to match, e.g., "equals"
    */
   public static Matcher<MethodTree> methodIsNamed(final String methodName) {
-    return new Matcher<MethodTree>() {
+    return new CostedMatcher<MethodTree>() {
       @Override
       public boolean matches(MethodTree methodTree, VisitorState state) {
         return methodTree.getName().contentEquals(methodName);
       }
+
+      @Override
+      public Cost cost() {
+        return Cost.TREE;
+      }
     };
   }
 
@@ -1167,12 +1220,17 @@ public class Matchers {
 
   /** Returns true if the Tree node has the expected {@code Modifier}. */
   public static <T extends Tree> Matcher<T> hasModifier(final Modifier modifier) {
-    return new Matcher<T>() {
+    return new CostedMatcher<T>() {
       @Override
       public boolean matches(T tree, VisitorState state) {
         Symbol sym = ASTHelpers.getSymbol(tree);
         return sym != null && sym.getModifiers().contains(modifier);
       }
+
+      @Override
+      public Cost cost() {
+        return Cost.SYMBOL;
+      }
     };
   }
 
@@ -1183,12 +1241,17 @@ public class Matchers {
 
   /** Matches an AST node that is static. */
   public static <T extends Tree> Matcher<T> isStatic() {
-    return new Matcher<T>() {
+    return new CostedMatcher<T>() {
       @Override
       public boolean matches(Tree tree, VisitorState state) {
         Symbol sym = ASTHelpers.getSymbol(tree);
         return sym != null && sym.isStatic();
       }
+
+      @Override
+      public Cost cost() {
+        return Cost.SYMBOL;
+      }
     };
   }
 
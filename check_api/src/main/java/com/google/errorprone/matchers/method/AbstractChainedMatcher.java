@@ -17,15 +17,23 @@
 package com.google.errorprone.matchers.method;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.VisitorState;
 import com.google.errorprone.annotations.ForOverride;
 import com.sun.source.tree.ExpressionTree;
+import javax.annotation.Nullable;
 
 /** Super-type for matchers that compose other matchers. */
 abstract class AbstractChainedMatcher<A, B> extends AbstractSimpleMatcher<B> {
   private final AbstractSimpleMatcher<A> baseMatcher;
 
   AbstractChainedMatcher(AbstractSimpleMatcher<A> baseMatcher) {
+    this(baseMatcher, baseMatcher.methodNames());
+  }
+
+  AbstractChainedMatcher(
+      AbstractSimpleMatcher<A> baseMatcher, @Nullable ImmutableSet<String> methodNames) {
+    super(methodNames);
     this.baseMatcher = baseMatcher;
   }
 
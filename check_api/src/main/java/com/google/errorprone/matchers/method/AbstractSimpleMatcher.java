@@ -17,16 +17,88 @@
 package com.google.errorprone.matchers.method;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.VisitorState;
-import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.matchers.CostedMatcher;
+import com.google.errorprone.util.ASTHelpers;
 import com.sun.source.tree.ExpressionTree;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.util.Name;
+import javax.annotation.Nullable;
 
 /** Super-type for base (non-chained) matchers. */
-abstract class AbstractSimpleMatcher<T> implements Matcher<ExpressionTree> {
+abstract class AbstractSimpleMatcher<T> implements CostedMatcher<ExpressionTree> {
+  @Nullable private final ImmutableSet<String> methodNames;
+
+  /**
+   * {@link #methodNames} as names in the name table of the last compilation that was matched, so
+   * that they can be compared by identity.
+   */
+  @Nullable private volatile TableNames tableNames;
+
+  AbstractSimpleMatcher() {
+    this(null);
+  }
+
+  /**
+   * @param methodNames the simple names of the methods this matcher can match, or {@code null} if
+   *     it is not restricted to a fixed set of names
+   */
+  AbstractSimpleMatcher(@Nullable ImmutableSet<String> methodNames) {
+    this.methodNames = methodNames;
+  }
+
   protected abstract Optional<T> matchResult(ExpressionTree item, VisitorState state);
 
+  /**
+   * Returns the simple names of the methods this matcher can match, or {@code null} if it is not
+   * restricted to a fixed set of names.
+   */
+  @Nullable
+  final ImmutableSet<String> methodNames() {
+    return methodNames;
+  }
+
   @Override
   public final boolean matches(ExpressionTree tree, VisitorState state) {
+    // Check the name first: it's much cheaper than resolving the receiver and parameter types, and
+    // rules out almost every tree.
+    if (methodNames != null) {
+      Symbol sym = ASTHelpers.getSymbol(tree);
+      if (sym == null || !hasMethodName(sym.getSimpleName())) {
+        return false;
+      }
+    }
     return matchResult(tree, state).isPresent();
   }
+
+  private boolean hasMethodName(Name name) {
+    TableNames current = tableNames;
+    if (current == null || current.table != name.table) {
+      // Matchers are shared between compilations, which each have their own name table.
+      current = new TableNames(name.table, methodNames);
+      tableNames = current;
+    }
+    return current.names.contains(name);
+  }
+
+  @Override
+  public final Cost cost() {
+    return Cost.SYMBOL;
+  }
+
+  /** A set of names in one name table. */
+  private static final class TableNames {
+    final Name.Table table;
+    final ImmutableSet<Name> names;
+
+    TableNames(Name.Table table, ImmutableSet<String> names) {
+      this.table = table;
+      ImmutableSet.Builder<Name> builder = ImmutableSet.builder();
+      for (String name : names) {
+        builder.add(table.fromString(name));
+      }
+      this.names = builder.build();
+    }
+  }
 }
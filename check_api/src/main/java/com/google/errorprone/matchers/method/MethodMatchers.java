@@ -16,12 +16,15 @@
 
 package com.google.errorprone.matchers.method;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.matchers.Matcher;
 import com.google.errorprone.predicates.TypePredicate;
 import com.google.errorprone.suppliers.Supplier;
 import com.sun.source.tree.ExpressionTree;
 import com.sun.tools.javac.code.Type;
+import java.util.Arrays;
 import java.util.regex.Pattern;
+import javax.annotation.Nullable;
 
 public class MethodMatchers {
 
@@ -158,4 +161,33 @@ public class MethodMatchers {
   public static ConstructorMatcher constructor() {
     return new ConstructorMatcherImpl();
   }
+
+  /**
+   * Returns the simple names of all methods that the given matchers can match, or {@code null} if
+   * any of them is not a method matcher restricted to a fixed set of names (e.g. it was built with
+   * {@link MethodClassMatcher#withAnyName}, or is not a method matcher at all).
+   */
+  @SafeVarargs
+  @Nullable
+  public static ImmutableSet<String> methodNames(Matcher<? super ExpressionTree>... matchers) {
+    return methodNames(Arrays.asList(matchers));
+  }
+
+  /** @see #methodNames(Matcher...) */
+  @Nullable
+  public static ImmutableSet<String> methodNames(
+      Iterable<? extends Matcher<? super ExpressionTree>> matchers) {
+    ImmutableSet.Builder<String> names = ImmutableSet.builder();
+    for (Matcher<? super ExpressionTree> matcher : matchers) {
+      if (!(matcher instanceof AbstractSimpleMatcher)) {
+        return null;
+      }
+      ImmutableSet<String> matcherNames = ((AbstractSimpleMatcher<?>) matcher).methodNames();
+      if (matcherNames == null) {
+        return null;
+      }
+      names.addAll(matcherNames);
+    }
+    return names.build();
+  }
 }
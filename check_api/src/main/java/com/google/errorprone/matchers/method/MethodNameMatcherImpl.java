@@ -19,7 +19,7 @@ package com.google.errorprone.matchers.method;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import com.google.common.base.Optional;
-import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.VisitorState;
 import com.google.errorprone.matchers.method.MethodMatchers.MethodNameMatcher;
 import com.google.errorprone.matchers.method.MethodMatchers.ParameterMatcher;
@@ -28,13 +28,15 @@ import com.sun.source.tree.ExpressionTree;
 import com.sun.tools.javac.util.Name;
 import java.util.Arrays;
 import java.util.regex.Pattern;
+import javax.annotation.Nullable;
 
 /** Matchers that select on method name. */
 public abstract class MethodNameMatcherImpl extends AbstractChainedMatcher<MatchState, MatchState>
     implements MethodNameMatcher {
 
-  MethodNameMatcherImpl(AbstractSimpleMatcher<MatchState> baseMatcher) {
-    super(baseMatcher);
+  MethodNameMatcherImpl(
+      AbstractSimpleMatcher<MatchState> baseMatcher, @Nullable ImmutableSet<String> methodNames) {
+    super(baseMatcher, methodNames);
   }
 
   @Override
@@ -52,7 +54,7 @@ public abstract class MethodNameMatcherImpl extends AbstractChainedMatcher<Match
     private final String name;
 
     Exact(AbstractSimpleMatcher<MatchState> baseMatcher, String name) {
-      super(baseMatcher);
+      super(baseMatcher, ImmutableSet.of(name));
       this.name = name;
       checkArgument(
           !name.contains("(") && !name.contains(")"),
@@ -73,7 +75,7 @@ public abstract class MethodNameMatcherImpl extends AbstractChainedMatcher<Match
   /** Matches any method name. */
   static class Any extends MethodNameMatcherImpl {
     Any(AbstractSimpleMatcher<MatchState> baseMatcher) {
-      super(baseMatcher);
+      super(baseMatcher, /* methodNames= */ null);
     }
 
     @Override
@@ -89,7 +91,7 @@ public abstract class MethodNameMatcherImpl extends AbstractChainedMatcher<Match
     private final Pattern regex;
 
     Regex(AbstractSimpleMatcher<MatchState> baseMatcher, Pattern regex) {
-      super(baseMatcher);
+      super(baseMatcher, /* methodNames= */ null);
       this.regex = regex;
     }
 
@@ -106,11 +108,11 @@ public abstract class MethodNameMatcherImpl extends AbstractChainedMatcher<Match
   /** Matches on any of the given method names. */
   static class AnyOf extends MethodNameMatcherImpl {
 
-    private final ImmutableList<String> names;
+    private final ImmutableSet<String> names;
 
     AnyOf(AbstractSimpleMatcher<MatchState> baseMatcher, Iterable<String> names) {
-      super(baseMatcher);
-      this.names = ImmutableList.copyOf(names);
+      super(baseMatcher, ImmutableSet.copyOf(names));
+      this.names = methodNames();
     }
 
     @Override
@@ -17,9 +17,11 @@
 package com.google.errorprone.matchers.method;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.VisitorState;
 import com.google.errorprone.matchers.method.MethodMatchers.MethodSignatureMatcher;
 import com.sun.source.tree.ExpressionTree;
+import javax.annotation.Nullable;
 
 /** Matches on method signature. */
 public class MethodSignatureMatcherImpl extends AbstractChainedMatcher<MatchState, MatchState>
@@ -27,10 +29,18 @@ public class MethodSignatureMatcherImpl extends AbstractChainedMatcher<MatchStat
   private final String methodName;
 
   MethodSignatureMatcherImpl(AbstractSimpleMatcher<MatchState> baseMatcher, String methodName) {
-    super(baseMatcher);
+    super(baseMatcher, methodNames(methodName));
     this.methodName = methodName;
   }
 
+  @Nullable
+  private static ImmutableSet<String> methodNames(String signature) {
+    int paren = signature.indexOf('(');
+    String name = paren == -1 ? signature : signature.substring(0, paren);
+    // Generic methods are rendered with their type parameters first, e.g. `<T>foo(T)`.
+    return name.contains("<") ? null : ImmutableSet.of(name);
+  }
+
   @Override
   protected Optional<MatchState> matchResult(
       ExpressionTree item, MatchState method, VisitorState state) {
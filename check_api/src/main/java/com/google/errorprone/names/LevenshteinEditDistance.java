@@ -16,6 +16,8 @@
 
 package com.google.errorprone.names;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
  * A utility class for finding the Levenshtein edit distance between strings. The edit distance
  * between two strings is the number of deletions, insertions, and substitutions required to
@@ -45,7 +47,7 @@ public class LevenshteinEditDistance {
 
   /**
    * Returns the edit distance between two strings. The algorithm used to calculate this distance
-   * has space requirements of len(source)*len(target).
+   * has space requirements of min(len(source), len(target)).
    *
    * @param source The source string.
    * @param target The target string
@@ -54,54 +56,164 @@ public class LevenshteinEditDistance {
    * @see #getEditDistance(String, String)
    */
   public static int getEditDistance(String source, String target, boolean caseSensitive) {
+    return getEditDistance(source, target, caseSensitive, Integer.MAX_VALUE);
+  }
 
-    // Levenshtein distance algorithm
+  /**
+   * Returns the edit distance between two strings if it is at most {@code maxDistance}, and {@code
+   * maxDistance + 1} otherwise. This is cheaper than computing the distance if the strings are
+   * dissimilar, so callers that are only interested in close matches should pass the largest
+   * distance they would accept.
+   *
+   * @param source The source string.
+   * @param target The target string
+   * @param caseSensitive If true, case is used in comparisons and 'a' != 'A'.
+   * @param maxDistance The largest distance the caller is interested in.
+   * @return The edit distance between the source and target strings, or {@code maxDistance + 1}.
+   */
+  public static int getEditDistance(
+      String source, String target, boolean caseSensitive, int maxDistance) {
+    checkArgument(maxDistance >= 0, "maxDistance must be non-negative: %s", maxDistance);
 
     int sourceLength = isEmptyOrWhitespace(source) ? 0 : source.length();
     int targetLength = isEmptyOrWhitespace(target) ? 0 : target.length();
 
     if (sourceLength == 0) {
-      return targetLength;
+      return targetLength <= maxDistance ? targetLength : maxDistance + 1;
     }
 
     if (targetLength == 0) {
-      return sourceLength;
+      return sourceLength <= maxDistance ? sourceLength : maxDistance + 1;
     }
 
-    if (!caseSensitive) {
-      source = source.toLowerCase();
-      target = target.toLowerCase();
+    // The distance is at least the difference in length, and at most the longer length.
+    if (Math.abs(sourceLength - targetLength) > maxDistance) {
+      return maxDistance + 1;
     }
+    maxDistance = Math.min(maxDistance, Math.max(sourceLength, targetLength));
 
-    int[][] levMatrix = new int[sourceLength + 1][targetLength + 1];
+    // The distance is symmetric, so compute it with the shorter string as the target, to
+    // minimize the size of the row.
+    if (targetLength > sourceLength) {
+      String tmp = source;
+      source = target;
+      target = tmp;
+    }
 
-    for (int i = 0; i <= sourceLength; i++) {
-      levMatrix[i][0] = i;
+    if (target.length() <= Long.SIZE) {
+      int distance = getBitParallelEditDistance(source, target, caseSensitive, maxDistance);
+      if (distance >= 0) {
+        return distance;
+      }
     }
+    return getBandedEditDistance(source, target, caseSensitive, maxDistance);
+  }
 
-    for (int i = 0; i <= targetLength; i++) {
-      levMatrix[0][i] = i;
+  /**
+   * Myers' bit-parallel algorithm, as extended to edit distance by Hyyro: bit {@code i} of {@code
+   * pv} ({@code mv}) is set if the distance between the first {@code i + 1} characters of the
+   * target and the characters of the source seen so far is one more (less) than the distance for
+   * the first {@code i} characters, so that each character of the source is processed in constant
+   * time. See <a href="https://doi.org/10.1145/316542.316550">Myers (1999)</a>.
+   *
+   * <p>The target must be at most 64 characters long, and only contain ASCII characters (after
+   * case folding); returns -1 if it doesn't.
+   */
+  private static int getBitParallelEditDistance(
+      String source, String target, boolean caseSensitive, int maxDistance) {
+    int sourceLength = source.length();
+    int targetLength = target.length();
+    for (int i = 0; i < targetLength; i++) {
+      if (fold(target.charAt(i), caseSensitive) >= ASCII) {
+        return -1;
+      }
+    }
+
+    // peq[c] has bit i set if the i'th character of the target is c.
+    long[] peq = PEQ.get();
+    for (int i = 0; i < targetLength; i++) {
+      peq[fold(target.charAt(i), caseSensitive)] |= 1L << i;
+    }
+
+    long pv = -1L;
+    long mv = 0L;
+    long last = 1L << (targetLength - 1);
+    int distance = targetLength;
+    for (int j = 0; j < sourceLength; j++) {
+      char c = fold(source.charAt(j), caseSensitive);
+      long eq = c < ASCII ? peq[c] : 0L;
+      long xv = eq | mv;
+      long xh = (((eq & pv) + pv) ^ pv) | eq;
+      long ph = mv | ~(xh | pv);
+      long mh = pv & xh;
+      if ((ph & last) != 0) {
+        distance++;
+      } else if ((mh & last) != 0) {
+        distance--;
+      }
+      // Each remaining character of the source can reduce the distance by at most one.
+      if (distance - (sourceLength - j - 1) > maxDistance) {
+        distance = maxDistance + 1;
+        break;
+      }
+      ph = (ph << 1) | 1;
+      mh <<= 1;
+      pv = mh | ~(xv | ph);
+      mv = ph & xv;
+    }
+
+    for (int i = 0; i < targetLength; i++) {
+      peq[fold(target.charAt(i), caseSensitive)] = 0L;
+    }
+    return distance;
+  }
+
+  /**
+   * The dynamic programming algorithm, keeping a single row of the matrix. Only cells whose
+   * distance from the diagonal is at most {@code maxDistance} are computed, since the distance
+   * between prefixes whose lengths differ by more than that must exceed it (Ukkonen).
+   */
+  private static int getBandedEditDistance(
+      String source, String target, boolean caseSensitive, int maxDistance) {
+    int sourceLength = source.length();
+    int targetLength = target.length();
+
+    // row[j] is the distance between the source prefix processed so far and the first j
+    // characters of the target. Cells right of the band keep their initial values, which are
+    // larger than maxDistance.
+    int[] row = row(targetLength + 1);
+    for (int j = 0; j <= targetLength; j++) {
+      row[j] = j;
     }
 
     for (int i = 1; i <= sourceLength; i++) {
+      char sourceI = fold(source.charAt(i - 1), caseSensitive);
+      int from = Math.max(1, i - maxDistance);
+      int to = Math.min(targetLength, i + maxDistance);
 
-      char sourceI = source.charAt(i - 1);
-      for (int j = 1; j <= targetLength; j++) {
-        char targetJ = target.charAt(j - 1);
+      // The cell left of the band is either the first column, or outside the band.
+      int diagonal = row[from - 1];
+      row[from - 1] = from == 1 ? i : maxDistance + 1;
+      int rowMin = row[from - 1];
 
-        int cost = 0;
-        if (sourceI != targetJ) {
-          cost = 1;
-        }
+      for (int j = from; j <= to; j++) {
+        int cost = sourceI == fold(target.charAt(j - 1), caseSensitive) ? 0 : 1;
+        int above = row[j];
+        int distance = Math.min(diagonal + cost, Math.min(above + 1, row[j - 1] + 1));
+        diagonal = above;
+        row[j] = distance;
+        rowMin = Math.min(rowMin, distance);
+      }
 
-        levMatrix[i][j] =
-            Math.min(
-                cost + levMatrix[i - 1][j - 1],
-                Math.min(levMatrix[i - 1][j] + 1, levMatrix[i][j - 1] + 1));
+      // Distances never decrease along an edit script, so if every cell of the row exceeds the
+      // bound then so does the result.
+      if (rowMin > maxDistance) {
+        return maxDistance + 1;
       }
     }
 
-    return levMatrix[sourceLength][targetLength];
+    int distance = row[targetLength];
+    return distance <= maxDistance ? distance : maxDistance + 1;
   }
 
   /**
@@ -131,6 +243,44 @@ public class LevenshteinEditDistance {
    * @return True if the string is empty or contains only whitespace, false otherwise
    */
   private static boolean isEmptyOrWhitespace(String source) {
-    return source == null || source.matches("\\s*");
+    if (source == null) {
+      return true;
+    }
+    // The characters matched by \s in a regular expression.
+    for (int i = 0; i < source.length(); i++) {
+      switch (source.charAt(i)) {
+        case ' ':
+        case '\t':
+        case '\n':
+        case '\u000B':
+        case '\f':
+        case '\r':
+          continue;
+        default:
+          return false;
+      }
+    }
+    return true;
+  }
+
+  private static char fold(char c, boolean caseSensitive) {
+    return caseSensitive ? c : Character.toLowerCase(c);
+  }
+
+  private static final int ASCII = 128;
+
+  /** The bit vectors of {@link #getBitParallelEditDistance}, which are all zero between calls. */
+  private static final ThreadLocal<long[]> PEQ = ThreadLocal.withInitial(() -> new long[ASCII]);
+
+  private static final ThreadLocal<int[]> ROW = ThreadLocal.withInitial(() -> new int[32]);
+
+  /** Returns a row of at least the given length, which is reused by later calls. */
+  private static int[] row(int length) {
+    int[] row = ROW.get();
+    if (row.length < length) {
+      row = new int[Math.max(length, row.length * 2)];
+      ROW.set(row);
+    }
+    return row;
   }
 }
@@ -38,9 +38,9 @@ public final class NeedlemanWunschEditDistance {
    * insertion or deletion. This algorithm is slightly more general in that it charges a sequence of
    * adjacent insertions/deletions an up-front cost plus an incremental cost per insert/delete
    * operation. The idea is that Christopher -&gt; Chris should be less than 6 times as expensive as
-   * Christopher -&gt; Christophe. The algorithm used to calculate this distance takes time and
-   * space proportional to the product of {@code source.length()} and {@code target.length()} to
-   * build the 3 arrays.
+   * Christopher -&gt; Christophe. The algorithm used to calculate this distance takes time
+   * proportional to the product of {@code source.length()} and {@code target.length()}, and space
+   * proportional to the shorter of them.
    *
    * @param source source string.
    * @param target target string
@@ -57,102 +57,116 @@ public final class NeedlemanWunschEditDistance {
       int changeCost,
       int openGapCost,
       int continueGapCost) {
+    return getEditDistance(
+        source,
+        target,
+        caseSensitive,
+        changeCost,
+        openGapCost,
+        continueGapCost,
+        Integer.MAX_VALUE);
+  }
 
-    if (!caseSensitive) {
-      source = source.toLowerCase();
-      target = target.toLowerCase();
+  /**
+   * Returns the edit distance between two strings if it is at most {@code maxDistance}, and {@code
+   * maxDistance + 1} otherwise. This is cheaper than computing the distance if the strings are
+   * dissimilar. The costs must be non-negative.
+   *
+   * @param maxDistance the largest distance the caller is interested in.
+   * @see #getEditDistance(String, String, boolean, int, int, int)
+   */
+  public static int getEditDistance(
+      String source,
+      String target,
+      boolean caseSensitive,
+      int changeCost,
+      int openGapCost,
+      int continueGapCost,
+      int maxDistance) {
+    // The distance is symmetric, since insertions and deletions cost the same, so compute it with
+    // the shorter string as the target to minimize the size of the rows.
+    if (target.length() > source.length()) {
+      String tmp = source;
+      source = target;
+      target = tmp;
     }
 
     int sourceLength = source.length();
     int targetLength = target.length();
 
-    if (sourceLength == 0) {
-      return scriptCost(openGapCost, continueGapCost, targetLength);
+    // Every edit script deletes at least as many characters as the difference in length.
+    int minDistance = scriptCost(openGapCost, continueGapCost, sourceLength - targetLength);
+    if (minDistance > maxDistance) {
+      return maxDistance + 1;
     }
 
     if (targetLength == 0) {
-      return scriptCost(openGapCost, continueGapCost, sourceLength);
-    }
-
-    // mMatrix[i][j] = Cost of aligning source.substring(0,i) with
-    // target.substring(0,j), using an edit script ending with
-    // matched characters.
-    int[][] mMatrix = new int[sourceLength + 1][targetLength + 1];
-
-    // Cost of an alignment that ends with a bunch of deletions.
-    // dMatrix[i][j] = best found cost of changing the first i chars
-    // of source into the first j chars of target, ending with one
-    // or more deletes of source characters.
-    int[][] dMatrix = new int[sourceLength + 1][targetLength + 1];
-
-    // Cost of an alignment that ends with one or more insertions.
-    int[][] iMatrix = new int[sourceLength + 1][targetLength + 1];
-
-    mMatrix[0][0] = dMatrix[0][0] = iMatrix[0][0] = 0;
-
-    // Any edit script that changes i chars of source into zero
-    // chars of target will only involve deletions.  So only the
-    // d&m Matrix entries are relevant, because dMatrix[i][0] gives
-    // the cost of changing an i-length string into a 0-length string,
-    // using an edit script ending in deletions.
-    for (int i = 1; i <= sourceLength; i++) {
-      mMatrix[i][0] = dMatrix[i][0] = scriptCost(openGapCost, continueGapCost, i);
-
-      // Make the iMatrix entries impossibly expensive, so they'll be
-      // ignored as inputs to min().  Use a big cost but not
-      // max int because that will overflow if anything's added to it.
-      iMatrix[i][0] = Integer.MAX_VALUE / 2;
+      return minDistance;
     }
 
+    // Rows of the three matrices of the textbook algorithm, for the source prefix processed so
+    // far and the first j characters of the target:
+    // m[j] = Cost of an alignment that ends with matched characters.
+    // d[j] = Cost of an alignment that ends with one or more deletions of source characters.
+    // best[j] = Cost of the best alignment, including those that end with one or more
+    // insertions. Since insertions only extend the current row, their costs are kept in scalars.
+    Rows rows = rows(targetLength + 1);
+    int[] m = rows.m;
+    int[] d = rows.d;
+    int[] best = rows.best;
+
+    // Any edit script that changes zero chars of source into j chars of target only involves
+    // insertions. Make the d entries impossibly expensive, so they'll be ignored as inputs to
+    // min(). Use a big cost but not max int because that will overflow if anything's added to it.
+    m[0] = d[0] = best[0] = 0;
     for (int j = 1; j <= targetLength; j++) {
-
-      // Only the i&m Matrix entries are relevant here, because they represent
-      // the cost of changing a 0-length string into a j-length string, using
-      // an edit script ending in insertions.
-      mMatrix[0][j] = iMatrix[0][j] = scriptCost(openGapCost, continueGapCost, j);
-
-      // Make the dMatrix entries impossibly expensive, so they'll be
-      // ignored as inputs to min().  Use a big cost but not
-      // max int because that will overflow if anything's added to it.
-      dMatrix[0][j] = Integer.MAX_VALUE / 2;
+      m[j] = best[j] = scriptCost(openGapCost, continueGapCost, j);
+      d[j] = Integer.MAX_VALUE / 2;
     }
 
     for (int i = 1; i <= sourceLength; i++) {
+      char sourceI = fold(source.charAt(i - 1), caseSensitive);
 
-      char sourceI = source.charAt(i - 1);
-      for (int j = 1; j <= targetLength; j++) {
-        char targetJ = target.charAt(j - 1);
+      // Any edit script that changes i chars of source into zero chars of target only involves
+      // deletions, so the insertion entry is impossibly expensive.
+      int diagonal = best[0];
+      m[0] = d[0] = best[0] = scriptCost(openGapCost, continueGapCost, i);
+      int mLeft = m[0];
+      int iLeft = Integer.MAX_VALUE / 2;
+      int rowMin = best[0];
 
-        int cost = (sourceI == targetJ) ? 0 : changeCost;
+      for (int j = 1; j <= targetLength; j++) {
+        int cost = (sourceI == fold(target.charAt(j - 1), caseSensitive)) ? 0 : changeCost;
 
         // Cost of changing i chars of source into j chars of target,
         // using an edit script ending in matched characters.
-        mMatrix[i][j] =
-            cost
-                + Math.min(
-                    mMatrix[i - 1][j - 1], Math.min(iMatrix[i - 1][j - 1], dMatrix[i - 1][j - 1]));
+        int mIJ = cost + diagonal;
 
         // Cost of an edit script ending in a deletion.
-        dMatrix[i][j] =
-            Math.min(
-                mMatrix[i - 1][j] + openGapCost + continueGapCost,
-                dMatrix[i - 1][j] + continueGapCost);
+        int dIJ = Math.min(m[j] + openGapCost + continueGapCost, d[j] + continueGapCost);
 
         // Cost of an edit script ending in an insertion.
-        iMatrix[i][j] =
-            Math.min(
-                mMatrix[i][j - 1] + openGapCost + continueGapCost,
-                iMatrix[i][j - 1] + continueGapCost);
+        int iIJ = Math.min(mLeft + openGapCost + continueGapCost, iLeft + continueGapCost);
+
+        diagonal = best[j];
+        m[j] = mIJ;
+        d[j] = dIJ;
+        best[j] = Math.min(mIJ, Math.min(dIJ, iIJ));
+        mLeft = mIJ;
+        iLeft = iIJ;
+        rowMin = Math.min(rowMin, best[j]);
+      }
+
+      // Costs never decrease along an edit script, so if every alignment of this prefix of the
+      // source exceeds the bound then so does the result.
+      if (rowMin > maxDistance) {
+        return maxDistance + 1;
       }
     }
 
     // Return the minimum cost.
-    int costOfEditScriptEndingWithMatch = mMatrix[sourceLength][targetLength];
-    int costOfEditScriptEndingWithDelete = dMatrix[sourceLength][targetLength];
-    int costOfEditScriptEndingWithInsert = iMatrix[sourceLength][targetLength];
-    return Math.min(
-        costOfEditScriptEndingWithMatch,
-        Math.min(costOfEditScriptEndingWithDelete, costOfEditScriptEndingWithInsert));
+    int distance = best[targetLength];
+    return distance <= maxDistance ? distance : maxDistance + 1;
   }
 
   /** Return the worst case edit distance between strings of this length */
@@ -206,4 +220,33 @@ public final class NeedlemanWunschEditDistance {
   private static int scriptCost(int openGapCost, int continueGapCost, int scriptLength) {
     return (scriptLength == 0) ? 0 : openGapCost + scriptLength * continueGapCost;
   }
+
+  private static char fold(char c, boolean caseSensitive) {
+    return caseSensitive ? c : Character.toLowerCase(c);
+  }
+
+  /** Rows of the matrices of {@link #getEditDistance}, which are reused by later calls. */
+  private static final class Rows {
+    final int[] m;
+    final int[] d;
+    final int[] best;
+
+    Rows(int length) {
+      m = new int[length];
+      d = new int[length];
+      best = new int[length];
+    }
+  }
+
+  private static final ThreadLocal<Rows> ROWS = ThreadLocal.withInitial(() -> new Rows(32));
+
+  /** Returns rows of at least the given length. */
+  private static Rows rows(int length) {
+    Rows rows = ROWS.get();
+    if (rows.m.length < length) {
+      rows = new Rows(Math.max(length, rows.m.length * 2));
+      ROWS.set(rows);
+    }
+    return rows;
+  }
 }
@@ -16,11 +16,15 @@
 
 package com.google.errorprone.scanner;
 
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.BugPattern;
 import com.google.errorprone.BugPattern.SeverityLevel;
+import com.google.errorprone.CheckTimeoutException;
 import com.google.errorprone.ErrorProneError;
+import com.google.errorprone.ErrorProneTimings;
 import com.google.errorprone.VisitorState;
 import com.google.errorprone.bugpatterns.BugChecker;
 import com.google.errorprone.bugpatterns.BugChecker.AnnotatedTypeTreeMatcher;
@@ -57,6 +61,7 @@ import com.google.errorprone.bugpatterns.BugChecker.MemberSelectTreeMatcher;
 import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
 import com.google.errorprone.bugpatterns.BugChecker.MethodTreeMatcher;
 import com.google.errorprone.bugpatterns.BugChecker.ModifiersTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.NamedMethodInvocationTreeMatcher;
 import com.google.errorprone.bugpatterns.BugChecker.NewArrayTreeMatcher;
 import com.google.errorprone.bugpatterns.BugChecker.NewClassTreeMatcher;
 import com.google.errorprone.bugpatterns.BugChecker.ParameterizedTypeTreeMatcher;
@@ -129,14 +134,18 @@ import com.sun.source.tree.WhileLoopTree;
 import com.sun.source.tree.WildcardTree;
 import com.sun.source.util.TreePath;
 import com.sun.tools.javac.code.Symbol.CompletionFailure;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
+import com.sun.tools.javac.util.Context;
 import com.sun.tools.javac.util.JCDiagnostic.DiagnosticPosition;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * Scans the parsed AST, looking for violations of any of the enabled checks.
@@ -189,6 +198,7 @@ public class ErrorProneScanner extends Scanner {
     for (BugChecker checker : this.bugCheckers) {
       registerNodeTypes(checker);
     }
+    indexMethodInvocationMatchers();
   }
 
   @Override
@@ -250,6 +260,61 @@ public class ErrorProneScanner extends Scanner {
   private final List<WhileLoopTreeMatcher> whileLoopMatchers = new ArrayList<>();
   private final List<WildcardTreeMatcher> wildcardMatchers = new ArrayList<>();
 
+  /**
+   * For each method name that a {@link NamedMethodInvocationTreeMatcher} is interested in, the
+   * {@link #methodInvocationMatchers} that may match an invocation of a method with that name, in
+   * registration order.
+   */
+  private ImmutableMap<String, ImmutableList<MethodInvocationTreeMatcher>>
+      methodInvocationMatchersByName;
+
+  /** The {@link #methodInvocationMatchers} that may match an invocation of any method. */
+  private ImmutableList<MethodInvocationTreeMatcher> unnamedMethodInvocationMatchers;
+
+  private void indexMethodInvocationMatchers() {
+    Map<MethodInvocationTreeMatcher, ImmutableSet<String>> names = new LinkedHashMap<>();
+    for (MethodInvocationTreeMatcher matcher : methodInvocationMatchers) {
+      names.put(
+          matcher,
+          matcher instanceof NamedMethodInvocationTreeMatcher
+              ? ((NamedMethodInvocationTreeMatcher) matcher).matchedMethodNames()
+              : null);
+    }
+    Set<String> allNames = new HashSet<>();
+    ImmutableList.Builder<MethodInvocationTreeMatcher> unnamed = ImmutableList.builder();
+    names.forEach(
+        (matcher, matcherNames) -> {
+          if (matcherNames == null) {
+            unnamed.add(matcher);
+          } else {
+            allNames.addAll(matcherNames);
+          }
+        });
+    ImmutableMap.Builder<String, ImmutableList<MethodInvocationTreeMatcher>> byName =
+        ImmutableMap.builder();
+    for (String name : allNames) {
+      ImmutableList.Builder<MethodInvocationTreeMatcher> matchers = ImmutableList.builder();
+      names.forEach(
+          (matcher, matcherNames) -> {
+            if (matcherNames == null || matcherNames.contains(name)) {
+              matchers.add(matcher);
+            }
+          });
+      byName.put(name, matchers.build());
+    }
+    methodInvocationMatchersByName = byName.build();
+    unnamedMethodInvocationMatchers = unnamed.build();
+  }
+
+  private List<MethodInvocationTreeMatcher> methodInvocationMatchersFor(MethodInvocationTree tree) {
+    MethodSymbol sym = ASTHelpers.getSymbol(tree);
+    if (sym == null) {
+      return methodInvocationMatchers;
+    }
+    return methodInvocationMatchersByName.getOrDefault(
+        sym.getSimpleName().toString(), unnamedMethodInvocationMatchers);
+  }
+
   private void registerNodeTypes(BugChecker checker) {
     customSuppressionAnnotations.addAll(checker.customSuppressionAnnotations());
 
@@ -412,8 +477,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitAnnotation(AnnotationTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (AnnotationTreeMatcher matcher : annotationMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchAnnotation(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -427,8 +492,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitAnnotatedType(AnnotatedTypeTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (AnnotatedTypeTreeMatcher matcher : annotatedTypeMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchAnnotatedType(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -442,8 +507,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitArrayAccess(ArrayAccessTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (ArrayAccessTreeMatcher matcher : arrayAccessMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchArrayAccess(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -457,8 +522,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitArrayType(ArrayTypeTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (ArrayTypeTreeMatcher matcher : arrayTypeMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchArrayType(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -472,8 +537,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitAssert(AssertTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (AssertTreeMatcher matcher : assertMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchAssert(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -487,8 +552,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitAssignment(AssignmentTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (AssignmentTreeMatcher matcher : assignmentMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchAssignment(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -502,8 +567,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitBinary(BinaryTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (BinaryTreeMatcher matcher : binaryMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchBinary(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -517,8 +582,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitBlock(BlockTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (BlockTreeMatcher matcher : blockMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchBlock(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -532,8 +597,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitBreak(BreakTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (BreakTreeMatcher matcher : breakMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchBreak(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -547,8 +612,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitCase(CaseTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (CaseTreeMatcher matcher : caseMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchCase(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -562,8 +627,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitCatch(CatchTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (CatchTreeMatcher matcher : catchMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchCatch(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -577,8 +642,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitClass(ClassTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (ClassTreeMatcher matcher : classMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchClass(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -592,8 +657,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitCompilationUnit(CompilationUnitTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (CompilationUnitTreeMatcher matcher : compilationUnitMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchCompilationUnit(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -607,8 +672,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitCompoundAssignment(CompoundAssignmentTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (CompoundAssignmentTreeMatcher matcher : compoundAssignmentMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchCompoundAssignment(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -623,8 +688,8 @@ public class ErrorProneScanner extends Scanner {
       ConditionalExpressionTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (ConditionalExpressionTreeMatcher matcher : conditionalExpressionMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchConditionalExpression(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -638,8 +703,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitContinue(ContinueTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (ContinueTreeMatcher matcher : continueMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchContinue(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -653,8 +718,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitDoWhileLoop(DoWhileLoopTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (DoWhileLoopTreeMatcher matcher : doWhileLoopMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchDoWhileLoop(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -668,8 +733,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitEmptyStatement(EmptyStatementTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (EmptyStatementTreeMatcher matcher : emptyStatementMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchEmptyStatement(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -683,8 +748,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitEnhancedForLoop(EnhancedForLoopTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (EnhancedForLoopTreeMatcher matcher : enhancedForLoopMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchEnhancedForLoop(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -700,8 +765,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitExpressionStatement(ExpressionStatementTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (ExpressionStatementTreeMatcher matcher : expressionStatementMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchExpressionStatement(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -715,8 +780,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitForLoop(ForLoopTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (ForLoopTreeMatcher matcher : forLoopMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchForLoop(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -730,8 +795,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitIdentifier(IdentifierTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (IdentifierTreeMatcher matcher : identifierMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchIdentifier(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -745,8 +810,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitIf(IfTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (IfTreeMatcher matcher : ifMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchIf(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -760,8 +825,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitImport(ImportTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (ImportTreeMatcher matcher : importMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchImport(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -775,8 +840,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitInstanceOf(InstanceOfTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (InstanceOfTreeMatcher matcher : instanceOfMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchInstanceOf(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -790,8 +855,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitIntersectionType(IntersectionTypeTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (IntersectionTypeTreeMatcher matcher : intersectionTypeMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchIntersectionType(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -805,8 +870,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitLabeledStatement(LabeledStatementTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (LabeledStatementTreeMatcher matcher : labeledStatementMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchLabeledStatement(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -820,8 +885,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitLambdaExpression(LambdaExpressionTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (LambdaExpressionTreeMatcher matcher : lambdaExpressionMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchLambdaExpression(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -835,8 +900,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitLiteral(LiteralTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (LiteralTreeMatcher matcher : literalMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchLiteral(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -850,8 +915,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitMemberReference(MemberReferenceTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (MemberReferenceTreeMatcher matcher : memberReferenceMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchMemberReference(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -865,8 +930,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitMemberSelect(MemberSelectTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (MemberSelectTreeMatcher matcher : memberSelectMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchMemberSelect(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -885,8 +950,8 @@ public class ErrorProneScanner extends Scanner {
 
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (MethodTreeMatcher matcher : methodMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchMethod(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -899,9 +964,9 @@ public class ErrorProneScanner extends Scanner {
   @Override
   public Void visitMethodInvocation(MethodInvocationTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
-    for (MethodInvocationTreeMatcher matcher : methodInvocationMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+    for (MethodInvocationTreeMatcher matcher : methodInvocationMatchersFor(tree)) {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchMethodInvocation(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -915,8 +980,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitModifiers(ModifiersTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (ModifiersTreeMatcher matcher : modifiersMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchModifiers(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -930,8 +995,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitNewArray(NewArrayTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (NewArrayTreeMatcher matcher : newArrayMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchNewArray(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -945,8 +1010,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitNewClass(NewClassTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (NewClassTreeMatcher matcher : newClassMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchNewClass(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -963,8 +1028,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitParameterizedType(ParameterizedTypeTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (ParameterizedTypeTreeMatcher matcher : parameterizedTypeMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchParameterizedType(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -978,8 +1043,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitParenthesized(ParenthesizedTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (ParenthesizedTreeMatcher matcher : parenthesizedMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchParenthesized(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -993,8 +1058,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitPrimitiveType(PrimitiveTypeTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (PrimitiveTypeTreeMatcher matcher : primitiveTypeMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchPrimitiveType(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -1008,8 +1073,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitReturn(ReturnTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (ReturnTreeMatcher matcher : returnMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchReturn(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -1023,8 +1088,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitSwitch(SwitchTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (SwitchTreeMatcher matcher : switchMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchSwitch(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -1038,8 +1103,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitSynchronized(SynchronizedTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (SynchronizedTreeMatcher matcher : synchronizedMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchSynchronized(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -1053,8 +1118,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitThrow(ThrowTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (ThrowTreeMatcher matcher : throwMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchThrow(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -1068,8 +1133,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitTry(TryTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (TryTreeMatcher matcher : tryMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchTry(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -1083,8 +1148,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitTypeCast(TypeCastTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (TypeCastTreeMatcher matcher : typeCastMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchTypeCast(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -1098,8 +1163,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitTypeParameter(TypeParameterTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (TypeParameterTreeMatcher matcher : typeParameterMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchTypeParameter(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -1113,8 +1178,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitUnary(UnaryTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (UnaryTreeMatcher matcher : unaryMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchUnary(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -1128,8 +1193,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitUnionType(UnionTypeTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (UnionTypeTreeMatcher matcher : unionTypeMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchUnionType(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -1143,8 +1208,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitVariable(VariableTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (VariableTreeMatcher matcher : variableMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchVariable(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -1158,8 +1223,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitWhileLoop(WhileLoopTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (WhileLoopTreeMatcher matcher : whileLoopMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchWhileLoop(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -1173,8 +1238,8 @@ public class ErrorProneScanner extends Scanner {
   public Void visitWildcard(WildcardTree tree, VisitorState visitorState) {
     VisitorState state = visitorState.withPath(getCurrentPath());
     for (WildcardTreeMatcher matcher : wildcardMatchers) {
-      if (!isSuppressed(matcher, state.errorProneOptions())) {
-        try {
+      if (shouldRun(matcher, state)) {
+        try (AutoCloseable unused = startTiming(matcher, state)) {
           reportMatch(matcher.matchWildcard(tree, state), state);
         } catch (Throwable t) {
           handleError(matcher, t);
@@ -1184,6 +1249,51 @@ public class ErrorProneScanner extends Scanner {
     return super.visitWildcard(tree, state);
   }
 
+  /**
+   * Returns whether {@code matcher} should be run on the current node: it must not be suppressed,
+   * and must not have used up its time budget for this compilation.
+   */
+  private boolean shouldRun(Suppressible matcher, VisitorState state) {
+    if (isSuppressed(matcher, state.errorProneOptions())) {
+      return false;
+    }
+    ErrorProneTimings timings = timings(state);
+    return timings == null || !timings.isThrottled(matcher);
+  }
+
+  /** Closes nothing, for matchers that aren't timed. */
+  private static final AutoCloseable NOT_TIMED = () -> {};
+
+  /**
+   * Starts timing a call to {@code matcher}, if the compilation times checks. The returned object
+   * must be closed when the call returns.
+   */
+  private AutoCloseable startTiming(Suppressible matcher, VisitorState state) {
+    ErrorProneTimings timings = timings(state);
+    return timings == null ? NOT_TIMED : timings.onMatcherStart(matcher, state);
+  }
+
+  // The timings of the compilation being scanned, or null if it doesn't time checks, and the
+  // context they were looked up in.
+  private Context timingsContext;
+  @Nullable private ErrorProneTimings timings;
+
+  @Nullable
+  private ErrorProneTimings timings(VisitorState state) {
+    if (state.context != timingsContext) {
+      // A new context means a new compilation unit, or another top-level class of the last one.
+      timingsContext = state.context;
+      ErrorProneTimings compilationTimings = ErrorProneTimings.instance(state.context);
+      if (compilationTimings.isEnabled()) {
+        timings = compilationTimings;
+        timings.startCompilationUnit(state.getPath().getCompilationUnit());
+      } else {
+        timings = null;
+      }
+    }
+    return timings;
+  }
+
   /**
    * Handles an exception thrown by an individual BugPattern. By default, wraps the exception in an
    * {@link ErrorProneError} and rethrows. May be overridden by subclasses, for example to log the
@@ -1191,6 +1301,10 @@ public class ErrorProneScanner extends Scanner {
    */
   @Override
   protected void handleError(Suppressible s, Throwable t) {
+    if (Throwables.getCausalChain(t).stream().anyMatch(CheckTimeoutException.class::isInstance)) {
+      // The check was abandoned by its deadline, and ErrorProneTimings has reported it.
+      return;
+    }
     if (t instanceof ErrorProneError) {
       throw (ErrorProneError) t;
     }
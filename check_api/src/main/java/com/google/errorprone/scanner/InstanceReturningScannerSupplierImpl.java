@@ -16,6 +16,7 @@
 
 package com.google.errorprone.scanner;
 
+import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -40,6 +41,11 @@ class InstanceReturningScannerSupplierImpl extends ScannerSupplier {
     return scanner;
   }
 
+  @Override
+  public ScannerSupplier disableChecksWithMissingTypes(Predicate<String> isTypeAvailable) {
+    return this;
+  }
+
   @Override
   public ImmutableBiMap<String, BugCheckerInfo> getAllChecks() {
     // TODO(cushon): migrate users off Scanner-based ScannerSuppliers, and throw UOE here
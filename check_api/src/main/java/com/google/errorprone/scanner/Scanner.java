@@ -17,12 +17,15 @@
 package com.google.errorprone.scanner;
 
 import com.google.errorprone.BugPattern.SeverityLevel;
+import com.google.errorprone.ChangedLines;
 import com.google.errorprone.ErrorProneOptions;
 import com.google.errorprone.SuppressionHelper;
 import com.google.errorprone.VisitorState;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.matchers.Suppressible;
 import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.util.TreePath;
 import com.sun.source.util.TreePathScanner;
@@ -74,7 +77,7 @@ public class Scanner extends TreePathScanner<Void, VisitorState> {
   /** Scan a single node. The current path is updated for the duration of the scan. */
   @Override
   public Void scan(Tree tree, VisitorState state) {
-    if (tree == null) {
+    if (tree == null || isUnchanged(tree, state)) {
       return null;
     }
 
@@ -89,6 +92,21 @@ public class Scanner extends TreePathScanner<Void, VisitorState> {
     }
   }
 
+  /**
+   * Returns true if {@code tree} is a class or method without changes, which doesn't need to be
+   * scanned when only changed code is analyzed (see {@link ChangedLines}).
+   */
+  private boolean isUnchanged(Tree tree, VisitorState state) {
+    if (!(tree instanceof ClassTree || tree instanceof MethodTree)) {
+      return false;
+    }
+    ChangedLines changedLines = ChangedLines.instance(state.context);
+    TreePath parent = getCurrentPath();
+    return changedLines != null
+        && parent != null
+        && !changedLines.isChanged(parent.getCompilationUnit(), tree);
+  }
+
   /**
    * Updates current suppression state with information for the given {@code tree}. Returns the
    * previous suppression state so that it can be restored when going up the tree.
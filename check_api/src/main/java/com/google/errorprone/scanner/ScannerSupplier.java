@@ -274,6 +274,25 @@ public abstract class ScannerSupplier implements Supplier<Scanner> {
         combinedFlags);
   }
 
+  /**
+   * Returns a {@link ScannerSupplier} that additionally disables the enabled checks whose {@link
+   * BugCheckerInfo#requiredTypes required types} aren't all available, according to {@code
+   * isTypeAvailable}. Each type name is only looked up once.
+   */
+  @CheckReturnValue
+  public ScannerSupplier disableChecksWithMissingTypes(Predicate<String> isTypeAvailable) {
+    ImmutableSet<BugCheckerInfo> enabled = getEnabledChecks();
+    if (enabled.stream().allMatch(check -> check.requiredTypes().isEmpty())) {
+      return this;
+    }
+    Map<String, Boolean> available = new HashMap<>();
+    return filter(
+        check ->
+            enabled.contains(check)
+                && check.requiredTypes().stream()
+                    .allMatch(t -> available.computeIfAbsent(t, isTypeAvailable::apply)));
+  }
+
   /**
    * Filters this {@link ScannerSupplier} based on the provided predicate. Returns a {@link
    * ScannerSupplier} with only the checks enabled that satisfy the predicate.
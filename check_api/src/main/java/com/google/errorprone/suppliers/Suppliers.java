@@ -21,6 +21,7 @@ import static java.util.Objects.requireNonNull;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.errorprone.TypeTable;
 import com.google.errorprone.VisitorState;
 import com.google.errorprone.util.ASTHelpers;
 import com.sun.source.tree.ClassTree;
@@ -115,10 +116,11 @@ public class Suppliers {
    */
   public static Supplier<Type> typeFromString(final String typeString) {
     requireNonNull(typeString);
+    final int slot = TypeTable.slot(typeString);
     return new Supplier<Type>() {
       @Override
       public Type get(VisitorState state) {
-        return state.getTypeFromString(typeString);
+        return state.getTypeFromSlot(slot);
       }
     };
   }
@@ -128,13 +130,7 @@ public class Suppliers {
     return typeFromString(inputClass.getName());
   }
 
-  public static final Supplier<Type> JAVA_LANG_VOID_TYPE =
-      new Supplier<Type>() {
-        @Override
-        public Type get(VisitorState state) {
-          return state.getTypeFromString("java.lang.Void");
-        }
-      };
+  public static final Supplier<Type> JAVA_LANG_VOID_TYPE = typeFromString("java.lang.Void");
 
   public static final Supplier<Type> VOID_TYPE =
       new Supplier<Type>() {
@@ -144,13 +140,7 @@ public class Suppliers {
         }
       };
 
-  public static final Supplier<Type> JAVA_LANG_BOOLEAN_TYPE =
-      new Supplier<Type>() {
-        @Override
-        public Type get(VisitorState state) {
-          return state.getTypeFromString("java.lang.Boolean");
-        }
-      };
+  public static final Supplier<Type> JAVA_LANG_BOOLEAN_TYPE = typeFromString("java.lang.Boolean");
 
   public static final Supplier<Type> STRING_TYPE =
       new Supplier<Type>() {
@@ -18,6 +18,7 @@ package com.google.errorprone.util;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.errorprone.matchers.JUnitMatchers.JUNIT4_RUN_WITH_ANNOTATION;
 import static com.sun.tools.javac.code.Scope.LookupKind.NON_RECURSIVE;
 
@@ -297,7 +298,7 @@ public class ASTHelpers {
         return false;
       }
       // TODO(b/112139121): work around for javac's too-early constant string folding
-      return ErrorProneTokens.getTokens(state.getSourceForNode(expression), state.context).stream()
+      return state.getTokensForNode(expression).stream()
           .anyMatch(t -> t.kind() == TokenKind.PLUS);
     }
     if (expression instanceof UnaryTree) {
@@ -562,6 +563,20 @@ public class ASTHelpers {
         .collect(Collectors.toCollection(LinkedHashSet::new));
   }
 
+  /**
+   * Returns the methods that {@code methodSymbol} overrides, in the order of the closure of its
+   * owner's supertypes. The result is memoized for the current compilation, and is immutable.
+   */
+  public static Set<MethodSymbol> findSuperMethods(MethodSymbol methodSymbol, VisitorState state) {
+    Types types = state.getTypes();
+    return SymbolQueryCache.instance(state.context)
+        .superMethods(
+            methodSymbol,
+            () ->
+                findSuperMethods(methodSymbol, types, /* skipInterfaces= */ false)
+                    .collect(toImmutableSet()));
+  }
+
   /**
    * Finds (if it exists) first (in the class hierarchy) non-interface super method of given {@code
    * method}.
@@ -645,6 +660,13 @@ public class ASTHelpers {
     if (sym == null) {
       return false;
     }
+    return SymbolQueryCache.instance(state.context)
+        .hasAnnotation(
+            sym, annotationClass, () -> hasAnnotationUncached(sym, annotationClass, state));
+  }
+
+  private static boolean hasAnnotationUncached(
+      Symbol sym, String annotationClass, VisitorState state) {
     // normalize to non-binary names
     annotationClass = annotationClass.replace('$', '.');
     Name annotationName = state.getName(annotationClass);
@@ -663,6 +685,11 @@ public class ASTHelpers {
   }
 
   private static boolean isInherited(VisitorState state, String annotationName) {
+    return SymbolQueryCache.instance(state.context)
+        .isInherited(annotationName, () -> isInheritedUncached(state, annotationName));
+  }
+
+  private static boolean isInheritedUncached(VisitorState state, String annotationName) {
     Symbol annotationSym = state.getSymbolFromString(annotationName);
     if (annotationSym == null) {
       return false;
@@ -924,7 +951,8 @@ public class ASTHelpers {
       return false;
     }
     Types types = state.getTypes();
-    return types.isSubtype(types.erasure(s), types.erasure(t));
+    return SymbolQueryCache.instance(state.context)
+        .isSubtype(s, t, () -> types.isSubtype(types.erasure(s), types.erasure(t)));
   }
 
   /** Returns true if {@code erasure(s)} is castable to {@code erasure(t)}. */
@@ -942,7 +970,8 @@ public class ASTHelpers {
       return false;
     }
     Types types = state.getTypes();
-    return types.isSameType(types.erasure(s), types.erasure(t));
+    return SymbolQueryCache.instance(state.context)
+        .isSameType(s, t, () -> types.isSameType(types.erasure(s), types.erasure(t)));
   }
 
   /** Returns the modifiers tree of the given class, method, or variable declaration. */
@@ -1576,7 +1605,6 @@ public class ASTHelpers {
 
   /** Returns whether the given {@code tree} contains any comments in its source. */
   public static boolean containsComments(Tree tree, VisitorState state) {
-    return ErrorProneTokens.getTokens(state.getSourceForNode(tree), state.context).stream()
-        .anyMatch(t -> !t.comments().isEmpty());
+    return state.getTokensForNode(tree).stream().anyMatch(t -> !t.comments().isEmpty());
   }
 }
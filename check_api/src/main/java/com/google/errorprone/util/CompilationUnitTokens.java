@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.util;
+
+import com.google.common.collect.ImmutableList;
+import com.sun.tools.javac.util.Context;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+/**
+ * The tokens of a whole compilation unit, lexed once and indexed by source position.
+ *
+ * <p>Re-lexing the source of individual nodes is expensive when many checks ask for tokens in the
+ * same file, so {@link com.google.errorprone.VisitorState} lexes the compilation unit lazily the
+ * first time tokens are requested, and answers later requests with a binary search and a slice.
+ */
+public final class CompilationUnitTokens {
+
+  private final ImmutableList<ErrorProneToken> tokens;
+  private final int[] starts;
+  private final int[] ends;
+
+  private CompilationUnitTokens(ImmutableList<ErrorProneToken> tokens) {
+    this.tokens = tokens;
+    this.starts = new int[tokens.size()];
+    this.ends = new int[tokens.size()];
+    for (int i = 0; i < tokens.size(); i++) {
+      starts[i] = tokens.get(i).pos();
+      ends[i] = tokens.get(i).endPos();
+    }
+  }
+
+  /** Lexes the given source text, including comments. */
+  public static CompilationUnitTokens create(CharSequence source, Context context) {
+    return new CompilationUnitTokens(ErrorProneTokens.getTokens(source.toString(), context));
+  }
+
+  /**
+   * Returns the tokens that lie within the source range {@code [start, end)}, followed by an {@link
+   * com.sun.tools.javac.parser.Tokens.TokenKind#EOF} token, with positions relative to the start of
+   * the compilation unit. Only comments that start within the range are included.
+   *
+   * @return the tokens, or {@code null} if a range boundary falls inside a token (in which case
+   *     lexing the range on its own may produce different tokens, e.g. for {@code >>})
+   */
+  @Nullable
+  public ImmutableList<ErrorProneToken> getOffsetTokens(int start, int end) {
+    return slice(start, end, 0);
+  }
+
+  /**
+   * Returns the tokens that lie within the source range {@code [start, end)}, with positions
+   * relative to {@code start}, as if the source text of that range had been lexed on its own.
+   *
+   * @return the tokens, or {@code null} if a range boundary falls inside a token
+   */
+  @Nullable
+  public ImmutableList<ErrorProneToken> getTokens(int start, int end) {
+    return slice(start, end, start);
+  }
+
+  @Nullable
+  private ImmutableList<ErrorProneToken> slice(int start, int end, int offset) {
+    if (start < 0 || start > end) {
+      return null;
+    }
+    int from = lowerBound(start);
+    int to = lowerBound(end);
+    if ((from > 0 && ends[from - 1] > start) || (to > from && ends[to - 1] > end)) {
+      return null;
+    }
+    if (to == tokens.size()) {
+      // The range extends past the end of the unit.
+      return null;
+    }
+    ImmutableList.Builder<ErrorProneToken> result = ImmutableList.builder();
+    for (int i = from; i < to; i++) {
+      result.add(tokens.get(i).slice(start, end, offset));
+    }
+    result.add(tokens.get(to).eofFor(start, end, offset));
+    return result.build();
+  }
+
+  /** Returns the index of the first token that starts at or after {@code pos}. */
+  private int lowerBound(int pos) {
+    int idx = Arrays.binarySearch(starts, pos);
+    if (idx < 0) {
+      return -(idx + 1);
+    }
+    // Zero-length tokens (e.g. EOF) may share a start position; find the first one.
+    while (idx > 0 && starts[idx - 1] == pos) {
+      idx--;
+    }
+    return idx;
+  }
+}
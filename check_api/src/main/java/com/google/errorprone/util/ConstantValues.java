@@ -0,0 +1,138 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.util;
+
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.dataflow.ConstantPropagationAnalysis;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.ParenthesizedTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreePath;
+import com.sun.tools.javac.code.Flags;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.VarSymbol;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.lang.model.element.ElementKind;
+
+/**
+ * The constant values of the expressions in a compilation unit.
+ *
+ * <p>An expression is constant if it is a compile-time constant expression, a local variable that
+ * constant propagation shows always holds the same number at that point, or a final field of the
+ * compilation unit whose initializer is constant (e.g. {@code static final Integer ZERO = 0;},
+ * which is not a constant variable in the sense of JLS 4.12.4).
+ *
+ * <p>Each expression is only evaluated once: {@link
+ * com.google.errorprone.VisitorState#getConstantValues} shares the values with all checks for the
+ * remainder of the scan of the compilation unit.
+ */
+public final class ConstantValues {
+
+  /** Records that an expression is not constant, or is being evaluated. */
+  private static final Object NOT_CONSTANT = new Object();
+
+  private final Map<Tree, Object> values = new IdentityHashMap<>();
+
+  private ConstantValues() {}
+
+  /** Returns an empty set of values, for a compilation unit that hasn't been evaluated yet. */
+  public static ConstantValues create() {
+    return new ConstantValues();
+  }
+
+  /**
+   * Returns the constant value of {@code tree}, or {@code null} if it can't be shown to be
+   * constant. {@code tree} must be the leaf of the current path of {@code state}, or one of its
+   * children.
+   */
+  @Nullable
+  public Object constantValue(ExpressionTree tree, VisitorState state) {
+    TreePath path = state.getPath();
+    return constantValue(path.getLeaf() == tree ? path : new TreePath(path, tree), state);
+  }
+
+  /**
+   * Returns the constant value of {@code tree} if it is of type {@code clazz}, or {@code null}.
+   *
+   * @see #constantValue(ExpressionTree, VisitorState)
+   */
+  @Nullable
+  public <T> T constantValue(ExpressionTree tree, Class<? extends T> clazz, VisitorState state) {
+    Object value = constantValue(tree, state);
+    return clazz.isInstance(value) ? clazz.cast(value) : null;
+  }
+
+  /** Returns the constant value of the expression at the leaf of {@code path}, or {@code null}. */
+  @Nullable
+  public Object constantValue(TreePath path, VisitorState state) {
+    Tree tree = path.getLeaf();
+    Object value = values.get(tree);
+    if (value == null) {
+      // Guard against cycles between field initializers, e.g. `final Integer A = B, B = A;`.
+      values.put(tree, NOT_CONSTANT);
+      value = evaluate(path, state);
+      values.put(tree, value != null ? value : NOT_CONSTANT);
+    }
+    return value != NOT_CONSTANT ? value : null;
+  }
+
+  @Nullable
+  private Object evaluate(TreePath path, VisitorState state) {
+    Tree tree = path.getLeaf();
+    if (tree instanceof ParenthesizedTree) {
+      return constantValue(new TreePath(path, ((ParenthesizedTree) tree).getExpression()), state);
+    }
+    Object value = ASTHelpers.constValue(tree);
+    if (value != null) {
+      return value;
+    }
+    switch (tree.getKind()) {
+      case IDENTIFIER:
+      case MEMBER_SELECT:
+        break;
+      default:
+        return null;
+    }
+    Symbol sym = ASTHelpers.getSymbol(tree);
+    if (!(sym instanceof VarSymbol)) {
+      return null;
+    }
+    if (sym.getKind() == ElementKind.LOCAL_VARIABLE) {
+      return ConstantPropagationAnalysis.numberValue(path, state.context);
+    }
+    if (sym.getKind() == ElementKind.FIELD && (sym.flags() & Flags.FINAL) != 0) {
+      return fieldInitializerValue(sym, state);
+    }
+    return null;
+  }
+
+  @Nullable
+  private Object fieldInitializerValue(Symbol sym, VisitorState state) {
+    TreePath declaration = state.getSymbolIndex().getDeclaration(sym);
+    if (declaration == null || !(declaration.getLeaf() instanceof VariableTree)) {
+      return null;
+    }
+    ExpressionTree initializer = ((VariableTree) declaration.getLeaf()).getInitializer();
+    if (initializer == null) {
+      return null;
+    }
+    return constantValue(new TreePath(declaration, initializer), state);
+  }
+}
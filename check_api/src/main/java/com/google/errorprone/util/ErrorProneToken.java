@@ -17,10 +17,12 @@
 package com.google.errorprone.util;
 
 import com.google.common.collect.Lists;
+import com.google.errorprone.util.ErrorProneTokens.CommentWithTextAndPosition;
 import com.sun.tools.javac.parser.Tokens.Comment;
 import com.sun.tools.javac.parser.Tokens.Token;
 import com.sun.tools.javac.parser.Tokens.TokenKind;
 import com.sun.tools.javac.util.Name;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -28,24 +30,74 @@ import java.util.List;
 public class ErrorProneToken {
 
   private final Token token;
+  private final TokenKind kind;
+  private final int pos;
+  private final int endPos;
+  private final List<Comment> comments;
 
   ErrorProneToken(Token token) {
+    this(token, token.kind, token.pos, token.endPos, null);
+  }
+
+  private ErrorProneToken(
+      Token token, TokenKind kind, int pos, int endPos, List<Comment> comments) {
     this.token = token;
+    this.kind = kind;
+    this.pos = pos;
+    this.endPos = endPos;
+    this.comments = comments;
+  }
+
+  /**
+   * Returns a copy of this token with positions shifted left by {@code offset}, keeping only the
+   * comments that start within {@code [start, end)}.
+   */
+  ErrorProneToken slice(int start, int end, int offset) {
+    return new ErrorProneToken(
+        token, kind, pos - offset, endPos - offset, commentsIn(start, end, offset));
+  }
+
+  /**
+   * Returns the end-of-input token that lexing just {@code [start, end)} would have produced, given
+   * that this is the first token at or after {@code end}. Comments between the last token in the
+   * range and {@code end} are attached to it.
+   */
+  ErrorProneToken eofFor(int start, int end, int offset) {
+    return new ErrorProneToken(
+        token, TokenKind.EOF, end - offset, end - offset, commentsIn(start, end, offset));
+  }
+
+  private List<Comment> commentsIn(int start, int end, int offset) {
+    List<Comment> result = new ArrayList<>();
+    for (Comment comment : comments()) {
+      int commentPos = comment.getSourcePos(0);
+      if (commentPos < start || commentPos >= end) {
+        continue;
+      }
+      result.add(
+          offset != 0 && comment instanceof CommentWithTextAndPosition
+              ? ((CommentWithTextAndPosition) comment).relativeTo(offset)
+              : comment);
+    }
+    return result;
   }
 
   public TokenKind kind() {
-    return token.kind;
+    return kind;
   }
 
   public int pos() {
-    return token.pos;
+    return pos;
   }
 
   public int endPos() {
-    return token.endPos;
+    return endPos;
   }
 
   public List<Comment> comments() {
+    if (comments != null) {
+      return comments;
+    }
     // javac stores the comments in reverse declaration order because appending to linked
     // lists is expensive
     return token.comments == null
@@ -67,6 +119,6 @@ public class ErrorProneToken {
 
   @Override
   public String toString() {
-    return token.toString();
+    return kind == token.kind ? token.toString() : kind.toString();
   }
 }
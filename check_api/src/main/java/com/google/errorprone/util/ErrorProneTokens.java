@@ -60,6 +60,23 @@ public class ErrorProneTokens {
     return new ErrorProneTokens(source, context).getTokens();
   }
 
+  /**
+   * Returns the tokens for the given source text, including comments, with positions shifted right
+   * by {@code offset}.
+   */
+  public static ImmutableList<ErrorProneToken> getTokens(
+      String source, int offset, Context context) {
+    ImmutableList<ErrorProneToken> tokens = getTokens(source, context);
+    if (offset == 0) {
+      return tokens;
+    }
+    ImmutableList.Builder<ErrorProneToken> result = ImmutableList.builder();
+    for (ErrorProneToken token : tokens) {
+      result.add(token.slice(Integer.MIN_VALUE, Integer.MAX_VALUE, -offset));
+    }
+    return result.build();
+  }
+
   /** A {@link JavaTokenizer} that saves comments. */
   static class CommentSavingTokenizer extends JavaTokenizer {
     CommentSavingTokenizer(ScannerFactory fac, char[] buffer, int length) {
@@ -108,6 +125,11 @@ public class ErrorProneTokens {
       return pos + index;
     }
 
+    /** Returns a copy of this comment with positions relative to {@code offset}. */
+    CommentWithTextAndPosition relativeTo(int offset) {
+      return new CommentWithTextAndPosition(pos - offset, endPos - offset, reader, style);
+    }
+
     @Override
     public CommentStyle getStyle() {
       return style;
@@ -16,9 +16,10 @@
 
 package com.google.errorprone.util;
 
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Sets;
 import com.google.errorprone.VisitorState;
 import com.sun.source.tree.BlockTree;
 import com.sun.source.tree.CatchTree;
@@ -62,8 +63,10 @@ import com.sun.tools.javac.util.Name;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiPredicate;
@@ -235,10 +238,12 @@ public final class FindIdentifiers {
    */
   public static ImmutableSet<VarSymbol> findUnusedIdentifiers(VisitorState state) {
     ImmutableSet.Builder<VarSymbol> definedVariables = ImmutableSet.builder();
-    ImmutableSet.Builder<Symbol> usedSymbols = ImmutableSet.builder();
-    Tree prev = state.getPath().getLeaf();
+    // Maps each tree enclosing the current node to its child on the path to the current node.
+    Map<Tree, Tree> enclosing = new IdentityHashMap<>();
+    Tree leaf = state.getPath().getLeaf();
+    Tree prev = leaf;
     for (Tree curr : state.getPath().getParentPath()) {
-      createFindIdentifiersScanner(usedSymbols, prev).scan(curr, null);
+      enclosing.put(curr, prev);
       switch (curr.getKind()) {
         case BLOCK:
           // If we see a block then walk over each statement to see if it defines a variable
@@ -264,7 +269,64 @@ public final class FindIdentifiers {
       }
       prev = curr;
     }
-    return ImmutableSet.copyOf(Sets.difference(definedVariables.build(), usedSymbols.build()));
+    // Look up the uses of the few variables in scope, rather than rescanning every enclosing tree.
+    SymbolIndex index = state.getSymbolIndex();
+    return definedVariables.build().stream()
+        .filter(
+            var ->
+                index.getReferences(var).stream()
+                    .noneMatch(reference -> isPriorUse(reference.path(), leaf, enclosing)))
+        .collect(toImmutableSet());
+  }
+
+  /**
+   * Returns whether the reference at {@code path} is a use before {@code leaf}: it's outside of
+   * {@code leaf}, and doesn't follow the path to {@code leaf} in a list of statements, arguments or
+   * members.
+   */
+  private static boolean isPriorUse(TreePath path, Tree leaf, Map<Tree, Tree> enclosing) {
+    Tree child = null;
+    for (Tree curr : path) {
+      if (curr.equals(leaf)) {
+        return false;
+      }
+      Tree prev = enclosing.get(curr);
+      if (prev != null) {
+        return !followsInList(curr, prev, child);
+      }
+      child = curr;
+    }
+    return false;
+  }
+
+  /** Returns whether {@code child} follows {@code prev} in one of the lists of {@code parent}. */
+  private static boolean followsInList(Tree parent, Tree prev, Tree child) {
+    boolean[] follows = {false};
+    parent.accept(
+        new TreeScanner<Void, Void>() {
+          @Override
+          public Void scan(Tree tree, Void unused) {
+            // Only the direct children of the tree are of interest.
+            return null;
+          }
+
+          @Override
+          public Void scan(Iterable<? extends Tree> iterable, Void unused) {
+            if (iterable != null) {
+              boolean seenPrev = false;
+              for (Tree t : iterable) {
+                if (t.equals(prev)) {
+                  seenPrev = true;
+                } else if (seenPrev && t.equals(child)) {
+                  follows[0] = true;
+                }
+              }
+            }
+            return null;
+          }
+        },
+        null);
+    return follows[0];
   }
 
   /** Find the set of all identifiers referenced within this Tree */
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.util;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.sun.source.tree.AssignmentTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.CompoundAssignmentTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberReferenceTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.UnaryTree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import com.sun.tools.javac.code.Symbol;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * The declarations of, and references to, every symbol in a compilation unit, found in a single
+ * traversal.
+ *
+ * <p>Checks that need to know where a symbol is used, e.g. to find out whether a field is ever
+ * written, or to rewrite all the calls to a method, would otherwise each scan the whole compilation
+ * unit, often once per symbol. {@link com.google.errorprone.VisitorState#getSymbolIndex} builds
+ * the index the first time it is requested, and shares it with all checks for the remainder of
+ * the scan of that compilation unit.
+ */
+public final class SymbolIndex {
+
+  /** How a reference accesses the referenced symbol. */
+  public enum Access {
+    /** The symbol is read, e.g. {@code x} in {@code f(x)}, or called, or referenced otherwise. */
+    READ,
+    /** The symbol is assigned to, e.g. {@code x} in {@code x = 1}. */
+    WRITE,
+    /** The symbol is read and then assigned to, e.g. {@code x} in {@code x += 1} or {@code x++}. */
+    READ_WRITE;
+
+    /** Returns whether the symbol is assigned to. */
+    public boolean isWrite() {
+      return this != READ;
+    }
+  }
+
+  /** A reference to a symbol. */
+  public static final class Reference {
+    private final TreePath path;
+    private final Access access;
+
+    Reference(TreePath path, Access access) {
+      this.path = path;
+      this.access = access;
+    }
+
+    /**
+     * The path to the identifier, member select or member reference tree that refers to the symbol.
+     */
+    public TreePath path() {
+      return path;
+    }
+
+    /** How the symbol is accessed. */
+    public Access access() {
+      return access;
+    }
+  }
+
+  private final ImmutableMap<Symbol, TreePath> declarations;
+  private final ImmutableListMultimap<Symbol, Reference> references;
+
+  private SymbolIndex(
+      ImmutableMap<Symbol, TreePath> declarations,
+      ImmutableListMultimap<Symbol, Reference> references) {
+    this.declarations = declarations;
+    this.references = references;
+  }
+
+  /** Indexes the given compilation unit. */
+  public static SymbolIndex create(CompilationUnitTree compilationUnit) {
+    Map<Symbol, TreePath> declarations = new LinkedHashMap<>();
+    ImmutableListMultimap.Builder<Symbol, Reference> references = ImmutableListMultimap.builder();
+    new TreePathScanner<Void, Void>() {
+      @Override
+      public Void visitClass(ClassTree tree, Void unused) {
+        declare(ASTHelpers.getSymbol(tree));
+        return super.visitClass(tree, null);
+      }
+
+      @Override
+      public Void visitMethod(MethodTree tree, Void unused) {
+        declare(ASTHelpers.getSymbol(tree));
+        return super.visitMethod(tree, null);
+      }
+
+      @Override
+      public Void visitVariable(VariableTree tree, Void unused) {
+        declare(ASTHelpers.getSymbol(tree));
+        return super.visitVariable(tree, null);
+      }
+
+      @Override
+      public Void visitIdentifier(IdentifierTree tree, Void unused) {
+        reference(ASTHelpers.getSymbol(tree));
+        return super.visitIdentifier(tree, null);
+      }
+
+      @Override
+      public Void visitMemberSelect(MemberSelectTree tree, Void unused) {
+        reference(ASTHelpers.getSymbol(tree));
+        return super.visitMemberSelect(tree, null);
+      }
+
+      @Override
+      public Void visitMemberReference(MemberReferenceTree tree, Void unused) {
+        reference(ASTHelpers.getSymbol(tree));
+        return super.visitMemberReference(tree, null);
+      }
+
+      private void declare(@Nullable Symbol sym) {
+        if (sym != null) {
+          declarations.putIfAbsent(sym, getCurrentPath());
+        }
+      }
+
+      private void reference(@Nullable Symbol sym) {
+        if (sym != null) {
+          TreePath path = getCurrentPath();
+          references.put(sym, new Reference(path, access(path)));
+        }
+      }
+    }.scan(compilationUnit, null);
+    return new SymbolIndex(ImmutableMap.copyOf(declarations), references.build());
+  }
+
+  private static Access access(TreePath path) {
+    Tree leaf = path.getLeaf();
+    Tree parent = path.getParentPath().getLeaf();
+    switch (parent.getKind()) {
+      case ASSIGNMENT:
+        return ((AssignmentTree) parent).getVariable() == leaf ? Access.WRITE : Access.READ;
+      case PREFIX_INCREMENT:
+      case PREFIX_DECREMENT:
+      case POSTFIX_INCREMENT:
+      case POSTFIX_DECREMENT:
+        return ((UnaryTree) parent).getExpression() == leaf ? Access.READ_WRITE : Access.READ;
+      default:
+        if (parent instanceof CompoundAssignmentTree
+            && ((CompoundAssignmentTree) parent).getVariable() == leaf) {
+          return Access.READ_WRITE;
+        }
+        return Access.READ;
+    }
+  }
+
+  /** Returns the symbols declared in the compilation unit, in the order of their declarations. */
+  public ImmutableSet<Symbol> declaredSymbols() {
+    return declarations.keySet();
+  }
+
+  /**
+   * Returns the path to the class, method or variable tree that declares {@code sym}, or {@code
+   * null} if it isn't declared in the compilation unit.
+   */
+  @Nullable
+  public TreePath getDeclaration(Symbol sym) {
+    return declarations.get(sym);
+  }
+
+  /** Returns the references to {@code sym} in the compilation unit, in source order. */
+  public ImmutableList<Reference> getReferences(Symbol sym) {
+    return references.get(sym);
+  }
+
+  /** Returns whether {@code sym} is referenced in the compilation unit. */
+  public boolean isReferenced(Symbol sym) {
+    return references.containsKey(sym);
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.util;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.MapMaker;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.util.Context;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Memoizes the results of symbol and type queries that many checks repeat for the same symbols and
+ * types, such as {@code ASTHelpers.hasAnnotation} and {@link ASTHelpers#isSubtype}.
+ *
+ * <p>There is one instance per compilation (see {@link #instance}). The caches are keyed on the
+ * identity of javac's symbols and types, and hold them weakly, so types that are created for a
+ * single tree can be collected once the tree has been scanned.
+ *
+ * <p>Like the rest of javac, this class is not thread-safe. Computing a cached value may trigger
+ * symbol completion, but never re-enters the cache.
+ */
+public final class SymbolQueryCache {
+
+  private static final Context.Key<SymbolQueryCache> KEY = new Context.Key<>();
+
+  /** Returns the cache for the compilation that owns the given context. */
+  public static SymbolQueryCache instance(Context context) {
+    SymbolQueryCache instance = context.get(KEY);
+    if (instance == null) {
+      instance = new SymbolQueryCache();
+      context.put(KEY, instance);
+    }
+    return instance;
+  }
+
+  private final Map<Symbol, Map<String, Boolean>> annotations = weakIdentityMap();
+  private final Map<String, Boolean> inheritedAnnotations = new HashMap<>();
+  private final Map<MethodSymbol, ImmutableSet<MethodSymbol>> superMethods = weakIdentityMap();
+  private final Map<Type, Map<Type, Boolean>> subtypes = weakIdentityMap();
+  private final Map<Type, Map<Type, Boolean>> sameTypes = weakIdentityMap();
+
+  private final Counter annotationCounter = new Counter();
+  private final Counter inheritedAnnotationCounter = new Counter();
+  private final Counter superMethodCounter = new Counter();
+  private final Counter subtypeCounter = new Counter();
+  private final Counter sameTypeCounter = new Counter();
+
+  private SymbolQueryCache() {}
+
+  private static <K, V> Map<K, V> weakIdentityMap() {
+    // MapMaker compares weak keys by identity.
+    return new MapMaker().weakKeys().concurrencyLevel(1).makeMap();
+  }
+
+  /** Returns whether {@code sym} has the given annotation, computing it if necessary. */
+  boolean hasAnnotation(Symbol sym, String annotationClass, BooleanSupplier compute) {
+    Map<String, Boolean> forSymbol = annotations.get(sym);
+    if (forSymbol == null) {
+      forSymbol = new HashMap<>();
+      annotations.put(sym, forSymbol);
+    }
+    return lookup(forSymbol, annotationClass, compute, annotationCounter);
+  }
+
+  /** Returns whether the given annotation is {@code @Inherited}, computing it if necessary. */
+  boolean isInherited(String annotationClass, BooleanSupplier compute) {
+    return lookup(inheritedAnnotations, annotationClass, compute, inheritedAnnotationCounter);
+  }
+
+  /** Returns the methods that {@code sym} overrides, computing them if necessary. */
+  ImmutableSet<MethodSymbol> superMethods(
+      MethodSymbol sym, Supplier<ImmutableSet<MethodSymbol>> compute) {
+    ImmutableSet<MethodSymbol> result = superMethods.get(sym);
+    if (result != null) {
+      superMethodCounter.hits++;
+      return result;
+    }
+    superMethodCounter.misses++;
+    result = compute.get();
+    superMethods.put(sym, result);
+    return result;
+  }
+
+  /** Returns whether {@code erasure(s) <: erasure(t)}, computing it if necessary. */
+  boolean isSubtype(Type s, Type t, BooleanSupplier compute) {
+    return lookup(subtypes, s, t, compute, subtypeCounter);
+  }
+
+  /** Returns whether {@code erasure(s) == erasure(t)}, computing it if necessary. */
+  boolean isSameType(Type s, Type t, BooleanSupplier compute) {
+    return lookup(sameTypes, s, t, compute, sameTypeCounter);
+  }
+
+  private static boolean lookup(
+      Map<Type, Map<Type, Boolean>> cache,
+      Type s,
+      Type t,
+      BooleanSupplier compute,
+      Counter counter) {
+    Map<Type, Boolean> forS = cache.get(s);
+    if (forS == null) {
+      forS = weakIdentityMap();
+      cache.put(s, forS);
+    }
+    return lookup(forS, t, compute, counter);
+  }
+
+  private static <K> boolean lookup(
+      Map<K, Boolean> cache, K key, BooleanSupplier compute, Counter counter) {
+    Boolean result = cache.get(key);
+    if (result != null) {
+      counter.hits++;
+      return result;
+    }
+    counter.misses++;
+    // Deliberately not computeIfAbsent: completing symbols may be arbitrarily expensive, and must
+    // not be done while the map is in an intermediate state.
+    boolean computed = compute.getAsBoolean();
+    cache.put(key, computed);
+    return computed;
+  }
+
+  /** Returns the hit ratio of each cache, keyed by the name of the query. */
+  public ImmutableMap<String, Double> hitRatios() {
+    return ImmutableMap.<String, Double>builder()
+        .put("hasAnnotation", annotationCounter.hitRatio())
+        .put("isInherited", inheritedAnnotationCounter.hitRatio())
+        .put("findSuperMethods", superMethodCounter.hitRatio())
+        .put("isSubtype", subtypeCounter.hitRatio())
+        .put("isSameType", sameTypeCounter.hitRatio())
+        .build();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("SymbolQueryCache:");
+    appendStats(sb, "hasAnnotation", annotationCounter);
+    appendStats(sb, "isInherited", inheritedAnnotationCounter);
+    appendStats(sb, "findSuperMethods", superMethodCounter);
+    appendStats(sb, "isSubtype", subtypeCounter);
+    appendStats(sb, "isSameType", sameTypeCounter);
+    return sb.toString();
+  }
+
+  private static void appendStats(StringBuilder sb, String name, Counter counter) {
+    sb.append(
+        String.format(
+            "%n  %s: %d hits, %d misses (%.1f%%)",
+            name, counter.hits, counter.misses, 100 * counter.hitRatio()));
+  }
+
+  private static final class Counter {
+    long hits;
+    long misses;
+
+    double hitRatio() {
+      long total = hits + misses;
+      return total == 0 ? 0 : (double) hits / total;
+    }
+  }
+}
@@ -22,6 +22,8 @@ import static org.junit.Assert.assertThrows;
 import com.google.common.collect.ImmutableMap;
 import com.google.errorprone.ErrorProneOptions.Severity;
 import com.google.errorprone.apply.ImportOrganizer;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -178,6 +180,95 @@ public class ErrorProneOptionsTest {
     assertThat(excludedPattern.matcher("foo/other_output/subdir/Gen.cpp").matches()).isFalse();
   }
 
+  @Test
+  public void recognizesCheckTimeBudget() {
+    assertThat(ErrorProneOptions.processArgs(new String[] {}).getCheckTimeBudget()).isNull();
+    ErrorProneOptions options =
+        ErrorProneOptions.processArgs(new String[] {"-XepCheckTimeBudget:1500"});
+    assertThat(options.getCheckTimeBudget()).isEqualTo(Duration.ofMillis(1500));
+    for (String arg : new String[] {"-XepCheckTimeBudget:", "-XepCheckTimeBudget:-1"}) {
+      InvalidCommandLineOptionException expected =
+          assertThrows(
+              InvalidCommandLineOptionException.class,
+              () -> ErrorProneOptions.processArgs(new String[] {arg}));
+      assertThat(expected.getMessage()).contains("invalid flag");
+    }
+  }
+
+  @Test
+  public void recognizesCheckFileTimeLimit() {
+    assertThat(ErrorProneOptions.processArgs(new String[] {}).getCheckFileTimeLimit()).isNull();
+    ErrorProneOptions options =
+        ErrorProneOptions.processArgs(new String[] {"-XepCheckFileTimeLimit:250"});
+    assertThat(options.getCheckFileTimeLimit()).isEqualTo(Duration.ofMillis(250));
+    assertThrows(
+        InvalidCommandLineOptionException.class,
+        () -> ErrorProneOptions.processArgs(new String[] {"-XepCheckFileTimeLimit:soon"}));
+  }
+
+  @Test
+  public void recognizesDiagnosticsOutput() {
+    // Path is Iterable<Path>, so the assertions are on Object to avoid ambiguity.
+    assertThat((Object) ErrorProneOptions.processArgs(new String[] {}).getDiagnosticsOutput())
+        .isNull();
+    ErrorProneOptions options =
+        ErrorProneOptions.processArgs(new String[] {"-XepDiagnosticsOutput:out/findings.sarif"});
+    assertThat((Object) options.getDiagnosticsOutput()).isEqualTo(Paths.get("out/findings.sarif"));
+    assertThrows(
+        InvalidCommandLineOptionException.class,
+        () -> ErrorProneOptions.processArgs(new String[] {"-XepDiagnosticsOutput:"}));
+  }
+
+  @Test
+  public void recognizesBaseline() {
+    ErrorProneOptions options = ErrorProneOptions.processArgs(new String[] {});
+    assertThat((Object) options.getBaseline()).isNull();
+    assertThat(options.isWriteBaseline()).isFalse();
+    options = ErrorProneOptions.processArgs(new String[] {"-XepBaseline:baseline.bin"});
+    assertThat((Object) options.getBaseline()).isEqualTo(Paths.get("baseline.bin"));
+    assertThat(options.isWriteBaseline()).isFalse();
+    options =
+        ErrorProneOptions.processArgs(
+            new String[] {"-XepWriteBaseline", "-XepBaseline:baseline.bin"});
+    assertThat(options.isWriteBaseline()).isTrue();
+    assertThrows(
+        InvalidCommandLineOptionException.class,
+        () -> ErrorProneOptions.processArgs(new String[] {"-XepWriteBaseline"}));
+    assertThrows(
+        InvalidCommandLineOptionException.class,
+        () -> ErrorProneOptions.processArgs(new String[] {"-XepBaseline:"}));
+  }
+
+  @Test
+  public void recognizesPathSeverities() {
+    ErrorProneOptions options =
+        ErrorProneOptions.processArgs(
+            new String[] {"-Xep:Foo:WARN", "-Xep:Foo:OFF@legacy/**", "-Xep:Bar@third_party"});
+    assertThat(options.getSeverityMap()).containsExactly("Foo", Severity.WARN);
+    assertThat(options.getPathSeverities().forPath("/src/legacy/A.java"))
+        .containsExactly("Foo", Severity.OFF);
+    assertThat(options.getPathSeverities().forPath("/src/third_party/A.java"))
+        .containsExactly("Bar", Severity.DEFAULT);
+    assertThat(options.getPathSeverities().forPath("/src/main/A.java")).isEmpty();
+    assertThrows(
+        InvalidCommandLineOptionException.class,
+        () -> ErrorProneOptions.processArgs(new String[] {"-Xep:Foo:OFF@legacy/*.java"}));
+    assertThrows(
+        InvalidCommandLineOptionException.class,
+        () -> ErrorProneOptions.processArgs(new String[] {"-Xep:Foo:OFF@"}));
+  }
+
+  @Test
+  public void recognizesChangedLines() {
+    assertThat((Object) ErrorProneOptions.processArgs(new String[] {}).getChangedLines()).isNull();
+    ErrorProneOptions options =
+        ErrorProneOptions.processArgs(new String[] {"-XepChangedLines:changes.diff"});
+    assertThat((Object) options.getChangedLines()).isEqualTo(Paths.get("changes.diff"));
+    assertThrows(
+        InvalidCommandLineOptionException.class,
+        () -> ErrorProneOptions.processArgs(new String[] {"-XepChangedLines:"}));
+  }
+
   @Test
   public void recognizesPatch() {
     ErrorProneOptions options =
@@ -226,6 +317,19 @@ public class ErrorProneOptionsTest {
     assertThat(options.patchingOptions().customRefactorer()).isPresent();
   }
 
+  @Test
+  public void throwsExceptionWithRefasterAndPathSeverities() {
+    assertThrows(
+        InvalidCommandLineOptionException.class,
+        () ->
+            ErrorProneOptions.processArgs(
+                new String[] {
+                  "-XepPatchChecks:refaster:/foo/bar",
+                  "-XepPatchLocation:IN_PLACE",
+                  "-Xep:Foo:OFF@legacy"
+                }));
+  }
+
   @Test
   public void importOrder_staticFirst() {
     ErrorProneOptions options =
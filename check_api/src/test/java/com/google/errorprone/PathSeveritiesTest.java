@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.errorprone.ErrorProneOptions.Severity;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link PathSeverities}Test */
+@RunWith(JUnit4.class)
+public class PathSeveritiesTest {
+
+  @Test
+  public void empty() {
+    PathSeverities severities = new PathSeverities.Builder().build();
+    assertThat(severities.isEmpty()).isTrue();
+    assertThat(severities.forPath("/src/A.java")).isEmpty();
+  }
+
+  @Test
+  public void relativeDirectoriesMatchAtAnyDirectory() {
+    PathSeverities severities =
+        new PathSeverities.Builder().add("gen/proto/**", "Foo", Severity.OFF).build();
+    assertThat(severities.forPath("/out/gen/proto/A.java")).containsExactly("Foo", Severity.OFF);
+    assertThat(severities.forPath("/gen/proto/sub/A.java")).containsExactly("Foo", Severity.OFF);
+    assertThat(severities.forPath("/out/gen/A.java")).isEmpty();
+    assertThat(severities.forPath("/out/gen/protos/A.java")).isEmpty();
+    // The file name isn't a directory.
+    assertThat(severities.forPath("/out/gen/proto")).isEmpty();
+  }
+
+  @Test
+  public void absoluteDirectories() {
+    PathSeverities severities =
+        new PathSeverities.Builder().add("/src/legacy", "Foo", Severity.OFF).build();
+    assertThat(severities.forPath("/src/legacy/A.java")).containsExactly("Foo", Severity.OFF);
+    assertThat(severities.forPath("/other/src/legacy/A.java")).isEmpty();
+  }
+
+  @Test
+  public void deeperDirectoriesTakePrecedence() {
+    PathSeverities severities =
+        new PathSeverities.Builder()
+            .add("src/legacy/new", "Foo", Severity.ERROR)
+            .add("legacy", "Foo", Severity.OFF)
+            .add("legacy", "Bar", Severity.WARN)
+            .build();
+    assertThat(severities.forPath("/src/legacy/A.java"))
+        .containsExactly("Foo", Severity.OFF, "Bar", Severity.WARN);
+    assertThat(severities.forPath("/src/legacy/new/A.java"))
+        .containsExactly("Foo", Severity.ERROR, "Bar", Severity.WARN);
+  }
+
+  @Test
+  public void directoriesEndingDeeperTakePrecedence() {
+    PathSeverities severities =
+        new PathSeverities.Builder()
+            .add("legacy", "Foo", Severity.OFF)
+            .add("src/main", "Foo", Severity.ERROR)
+            .build();
+    // src/main has more segments, but legacy is nested inside it.
+    assertThat(severities.forPath("/src/main/legacy/A.java")).containsExactly("Foo", Severity.OFF);
+    assertThat(severities.forPath("/src/main/A.java")).containsExactly("Foo", Severity.ERROR);
+  }
+
+  @Test
+  public void longerDirectoriesEndingAtTheSamePlaceTakePrecedence() {
+    PathSeverities severities =
+        new PathSeverities.Builder()
+            .add("main/legacy", "Foo", Severity.ERROR)
+            .add("legacy", "Foo", Severity.OFF)
+            .build();
+    assertThat(severities.forPath("/src/main/legacy/A.java"))
+        .containsExactly("Foo", Severity.ERROR);
+  }
+
+  @Test
+  public void laterOverridesTakePrecedence() {
+    PathSeverities severities =
+        new PathSeverities.Builder()
+            .add("legacy", "Foo", Severity.OFF)
+            .add("legacy/**", "Foo", Severity.WARN)
+            .build();
+    assertThat(severities.forPath("/legacy/A.java")).containsExactly("Foo", Severity.WARN);
+  }
+
+  @Test
+  public void windowsPaths() {
+    PathSeverities severities =
+        new PathSeverities.Builder().add("legacy", "Foo", Severity.OFF).build();
+    assertThat(severities.forPath("C:\\src\\legacy\\A.java")).containsExactly("Foo", Severity.OFF);
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.dataflow.nullnesspropagation.inference;
+
+import static com.google.common.truth.Truth8.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import com.google.errorprone.dataflow.nullnesspropagation.Nullness;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.TreeVisitor;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link InferredNullability}Test */
+@RunWith(JUnit4.class)
+public class InferredNullabilityTest {
+
+  private final MutableGraph<InferenceVariable> constraints =
+      GraphBuilder.directed().allowsSelfLoops(true).build();
+
+  @Test
+  public void mutuallyDependentVariables() {
+    ExpressionTree a = expression();
+    ExpressionTree b = expression();
+    ExpressionTree c = expression();
+    lessThanOrEqual(a, b);
+    lessThanOrEqual(b, a);
+    lessThanOrEqual(a, c);
+    constraints.putEdge(ProperInferenceVar.NULLABLE, var(b));
+
+    InferredNullability result = new InferredNullability(constraints);
+    assertThat(result.getExprNullness(a)).hasValue(Nullness.NULLABLE);
+    assertThat(result.getExprNullness(b)).hasValue(Nullness.NULLABLE);
+    assertThat(result.getExprNullness(c)).hasValue(Nullness.NULLABLE);
+  }
+
+  @Test
+  public void mutuallyDependentVariablesShareTheirUpperBound() {
+    ExpressionTree a = expression();
+    ExpressionTree b = expression();
+    ExpressionTree before = expression();
+    lessThanOrEqual(a, b);
+    lessThanOrEqual(b, a);
+    lessThanOrEqual(before, a);
+    constraints.putEdge(var(a), ProperInferenceVar.NULLABLE);
+    constraints.putEdge(var(b), ProperInferenceVar.NONNULL);
+
+    InferredNullability result = new InferredNullability(constraints);
+    assertThat(result.getExprNullness(a)).hasValue(Nullness.NONNULL);
+    assertThat(result.getExprNullness(b)).hasValue(Nullness.NONNULL);
+    assertThat(result.getExprNullness(before)).hasValue(Nullness.NONNULL);
+  }
+
+  @Test
+  public void selfReferentialConstraint() {
+    ExpressionTree a = expression();
+    ExpressionTree b = expression();
+    lessThanOrEqual(a, a);
+    lessThanOrEqual(b, b);
+    constraints.putEdge(var(b), ProperInferenceVar.NONNULL);
+
+    InferredNullability result = new InferredNullability(constraints);
+    assertThat(result.getExprNullness(a)).isEmpty();
+    assertThat(result.getExprNullness(b)).hasValue(Nullness.NONNULL);
+  }
+
+  @Test
+  public void cycleWithExplicitBound() {
+    ExpressionTree a = expression();
+    ExpressionTree b = expression();
+    ExpressionTree c = expression();
+    ExpressionTree before = expression();
+    lessThanOrEqual(a, b);
+    lessThanOrEqual(b, c);
+    lessThanOrEqual(c, a);
+    lessThanOrEqual(before, a);
+    // An explicit annotation constrains its variable to be equal to the annotation's bound
+    constraints.putEdge(var(c), ProperInferenceVar.NONNULL);
+    constraints.putEdge(ProperInferenceVar.NONNULL, var(c));
+
+    InferredNullability result = new InferredNullability(constraints);
+    assertThat(result.getExprNullness(a)).hasValue(Nullness.NONNULL);
+    assertThat(result.getExprNullness(b)).hasValue(Nullness.NONNULL);
+    assertThat(result.getExprNullness(c)).hasValue(Nullness.NONNULL);
+    assertThat(result.getExprNullness(before)).hasValue(Nullness.NONNULL);
+  }
+
+  @Test
+  public void unconstrained() {
+    ExpressionTree a = expression();
+    ExpressionTree b = expression();
+    lessThanOrEqual(a, b);
+
+    InferredNullability result = new InferredNullability(constraints);
+    assertThat(result.getExprNullness(a)).isEmpty();
+    assertThat(result.getExprNullness(expression())).isEmpty();
+  }
+
+  private void lessThanOrEqual(ExpressionTree lower, ExpressionTree upper) {
+    constraints.putEdge(var(lower), var(upper));
+  }
+
+  private static InferenceVariable var(ExpressionTree tree) {
+    return TypeArgInferenceVar.create(ImmutableList.of(), tree);
+  }
+
+  /** Returns a distinct tree to hang an inference variable on. */
+  private static ExpressionTree expression() {
+    return new ExpressionTree() {
+      @Override
+      public Kind getKind() {
+        return Kind.OTHER;
+      }
+
+      @Override
+      public <R, D> R accept(TreeVisitor<R, D> visitor, D data) {
+        return visitor.visitOther(this, data);
+      }
+    };
+  }
+}
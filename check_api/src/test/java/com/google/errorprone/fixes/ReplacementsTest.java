@@ -162,4 +162,61 @@ public class ReplacementsTest {
     Replacement around = Replacement.create(0, 2, "Around");
     assertThrows(IllegalArgumentException.class, () -> replacements.add(around));
   }
+
+  @Test
+  public void zeroLengthRangeAtBoundaries() {
+    Replacements replacements = new Replacements();
+    replacements.add(Replacement.create(2, 2, "a"));
+    replacements.add(Replacement.create(4, 4, "b"));
+    replacements.add(Replacement.create(2, 4, "c"));
+    assertThat(Iterables.transform(replacements.descending(), AS_RANGES))
+        .containsExactly(Range.closedOpen(4, 4), Range.closedOpen(2, 4), Range.closedOpen(2, 2))
+        .inOrder();
+  }
+
+  @Test
+  public void zeroLengthRangeInsideExisting() {
+    Replacements replacements = new Replacements();
+    replacements.add(Replacement.create(0, 2, "Around"));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> replacements.add(Replacement.create(1, 1, "Something")));
+    replacements.add(Replacement.create(0, 0, "Before"));
+    replacements.add(Replacement.create(2, 2, "After"));
+    assertThat(Iterables.transform(replacements.descending(), AS_RANGES))
+        .containsExactly(Range.closedOpen(2, 2), Range.closedOpen(0, 2), Range.closedOpen(0, 0))
+        .inOrder();
+  }
+
+  @Test
+  public void isCompatible() {
+    Replacements replacements =
+        new Replacements()
+            .add(Replacement.create(10, 20, "a"))
+            .add(Replacement.create(30, 30, "b"))
+            .add(Replacement.create(40, 50, "c"));
+    assertThat(replacements.isCompatible(Replacement.create(0, 10, "x"))).isTrue();
+    assertThat(replacements.isCompatible(Replacement.create(20, 30, "x"))).isTrue();
+    assertThat(replacements.isCompatible(Replacement.create(30, 30, "x"))).isTrue();
+    assertThat(replacements.isCompatible(Replacement.create(10, 20, "a"))).isTrue();
+    assertThat(replacements.isCompatible(Replacement.create(10, 20, "x"))).isFalse();
+    assertThat(replacements.isCompatible(Replacement.create(15, 15, "x"))).isFalse();
+    assertThat(replacements.isCompatible(Replacement.create(19, 25, "x"))).isFalse();
+    assertThat(replacements.isCompatible(Replacement.create(25, 35, "x"))).isFalse();
+    assertThat(replacements.isCompatible(Replacement.create(5, 60, "x"))).isFalse();
+    assertThat(replacements.isCompatible(Replacement.create(45, 46, "x"))).isFalse();
+  }
+
+  @Test
+  public void manyReplacements() {
+    Replacements replacements = new Replacements();
+    for (int i = 99; i >= 0; i--) {
+      replacements.add(Replacement.create(i * 2, i * 2 + 1, "x"));
+    }
+    assertThat(replacements.descending()).hasSize(100);
+    assertThat(Iterables.getFirst(replacements.descending(), null))
+        .isEqualTo(Replacement.create(198, 199, "x"));
+    assertThat(replacements.isCompatible(Replacement.create(51, 52, "y"))).isTrue();
+    assertThat(replacements.isCompatible(Replacement.create(51, 53, "y"))).isFalse();
+  }
 }
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.names;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Strings;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for LevenshteinEditDistance */
+@RunWith(JUnit4.class)
+public class LevenshteinEditDistanceTest {
+
+  @Test
+  public void levenshteinEditDistance() {
+    assertThat(LevenshteinEditDistance.getEditDistance("kitten", "sitting")).isEqualTo(3);
+    assertThat(LevenshteinEditDistance.getEditDistance("sitting", "kitten")).isEqualTo(3);
+    assertThat(LevenshteinEditDistance.getEditDistance("foo", "foo")).isEqualTo(0);
+    assertThat(LevenshteinEditDistance.getEditDistance("", "foo")).isEqualTo(3);
+    assertThat(LevenshteinEditDistance.getEditDistance(" \t", "foo")).isEqualTo(3);
+    assertThat(LevenshteinEditDistance.getEditDistance(null, "foo")).isEqualTo(3);
+  }
+
+  @Test
+  public void levenshteinEditDistance_ignoresCase() {
+    assertThat(LevenshteinEditDistance.getEditDistance("fooBar", "FOOBAR")).isEqualTo(5);
+    assertThat(
+            LevenshteinEditDistance.getEditDistance(
+                "fooBar", "FOOBAR", /* caseSensitive= */ false))
+        .isEqualTo(0);
+  }
+
+  @Test
+  public void levenshteinEditDistance_longStrings() {
+    String a = Strings.repeat("abcdefghij", 10);
+    String b = a.replace('e', 'x') + "y";
+    assertThat(LevenshteinEditDistance.getEditDistance(a, b)).isEqualTo(11);
+    assertThat(LevenshteinEditDistance.getEditDistance(a, "\u00e9" + a)).isEqualTo(1);
+  }
+
+  @Test
+  public void levenshteinEditDistance_bounded() {
+    assertThat(LevenshteinEditDistance.getEditDistance("kitten", "sitting", true, 3)).isEqualTo(3);
+    assertThat(LevenshteinEditDistance.getEditDistance("kitten", "sitting", true, 2)).isEqualTo(3);
+    assertThat(LevenshteinEditDistance.getEditDistance("kitten", "sitting", true, 0)).isEqualTo(1);
+    assertThat(LevenshteinEditDistance.getEditDistance("", "foo", true, 1)).isEqualTo(2);
+  }
+
+  /** Compares the bit-parallel and banded algorithms with the textbook one. */
+  @Test
+  public void levenshteinEditDistance_matchesTextbook() {
+    Random random = new Random(0);
+    for (int i = 0; i < 10000; i++) {
+      String source = randomString(random);
+      String target = randomString(random);
+      boolean caseSensitive = random.nextBoolean();
+      int expected = textbook(source, target, caseSensitive);
+      assertThat(LevenshteinEditDistance.getEditDistance(source, target, caseSensitive))
+          .isEqualTo(expected);
+      int maxDistance = random.nextInt(10);
+      assertThat(
+              LevenshteinEditDistance.getEditDistance(source, target, caseSensitive, maxDistance))
+          .isEqualTo(Math.min(expected, maxDistance + 1));
+    }
+  }
+
+  private static String randomString(Random random) {
+    String alphabet = random.nextBoolean() ? "aAbB" : "aAbBcC_\u00e9\u00c9";
+    int length = random.nextInt(random.nextBoolean() ? 10 : 100);
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+    }
+    return sb.toString();
+  }
+
+  private static int textbook(String source, String target, boolean caseSensitive) {
+    if (!caseSensitive) {
+      source = source.toLowerCase();
+      target = target.toLowerCase();
+    }
+    int[][] d = new int[source.length() + 1][target.length() + 1];
+    for (int i = 0; i <= source.length(); i++) {
+      for (int j = 0; j <= target.length(); j++) {
+        if (i == 0 || j == 0) {
+          d[i][j] = i + j;
+        } else {
+          int cost = source.charAt(i - 1) == target.charAt(j - 1) ? 0 : 1;
+          d[i][j] = Math.min(d[i - 1][j - 1] + cost, Math.min(d[i - 1][j], d[i][j - 1]) + 1);
+        }
+      }
+    }
+    return d[source.length()][target.length()];
+  }
+}
@@ -64,4 +64,32 @@ public class NeedlemanWunschEditDistanceTest {
 
     assertThat(needlemanWunsch).isEqualTo(levenschtein);
   }
+
+  @Test
+  public void needlemanWunschEditDistance_isSymmetric() {
+    assertThat(
+            NeedlemanWunschEditDistance.getEditDistance(
+                "christopher", "chris", /* caseSensitive= */ false, 8, 8, 1))
+        .isEqualTo(14);
+    assertThat(
+            NeedlemanWunschEditDistance.getEditDistance(
+                "chris", "christopher", /* caseSensitive= */ false, 8, 8, 1))
+        .isEqualTo(14);
+  }
+
+  @Test
+  public void needlemanWunschEditDistance_bounded() {
+    assertThat(
+            NeedlemanWunschEditDistance.getEditDistance(
+                "christopher", "chris", /* caseSensitive= */ false, 8, 8, 1, 14))
+        .isEqualTo(14);
+    assertThat(
+            NeedlemanWunschEditDistance.getEditDistance(
+                "christopher", "chris", /* caseSensitive= */ false, 8, 8, 1, 13))
+        .isEqualTo(14);
+    assertThat(
+            NeedlemanWunschEditDistance.getEditDistance(
+                "fooBar", "bazQux", /* caseSensitive= */ false, 8, 8, 1, 3))
+        .isEqualTo(4);
+  }
 }
@@ -77,7 +77,7 @@ abstract class AbstractAsyncTypeReturnsNull extends BugChecker implements Return
         if (symbol == null) {
           return false;
         }
-        for (MethodSymbol superMethod : findSuperMethods(symbol, state.getTypes())) {
+        for (MethodSymbol superMethod : findSuperMethods(symbol, state)) {
           if (superMethod.owner != null
               && superMethod.owner.getQualifiedName().contentEquals(clazz.getName())) {
             return true;
@@ -21,12 +21,14 @@ import static com.google.common.collect.MoreCollectors.toOptional;
 import static com.google.errorprone.BugPattern.ProvidesFix.REQUIRES_HUMAN_ATTENTION;
 import static com.google.errorprone.BugPattern.SeverityLevel.WARNING;
 import static com.google.errorprone.BugPattern.StandardTags.FRAGILE_CODE;
+import static com.google.errorprone.matchers.method.MethodMatchers.methodNames;
 import static com.google.errorprone.matchers.method.MethodMatchers.staticMethod;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.BugPattern;
 import com.google.errorprone.VisitorState;
 import com.google.errorprone.annotations.FormatMethod;
-import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.NamedMethodInvocationTreeMatcher;
 import com.google.errorprone.fixes.SuggestedFix;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.matchers.Matcher;
@@ -56,7 +58,8 @@ import javax.annotation.Nullable;
     severity = WARNING,
     tags = FRAGILE_CODE,
     providesFix = REQUIRES_HUMAN_ATTENTION)
-public final class AnnotateFormatMethod extends BugChecker implements MethodInvocationTreeMatcher {
+public final class AnnotateFormatMethod extends BugChecker
+    implements NamedMethodInvocationTreeMatcher {
 
   private static final String REORDER =
       " The parameters of this method would need to be reordered to make the format string and "
@@ -65,6 +68,11 @@ public final class AnnotateFormatMethod extends BugChecker implements MethodInvo
   private static final Matcher<ExpressionTree> STRING_FORMAT =
       staticMethod().onClass("java.lang.String").named("format");
 
+  @Override
+  public ImmutableSet<String> matchedMethodNames() {
+    return methodNames(STRING_FORMAT);
+  }
+
   @Override
   public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
     if (!STRING_FORMAT.matches(tree, state)) {
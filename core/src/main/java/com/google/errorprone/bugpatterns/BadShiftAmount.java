@@ -31,13 +31,13 @@ import com.google.errorprone.fixes.SuggestedFix;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.matchers.Matcher;
 import com.sun.source.tree.BinaryTree;
-import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.LiteralTree;
 import com.sun.source.tree.Tree.Kind;
 import com.sun.tools.javac.code.Symtab;
 import com.sun.tools.javac.code.Type;
 import com.sun.tools.javac.code.Types;
 import com.sun.tools.javac.tree.JCTree;
+import javax.annotation.Nullable;
 
 /**
  * @author bill.pugh@gmail.com (Bill Pugh)
@@ -52,8 +52,8 @@ import com.sun.tools.javac.tree.JCTree;
 public class BadShiftAmount extends BugChecker implements BinaryTreeMatcher {
 
   /**
-   * Matches if the left operand is an int, byte, short, or char, and the right operand is a literal
-   * that is not in the range 0-31 inclusive.
+   * Matches if the left operand is an int, byte, short, or char, and the right operand is a
+   * constant that is not in the range 0-31 inclusive.
    *
    * <p>In a shift expression, byte, short, and char undergo unary numeric promotion and are
    * promoted to int. See JLS 5.6.1.
@@ -72,19 +72,22 @@ public class BadShiftAmount extends BugChecker implements BinaryTreeMatcher {
             return false;
           }
 
-          ExpressionTree rightOperand = tree.getRightOperand();
-          if (rightOperand instanceof LiteralTree) {
-            Object rightValue = ((LiteralTree) rightOperand).getValue();
-            if (rightValue instanceof Number) {
-              int intValue = ((Number) rightValue).intValue();
-              return intValue < 0 || intValue > 31;
-            }
+          Number rightValue = shiftAmount(tree, state);
+          if (rightValue == null) {
+            return false;
           }
-
-          return false;
+          int intValue = rightValue.intValue();
+          return intValue < 0 || intValue > 31;
         }
       };
 
+  /** Returns the value of the right operand of a shift, or {@code null} if it isn't constant. */
+  @Nullable
+  private static Number shiftAmount(BinaryTree tree, VisitorState state) {
+    Object value = state.getConstantValues().constantValue(tree.getRightOperand(), state);
+    return value instanceof Integer || value instanceof Long ? (Number) value : null;
+  }
+
   public static final Matcher<BinaryTree> BINARY_TREE_MATCHER =
       allOf(
           anyOf(
@@ -99,9 +102,9 @@ public class BadShiftAmount extends BugChecker implements BinaryTreeMatcher {
 
     /*
      * For shift amounts in [32, 63], cast the left operand to long.  Otherwise change the shift
-     * amount to whatever would actually be used.
+     * amount to whatever would actually be used, if it is a literal.
      */
-    int intValue = ((Number) ((LiteralTree) tree.getRightOperand()).getValue()).intValue();
+    int intValue = shiftAmount(tree, state).intValue();
 
     Fix fix;
     if (intValue >= 32 && intValue <= 63) {
@@ -110,10 +113,13 @@ public class BadShiftAmount extends BugChecker implements BinaryTreeMatcher {
       } else {
         fix = SuggestedFix.prefixWith(tree, "(long) ");
       }
-    } else {
+    } else if (tree.getRightOperand() instanceof LiteralTree) {
       // This is the equivalent shift distance according to JLS 15.19.
       String actualShiftDistance = Integer.toString(intValue & 0x1f);
       fix = SuggestedFix.replace(tree.getRightOperand(), actualShiftDistance);
+    } else {
+      // Replacing a named or computed shift amount with a literal would hide where it came from.
+      return describeMatch(tree);
     }
     return describeMatch(tree, fix);
   }
@@ -32,7 +32,6 @@ import com.google.errorprone.util.ASTHelpers;
 import com.sun.source.tree.BinaryTree;
 import com.sun.source.tree.CompoundAssignmentTree;
 import com.sun.source.tree.ExpressionTree;
-import com.sun.source.tree.LiteralTree;
 import com.sun.source.tree.StatementTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.Tree.Kind;
@@ -67,12 +66,9 @@ public class DivZero extends BugChecker
       return Description.NO_MATCH;
     }
 
-    if (!kindIs(Kind.INT_LITERAL).matches(operand, state)) {
-      return Description.NO_MATCH;
-    }
-
-    LiteralTree rightOperand = (LiteralTree) operand;
-    if (((Integer) rightOperand.getValue()) != 0) {
+    Object divisor = state.getConstantValues().constantValue(operand, state);
+    if (!(divisor instanceof Integer || divisor instanceof Long)
+        || ((Number) divisor).longValue() != 0) {
       return Description.NO_MATCH;
     }
 
@@ -28,29 +28,28 @@ import com.google.errorprone.bugpatterns.BugChecker.CompilationUnitTreeMatcher;
 import com.google.errorprone.fixes.SuggestedFixes;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.util.ASTHelpers;
+import com.google.errorprone.util.SymbolIndex;
 import com.sun.source.tree.AnnotationTree;
-import com.sun.source.tree.AssignmentTree;
 import com.sun.source.tree.BlockTree;
 import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.CompilationUnitTree;
-import com.sun.source.tree.CompoundAssignmentTree;
 import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.IdentifierTree;
 import com.sun.source.tree.MemberSelectTree;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.Tree.Kind;
-import com.sun.source.tree.UnaryTree;
 import com.sun.source.tree.VariableTree;
-import com.sun.source.util.TreePathScanner;
+import com.sun.source.util.TreePath;
 import com.sun.tools.javac.code.Flags;
 import com.sun.tools.javac.code.Symbol;
 import com.sun.tools.javac.code.Symbol.MethodSymbol;
 import com.sun.tools.javac.code.Symbol.VarSymbol;
-import com.sun.tools.javac.util.Context;
 import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.Modifier;
 
@@ -101,14 +100,6 @@ public class FieldCanBeFinal extends BugChecker implements CompilationUnitTreeMa
   private static final ImmutableSet<String> IMPLICIT_VAR_ANNOTATION_SIMPLE_NAMES =
       ImmutableSet.of("NonFinalForTesting", "NotFinalForTesting");
 
-  /** Unary operator kinds that implicitly assign to their operand. */
-  private static final EnumSet<Kind> UNARY_ASSIGNMENT =
-      EnumSet.of(
-          Kind.PREFIX_DECREMENT,
-          Kind.POSTFIX_DECREMENT,
-          Kind.PREFIX_INCREMENT,
-          Kind.POSTFIX_INCREMENT);
-
   /** The initalization context where an assignment occurred. */
   enum InitializationContext {
     /** A class (static) initializer. */
@@ -129,14 +120,6 @@ public class FieldCanBeFinal extends BugChecker implements CompilationUnitTreeMa
       return assignments.values();
     }
 
-    /** Records an assignment to a variable. */
-    public void recordAssignment(Tree tree, InitializationContext init) {
-      Symbol sym = ASTHelpers.getSymbol(tree);
-      if (sym != null && sym.getKind() == ElementKind.FIELD) {
-        recordAssignment((VarSymbol) sym, init);
-      }
-    }
-
     /** Records an assignment to a variable. */
     public void recordAssignment(VarSymbol sym, InitializationContext init) {
       getDeclaration(sym).recordAssignment(init);
@@ -217,8 +200,7 @@ public class FieldCanBeFinal extends BugChecker implements CompilationUnitTreeMa
 
   @Override
   public Description matchCompilationUnit(CompilationUnitTree tree, VisitorState state) {
-    VariableAssignmentRecords writes = new VariableAssignmentRecords();
-    new FinalScanner(writes, state.context).scan(state.getPath(), InitializationContext.NONE);
+    VariableAssignmentRecords writes = recordAssignments(state);
     outer:
     for (VariableAssignments var : writes.getAssignments()) {
       if (!var.isEffectivelyFinal()) {
@@ -249,104 +231,119 @@ public class FieldCanBeFinal extends BugChecker implements CompilationUnitTreeMa
     return Description.NO_MATCH;
   }
 
-  /** Record assignments to possibly-final variables in a compilation unit. */
-  private class FinalScanner extends TreePathScanner<Void, InitializationContext> {
-
-    private final VariableAssignmentRecords writes;
-    private final Context context;
-
-    public FinalScanner(VariableAssignmentRecords writes, Context context) {
-      this.writes = writes;
-      this.context = context;
-    }
-
-    @Override
-    public Void visitVariable(VariableTree node, InitializationContext init) {
-      VarSymbol sym = ASTHelpers.getSymbol(node);
-      if (sym.getKind() == ElementKind.FIELD && !isSuppressed(node)) {
-        writes.recordDeclaration(sym, node);
+  /**
+   * Records the declarations of, and assignments to, possibly-final fields in the compilation unit,
+   * using the compilation unit's {@link SymbolIndex}.
+   */
+  private VariableAssignmentRecords recordAssignments(VisitorState state) {
+    SymbolIndex symbolIndex = state.getSymbolIndex();
+    // Classes whose fields, and the assignments inside of which, are ignored.
+    Set<Tree> ignoredClasses = new HashSet<>();
+    for (Symbol sym : symbolIndex.declaredSymbols()) {
+      TreePath path = symbolIndex.getDeclaration(sym);
+      if (path.getLeaf() instanceof ClassTree && isIgnored(path, state)) {
+        ignoredClasses.add(path.getLeaf());
       }
-      return super.visitVariable(node, InitializationContext.NONE);
     }
-
-    @Override
-    public Void visitBlock(BlockTree node, InitializationContext init) {
-      if (getCurrentPath().getParentPath().getLeaf().getKind() == Kind.CLASS) {
-        init = node.isStatic() ? InitializationContext.STATIC : InitializationContext.INSTANCE;
+    VariableAssignmentRecords writes = new VariableAssignmentRecords();
+    for (Symbol sym : symbolIndex.declaredSymbols()) {
+      if (sym.getKind() != ElementKind.FIELD) {
+        continue;
       }
-      return super.visitBlock(node, init);
-    }
-
-    @Override
-    public Void visitMethod(MethodTree node, InitializationContext init) {
-      MethodSymbol sym = ASTHelpers.getSymbol(node);
-      if (sym != null && sym.isConstructor()) {
-        init = InitializationContext.INSTANCE;
+      TreePath declaration = symbolIndex.getDeclaration(sym);
+      if (isSuppressed(declaration.getLeaf()) || isInside(declaration, ignoredClasses)) {
+        continue;
       }
-      return super.visitMethod(node, init);
-    }
-
-    @Override
-    public Void visitAssignment(AssignmentTree node, InitializationContext init) {
-      if (init == InitializationContext.INSTANCE && !isThisAccess(node.getVariable())) {
-        // don't record assignments in initializers that aren't to members of the object
-        // being initialized
-        init = InitializationContext.NONE;
+      VarSymbol var = (VarSymbol) sym;
+      writes.recordDeclaration(var, (VariableTree) declaration.getLeaf());
+      for (SymbolIndex.Reference reference : symbolIndex.getReferences(var)) {
+        if (reference.access().isWrite() && !isInside(reference.path(), ignoredClasses)) {
+          writes.recordAssignment(var, initializationContext(reference));
+        }
       }
-      writes.recordAssignment(node.getVariable(), init);
-      return super.visitAssignment(node, init);
     }
+    return writes;
+  }
 
-    boolean isThisAccess(Tree tree) {
-      if (tree.getKind() == Kind.IDENTIFIER) {
+  private boolean isIgnored(TreePath classPath, VisitorState state) {
+    ClassTree classTree = (ClassTree) classPath.getLeaf();
+    if (isSuppressed(classTree)) {
+      return true;
+    }
+    VisitorState classState = state.withPath(classPath);
+    for (String annotation : IMPLICIT_VAR_CLASS_ANNOTATIONS) {
+      if (ASTHelpers.hasAnnotation(getSymbol(classTree), annotation, classState)) {
         return true;
       }
-      if (tree.getKind() != Kind.MEMBER_SELECT) {
-        return false;
-      }
-      ExpressionTree selected = ((MemberSelectTree) tree).getExpression();
-      if (!(selected instanceof IdentifierTree)) {
-        return false;
-      }
-      IdentifierTree ident = (IdentifierTree) selected;
-      return ident.getName().contentEquals("this");
     }
+    return false;
+  }
 
-    @Override
-    public Void visitClass(ClassTree node, InitializationContext init) {
-      VisitorState state = new VisitorState(context).withPath(getCurrentPath());
-
-      if (isSuppressed(node)) {
-        return null;
-      }
-
-
-      for (String annotation : IMPLICIT_VAR_CLASS_ANNOTATIONS) {
-        if (ASTHelpers.hasAnnotation(getSymbol(node), annotation, state)) {
-          return null;
-        }
+  private static boolean isInside(TreePath path, Set<Tree> classes) {
+    for (TreePath p = path; p != null; p = p.getParentPath()) {
+      if (classes.contains(p.getLeaf())) {
+        return true;
       }
-
-      // reset the initialization context when entering a new declaration
-      return super.visitClass(node, InitializationContext.NONE);
     }
+    return false;
+  }
 
-    @Override
-    public Void visitCompoundAssignment(CompoundAssignmentTree node, InitializationContext init) {
-      init = InitializationContext.NONE;
-      writes.recordAssignment(node.getVariable(), init);
-      return super.visitCompoundAssignment(node, init);
+  /** Returns the initialization context of an assignment to a field. */
+  private static InitializationContext initializationContext(SymbolIndex.Reference reference) {
+    if (reference.access() == SymbolIndex.Access.READ_WRITE) {
+      // compound assignments and increments are never initialization
+      return InitializationContext.NONE;
     }
+    InitializationContext init = enclosingInitializer(reference.path().getParentPath());
+    if (init == InitializationContext.INSTANCE && !isThisAccess(reference.path().getLeaf())) {
+      // don't record assignments in initializers that aren't to members of the object
+      // being initialized
+      return InitializationContext.NONE;
+    }
+    return init;
+  }
 
-
-    @Override
-    public Void visitUnary(UnaryTree node, InitializationContext init) {
-      if (UNARY_ASSIGNMENT.contains(node.getKind())) {
-        init = InitializationContext.NONE;
-        writes.recordAssignment(node.getExpression(), init);
+  /** Returns the initializer, if any, that the tree at {@code path} is directly inside of. */
+  private static InitializationContext enclosingInitializer(TreePath path) {
+    for (TreePath p = path; p.getParentPath() != null; p = p.getParentPath()) {
+      Tree leaf = p.getLeaf();
+      switch (leaf.getKind()) {
+        case VARIABLE:
+          return InitializationContext.NONE;
+        case METHOD:
+          MethodSymbol sym = ASTHelpers.getSymbol((MethodTree) leaf);
+          return sym != null && sym.isConstructor()
+              ? InitializationContext.INSTANCE
+              : InitializationContext.NONE;
+        case BLOCK:
+          if (p.getParentPath().getLeaf().getKind() == Kind.CLASS) {
+            return ((BlockTree) leaf).isStatic()
+                ? InitializationContext.STATIC
+                : InitializationContext.INSTANCE;
+          }
+          break;
+        default:
+          if (leaf instanceof ClassTree) {
+            return InitializationContext.NONE;
+          }
+          break;
       }
-      return super.visitUnary(node, init);
     }
+    return InitializationContext.NONE;
   }
 
+  private static boolean isThisAccess(Tree tree) {
+    if (tree.getKind() == Kind.IDENTIFIER) {
+      return true;
+    }
+    if (tree.getKind() != Kind.MEMBER_SELECT) {
+      return false;
+    }
+    ExpressionTree selected = ((MemberSelectTree) tree).getExpression();
+    if (!(selected instanceof IdentifierTree)) {
+      return false;
+    }
+    IdentifierTree ident = (IdentifierTree) selected;
+    return ident.getName().contentEquals("this");
+  }
 }
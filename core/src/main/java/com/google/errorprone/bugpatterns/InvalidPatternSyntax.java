@@ -33,7 +33,6 @@ import com.google.errorprone.matchers.Description;
 import com.google.errorprone.matchers.Matcher;
 import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.MethodInvocationTree;
-import com.sun.tools.javac.tree.JCTree.JCExpression;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -53,8 +52,8 @@ public class InvalidPatternSyntax extends BugChecker implements MethodInvocation
       new Matcher<ExpressionTree>() {
         @Override
         public boolean matches(ExpressionTree tree, VisitorState state) {
-          Object value = ((JCExpression) tree).type.constValue();
-          return value instanceof String && !isValidSyntax((String) value);
+          String value = state.getConstantValues().constantValue(tree, String.class, state);
+          return value != null && !isValidSyntax(value);
         }
 
         private boolean isValidSyntax(String regex) {
@@ -110,7 +109,7 @@ public class InvalidPatternSyntax extends BugChecker implements MethodInvocation
     // TODO: Suggest fixes for more situations.
     Description.Builder descriptionBuilder = buildDescription(methodInvocationTree);
     ExpressionTree arg = methodInvocationTree.getArguments().get(0);
-    String value = (String) ((JCExpression) arg).type.constValue();
+    String value = state.getConstantValues().constantValue(arg, String.class, state);
     String reasonInvalid = "";
 
     if (".".equals(value)) {
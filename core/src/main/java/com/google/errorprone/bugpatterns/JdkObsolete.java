@@ -417,7 +417,7 @@ public class JdkObsolete extends BugChecker
     if (method == null) {
       return false;
     }
-    if (ASTHelpers.findSuperMethods(method, state.getTypes()).isEmpty()) {
+    if (ASTHelpers.findSuperMethods(method, state).isEmpty()) {
       // not an override
       return false;
     }
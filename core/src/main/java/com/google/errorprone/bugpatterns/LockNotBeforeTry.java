@@ -21,12 +21,14 @@ import static com.google.errorprone.BugPattern.SeverityLevel.WARNING;
 import static com.google.errorprone.BugPattern.StandardTags.FRAGILE_CODE;
 import static com.google.errorprone.matchers.Description.NO_MATCH;
 import static com.google.errorprone.matchers.method.MethodMatchers.instanceMethod;
+import static com.google.errorprone.matchers.method.MethodMatchers.methodNames;
 import static com.google.errorprone.util.ASTHelpers.getReceiver;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.errorprone.BugPattern;
 import com.google.errorprone.VisitorState;
-import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.NamedMethodInvocationTreeMatcher;
 import com.google.errorprone.fixes.SuggestedFix;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.matchers.Matcher;
@@ -54,13 +56,18 @@ import com.sun.source.util.TreeScanner;
     severity = WARNING,
     tags = FRAGILE_CODE,
     providesFix = REQUIRES_HUMAN_ATTENTION)
-public final class LockNotBeforeTry extends BugChecker implements MethodInvocationTreeMatcher {
+public final class LockNotBeforeTry extends BugChecker implements NamedMethodInvocationTreeMatcher {
 
   private static final MethodClassMatcher LOCK_METHOD =
       instanceMethod().onDescendantOf("java.util.concurrent.locks.Lock");
   private static final Matcher<ExpressionTree> LOCK = LOCK_METHOD.named("lock");
   private static final Matcher<ExpressionTree> UNLOCK = LOCK_METHOD.named("unlock");
 
+  @Override
+  public ImmutableSet<String> matchedMethodNames() {
+    return methodNames(LOCK);
+  }
+
   @Override
   public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
     if (!LOCK.matches(tree, state)) {
@@ -35,6 +35,7 @@ import com.google.errorprone.bugpatterns.CanBeStaticAnalyzer.CanBeStaticResult;
 import com.google.errorprone.fixes.SuggestedFix;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.util.ASTHelpers;
+import com.google.errorprone.util.SymbolIndex;
 import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.ExpressionTree;
@@ -44,7 +45,6 @@ import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.VariableTree;
 import com.sun.source.util.TreePathScanner;
-import com.sun.source.util.TreeScanner;
 import com.sun.tools.javac.code.Symbol.MethodSymbol;
 import com.sun.tools.javac.tree.JCTree;
 import java.util.Comparator;
@@ -205,28 +205,27 @@ public class MethodCanBeStatic extends BugChecker implements CompilationUnitTree
    */
   private SuggestedFix fixQualifiers(VisitorState state, MethodSymbol sym, SuggestedFix f) {
     SuggestedFix.Builder builder = SuggestedFix.builder().merge(f);
-    new TreeScanner<Void, Void>() {
-      @Override
-      public Void visitMemberSelect(MemberSelectTree tree, Void unused) {
-        fixQualifier(tree, tree.getExpression());
-        return super.visitMemberSelect(tree, unused);
-      }
-
-      @Override
-      public Void visitMemberReference(MemberReferenceTree tree, Void unused) {
-        fixQualifier(tree, tree.getQualifierExpression());
-        return super.visitMemberReference(tree, unused);
-      }
-
-      private void fixQualifier(Tree tree, ExpressionTree qualifierExpression) {
-        if (sym.equals(ASTHelpers.getSymbol(tree))) {
-          builder.replace(qualifierExpression, sym.owner.enclClass().getSimpleName().toString());
-        }
+    for (SymbolIndex.Reference reference : state.getSymbolIndex().getReferences(sym)) {
+      Tree tree = reference.path().getLeaf();
+      switch (tree.getKind()) {
+        case MEMBER_SELECT:
+          fixQualifier(builder, sym, ((MemberSelectTree) tree).getExpression());
+          break;
+        case MEMBER_REFERENCE:
+          fixQualifier(builder, sym, ((MemberReferenceTree) tree).getQualifierExpression());
+          break;
+        default:
+          break;
       }
-    }.scan(state.getPath().getCompilationUnit(), null);
+    }
     return builder.build();
   }
 
+  private static void fixQualifier(
+      SuggestedFix.Builder builder, MethodSymbol sym, ExpressionTree qualifierExpression) {
+    builder.replace(qualifierExpression, sym.owner.enclClass().getSimpleName().toString());
+  }
+
   private static boolean isExcluded(MethodSymbol sym, VisitorState state) {
     if (sym == null) {
       return true;
@@ -30,7 +30,6 @@ import com.google.errorprone.bugpatterns.BugChecker.SwitchTreeMatcher;
 import com.google.errorprone.fixes.SuggestedFix;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.util.ASTHelpers;
-import com.google.errorprone.util.ErrorProneTokens;
 import com.google.errorprone.util.Reachability;
 import com.sun.source.tree.CaseTree;
 import com.sun.source.tree.SwitchTree;
@@ -88,10 +87,7 @@ public class MissingDefault extends BugChecker implements SwitchTreeMatcher {
       return NO_MATCH;
     }
     int end = state.getEndPosition(tree);
-    if (ErrorProneTokens.getTokens(
-            state.getSourceCode().subSequence(state.getEndPosition(defaultCase), end).toString(),
-            state.context)
-        .stream()
+    if (state.getOffsetTokens(state.getEndPosition(defaultCase), end).stream()
         .anyMatch(t -> !t.comments().isEmpty())) {
       return NO_MATCH;
     }
@@ -57,6 +57,7 @@ import javax.lang.model.element.ElementKind;
 /** @author Liam Miller-Cushon (cushon@google.com) */
 @BugPattern(
     name = "MockitoCast",
+    requiredTypes = "org.mockito.Mockito",
     category = MOCKITO,
     summary = "A bug in Mockito will cause this test to fail at runtime with a ClassCastException",
     severity = ERROR,
@@ -38,6 +38,7 @@ import java.util.List;
 /** @author cushon@google.com (Liam Miller-Cushon) */
 @BugPattern(
     name = "MockitoUsage",
+    requiredTypes = "org.mockito.Mockito",
     summary = "Missing method call for verify(mock) here",
     category = MOCKITO,
     severity = ERROR,
@@ -19,12 +19,14 @@ import static com.google.errorprone.BugPattern.Category.JDK;
 import static com.google.errorprone.BugPattern.SeverityLevel.WARNING;
 import static com.google.errorprone.matchers.Description.NO_MATCH;
 import static com.google.errorprone.matchers.method.MethodMatchers.instanceMethod;
+import static com.google.errorprone.matchers.method.MethodMatchers.methodNames;
 import static com.google.errorprone.util.ASTHelpers.getReceiver;
 import static com.google.errorprone.util.ASTHelpers.sameVariable;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.BugPattern;
 import com.google.errorprone.VisitorState;
-import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.NamedMethodInvocationTreeMatcher;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.matchers.Matcher;
 import com.google.errorprone.util.ASTHelpers;
@@ -46,13 +48,18 @@ import java.util.List;
     category = JDK,
     severity = WARNING)
 public class ModifyCollectionInEnhancedForLoop extends BugChecker
-    implements MethodInvocationTreeMatcher {
+    implements NamedMethodInvocationTreeMatcher {
 
   private static final Matcher<ExpressionTree> MATCHER =
       instanceMethod()
           .onDescendantOf("java.util.Collection")
           .namedAnyOf("add", "addAll", "clear", "remove", "removeAll", "retainAll");
 
+  @Override
+  public ImmutableSet<String> matchedMethodNames() {
+    return methodNames(MATCHER);
+  }
+
   @Override
   public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
     if (!MATCHER.matches(tree, state)) {
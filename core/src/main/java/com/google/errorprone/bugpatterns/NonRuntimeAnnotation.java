@@ -21,13 +21,15 @@ import static com.google.errorprone.BugPattern.Category.JDK;
 import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
 import static com.google.errorprone.matchers.Description.NO_MATCH;
 import static com.google.errorprone.matchers.method.MethodMatchers.instanceMethod;
+import static com.google.errorprone.matchers.method.MethodMatchers.methodNames;
 import static com.google.errorprone.util.ASTHelpers.getType;
 import static com.google.errorprone.util.ASTHelpers.getUpperBound;
 import static com.google.errorprone.util.ASTHelpers.isSameType;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.BugPattern;
 import com.google.errorprone.VisitorState;
-import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.NamedMethodInvocationTreeMatcher;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.matchers.Matcher;
 import com.sun.source.tree.ExpressionTree;
@@ -41,7 +43,7 @@ import com.sun.tools.javac.code.Type;
     summary = "Calling getAnnotation on an annotation that is not retained at runtime.",
     category = JDK,
     severity = ERROR)
-public class NonRuntimeAnnotation extends BugChecker implements MethodInvocationTreeMatcher {
+public class NonRuntimeAnnotation extends BugChecker implements NamedMethodInvocationTreeMatcher {
 
   private static final Matcher<ExpressionTree> MATCHER =
       instanceMethod()
@@ -49,6 +51,11 @@ public class NonRuntimeAnnotation extends BugChecker implements MethodInvocation
           .named("getAnnotation")
           .withParameters("java.lang.Class");
 
+  @Override
+  public ImmutableSet<String> matchedMethodNames() {
+    return methodNames(MATCHER);
+  }
+
   @Override
   public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
     if (!MATCHER.matches(tree, state)) {
@@ -34,7 +34,6 @@ import com.google.errorprone.matchers.Description;
 import com.google.errorprone.util.ASTHelpers;
 import com.google.errorprone.util.Comments;
 import com.google.errorprone.util.ErrorProneToken;
-import com.google.errorprone.util.ErrorProneTokens;
 import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.MethodInvocationTree;
 import com.sun.source.tree.NewClassTree;
@@ -88,14 +87,13 @@ public class ParameterName extends BugChecker
       // fast path if the arguments don't contain anything that looks like a comment
       return;
     }
-    Deque<ErrorProneToken> tokens =
-        new ArrayDeque<>(ErrorProneTokens.getTokens(source, state.context));
+    Deque<ErrorProneToken> tokens = new ArrayDeque<>(state.getOffsetTokens(start, end));
     forEachPair(
         sym.getParameters().stream(),
         arguments.stream(),
         (p, a) -> {
           while (!tokens.isEmpty()
-              && ((start + tokens.peekFirst().pos()) < ((JCTree) a).getStartPosition())) {
+              && (tokens.peekFirst().pos() < ((JCTree) a).getStartPosition())) {
             tokens.removeFirst();
           }
           if (tokens.isEmpty()) {
@@ -103,17 +101,16 @@ public class ParameterName extends BugChecker
           }
           Range<Integer> argRange =
               Range.closedOpen(((JCTree) a).getStartPosition(), state.getEndPosition(a));
-          if (!argRange.contains(start + tokens.peekFirst().pos())) {
+          if (!argRange.contains(tokens.peekFirst().pos())) {
             return;
           }
-          checkArgument(p, a, start, tokens.removeFirst(), state);
+          checkArgument(p, a, tokens.removeFirst(), state);
         });
   }
 
   private void checkArgument(
       VarSymbol formal,
       ExpressionTree actual,
-      int start,
       ErrorProneToken token,
       VisitorState state) {
     List<Comment> matches = new ArrayList<>();
@@ -143,8 +140,8 @@ public class ParameterName extends BugChecker
                       match.getText(), formal.getSimpleName()))
               .addFix(
                   SuggestedFix.replace(
-                      start + match.getSourcePos(0),
-                      start + match.getSourcePos(match.getText().length() - 1) + 1,
+                      match.getSourcePos(0),
+                      match.getSourcePos(match.getText().length() - 1) + 1,
                       String.format("/* %s= */", formal.getSimpleName())))
               .build());
     }
@@ -68,6 +68,7 @@ import javax.annotation.Nullable;
 /** Matches comparison of proto fields to {@code null}. */
 @BugPattern(
     name = "ProtoFieldNullComparison",
+    requiredTypes = "com.google.protobuf.MessageLite",
     summary = "Protobuf fields cannot be null.",
     category = PROTOBUF,
     severity = ERROR,
@@ -18,11 +18,13 @@ package com.google.errorprone.bugpatterns;
 
 import static com.google.errorprone.BugPattern.SeverityLevel.WARNING;
 import static com.google.errorprone.matchers.Description.NO_MATCH;
+import static com.google.errorprone.matchers.method.MethodMatchers.methodNames;
 import static com.google.errorprone.matchers.method.MethodMatchers.staticMethod;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.BugPattern;
 import com.google.errorprone.VisitorState;
-import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.NamedMethodInvocationTreeMatcher;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.matchers.Matcher;
 import com.sun.source.tree.ExpressionTree;
@@ -35,11 +37,16 @@ import com.sun.source.tree.TryTree;
     name = "ReachabilityFenceUsage",
     summary = "reachabilityFence should always be called inside a finally block",
     severity = WARNING)
-public class ReachabilityFenceUsage extends BugChecker implements MethodInvocationTreeMatcher {
+public class ReachabilityFenceUsage extends BugChecker implements NamedMethodInvocationTreeMatcher {
 
   private static final Matcher<ExpressionTree> FENCE_MATCHER =
       staticMethod().onClass("java.lang.ref.Reference").named("reachabilityFence");
 
+  @Override
+  public ImmutableSet<String> matchedMethodNames() {
+    return methodNames(FENCE_MATCHER);
+  }
+
   @Override
   public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
     if (!FENCE_MATCHER.matches(tree, state)) {
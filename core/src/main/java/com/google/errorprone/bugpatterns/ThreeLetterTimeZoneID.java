@@ -18,13 +18,15 @@ package com.google.errorprone.bugpatterns;
 
 import static com.google.errorprone.BugPattern.Category.JDK;
 import static com.google.errorprone.BugPattern.SeverityLevel.WARNING;
+import static com.google.errorprone.matchers.method.MethodMatchers.methodNames;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.BugPattern;
 import com.google.errorprone.BugPattern.ProvidesFix;
 import com.google.errorprone.VisitorState;
-import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.NamedMethodInvocationTreeMatcher;
 import com.google.errorprone.fixes.SuggestedFix;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.matchers.Matcher;
@@ -44,7 +46,7 @@ import java.util.concurrent.TimeUnit;
     category = JDK,
     severity = WARNING,
     providesFix = ProvidesFix.REQUIRES_HUMAN_ATTENTION)
-public class ThreeLetterTimeZoneID extends BugChecker implements MethodInvocationTreeMatcher {
+public class ThreeLetterTimeZoneID extends BugChecker implements NamedMethodInvocationTreeMatcher {
   static final String SUMMARY =
       "Three-letter time zone identifiers are deprecated, may be ambiguous, and might not do what "
           + "you intend; the full IANA time zone ID should be used instead.";
@@ -59,6 +61,11 @@ public class ThreeLetterTimeZoneID extends BugChecker implements MethodInvocatio
           .onClass("org.joda.time.DateTimeZone")
           .withSignature("forTimeZone(java.util.TimeZone)");
 
+  @Override
+  public ImmutableSet<String> matchedMethodNames() {
+    return methodNames(METHOD_MATCHER);
+  }
+
   @Override
   public Description matchMethodInvocation(MethodInvocationTree tree, final VisitorState state) {
     if (!METHOD_MATCHER.matches(tree, state)) {
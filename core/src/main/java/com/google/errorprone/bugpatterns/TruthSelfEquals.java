@@ -44,6 +44,7 @@ import java.util.regex.Pattern;
  */
 @BugPattern(
     name = "TruthSelfEquals",
+    requiredTypes = "com.google.common.truth.Subject",
     summary =
         "isEqualTo should not be used to test an object for equality with itself; the"
             + " assertion will never fail.",
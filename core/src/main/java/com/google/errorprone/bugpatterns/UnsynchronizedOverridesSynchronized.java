@@ -60,7 +60,7 @@ public class UnsynchronizedOverridesSynchronized extends BugChecker implements M
     if (isSynchronized(methodSymbol)) {
       return NO_MATCH;
     }
-    for (MethodSymbol s : ASTHelpers.findSuperMethods(methodSymbol, state.getTypes())) {
+    for (MethodSymbol s : ASTHelpers.findSuperMethods(methodSymbol, state)) {
       if (isSynchronized(s)) {
         // Input streams are typically not used across threads, so this case isn't
         // worth enforcing.
@@ -52,6 +52,7 @@ import com.google.errorprone.matchers.Matcher;
 import com.google.errorprone.suppliers.Supplier;
 import com.google.errorprone.suppliers.Suppliers;
 import com.google.errorprone.util.ASTHelpers;
+import com.google.errorprone.util.SymbolIndex;
 import com.sun.source.tree.AnnotationTree;
 import com.sun.source.tree.ArrayAccessTree;
 import com.sun.source.tree.AssignmentTree;
@@ -738,46 +739,48 @@ public final class Unused extends BugChecker implements CompilationUnitTreeMatch
     for (TreePath path : usagePaths) {
       fix.delete(path.getLeaf());
     }
-    new TreePathScanner<Void, Void>() {
-      @Override
-      public Void visitMethodInvocation(MethodInvocationTree tree, Void unused) {
-        if (getSymbol(tree).equals(methodSymbol)) {
-          removeByIndex(tree.getArguments());
-        }
-        return super.visitMethodInvocation(tree, null);
-      }
-
-      @Override
-      public Void visitMethod(MethodTree tree, Void unused) {
-        if (getSymbol(tree).equals(methodSymbol)) {
-          removeByIndex(tree.getParameters());
-        }
-        return super.visitMethod(tree, null);
-      }
-
-      private void removeByIndex(List<? extends Tree> trees) {
-        if (trees.size() == 1) {
-          fix.delete(getOnlyElement(trees));
-          return;
-        }
-        int startPos;
-        int endPos;
-        if (index >= 1) {
-          startPos = state.getEndPosition(trees.get(index - 1));
-          endPos = state.getEndPosition(trees.get(index));
-        } else {
-          startPos = ((JCTree) trees.get(index)).getStartPosition();
-          endPos = ((JCTree) trees.get(index + 1)).getStartPosition();
-        }
-        if (index == methodSymbol.params().size() - 1 && methodSymbol.isVarArgs()) {
-          endPos = state.getEndPosition(getLast(trees));
-        }
-        fix.replace(startPos, endPos, "");
+    SymbolIndex symbolIndex = state.getSymbolIndex();
+    TreePath declaration = symbolIndex.getDeclaration(methodSymbol);
+    if (declaration != null) {
+      removeByIndex(
+          fix, methodSymbol, ((MethodTree) declaration.getLeaf()).getParameters(), index, state);
+    }
+    for (SymbolIndex.Reference reference : symbolIndex.getReferences(methodSymbol)) {
+      Tree parent = reference.path().getParentPath().getLeaf();
+      if (parent instanceof MethodInvocationTree
+          && ((MethodInvocationTree) parent).getMethodSelect() == reference.path().getLeaf()) {
+        removeByIndex(
+            fix, methodSymbol, ((MethodInvocationTree) parent).getArguments(), index, state);
       }
-    }.scan(state.getPath().getCompilationUnit(), null);
+    }
     return ImmutableList.of(fix.build());
   }
 
+  private static void removeByIndex(
+      SuggestedFix.Builder fix,
+      MethodSymbol methodSymbol,
+      List<? extends Tree> trees,
+      int index,
+      VisitorState state) {
+    if (trees.size() == 1) {
+      fix.delete(getOnlyElement(trees));
+      return;
+    }
+    int startPos;
+    int endPos;
+    if (index >= 1) {
+      startPos = state.getEndPosition(trees.get(index - 1));
+      endPos = state.getEndPosition(trees.get(index));
+    } else {
+      startPos = ((JCTree) trees.get(index)).getStartPosition();
+      endPos = ((JCTree) trees.get(index + 1)).getStartPosition();
+    }
+    if (index == methodSymbol.params().size() - 1 && methodSymbol.isVarArgs()) {
+      endPos = state.getEndPosition(getLast(trees));
+    }
+    fix.replace(startPos, endPos, "");
+  }
+
   /**
    * Replaces the tree at {@code path} along with any Javadocs/associated single-line comments.
    *
@@ -17,8 +17,10 @@
 package com.google.errorprone.bugpatterns.android;
 
 import static com.google.errorprone.matchers.Description.NO_MATCH;
+import static com.google.errorprone.matchers.method.MethodMatchers.methodNames;
 import static com.google.errorprone.util.ASTHelpers.findEnclosingNode;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.BugPattern;
 import com.google.errorprone.BugPattern.Category;
 import com.google.errorprone.BugPattern.ProvidesFix;
@@ -26,7 +28,7 @@ import com.google.errorprone.BugPattern.SeverityLevel;
 import com.google.errorprone.BugPattern.StandardTags;
 import com.google.errorprone.VisitorState;
 import com.google.errorprone.bugpatterns.BugChecker;
-import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.NamedMethodInvocationTreeMatcher;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.matchers.Matcher;
 import com.google.errorprone.matchers.method.MethodMatchers;
@@ -37,6 +39,7 @@ import com.sun.source.tree.TryTree;
 /** @author pvisontay@google.com */
 @BugPattern(
     name = "BinderIdentityRestoredDangerously",
+    requiredTypes = "android.os.Binder",
     tags = StandardTags.FRAGILE_CODE,
     summary =
         "A call to Binder.clearCallingIdentity() should be followed by "
@@ -46,12 +49,17 @@ import com.sun.source.tree.TryTree;
     category = Category.ANDROID,
     providesFix = ProvidesFix.NO_FIX)
 public class BinderIdentityRestoredDangerously extends BugChecker
-    implements MethodInvocationTreeMatcher {
+    implements NamedMethodInvocationTreeMatcher {
 
   private static final String BINDER_CLASS_NAME = "android.os.Binder";
   private static final Matcher<ExpressionTree> RESTORE_IDENTITY_METHOD =
       MethodMatchers.staticMethod().onClass(BINDER_CLASS_NAME).named("restoreCallingIdentity");
 
+  @Override
+  public ImmutableSet<String> matchedMethodNames() {
+    return methodNames(RESTORE_IDENTITY_METHOD);
+  }
+
   @Override
   public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
     if (!RESTORE_IDENTITY_METHOD.matches(tree, state)) {
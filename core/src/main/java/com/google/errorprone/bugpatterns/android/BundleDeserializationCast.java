@@ -45,6 +45,7 @@ import com.sun.tools.javac.code.Types;
 /** @author epmjohnston@google.com (Emily P.M. Johnston) */
 @BugPattern(
     name = "BundleDeserializationCast",
+    requiredTypes = "android.os.Bundle",
     summary = "Object serialized in Bundle may have been flattened to base type.",
     category = ANDROID,
     severity = ERROR)
@@ -55,6 +55,7 @@ import javax.lang.model.element.Modifier;
 /** @author epmjohnston@google.com (Emily P.M. Johnston) */
 @BugPattern(
     name = "FragmentInjection",
+    requiredTypes = "android.preference.PreferenceActivity",
     summary =
         "Classes extending PreferenceActivity must implement isValidFragment such that it does not"
             + " unconditionally return true to prevent vulnerability to fragment injection"
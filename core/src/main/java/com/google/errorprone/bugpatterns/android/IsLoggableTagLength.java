@@ -25,6 +25,7 @@ import static com.google.errorprone.matchers.Matchers.hasModifier;
 import static com.google.errorprone.matchers.Matchers.kindIs;
 import static com.google.errorprone.matchers.Matchers.receiverOfInvocation;
 import static com.google.errorprone.matchers.method.MethodMatchers.instanceMethod;
+import static com.google.errorprone.matchers.method.MethodMatchers.methodNames;
 import static com.google.errorprone.matchers.method.MethodMatchers.staticMethod;
 import static com.google.errorprone.util.ASTHelpers.getReceiver;
 import static com.google.errorprone.util.ASTHelpers.getSymbol;
@@ -32,10 +33,11 @@ import static com.sun.source.tree.Tree.Kind.IDENTIFIER;
 import static javax.lang.model.element.Modifier.FINAL;
 
 import com.google.common.base.Utf8;
+import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.BugPattern;
 import com.google.errorprone.VisitorState;
 import com.google.errorprone.bugpatterns.BugChecker;
-import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.NamedMethodInvocationTreeMatcher;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.matchers.Matcher;
 import com.google.errorprone.util.ASTHelpers;
@@ -51,10 +53,11 @@ import com.sun.tools.javac.code.Symbol.VarSymbol;
 /** @author epmjohnston@google.com (Emily P.M. Johnston) */
 @BugPattern(
     name = "IsLoggableTagLength",
+    requiredTypes = "android.util.Log",
     summary = "Log tag too long, cannot exceed 23 characters.",
     category = ANDROID,
     severity = ERROR)
-public class IsLoggableTagLength extends BugChecker implements MethodInvocationTreeMatcher {
+public class IsLoggableTagLength extends BugChecker implements NamedMethodInvocationTreeMatcher {
 
   private static final Matcher<ExpressionTree> IS_LOGGABLE_CALL =
       staticMethod().onClass("android.util.Log").named("isLoggable");
@@ -63,6 +66,11 @@ public class IsLoggableTagLength extends BugChecker implements MethodInvocationT
   private static final Matcher<MethodInvocationTree> RECEIVER_IS_CLASS_LITERAL =
       receiverOfInvocation(classLiteral(anything()));
 
+  @Override
+  public ImmutableSet<String> matchedMethodNames() {
+    return methodNames(IS_LOGGABLE_CALL);
+  }
+
   @Override
   public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
     if (!IS_LOGGABLE_CALL.matches(tree, state)) {
@@ -52,6 +52,7 @@ import javax.lang.model.element.Modifier;
  */
 @BugPattern(
     name = "ParcelableCreator",
+    requiredTypes = "android.os.Parcelable",
     summary = "Detects classes which implement Parcelable but don't have CREATOR",
     category = Category.ANDROID,
     severity = SeverityLevel.ERROR,
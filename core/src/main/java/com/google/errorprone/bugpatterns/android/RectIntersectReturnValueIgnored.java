@@ -31,6 +31,7 @@ import com.sun.source.tree.MethodInvocationTree;
 /** @author avenet@google.com (Arnaud J. Venet) */
 @BugPattern(
     name = "RectIntersectReturnValueIgnored",
+    requiredTypes = "android.graphics.Rect",
     summary = "Return value of android.graphics.Rect.intersect() must be checked",
     category = ANDROID,
     severity = ERROR)
@@ -186,7 +186,7 @@ public final class RestrictToEnforcer extends BugChecker
   }
 
   private Description matchMethodSymbol(Tree tree, MethodSymbol method, VisitorState state) {
-    for (MethodSymbol superSymbol : ASTHelpers.findSuperMethods(method, state.getTypes())) {
+    for (MethodSymbol superSymbol : ASTHelpers.findSuperMethods(method, state)) {
       if (methodIsRestricted(superSymbol, state)) {
         return describe(tree, superSymbol, state);
       }
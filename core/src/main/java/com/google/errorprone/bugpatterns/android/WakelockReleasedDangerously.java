@@ -18,6 +18,7 @@ package com.google.errorprone.bugpatterns.android;
 
 import static com.google.errorprone.matchers.Description.NO_MATCH;
 import static com.google.errorprone.matchers.Matchers.instanceMethod;
+import static com.google.errorprone.matchers.method.MethodMatchers.methodNames;
 import static com.google.errorprone.util.ASTHelpers.constValue;
 import static com.google.errorprone.util.ASTHelpers.findEnclosingNode;
 import static com.google.errorprone.util.ASTHelpers.getReceiver;
@@ -26,6 +27,7 @@ import static com.google.errorprone.util.ASTHelpers.getType;
 
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableMultimap.Builder;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Streams;
 import com.google.errorprone.BugPattern;
 import com.google.errorprone.BugPattern.Category;
@@ -34,7 +36,7 @@ import com.google.errorprone.BugPattern.SeverityLevel;
 import com.google.errorprone.BugPattern.StandardTags;
 import com.google.errorprone.VisitorState;
 import com.google.errorprone.bugpatterns.BugChecker;
-import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.NamedMethodInvocationTreeMatcher;
 import com.google.errorprone.fixes.SuggestedFix;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.matchers.Matcher;
@@ -60,6 +62,7 @@ import com.sun.tools.javac.code.Types;
 /** @author epmjohnston@google.com */
 @BugPattern(
     name = "WakelockReleasedDangerously",
+    requiredTypes = "android.os.PowerManager.WakeLock",
     tags = StandardTags.FRAGILE_CODE,
     summary =
         "A wakelock acquired with a timeout may be released by the system before calling"
@@ -68,12 +71,18 @@ import com.sun.tools.javac.code.Types;
     severity = SeverityLevel.WARNING,
     category = Category.ANDROID,
     providesFix = ProvidesFix.REQUIRES_HUMAN_ATTENTION)
-public class WakelockReleasedDangerously extends BugChecker implements MethodInvocationTreeMatcher {
+public class WakelockReleasedDangerously extends BugChecker
+    implements NamedMethodInvocationTreeMatcher {
 
   private static final String WAKELOCK_CLASS_NAME = "android.os.PowerManager.WakeLock";
   private static final Matcher<ExpressionTree> RELEASE =
       MethodMatchers.instanceMethod().onExactClass(WAKELOCK_CLASS_NAME).named("release");
 
+  @Override
+  public ImmutableSet<String> matchedMethodNames() {
+    return methodNames(RELEASE);
+  }
+
   @Override
   public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
     // Match on calls to any override of WakeLock.release().
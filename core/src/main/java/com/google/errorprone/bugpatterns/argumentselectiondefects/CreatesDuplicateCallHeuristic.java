@@ -107,7 +107,7 @@ class CreatesDuplicateCallHeuristic implements Heuristic {
 
           // if any supermethod of the one declared here is the one we are calling then add it
           for (MethodSymbol superSymbol :
-              ASTHelpers.findSuperMethods(methodSymbol, state.getTypes())) {
+              ASTHelpers.findSuperMethods(methodSymbol, state)) {
             addToResult(superSymbol, methodTree);
           }
         }
@@ -59,7 +59,7 @@ public class OverridesJavaxInjectableMethod extends BugChecker implements Method
 
     boolean foundJavaxInject = false;
     for (MethodSymbol superMethod :
-        ASTHelpers.findSuperMethods(ASTHelpers.getSymbol(methodTree), state.getTypes())) {
+        ASTHelpers.findSuperMethods(ASTHelpers.getSymbol(methodTree), state)) {
 
       // With a Guice annotation, Guice will still inject the subclass-overridden method.
       if (ASTHelpers.hasAnnotation(superMethod, GUICE_INJECT_ANNOTATION, state)) {
@@ -45,10 +45,18 @@ final class Utils {
     String bestMatch = null;
     int minDistance = Integer.MAX_VALUE;
     for (String choice : choices) {
-      int distance = getEditDistance(to, choice);
+      int distance =
+          getEditDistance(
+              to,
+              choice,
+              /* caseSensitive= */ true,
+              /* maxDistance= */ Math.min(minDistance, EDIT_LIMIT) - 1);
       if (distance < minDistance && distance < EDIT_LIMIT) {
         bestMatch = choice;
         minDistance = distance;
+        if (minDistance == 0) {
+          break;
+        }
       }
     }
     return Optional.ofNullable(bestMatch);
@@ -100,10 +100,10 @@ public abstract class AbstractLockMethodChecker extends BugChecker
 
   private static Optional<ImmutableSet<GuardedByExpression>> parseLockExpressions(
       List<String> lockExpressions, Tree tree, VisitorState state) {
+    GuardedByBindings bindings = GuardedByBindings.instance(state);
     ImmutableSet.Builder<GuardedByExpression> builder = ImmutableSet.builder();
     for (String lockExpression : lockExpressions) {
-      Optional<GuardedByExpression> guard =
-          GuardedByBinder.bindString(lockExpression, GuardedBySymbolResolver.from(tree, state));
+      Optional<GuardedByExpression> guard = bindings.bind(tree, lockExpression, state);
       if (!guard.isPresent()) {
         return Optional.empty();
       }
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.bugpatterns.threadsafety;
+
+import com.google.errorprone.SubContext;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.util.Context;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The bound {@link GuardedByExpression}s of the lock expressions in {@code @GuardedBy}, {@code
+ * LockMethod} and {@code UnlockMethod} annotations, for the duration of the scan of a compilation
+ * unit.
+ *
+ * <p>Binding a lock expression parses the string and resolves it against the members of the
+ * annotated symbol's class, but the same guarded field is typically accessed many times. The
+ * result only depends on the annotated symbol, the string and the compilation unit (whose imports
+ * are used to resolve type names), so it is shared by all accesses and all the checks in the {@code
+ * threadsafety} package.
+ */
+final class GuardedByBindings {
+
+  private static final Context.Key<GuardedByBindings> KEY = new Context.Key<>();
+
+  static GuardedByBindings instance(VisitorState state) {
+    Context context = SubContext.compilationContext(state.context);
+    GuardedByBindings instance = context.get(KEY);
+    if (instance == null) {
+      instance = new GuardedByBindings();
+      context.put(KEY, instance);
+    }
+    instance.reset(state.getPath().getCompilationUnit());
+    return instance;
+  }
+
+  private CompilationUnitTree compilationUnit;
+
+  /** The bound lock expressions, keyed by annotated symbol and lock expression string. */
+  private final Map<Symbol, Map<String, Optional<GuardedByExpression>>> bindings = new HashMap<>();
+
+  private GuardedByBindings() {}
+
+  private void reset(CompilationUnitTree compilationUnit) {
+    if (this.compilationUnit != compilationUnit) {
+      this.compilationUnit = compilationUnit;
+      bindings.clear();
+    }
+  }
+
+  /**
+   * Binds a lock expression from an annotation on the symbol of {@code tree}, as {@link
+   * GuardedByBinder#bindString} does with a {@link GuardedBySymbolResolver} for {@code tree}.
+   */
+  Optional<GuardedByExpression> bind(Tree tree, String guard, VisitorState state) {
+    Symbol sym = ASTHelpers.getSymbol(tree);
+    if (sym == null) {
+      return GuardedByBinder.bindString(guard, GuardedBySymbolResolver.from(tree, state));
+    }
+    Map<String, Optional<GuardedByExpression>> guards =
+        bindings.computeIfAbsent(sym, s -> new HashMap<>());
+    Optional<GuardedByExpression> bound = guards.get(guard);
+    if (bound == null) {
+      bound = GuardedByBinder.bindString(guard, GuardedBySymbolResolver.from(tree, state));
+      guards.put(guard, bound);
+    }
+    return bound;
+  }
+}
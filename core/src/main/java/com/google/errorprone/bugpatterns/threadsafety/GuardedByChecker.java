@@ -30,9 +30,9 @@ import com.google.errorprone.bugpatterns.BugChecker.VariableTreeMatcher;
 import com.google.errorprone.bugpatterns.threadsafety.GuardedByExpression.Kind;
 import com.google.errorprone.bugpatterns.threadsafety.GuardedByExpression.Select;
 import com.google.errorprone.bugpatterns.threadsafety.GuardedByUtils.GuardedByValidationResult;
+import com.google.errorprone.bugpatterns.threadsafety.HeldLockAnalyzer.GuardedAccess;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.util.ASTHelpers;
-import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.LambdaExpressionTree;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
@@ -67,16 +67,32 @@ public class GuardedByChecker extends BugChecker
 
   @Override
   public Description matchLambdaExpression(LambdaExpressionTree tree, VisitorState state) {
-    analyze(state.withPath(new TreePath(state.getPath(), tree.getBody())));
+    analyze(state);
     return NO_MATCH;
   }
 
+  /**
+   * Checks the guarded accesses in the body of the method or lambda expression at the current path.
+   * The held locks of all the bodies in a class are computed once, and shared between the matches.
+   */
   private void analyze(final VisitorState state) {
-    HeldLockAnalyzer.analyze(
-        state,
-        (ExpressionTree tree, GuardedByExpression guard, HeldLockSet live) ->
-            report(GuardedByChecker.this.checkGuardedAccess(tree, guard, live, state), state),
-        this::isSuppressed);
+    for (GuardedAccess access : HeldLockAnalyzer.guardedAccesses(state)) {
+      if (inSuppressedVariable(access.path())) {
+        continue;
+      }
+      report(
+          checkGuardedAccess(access.path().getLeaf(), access.guard(), access.locks(), state),
+          state);
+    }
+  }
+
+  private boolean inSuppressedVariable(TreePath path) {
+    for (; path != null; path = path.getParentPath()) {
+      if (path.getLeaf() instanceof VariableTree && isSuppressed(path.getLeaf())) {
+        return true;
+      }
+    }
+    return false;
   }
 
   @Override
@@ -129,7 +129,7 @@ public class GuardedByUtils {
     List<GuardedByExpression> boundGuards = new ArrayList<>();
     for (String guard : guards) {
       Optional<GuardedByExpression> boundGuard =
-          GuardedByBinder.bindString(guard, GuardedBySymbolResolver.from(tree, state));
+          GuardedByBindings.instance(state).bind(tree, guard, state);
       if (!boundGuard.isPresent()) {
         return GuardedByValidationResult.invalid("could not resolve guard");
       }
@@ -156,7 +156,7 @@ public class GuardedByUtils {
 
   public static Symbol bindGuardedByString(Tree tree, String guard, VisitorState visitorState) {
     Optional<GuardedByExpression> bound =
-        GuardedByBinder.bindString(guard, GuardedBySymbolResolver.from(tree, visitorState));
+        GuardedByBindings.instance(visitorState).bind(tree, guard, visitorState);
     if (!bound.isPresent()) {
       return null;
     }
@@ -23,6 +23,9 @@ import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.MultimapBuilder;
+import com.google.errorprone.SubContext;
 import com.google.errorprone.VisitorState;
 import com.google.errorprone.annotations.concurrent.UnlockMethod;
 import com.google.errorprone.bugpatterns.threadsafety.GuardedByExpression.Kind;
@@ -30,6 +33,8 @@ import com.google.errorprone.bugpatterns.threadsafety.GuardedByExpression.Select
 import com.google.errorprone.matchers.Matcher;
 import com.google.errorprone.matchers.Matchers;
 import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.IdentifierTree;
 import com.sun.source.tree.LambdaExpressionTree;
@@ -41,6 +46,7 @@ import com.sun.source.tree.SynchronizedTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.TryTree;
 import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreePath;
 import com.sun.source.util.TreePathScanner;
 import com.sun.source.util.TreeScanner;
 import com.sun.tools.javac.code.Symbol;
@@ -48,6 +54,7 @@ import com.sun.tools.javac.code.Symbol.ClassSymbol;
 import com.sun.tools.javac.tree.JCTree;
 import com.sun.tools.javac.tree.JCTree.JCExpression;
 import com.sun.tools.javac.tree.JCTree.JCNewClass;
+import com.sun.tools.javac.util.Context;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -84,16 +91,84 @@ public class HeldLockAnalyzer {
   public static void analyze(
       VisitorState state, LockEventListener listener, Predicate<Tree> isSuppressed) {
     HeldLockSet locks = HeldLockSet.empty();
-    locks = handleMonitorGuards(state, locks);
+    locks = handleMonitorGuards(state.getPath(), state, locks);
     new LockScanner(state, listener, isSuppressed).scan(state.getPath(), locks);
   }
 
+  /** An access to a guarded member, and the locks that are held at the access. */
+  @AutoValue
+  abstract static class GuardedAccess {
+
+    /** The path to the member access expression. */
+    abstract TreePath path();
+
+    /** The member's guard expression. */
+    abstract GuardedByExpression guard();
+
+    /** The set of held locks. */
+    abstract HeldLockSet locks();
+
+    static GuardedAccess create(TreePath path, GuardedByExpression guard, HeldLockSet locks) {
+      return new AutoValue_HeldLockAnalyzer_GuardedAccess(path, guard, locks);
+    }
+  }
+
+  /**
+   * Returns the accesses to guarded members in the body of the method or lambda expression at the
+   * current path of {@code state}, in the same way as {@link #analyze} would find them.
+   *
+   * <p>The bodies of all the methods and lambda expressions in a top-level class, including those
+   * in nested, local and anonymous classes, are analyzed in a single traversal the first time this
+   * is called for one of them. Accesses in local variables that are suppressed are not filtered.
+   */
+  static List<GuardedAccess> guardedAccesses(VisitorState state) {
+    TreePath path = state.getPath();
+    TreePath topLevelClass = path;
+    while (topLevelClass.getParentPath() != null
+        && !(topLevelClass.getParentPath().getLeaf() instanceof CompilationUnitTree)) {
+      topLevelClass = topLevelClass.getParentPath();
+    }
+    return ClassAnalysis.instance(state.context)
+        .forClass(topLevelClass, state)
+        .get(path.getLeaf());
+  }
+
+  /** The guarded accesses in the top-level class that is being scanned, keyed by body. */
+  private static final class ClassAnalysis {
+
+    private static final Context.Key<ClassAnalysis> KEY = new Context.Key<>();
+
+    static ClassAnalysis instance(Context context) {
+      context = SubContext.compilationContext(context);
+      ClassAnalysis instance = context.get(KEY);
+      if (instance == null) {
+        instance = new ClassAnalysis();
+        context.put(KEY, instance);
+      }
+      return instance;
+    }
+
+    private Tree topLevelClass;
+    private ListMultimap<Tree, GuardedAccess> accesses;
+
+    ListMultimap<Tree, GuardedAccess> forClass(TreePath topLevelClass, VisitorState state) {
+      if (this.topLevelClass != topLevelClass.getLeaf()) {
+        ClassLockScanner scanner = new ClassLockScanner(state);
+        scanner.scan(topLevelClass, HeldLockSet.empty());
+        this.topLevelClass = topLevelClass.getLeaf();
+        this.accesses = scanner.accesses;
+      }
+      return accesses;
+    }
+  }
+
   // Don't use Class#getName() for inner classes, we don't want `Monitor$Guard`
   private static final String MONITOR_GUARD_CLASS =
       "com.google.common.util.concurrent.Monitor.Guard";
 
-  private static HeldLockSet handleMonitorGuards(VisitorState state, HeldLockSet locks) {
-    JCNewClass newClassTree = ASTHelpers.findEnclosingNode(state.getPath(), JCNewClass.class);
+  private static HeldLockSet handleMonitorGuards(
+      TreePath path, VisitorState state, HeldLockSet locks) {
+    JCNewClass newClassTree = ASTHelpers.findEnclosingNode(path, JCNewClass.class);
     if (newClassTree == null) {
       return locks;
     }
@@ -115,9 +190,10 @@ public class HeldLockAnalyzer {
 
   private static class LockScanner extends TreePathScanner<Void, HeldLockSet> {
 
-    private final VisitorState visitorState;
     private final LockEventListener listener;
     private final Predicate<Tree> isSuppressed;
+    private final GuardedByBindings bindings;
+    VisitorState visitorState;
 
     private static final GuardedByExpression.Factory F = new GuardedByExpression.Factory();
 
@@ -126,6 +202,7 @@ public class HeldLockAnalyzer {
       this.visitorState = visitorState;
       this.listener = listener;
       this.isSuppressed = isSuppressed;
+      this.bindings = GuardedByBindings.instance(visitorState);
     }
 
     @Override
@@ -143,8 +220,7 @@ public class HeldLockAnalyzer {
       // @GuardedBy annotations on methods are trusted for declarations, and checked
       // for invocations.
       for (String guard : GuardedByUtils.getGuardValues(tree, visitorState)) {
-        Optional<GuardedByExpression> bound =
-            GuardedByBinder.bindString(guard, GuardedBySymbolResolver.from(tree, visitorState));
+        Optional<GuardedByExpression> bound = bindings.bind(tree, guard, visitorState);
         if (bound.isPresent()) {
           locks = locks.plus(bound.get());
         }
@@ -225,7 +301,8 @@ public class HeldLockAnalyzer {
 
     private void checkMatch(ExpressionTree tree, HeldLockSet locks) {
       for (String guardString : GuardedByUtils.getGuardValues(tree, visitorState)) {
-        GuardedByBinder.bindString(guardString, GuardedBySymbolResolver.from(tree, visitorState))
+        bindings
+            .bind(tree, guardString, visitorState)
             .ifPresent(
                 guard -> {
                   Optional<GuardedByExpression> boundGuard =
@@ -233,14 +310,90 @@ public class HeldLockAnalyzer {
                   if (!boundGuard.isPresent()) {
                     // We couldn't resolve a guarded by expression in the current scope, so we can't
                     // guarantee the access is protected and must report an error to be safe.
-                    listener.handleGuardedAccess(
+                    handleGuardedAccess(
                         tree, new GuardedByExpression.Factory().error(guardString), locks);
                     return;
                   }
-                  listener.handleGuardedAccess(tree, boundGuard.get(), locks);
+                  handleGuardedAccess(tree, boundGuard.get(), locks);
                 });
       }
     }
+
+    void handleGuardedAccess(ExpressionTree tree, GuardedByExpression guard, HeldLockSet locks) {
+      listener.handleGuardedAccess(tree, guard, locks);
+    }
+  }
+
+  /**
+   * A {@link LockScanner} for a whole class, which records the guarded accesses in each method and
+   * lambda body instead of skipping nested bodies. Every body starts out holding only the locks of
+   * an enclosing {@code Monitor.Guard}, as if it had been analyzed separately by {@link #analyze}.
+   */
+  private static class ClassLockScanner extends LockScanner {
+
+    private final ListMultimap<Tree, GuardedAccess> accesses =
+        MultimapBuilder.hashKeys().arrayListValues().build();
+
+    /** The method or lambda expression being analyzed, or {@code null} in initializers. */
+    private Tree body;
+
+    private ClassLockScanner(VisitorState visitorState) {
+      super(visitorState, /* listener= */ null, /* isSuppressed= */ tree -> false);
+    }
+
+    @Override
+    public Void visitClass(ClassTree tree, HeldLockSet locks) {
+      VisitorState enclosingState = visitorState;
+      Tree enclosingBody = body;
+      visitorState = visitorState.withPath(getCurrentPath());
+      body = null;
+      try {
+        return super.visitClass(tree, HeldLockSet.empty());
+      } finally {
+        visitorState = enclosingState;
+        body = enclosingBody;
+      }
+    }
+
+    @Override
+    public Void visitMethod(MethodTree tree, HeldLockSet locks) {
+      Tree enclosingBody = body;
+      body = tree;
+      try {
+        return super.visitMethod(
+            tree, handleMonitorGuards(getCurrentPath(), visitorState, HeldLockSet.empty()));
+      } finally {
+        body = enclosingBody;
+      }
+    }
+
+    @Override
+    public Void visitLambdaExpression(LambdaExpressionTree tree, HeldLockSet locks) {
+      Tree enclosingBody = body;
+      body = tree;
+      try {
+        scan(
+            tree.getBody(),
+            handleMonitorGuards(getCurrentPath(), visitorState, HeldLockSet.empty()));
+      } finally {
+        body = enclosingBody;
+      }
+      return null;
+    }
+
+    @Override
+    public Void visitNewClass(NewClassTree tree, HeldLockSet locks) {
+      super.visitNewClass(tree, locks);
+      scan(tree.getClassBody(), locks);
+      return null;
+    }
+
+    @Override
+    void handleGuardedAccess(ExpressionTree tree, GuardedByExpression guard, HeldLockSet locks) {
+      if (body != null) {
+        accesses.put(body, GuardedAccess.create(getCurrentPath(), guard, locks));
+      }
+    }
   }
 
   /** An abstraction over the lock classes we understand. */
@@ -351,7 +504,7 @@ public class HeldLockAnalyzer {
       }
       for (String lockString : annotation.value()) {
         Optional<GuardedByExpression> guard =
-            GuardedByBinder.bindString(lockString, GuardedBySymbolResolver.from(tree, state));
+            GuardedByBindings.instance(state).bind(tree, lockString, state);
         // TODO(cushon): http://docs.oracle.com/javase/8/docs/api/java/util/Optional.html#ifPresent
         if (guard.isPresent()) {
           Optional<GuardedByExpression> lock =
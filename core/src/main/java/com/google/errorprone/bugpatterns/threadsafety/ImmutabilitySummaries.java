@@ -0,0 +1,249 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.bugpatterns.threadsafety;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.CharStreams;
+import com.google.errorprone.SubContext;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.tools.javac.api.MultiTaskListener;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Log;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+import javax.tools.FileObject;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Immutability verdicts exported by the compilation of a library, so that compilations that depend
+ * on the library don't have to prove them again (see the {@code Immutable:Summaries} flag).
+ *
+ * <p>The classes that a compilation proves immutable are written to {@value #RESOURCE} in the
+ * class output. Later compilations find those summaries on the classpath, and trust them in the
+ * same way as the types in {@link WellKnownMutability}. There are two kinds of verdicts:
+ *
+ * <ul>
+ *   <li>classes annotated {@code @Immutable} (directly or by inheritance) that were checked without
+ *       findings, with their containerOf type parameters, and
+ *   <li>classes without the annotation, type parameters or an enclosing instance whose fields and
+ *       supertypes are immutable. A subclass of such a class that is annotated {@code @Immutable}
+ *       doesn't need to check the fields of its superclass again.
+ * </ul>
+ *
+ * <p>Every compilation that runs the check replaces the summary in its class output with its own
+ * verdicts, or deletes it if the compilation fails or has nothing to record, so that a stale
+ * summary is never left behind for the classes it compiled. A compilation of only part of a
+ * library, e.g. an incremental one, therefore drops the verdicts of the classes it didn't compile,
+ * and later compilations analyze those classes as usual. For the same reason, summaries on the
+ * classpath (which may be left over from a previous build of the classes being compiled) are never
+ * trusted for a class that is compiled from source in the current compilation; only its new verdict
+ * is.
+ */
+final class ImmutabilitySummaries {
+
+  /** The path of the summary in the class output, relative to the root. */
+  static final String RESOURCE = "META-INF/errorprone/immutable.summary";
+
+  private static final String RESOURCE_PACKAGE = "META-INF.errorprone";
+
+  private static final String RESOURCE_NAME = "immutable.summary";
+
+  private static final Context.Key<ImmutabilitySummaries> KEY = new Context.Key<>();
+
+  /** Marks a class that is annotated {@code @Immutable}. */
+  private static final String ANNOTATED = "A";
+
+  /** Marks a class that isn't annotated, but is effectively immutable. */
+  private static final String EFFECTIVELY_IMMUTABLE = "E";
+
+  private static final Splitter FIELD_SPLITTER = Splitter.on(' ').omitEmptyStrings();
+
+  private static final Splitter CONTAINER_OF_SPLITTER = Splitter.on(',').omitEmptyStrings();
+
+  /**
+   * Returns the summaries for the compilation that owns the given context. The summaries on the
+   * classpath are read the first time this is called in a compilation.
+   */
+  static ImmutabilitySummaries instance(Context context) {
+    context = SubContext.compilationContext(context);
+    ImmutabilitySummaries instance = context.get(KEY);
+    if (instance == null) {
+      instance = new ImmutabilitySummaries(context);
+      context.put(KEY, instance);
+    }
+    return instance;
+  }
+
+  private final Context context;
+
+  /** The annotated classes, keyed by flat name, from the classpath. */
+  private final Map<String, AnnotationInfo> annotated = new HashMap<>();
+
+  /** The flat names of effectively immutable classes, from the classpath. */
+  private final Set<String> effectivelyImmutable = new HashSet<>();
+
+  /** The annotated classes, keyed by flat name, that this compilation checked without findings. */
+  private final Map<String, AnnotationInfo> verifiedAnnotated = new HashMap<>();
+
+  /** The flat names of the classes that this compilation found to be effectively immutable. */
+  private final Set<String> verifiedEffectivelyImmutable = new HashSet<>();
+
+  /** The verdicts of this compilation, sorted so that the summary is deterministic. */
+  private final Map<String, String> verified = new TreeMap<>();
+
+  private ImmutabilitySummaries(Context context) {
+    this.context = context;
+    read();
+    MultiTaskListener.instance(context)
+        .add(
+            new TaskListener() {
+              @Override
+              public void finished(TaskEvent event) {
+                if (event.getKind() == TaskEvent.Kind.COMPILATION) {
+                  write();
+                }
+              }
+            });
+  }
+
+  /**
+   * Returns the {@code @Immutable} annotation info of the given class according to a summary, or
+   * {@code null}.
+   */
+  @Nullable
+  AnnotationInfo getImmutableAnnotation(Symbol sym) {
+    String name = sym.flatName().toString();
+    return isCompiledFromSource(sym) ? verifiedAnnotated.get(name) : annotated.get(name);
+  }
+
+  /** Returns whether a summary says that the given class is effectively immutable. */
+  boolean isEffectivelyImmutable(Symbol sym) {
+    String name = sym.flatName().toString();
+    return isCompiledFromSource(sym)
+        ? verifiedEffectivelyImmutable.contains(name)
+        : effectivelyImmutable.contains(name);
+  }
+
+  /** Returns whether the given class is compiled from source in this compilation. */
+  private static boolean isCompiledFromSource(Symbol sym) {
+    ClassSymbol outermost = sym.outermostClass();
+    return outermost != null
+        && outermost.classfile != null
+        && outermost.classfile.getKind() == JavaFileObject.Kind.SOURCE;
+  }
+
+  /** Records that a class annotated {@code @Immutable} was checked without findings. */
+  void recordImmutable(ClassSymbol sym, AnnotationInfo annotation) {
+    String name = sym.flatName().toString();
+    verifiedAnnotated.put(name, annotation);
+    verified.put(
+        name,
+        Joiner.on(' ')
+            .join(
+                ANNOTATED,
+                annotation.typeName(),
+                Joiner.on(',').join(ImmutableSet.copyOf(annotation.containerOf()))));
+  }
+
+  /** Records that a class without the {@code @Immutable} annotation is effectively immutable. */
+  void recordEffectivelyImmutable(ClassSymbol sym) {
+    String name = sym.flatName().toString();
+    verifiedEffectivelyImmutable.add(name);
+    verified.put(name, EFFECTIVELY_IMMUTABLE);
+  }
+
+  private void read() {
+    JavaFileManager fileManager = context.get(JavaFileManager.class);
+    if (fileManager == null || !fileManager.hasLocation(StandardLocation.CLASS_PATH)) {
+      return;
+    }
+    try {
+      for (JavaFileObject file :
+          fileManager.list(
+              StandardLocation.CLASS_PATH,
+              RESOURCE_PACKAGE,
+              EnumSet.of(JavaFileObject.Kind.OTHER),
+              /* recurse= */ false)) {
+        if (!file.getName().endsWith(RESOURCE_NAME)) {
+          continue;
+        }
+        try (Reader reader = new InputStreamReader(file.openInputStream(), UTF_8)) {
+          for (String line : CharStreams.readLines(reader)) {
+            parse(line);
+          }
+        }
+      }
+    } catch (IOException e) {
+      // Summaries only save work; without them, the classes are analyzed as usual.
+    }
+  }
+
+  private void parse(String line) {
+    List<String> fields = FIELD_SPLITTER.splitToList(line);
+    if (fields.size() == 2 && fields.get(1).equals(EFFECTIVELY_IMMUTABLE)) {
+      effectivelyImmutable.add(fields.get(0));
+    } else if (fields.size() >= 3 && fields.get(1).equals(ANNOTATED)) {
+      List<String> containerOf =
+          fields.size() > 3 ? CONTAINER_OF_SPLITTER.splitToList(fields.get(3)) : ImmutableList.of();
+      annotated.put(fields.get(0), AnnotationInfo.create(fields.get(2), containerOf));
+    }
+  }
+
+  private void write() {
+    JavaFileManager fileManager = context.get(JavaFileManager.class);
+    try {
+      FileObject file =
+          fileManager.getFileForOutput(StandardLocation.CLASS_OUTPUT, "", RESOURCE, null);
+      if (verified.isEmpty() || Log.instance(context).nerrors > 0) {
+        // Don't leave the summary of a previous compilation behind.
+        file.delete();
+        return;
+      }
+      try (Writer writer = new OutputStreamWriter(file.openOutputStream(), UTF_8)) {
+        for (Map.Entry<String, String> entry : verified.entrySet()) {
+          writer.write(entry.getKey() + " " + entry.getValue() + "\n");
+        }
+      }
+    } catch (IOException e) {
+      Log.instance(context)
+          .error(
+              "error.prone",
+              String.format("Failed to write the immutability summary %s: %s", RESOURCE, e));
+    }
+  }
+}
@@ -45,6 +45,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import javax.annotation.Nullable;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.type.TypeKind;
@@ -56,6 +57,7 @@ public class ImmutableAnalysis {
   private final VisitorState state;
   private final WellKnownMutability wellKnownMutability;
   private final ThreadSafety threadSafety;
+  @Nullable private final ImmutabilitySummaries summaries;
 
   ImmutableAnalysis(
       BugChecker bugChecker,
@@ -72,6 +74,7 @@ public class ImmutableAnalysis {
             .markerAnnotations(immutableAnnotations)
             .typeParameterAnnotation(ImmutableTypeParameter.class)
             .build(state);
+    this.summaries = wellKnownMutability.getSummaries(state);
   }
 
   public ImmutableAnalysis(
@@ -79,6 +82,15 @@ public class ImmutableAnalysis {
     this(bugChecker, state, wellKnownMutability, ImmutableSet.of(Immutable.class.getName()));
   }
 
+  /**
+   * Returns the {@link ImmutabilitySummaries} of the current compilation, or {@code null} if they
+   * aren't enabled.
+   */
+  @Nullable
+  ImmutabilitySummaries summaries() {
+    return summaries;
+  }
+
   Violation isThreadSafeType(
       boolean allowContainerTypeParameters, Set<String> containerTypeParameters, Type type) {
     return threadSafety.isThreadSafeType(
@@ -194,6 +206,11 @@ public class ImmutableAnalysis {
       return info.plus(message);
     }
 
+    if (summaries != null && summaries.isEffectivelyImmutable(superType.tsym)) {
+      // The compilation of the supertype already found that it is effectively immutable.
+      return Violation.absent();
+    }
+
     // Recursive case: check if the supertype is 'effectively' immutable.
     Violation info =
         checkForImmutability(
@@ -315,11 +332,16 @@ public class ImmutableAnalysis {
    * symbol or from the list of well-known immutable types.
    */
   AnnotationInfo getImmutableAnnotation(Symbol sym, VisitorState state) {
-    String nameStr = sym.flatName().toString();
-    AnnotationInfo known = wellKnownMutability.getKnownImmutableClasses().get(nameStr);
+    AnnotationInfo known = wellKnownMutability.getKnownImmutableClass(sym, state);
     if (known != null) {
       return known;
     }
+    if (summaries != null) {
+      AnnotationInfo summarized = summaries.getImmutableAnnotation(sym);
+      if (summarized != null) {
+        return summarized;
+      }
+    }
     return threadSafety.getInheritedAnnotation(sym, state);
   }
 
@@ -59,6 +59,9 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
 
 /** @author cushon@google.com (Liam Miller-Cushon) */
 @BugPattern(
@@ -177,6 +180,7 @@ public class ImmutableChecker extends BugChecker
 
     AnnotationInfo annotation = analysis.getImmutableAnnotation(tree, state);
     if (annotation == null) {
+      summarizeUnannotated(tree, analysis);
       // If the type isn't annotated we don't check for immutability, but we do
       // report an error if it extends/implements any @Immutable-annotated types.
       return checkSubtype(tree, state);
@@ -184,7 +188,8 @@ public class ImmutableChecker extends BugChecker
 
     // Special-case visiting declarations of known-immutable types; these uses
     // of the annotation are "trusted".
-    if (wellKnownMutability.getKnownImmutableClasses().containsValue(annotation)) {
+    if (annotation.equals(
+        wellKnownMutability.getKnownImmutableClass(ASTHelpers.getSymbol(tree), state))) {
       return NO_MATCH;
     }
 
@@ -227,15 +232,22 @@ public class ImmutableChecker extends BugChecker
 
     ClassSymbol sym = ASTHelpers.getSymbol(tree);
 
+    AtomicBoolean reported = new AtomicBoolean(false);
     Violation info =
         analysis.checkForImmutability(
             Optional.of(tree),
             immutableTypeParametersInScope(ASTHelpers.getSymbol(tree), state, analysis),
             ASTHelpers.getType(tree),
-            (Tree matched, Violation violation) ->
-                describeClass(matched, sym, annotation, violation));
+            (Tree matched, Violation violation) -> {
+              reported.set(true);
+              return describeClass(matched, sym, annotation, violation);
+            });
 
     if (!info.isPresent()) {
+      ImmutabilitySummaries summaries = analysis.summaries();
+      if (summaries != null && !reported.get()) {
+        summaries.recordImmutable(sym, annotation);
+      }
       return NO_MATCH;
     }
 
@@ -256,6 +268,46 @@ public class ImmutableChecker extends BugChecker
     return buildDescription(tree).setMessage(message);
   }
 
+  /**
+   * Records whether a class without {@code @Immutable} is effectively immutable in the summaries,
+   * if they are enabled, so that compilations of its subclasses don't need to check it again.
+   *
+   * <p>Only classes that can be extended, and whose immutability doesn't depend on type arguments
+   * or enclosing instances, are summarized.
+   */
+  private void summarizeUnannotated(ClassTree tree, ImmutableAnalysis analysis) {
+    ImmutabilitySummaries summaries = analysis.summaries();
+    ClassSymbol sym = ASTHelpers.getSymbol(tree);
+    if (summaries == null
+        || sym == null
+        || sym.getKind() != ElementKind.CLASS
+        || sym.getModifiers().contains(Modifier.FINAL)
+        || !sym.getTypeParameters().isEmpty()) {
+      return;
+    }
+    switch (sym.getNestingKind()) {
+      case TOP_LEVEL:
+        break;
+      case MEMBER:
+        if (!sym.isStatic()) {
+          return;
+        }
+        break;
+      default:
+        return;
+    }
+    // Without a tree, violations are returned rather than reported.
+    Violation info =
+        analysis.checkForImmutability(
+            Optional.empty(),
+            ImmutableSet.of(),
+            ASTHelpers.getType(tree),
+            (Tree matched, Violation violation) -> buildDescription(matched));
+    if (!info.isPresent()) {
+      summaries.recordEffectivelyImmutable(sym);
+    }
+  }
+
   // Anonymous classes
 
   /** Check anonymous implementations of {@code @Immutable} types. */
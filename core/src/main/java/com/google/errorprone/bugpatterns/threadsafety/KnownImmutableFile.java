@@ -0,0 +1,265 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.bugpatterns.threadsafety;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.errorprone.InvalidCommandLineOptionException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+/**
+ * A list of known immutable classes in a file (see the {@code Immutable:KnownImmutableFile} flag),
+ * for code bases with too many of them to pass with {@code -XepOpt:Immutable:KnownImmutable}.
+ *
+ * <p>Each line holds the flat name of a class (e.g. {@code com.example.Outer$Inner}), optionally
+ * followed by a space and the comma-separated names of its containerOf type parameters. Blank
+ * lines and lines starting with {@code #} are ignored.
+ *
+ * <p>The file is memory-mapped rather than parsed: only the offsets of the lines are kept on the
+ * heap, and lookups are a binary search over the mapped bytes. Lines should be sorted by their
+ * UTF-8 bytes (e.g. with {@code LC_ALL=C sort}); unsorted files are sorted once when they are
+ * opened.
+ *
+ * <p>Files are opened once for all the checks that use them (see {@link #forPath}), rather than by
+ * each check that is created.
+ */
+final class KnownImmutableFile {
+
+  private static final Splitter CONTAINER_OF_SPLITTER = Splitter.on(',').omitEmptyStrings();
+
+  /**
+   * The files that are in use, by absolute path. A file is dropped once no check uses it, and is
+   * mapped again if it has changed since it was opened.
+   */
+  private static final Cache<Path, KnownImmutableFile> OPENED =
+      CacheBuilder.newBuilder().weakValues().build();
+
+  private final Path path;
+  private final ByteBuffer buffer;
+  private final FileTime lastModified;
+
+  /** The offsets of the lines that name a class, in the order of their names. */
+  private final int[] lines;
+
+  private KnownImmutableFile(Path path, ByteBuffer buffer, FileTime lastModified, int[] lines) {
+    this.path = path;
+    this.buffer = buffer;
+    this.lastModified = lastModified;
+    this.lines = lines;
+  }
+
+  /**
+   * Returns the file at {@code path}, which is shared with the other checks that use it. It is only
+   * mapped if it isn't in use yet, or has changed since it was.
+   *
+   * @throws InvalidCommandLineOptionException if the file can't be read
+   */
+  static KnownImmutableFile forPath(Path path) {
+    Path key = path.toAbsolutePath().normalize();
+    KnownImmutableFile file = OPENED.getIfPresent(key);
+    if (file != null && file.isCurrent()) {
+      return file;
+    }
+    file = open(key);
+    OPENED.put(key, file);
+    return file;
+  }
+
+  /** Returns whether the file hasn't changed since it was mapped. */
+  private boolean isCurrent() {
+    try {
+      return Files.getLastModifiedTime(path).equals(lastModified)
+          && Files.size(path) == buffer.capacity();
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Maps the file at {@code path}.
+   *
+   * @throws InvalidCommandLineOptionException if the file can't be read
+   */
+  static KnownImmutableFile open(Path path) {
+    ByteBuffer buffer;
+    FileTime lastModified;
+    try (FileChannel channel = FileChannel.open(path)) {
+      lastModified = Files.getLastModifiedTime(path);
+      long fileSize = channel.size();
+      if (fileSize > Integer.MAX_VALUE) {
+        throw new InvalidCommandLineOptionException("known immutable file is too large: " + path);
+      }
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+    } catch (IOException e) {
+      throw new InvalidCommandLineOptionException(
+          "cannot read known immutable file " + path + ": " + e.getMessage());
+    }
+    return new KnownImmutableFile(path, buffer, lastModified, index(buffer));
+  }
+
+  private static int[] index(ByteBuffer buffer) {
+    int[] lines = new int[16];
+    int count = 0;
+    boolean sorted = true;
+    int limit = buffer.limit();
+    for (int start = 0; start < limit; start = lineEnd(buffer, start) + 1) {
+      if (isBlankOrComment(buffer, start)) {
+        continue;
+      }
+      if (count == lines.length) {
+        lines = Arrays.copyOf(lines, count * 2);
+      }
+      if (count > 0 && compareKeys(buffer, lines[count - 1], start) > 0) {
+        sorted = false;
+      }
+      lines[count++] = start;
+    }
+    if (sorted) {
+      return Arrays.copyOf(lines, count);
+    }
+    return Arrays.stream(lines, 0, count)
+        .boxed()
+        .sorted((a, b) -> compareKeys(buffer, a, b))
+        .mapToInt(Integer::intValue)
+        .toArray();
+  }
+
+  /** Returns the path of the file. */
+  Path path() {
+    return path;
+  }
+
+  /** Returns the number of classes in the file. */
+  int size() {
+    return lines.length;
+  }
+
+  /**
+   * Returns the annotation info of the class with the given flat name, or {@code null} if the file
+   * doesn't list it.
+   */
+  @Nullable
+  AnnotationInfo get(String flatName) {
+    byte[] name = flatName.getBytes(UTF_8);
+    int lo = 0;
+    int hi = lines.length - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      int cmp = compareKey(buffer, lines[mid], name);
+      if (cmp < 0) {
+        lo = mid + 1;
+      } else if (cmp > 0) {
+        hi = mid - 1;
+      } else {
+        return annotationInfo(lines[mid], flatName);
+      }
+    }
+    return null;
+  }
+
+  private AnnotationInfo annotationInfo(int start, String flatName) {
+    int keyEnd = keyEnd(buffer, start);
+    int lineEnd = lineEnd(buffer, start);
+    if (keyEnd == lineEnd) {
+      return AnnotationInfo.create(flatName);
+    }
+    String containerOf = decode(buffer, keyEnd + 1, lineEnd).trim();
+    return AnnotationInfo.create(flatName, CONTAINER_OF_SPLITTER.splitToList(containerOf));
+  }
+
+  private static boolean isBlankOrComment(ByteBuffer buffer, int start) {
+    int end = lineEnd(buffer, start);
+    for (int i = start; i < end; i++) {
+      byte b = buffer.get(i);
+      if (b == '#') {
+        return true;
+      }
+      if (!Character.isWhitespace(b)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Returns the offset of the newline at the end of the line, or the end of the file. */
+  private static int lineEnd(ByteBuffer buffer, int start) {
+    int limit = buffer.limit();
+    int i = start;
+    while (i < limit && buffer.get(i) != '\n') {
+      i++;
+    }
+    return i;
+  }
+
+  /** Returns the offset of the end of the class name on the line. */
+  private static int keyEnd(ByteBuffer buffer, int start) {
+    int limit = buffer.limit();
+    int i = start;
+    while (i < limit) {
+      byte b = buffer.get(i);
+      if (b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+        break;
+      }
+      i++;
+    }
+    return i;
+  }
+
+  /** Compares the class name on the line at {@code start} with {@code name}. */
+  private static int compareKey(ByteBuffer buffer, int start, byte[] name) {
+    int end = keyEnd(buffer, start);
+    int length = end - start;
+    for (int i = 0; i < Math.min(length, name.length); i++) {
+      int cmp = Integer.compare(buffer.get(start + i) & 0xff, name[i] & 0xff);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return Integer.compare(length, name.length);
+  }
+
+  /** Compares the class names on the lines at {@code a} and {@code b}. */
+  private static int compareKeys(ByteBuffer buffer, int a, int b) {
+    int aLength = keyEnd(buffer, a) - a;
+    int bLength = keyEnd(buffer, b) - b;
+    for (int i = 0; i < Math.min(aLength, bLength); i++) {
+      int cmp = Integer.compare(buffer.get(a + i) & 0xff, buffer.get(b + i) & 0xff);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return Integer.compare(aLength, bLength);
+  }
+
+  private static String decode(ByteBuffer buffer, int start, int end) {
+    byte[] bytes = new byte[end - start];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = buffer.get(start + i);
+    }
+    return new String(bytes, UTF_8);
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.bugpatterns.threadsafety;
+
+import com.google.errorprone.SubContext;
+import com.google.errorprone.VisitorState;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.TypeSymbol;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.code.TypeTag;
+import com.sun.tools.javac.util.Context;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * The {@link WellKnownMutability} registries and the proto and annotation supertypes, resolved
+ * against the symbols of a compilation.
+ *
+ * <p>The registries are keyed by name, and looking up a class means computing its flat name and
+ * probing a map, which happens for every field type and type argument the immutability checks
+ * visit. Each class is looked up by name at most once per compilation; after that the result is
+ * found by symbol identity. Similarly the supertypes that {@link
+ * WellKnownMutability#isProto2MessageClass} and {@link WellKnownMutability#isAnnotation} test for
+ * are resolved once, and the result of the test is recorded for each class.
+ */
+final class KnownMutabilityIndex {
+
+  private static final Context.Key<KnownMutabilityIndex> KEY = new Context.Key<>();
+
+  static KnownMutabilityIndex instance(Context context) {
+    context = SubContext.compilationContext(context);
+    KnownMutabilityIndex instance = context.get(KEY);
+    if (instance == null) {
+      instance = new KnownMutabilityIndex();
+      context.put(KEY, instance);
+    }
+    return instance;
+  }
+
+  /** The supertypes that are tested for, with one bit each. */
+  enum Supertype {
+    // ProtocolSupport matches Message (not MessageLite) for legacy reasons
+    MESSAGE("com.google.protobuf.MessageLite"),
+    MUTABLE_MESSAGE("com.google.protobuf.MutableMessageLite"),
+    PROTOCOL_MESSAGE("com.google.io.protocol.ProtocolMessage"),
+    ANNOTATION("java.lang.annotation.Annotation");
+
+    private final String typeName;
+
+    Supertype(String typeName) {
+      this.typeName = typeName;
+    }
+  }
+
+  /** The registries that have been used in this compilation, keyed by their flags. */
+  private final Map<WellKnownMutability, Registry> registries = new HashMap<>();
+
+  /** The resolved supertypes, or {@code null} for those that aren't on the classpath. */
+  private final Type[] supertypes = new Type[Supertype.values().length];
+
+  private boolean supertypesResolved;
+
+  /**
+   * For each class, which of the {@link Supertype}s it has been tested for (in the low bits) and
+   * which it is assignable to (in the high bits).
+   */
+  private final Map<TypeSymbol, Integer> assignable = new IdentityHashMap<>();
+
+  private KnownMutabilityIndex() {}
+
+  Registry forRegistry(WellKnownMutability wellKnownMutability) {
+    return registries.computeIfAbsent(wellKnownMutability, Registry::new);
+  }
+
+  /** Returns whether {@code type} is assignable to {@code supertype}. */
+  boolean isAssignableTo(Type type, Supertype supertype, VisitorState state) {
+    if (!supertypesResolved) {
+      for (Supertype s : Supertype.values()) {
+        supertypes[s.ordinal()] = state.getTypeFromString(s.typeName);
+      }
+      supertypesResolved = true;
+    }
+    Type to = supertypes[supertype.ordinal()];
+    if (to == null) {
+      // the type couldn't be loaded
+      return false;
+    }
+    if (!type.hasTag(TypeTag.CLASS)) {
+      return state.getTypes().isAssignable(type, to);
+    }
+    // None of the supertypes are generic, so only the class matters and not its type arguments.
+    int tested = 1 << supertype.ordinal();
+    int result = tested << Supertype.values().length;
+    int bits = assignable.getOrDefault(type.tsym, 0);
+    if ((bits & tested) == 0) {
+      bits |= tested;
+      if (state.getTypes().isAssignable(type, to)) {
+        bits |= result;
+      }
+      assignable.put(type.tsym, bits);
+    }
+    return (bits & result) != 0;
+  }
+
+  /** The classes of a {@link WellKnownMutability} registry that have been looked up. */
+  static final class Registry {
+
+    private final WellKnownMutability wellKnownMutability;
+
+    private final Map<Symbol, Optional<AnnotationInfo>> knownImmutable = new IdentityHashMap<>();
+    private final Map<Symbol, Boolean> knownUnsafe = new IdentityHashMap<>();
+
+    private Registry(WellKnownMutability wellKnownMutability) {
+      this.wellKnownMutability = wellKnownMutability;
+    }
+
+    @Nullable
+    AnnotationInfo getKnownImmutableClass(Symbol sym) {
+      return lookup(knownImmutable, sym, wellKnownMutability::lookupKnownImmutable).orElse(null);
+    }
+
+    boolean isKnownUnsafeClass(Symbol sym) {
+      return lookup(knownUnsafe, sym, wellKnownMutability::lookupKnownUnsafe);
+    }
+
+    private static <V> V lookup(Map<Symbol, V> cache, Symbol sym, Function<String, V> byName) {
+      V value = cache.get(sym);
+      if (value == null) {
+        value = byName.apply(sym.flatName().toString());
+        cache.put(sym, value);
+      }
+      return value;
+    }
+  }
+}
@@ -82,6 +82,9 @@ public final class ThreadSafety {
   /** Stores recursive invocations of {@link #isTypeParameterThreadSafe} */
   private final Set<TypeVariableSymbol> recursiveThreadSafeTypeParameter = new HashSet<>();
 
+  /** The verdicts of {@link #isThreadSafeType}, shared by instances with the same configuration. */
+  @Nullable private Map<Object, Violation> verdicts;
+
   public static Builder builder() {
     return new Builder();
   }
@@ -318,6 +321,17 @@ public final class ThreadSafety {
 
     /** Types that are known to be unsafe and don't need testing. */
     public Set<String> getKnownUnsafeClasses();
+
+    /** Returns the annotation info of {@code sym} if it is known to be safe, or {@code null}. */
+    @Nullable
+    public default AnnotationInfo getKnownSafeClass(Symbol sym, VisitorState state) {
+      return getKnownSafeClasses().get(sym.flatName().toString());
+    }
+
+    /** Returns true if {@code sym} is known to be unsafe. */
+    public default boolean isKnownUnsafeClass(Symbol sym, VisitorState state) {
+      return getKnownUnsafeClasses().contains(sym.flatName().toString());
+    }
   }
 
   /**
@@ -493,8 +507,88 @@ public final class ThreadSafety {
    */
   public Violation isThreadSafeType(
       boolean allowContainerTypeParameters, Set<String> containerTypeParameters, Type type) {
-    return type.accept(
-        new ThreadSafeTypeVisitor(allowContainerTypeParameters, containerTypeParameters), null);
+    // Inside of isTypeParameterThreadSafe, type variables with recursive bounds are assumed to be
+    // thread-safe, so only verdicts that don't rely on that assumption are shared.
+    Object typeKey = recursiveThreadSafeTypeParameter.isEmpty() ? typeKey(type) : null;
+    if (typeKey == null) {
+      return type.accept(
+          new ThreadSafeTypeVisitor(allowContainerTypeParameters, containerTypeParameters), null);
+    }
+    List<Object> key =
+        ImmutableList.of(
+            typeKey,
+            allowContainerTypeParameters,
+            allowContainerTypeParameters
+                ? ImmutableSet.copyOf(containerTypeParameters)
+                : ImmutableSet.of());
+    Map<Object, Violation> verdicts = verdicts();
+    Violation verdict = verdicts.get(key);
+    if (verdict == null) {
+      // Not computeIfAbsent: checking the type arguments adds their verdicts to the map.
+      verdict =
+          type.accept(
+              new ThreadSafeTypeVisitor(allowContainerTypeParameters, containerTypeParameters),
+              null);
+      verdicts.put(key, verdict);
+    }
+    return verdict;
+  }
+
+  private Map<Object, Violation> verdicts() {
+    if (verdicts == null) {
+      verdicts =
+          ThreadSafetyVerdicts.instance(state.context)
+              .forConfiguration(
+                  ImmutableList.of(
+                      purpose,
+                      knownTypes,
+                      markerAnnotations,
+                      acceptedAnnotations,
+                      String.valueOf(containerOfAnnotation),
+                      String.valueOf(suppressAnnotation),
+                      String.valueOf(typeParameterAnnotation)));
+    }
+    return verdicts;
+  }
+
+  /**
+   * Returns a key that identifies {@code type} for the purposes of {@link #isThreadSafeType}, or
+   * {@code null} if the verdict for the type shouldn't be shared.
+   *
+   * <p>Type variables are identified by their symbol; the verdict for a class type depends only on
+   * its declaration, its type arguments and, for the message, its enclosing type. Types with type
+   * annotations aren't shared, since they can suppress the check.
+   */
+  @Nullable
+  private Object typeKey(Type type) {
+    if (!type.getAnnotationMirrors().isEmpty()) {
+      return null;
+    }
+    switch (type.getTag()) {
+      case TYPEVAR:
+        return type.tsym;
+      case WILDCARD:
+        return typeKey(state.getTypes().wildUpperBound(type));
+      case CLASS:
+        Object enclosingKey = Boolean.FALSE;
+        if (type.getEnclosingType().hasTag(TypeTag.CLASS)) {
+          enclosingKey = typeKey(type.getEnclosingType());
+          if (enclosingKey == null) {
+            return null;
+          }
+        }
+        ImmutableList.Builder<Object> arguments = ImmutableList.builder();
+        for (Type argument : type.getTypeArguments()) {
+          Object argumentKey = typeKey(argument);
+          if (argumentKey == null) {
+            return null;
+          }
+          arguments.add(argumentKey);
+        }
+        return ImmutableList.of(type.tsym, enclosingKey, arguments.build());
+      default:
+        return null;
+    }
   }
 
   private class ThreadSafeTypeVisitor extends Types.SimpleVisitor<Violation, Void> {
@@ -574,8 +668,7 @@ public final class ThreadSafety {
       if (annotation != null) {
         return threadSafeInstantiation(containerTypeParameters, annotation, type);
       }
-      String nameStr = type.tsym.flatName().toString();
-      if (knownTypes.getKnownUnsafeClasses().contains(nameStr)) {
+      if (knownTypes.isKnownUnsafeClass(type.tsym, state)) {
         return Violation.of(
             String.format(
                 "'%s' is %s", type.tsym.getSimpleName(), purpose.mutableOrNotThreadSafe()));
@@ -649,8 +742,7 @@ public final class ThreadSafety {
    * an accepted annotation on the symbol, or from the list of well-known types.
    */
   public AnnotationInfo getMarkerOrAcceptedAnnotation(Symbol sym, VisitorState state) {
-    String nameStr = sym.flatName().toString();
-    AnnotationInfo known = knownTypes.getKnownSafeClasses().get(nameStr);
+    AnnotationInfo known = knownTypes.getKnownSafeClass(sym, state);
     if (known != null) {
       return known;
     }
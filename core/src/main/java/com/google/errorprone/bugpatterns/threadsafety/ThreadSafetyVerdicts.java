@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.bugpatterns.threadsafety;
+
+import com.google.errorprone.SubContext;
+import com.google.errorprone.bugpatterns.threadsafety.ThreadSafety.Violation;
+import com.sun.tools.javac.util.Context;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The {@link Violation verdicts} of {@link ThreadSafety#isThreadSafeType} for the duration of a
+ * compilation.
+ *
+ * <p>{@link ThreadSafety} instances are short-lived, the checks create one for each match, but the
+ * same field types, type arguments and supertypes are checked over and over. Verdicts are shared
+ * between all the instances with the same configuration, e.g. by {@code ImmutableChecker}, {@code
+ * ImmutableEnumChecker} and {@code ImmutableAnnotationChecker}.
+ */
+final class ThreadSafetyVerdicts {
+
+  private static final Context.Key<ThreadSafetyVerdicts> KEY = new Context.Key<>();
+
+  /**
+   * Returns the verdicts for the compilation that {@code context} belongs to. They are stored in
+   * the compilation's context rather than in the {@link SubContext} of the class being scanned, so
+   * that they are shared by the scans of all classes.
+   */
+  static ThreadSafetyVerdicts instance(Context context) {
+    context = SubContext.compilationContext(context);
+    ThreadSafetyVerdicts instance = context.get(KEY);
+    if (instance == null) {
+      instance = new ThreadSafetyVerdicts();
+      context.put(KEY, instance);
+    }
+    return instance;
+  }
+
+  /** The verdicts, keyed by the configuration of the {@link ThreadSafety} that computed them. */
+  private final Map<Object, Map<Object, Violation>> verdicts = new HashMap<>();
+
+  private ThreadSafetyVerdicts() {}
+
+  /**
+   * Returns the verdicts of {@link ThreadSafety} instances with the given configuration, keyed by
+   * type and type parameters in scope.
+   */
+  Map<Object, Violation> forConfiguration(Object configuration) {
+    return verdicts.computeIfAbsent(configuration, c -> new HashMap<>());
+  }
+}
@@ -26,22 +26,38 @@ import com.google.common.collect.Sets.SetView;
 import com.google.common.primitives.Primitives;
 import com.google.errorprone.ErrorProneFlags;
 import com.google.errorprone.VisitorState;
-import com.google.errorprone.suppliers.Supplier;
-import com.google.errorprone.suppliers.Suppliers;
+import com.google.errorprone.bugpatterns.threadsafety.KnownMutabilityIndex.Supertype;
+import com.sun.tools.javac.code.Symbol;
 import com.sun.tools.javac.code.Type;
 import java.lang.reflect.TypeVariable;
+import java.nio.file.Paths;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import javax.annotation.Nullable;
 
 /** A collection of types with known mutability. */
 public final class WellKnownMutability implements ThreadSafety.KnownTypes {
 
 
-  private WellKnownMutability(List<String> knownImmutable, List<String> knownUnsafe) {
+  private WellKnownMutability(
+      List<String> knownImmutable,
+      List<String> knownUnsafe,
+      boolean useSummaries,
+      Optional<String> knownImmutableFile) {
+    flags =
+        ImmutableList.of(
+            ImmutableList.copyOf(knownImmutable),
+            ImmutableList.copyOf(knownUnsafe),
+            useSummaries,
+            knownImmutableFile);
+    this.useSummaries = useSummaries;
     knownImmutableClasses = buildImmutableClasses(knownImmutable);
     knownUnsafeClasses = buildUnsafeClasses(knownUnsafe);
+    this.knownImmutableFile =
+        knownImmutableFile.map(f -> KnownImmutableFile.forPath(Paths.get(f))).orElse(null);
   }
 
   public static WellKnownMutability fromFlags(ErrorProneFlags flags) {
@@ -49,7 +65,9 @@ public final class WellKnownMutability implements ThreadSafety.KnownTypes {
         flags.getList("Immutable:KnownImmutable").orElse(ImmutableList.of());
     ImmutableList<String> unsafe =
         flags.getList("Immutable:KnownUnsafe").orElse(ImmutableList.of());
-    return new WellKnownMutability(immutable, unsafe);
+    boolean useSummaries = flags.getBoolean("Immutable:Summaries").orElse(false);
+    Optional<String> knownImmutableFile = flags.get("Immutable:KnownImmutableFile");
+    return new WellKnownMutability(immutable, unsafe, useSummaries, knownImmutableFile);
   }
 
   public Map<String, AnnotationInfo> getKnownImmutableClasses() {
@@ -66,9 +84,78 @@ public final class WellKnownMutability implements ThreadSafety.KnownTypes {
     return knownUnsafeClasses;
   }
 
+  /**
+   * Returns the annotation info of {@code sym} if it is known to be immutable, or {@code null}.
+   *
+   * <p>Unlike {@link #getKnownImmutableClasses}, this includes the classes listed in the {@code
+   * -XepOpt:Immutable:KnownImmutableFile} file.
+   */
+  @Nullable
+  public AnnotationInfo getKnownImmutableClass(Symbol sym, VisitorState state) {
+    return KnownMutabilityIndex.instance(state.context)
+        .forRegistry(this)
+        .getKnownImmutableClass(sym);
+  }
+
+  @Override
+  @Nullable
+  public AnnotationInfo getKnownSafeClass(Symbol sym, VisitorState state) {
+    return getKnownImmutableClass(sym, state);
+  }
+
+  @Override
+  public boolean isKnownUnsafeClass(Symbol sym, VisitorState state) {
+    return KnownMutabilityIndex.instance(state.context).forRegistry(this).isKnownUnsafeClass(sym);
+  }
+
+  /** Looks up a known immutable class by flat name, for {@link KnownMutabilityIndex}. */
+  Optional<AnnotationInfo> lookupKnownImmutable(String flatName) {
+    AnnotationInfo known = knownImmutableClasses.get(flatName);
+    if (known == null && knownImmutableFile != null) {
+      known = knownImmutableFile.get(flatName);
+    }
+    return Optional.ofNullable(known);
+  }
+
+  /** Looks up a known unsafe class by flat name, for {@link KnownMutabilityIndex}. */
+  Boolean lookupKnownUnsafe(String flatName) {
+    return knownUnsafeClasses.contains(flatName);
+  }
+
+  /**
+   * Returns the {@link ImmutabilitySummaries} of the current compilation, or {@code null} unless
+   * they were enabled with {@code -XepOpt:Immutable:Summaries}.
+   */
+  @Nullable
+  ImmutabilitySummaries getSummaries(VisitorState state) {
+    return useSummaries ? ImmutabilitySummaries.instance(state.context) : null;
+  }
+
+  /** Whether summaries of the immutability of types in other compilations are read and written. */
+  private final boolean useSummaries;
+
+  /**
+   * The flags that this instance was created with. Instances with the same flags know the same
+   * types, so checks can share what they have learned about them.
+   */
+  private final ImmutableList<Object> flags;
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof WellKnownMutability && flags.equals(((WellKnownMutability) obj).flags);
+  }
+
+  @Override
+  public int hashCode() {
+    return flags.hashCode();
+  }
+
   /** Types that are known to be immutable. */
   private final ImmutableMap<String, AnnotationInfo> knownImmutableClasses;
 
+  /** Additional types that are known to be immutable, or {@code null}. */
+  @Nullable private final KnownImmutableFile knownImmutableFile;
+
   static class Builder {
     final ImmutableMap.Builder<String, AnnotationInfo> mapBuilder = ImmutableMap.builder();
 
@@ -316,32 +403,14 @@ public final class WellKnownMutability implements ThreadSafety.KnownTypes {
     return result.build();
   }
 
-  // ProtocolSupport matches Message (not MessageLite) for legacy reasons
-  private static final Supplier<Type> MESSAGE_TYPE =
-      Suppliers.typeFromString("com.google.protobuf.MessageLite");
-
-  private static final Supplier<Type> MUTABLE_MESSAGE_TYPE =
-      Suppliers.typeFromString("com.google.protobuf.MutableMessageLite");
-
-  private static final Supplier<Type> PROTOCOL_MESSAGE_TYPE =
-      Suppliers.typeFromString("com.google.io.protocol.ProtocolMessage");
-
-  private static boolean isAssignableTo(Type type, Supplier<Type> supplier, VisitorState state) {
-    Type to = supplier.get(state);
-    if (to == null) {
-      // the type couldn't be loaded
-      return false;
-    }
-    return state.getTypes().isAssignable(type, to);
-  }
-
   /**
    * Compile-time equivalent of {@code com.google.io.protocol.ProtocolSupport#isProto2MessageClass}.
    */
   public static boolean isProto2MessageClass(VisitorState state, Type type) {
     checkNotNull(type);
-    return isAssignableTo(type, MESSAGE_TYPE, state)
-        && !isAssignableTo(type, PROTOCOL_MESSAGE_TYPE, state);
+    KnownMutabilityIndex index = KnownMutabilityIndex.instance(state.context);
+    return index.isAssignableTo(type, Supertype.MESSAGE, state)
+        && !index.isAssignableTo(type, Supertype.PROTOCOL_MESSAGE, state);
   }
 
   /**
@@ -350,12 +419,14 @@ public final class WellKnownMutability implements ThreadSafety.KnownTypes {
    */
   public static boolean isProto2MutableMessageClass(VisitorState state, Type type) {
     checkNotNull(type);
-    return isAssignableTo(type, MUTABLE_MESSAGE_TYPE, state)
-        && !isAssignableTo(type, PROTOCOL_MESSAGE_TYPE, state);
+    KnownMutabilityIndex index = KnownMutabilityIndex.instance(state.context);
+    return index.isAssignableTo(type, Supertype.MUTABLE_MESSAGE, state)
+        && !index.isAssignableTo(type, Supertype.PROTOCOL_MESSAGE, state);
   }
 
   /** Returns true if the type is an annotation. */
   public static boolean isAnnotation(VisitorState state, Type type) {
-    return isAssignableTo(type, Suppliers.ANNOTATION_TYPE, state);
+    return KnownMutabilityIndex.instance(state.context)
+        .isAssignableTo(type, Supertype.ANNOTATION, state);
   }
 }
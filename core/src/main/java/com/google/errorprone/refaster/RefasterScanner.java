@@ -22,6 +22,9 @@ import com.google.errorprone.DescriptionListener;
 import com.google.errorprone.fixes.SuggestedFix;
 import com.google.errorprone.matchers.Description;
 import com.google.errorprone.util.ASTHelpers;
+import com.google.errorprone.util.CompilationUnitTokens;
+import com.google.errorprone.util.ErrorProneToken;
+import com.google.errorprone.util.ErrorProneTokens;
 import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.DoWhileLoopTree;
 import com.sun.source.tree.IfTree;
@@ -32,9 +35,6 @@ import com.sun.source.tree.WhileLoopTree;
 import com.sun.source.util.SimpleTreeVisitor;
 import com.sun.source.util.TreeScanner;
 import com.sun.tools.javac.code.Symbol;
-import com.sun.tools.javac.parser.JavaTokenizer;
-import com.sun.tools.javac.parser.ScannerFactory;
-import com.sun.tools.javac.parser.Tokens.Token;
 import com.sun.tools.javac.parser.Tokens.TokenKind;
 import com.sun.tools.javac.tree.JCTree;
 import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
@@ -42,7 +42,9 @@ import com.sun.tools.javac.tree.JCTree.JCStatement;
 import com.sun.tools.javac.tree.TreeMaker;
 import com.sun.tools.javac.util.Context;
 import com.sun.tools.javac.util.ListBuffer;
-import java.nio.CharBuffer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
 
 /**
  * Scanner that outputs suggested fixes generated by a {@code RefasterMatcher}.
@@ -88,14 +90,8 @@ abstract class RefasterScanner<M extends TemplateMatch, T extends Template<M>>
       matchLoop:
       for (M match : beforeTemplate.match((JCTree) tree, context)) {
         if (rule().rejectMatchesWithComments()) {
-          String matchContents = match.getRange(compilationUnit);
-          JavaTokenizer tokenizer =
-              new JavaTokenizer(
-                  ScannerFactory.instance(context), CharBuffer.wrap(matchContents)) {};
-          for (Token token = tokenizer.readToken();
-              token.kind != TokenKind.EOF;
-              token = tokenizer.readToken()) {
-            if (token.comments != null && !token.comments.isEmpty()) {
+          for (ErrorProneToken token : getMatchTokens(match, compilationUnit, context)) {
+            if (token.kind() != TokenKind.EOF && !token.comments().isEmpty()) {
               continue matchLoop;
             }
           }
@@ -121,6 +117,30 @@ abstract class RefasterScanner<M extends TemplateMatch, T extends Template<M>>
     return super.scan(tree, context);
   }
 
+  /**
+   * Returns the tokens of the matched source. The compilation unit is lexed once per rule, rather
+   * than once per match.
+   */
+  private static List<ErrorProneToken> getMatchTokens(
+      TemplateMatch match, JCCompilationUnit compilationUnit, Context context) {
+    CompilationUnitTokens tokens = context.get(CompilationUnitTokens.class);
+    if (tokens == null) {
+      try {
+        tokens =
+            CompilationUnitTokens.create(
+                compilationUnit.getSourceFile().getCharContent(true), context);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      context.put(CompilationUnitTokens.class, tokens);
+    }
+    List<ErrorProneToken> result =
+        tokens.getOffsetTokens(match.getStartPosition(), match.getEndPosition(compilationUnit));
+    return result != null
+        ? result
+        : ErrorProneTokens.getTokens(match.getRange(compilationUnit), context);
+  }
+
   private static final SimpleTreeVisitor<Tree, Void> SKIP_PARENS =
       new SimpleTreeVisitor<Tree, Void>() {
         @Override
@@ -48,12 +48,20 @@ public abstract class TemplateMatch {
     return unifier.createInliner();
   }
 
+  /** The start position of the matched source. */
+  public int getStartPosition() {
+    return location.getStartPosition();
+  }
+
+  /** The end position of the matched source. */
+  public int getEndPosition(JCCompilationUnit unit) {
+    return location.getEndPosition(unit.endPositions);
+  }
+
   public String getRange(JCCompilationUnit unit) {
     try {
       CharSequence sequence = unit.getSourceFile().getCharContent(true);
-      return sequence
-          .subSequence(location.getStartPosition(), location.getEndPosition(unit.endPositions))
-          .toString();
+      return sequence.subSequence(getStartPosition(), getEndPosition(unit)).toString();
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
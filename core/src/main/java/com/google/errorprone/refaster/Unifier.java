@@ -19,6 +19,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
+import com.google.errorprone.ErrorProneTimings;
 import com.google.errorprone.SubContext;
 import com.google.errorprone.refaster.Bindings.Key;
 import com.sun.tools.javac.code.Type;
@@ -57,6 +58,9 @@ public final class Unifier {
    * succeed or fail independently of this {@code Unifier}.
    */
   public Unifier fork() {
+    // Every alternative of a Choice forks the unifier, so this is where an exponential search
+    // gives up once the check that started it has run out of time.
+    ErrorProneTimings.checkDeadline(context);
     return new Unifier(context, bindings);
   }
 
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.errorprone.BugPattern.Category.JDK;
+import static com.google.errorprone.BugPattern.SeverityLevel.WARNING;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.CompilationUnitTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.MethodTreeMatcher;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.scanner.ScannerSupplier;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.util.TreeScanner;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.JavaCompiler;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link ChangedLines}Test */
+@RunWith(JUnit4.class)
+public class ChangedLinesTest {
+
+  @Rule public final TemporaryFolder tempDir = new TemporaryFolder();
+
+  private final ErrorProneInMemoryFileManager fileManager = new ErrorProneInMemoryFileManager();
+
+  private DiagnosticTestHelper diagnosticHelper;
+
+  /** The names of the methods that {@link MethodNames} was asked to match. */
+  private static final List<String> matchedMethods = new ArrayList<>();
+
+  @BugPattern(
+      name = "MethodNames",
+      summary = "Reports every method",
+      explanation = "",
+      category = JDK,
+      severity = WARNING)
+  public static class MethodNames extends BugChecker implements MethodTreeMatcher {
+    @Override
+    public Description matchMethod(MethodTree tree, VisitorState state) {
+      matchedMethods.add(tree.getName().toString());
+      return describeMatch(tree);
+    }
+  }
+
+  @BugPattern(
+      name = "AllMethodNames",
+      summary = "Reports every method, from the compilation unit",
+      explanation = "",
+      category = JDK,
+      severity = WARNING)
+  public static class AllMethodNames extends BugChecker implements CompilationUnitTreeMatcher {
+    @Override
+    public Description matchCompilationUnit(CompilationUnitTree tree, VisitorState state) {
+      new TreeScanner<Void, Void>() {
+        @Override
+        public Void visitMethod(MethodTree method, Void unused) {
+          state.reportMatch(describeMatch(method));
+          return super.visitMethod(method, null);
+        }
+      }.scan(tree, null);
+      return Description.NO_MATCH;
+    }
+  }
+
+  private List<Long> compile(Class<? extends BugChecker> checker, String diff) throws IOException {
+    matchedMethods.clear();
+    diagnosticHelper = new DiagnosticTestHelper();
+    Path changes = tempDir.newFile("changes.diff").toPath();
+    Files.write(changes, diff.getBytes(UTF_8));
+    JavaCompiler compiler =
+        new ErrorProneJavaCompiler(ScannerSupplier.fromBugCheckerClasses(checker));
+    boolean succeeded =
+        compiler
+            .getTask(
+                null,
+                fileManager,
+                diagnosticHelper.collector,
+                ImmutableList.of(
+                    "-d",
+                    tempDir.newFolder().getPath(),
+                    "-proc:none",
+                    "-XepChangedLines:" + changes),
+                null,
+                ImmutableList.of(
+                    fileManager.forSourceLines(
+                        "src/p/A.java",
+                        "package p;",
+                        "class A {",
+                        "  void a1() {}",
+                        "  void a2() {",
+                        "    int x = 1;",
+                        "  }",
+                        "  class Inner {",
+                        "    void a3() {}",
+                        "  }",
+                        "}"),
+                    fileManager.forSourceLines(
+                        "src/p/B.java", //
+                        "package p;",
+                        "class B {",
+                        "  void b1() {}",
+                        "}")))
+            .call();
+    assertThat(succeeded).isTrue();
+    List<Long> lines = new ArrayList<>();
+    for (Diagnostic<?> diagnostic : diagnosticHelper.getDiagnostics()) {
+      if (diagnostic.getKind() == Diagnostic.Kind.WARNING) {
+        lines.add(diagnostic.getLineNumber());
+      }
+    }
+    return lines;
+  }
+
+  private static String diff(String... lines) {
+    return Joiner.on('\n').join(lines) + "\n";
+  }
+
+  @Test
+  public void onlyChangedMethodsAreScanned() throws IOException {
+    List<Long> lines =
+        compile(
+            MethodNames.class,
+            diff(
+                "diff --git a/src/p/A.java b/src/p/A.java",
+                "--- a/src/p/A.java",
+                "+++ b/src/p/A.java",
+                "@@ -5 +5 @@ class A {",
+                "-    int x = 0;",
+                "+    int x = 1;"));
+    assertThat(lines).containsExactly(4L);
+    // Neither B, nor the methods of A that didn't change, were scanned.
+    assertThat(matchedMethods).containsExactly("a2");
+  }
+
+  @Test
+  public void wholeUnitFindingsAreFiltered() throws IOException {
+    List<Long> lines =
+        compile(
+            AllMethodNames.class,
+            diff(
+                "--- a/src/p/A.java",
+                "+++ b/src/p/A.java",
+                "@@ -7,3 +7,3 @@ class A {",
+                "   class Inner {",
+                "-    void a3(int x) {}",
+                "+    void a3() {}",
+                "   }"));
+    assertThat(lines).containsExactly(8L);
+  }
+
+  @Test
+  public void deletionsChangeTheFollowingLine() throws IOException {
+    List<Long> lines =
+        compile(
+            MethodNames.class,
+            diff(
+                "--- a/p/A.java",
+                "+++ b/p/A.java",
+                "@@ -3,2 +2,0 @@ class A {",
+                "-  void a0() {}",
+                "-  void a00() {}"));
+    assertThat(matchedMethods).containsExactly("a1");
+    assertThat(lines).containsExactly(3L);
+  }
+
+  @Test
+  public void hunkLinesThatLookLikeHeaders() throws IOException {
+    // The removed and added lines of the first hunk look like the file headers of B, but the hunk
+    // header says they are part of the hunk.
+    List<Long> lines =
+        compile(
+            MethodNames.class,
+            diff(
+                "--- a/src/p/A.java",
+                "+++ b/src/p/A.java",
+                "@@ -3,2 +3,2 @@ class A {",
+                "--- a/src/p/B.java",
+                "+++ b/src/p/B.java",
+                "   void a2() {",
+                "@@ -8 +8 @@ class A {",
+                "-    void a3(int x) {}",
+                "+    void a3() {}"));
+    assertThat(matchedMethods).containsExactly("a1", "a3");
+    assertThat(lines).containsExactly(3L, 8L);
+  }
+
+  @Test
+  public void unrelatedChanges() throws IOException {
+    List<Long> lines =
+        compile(
+            MethodNames.class,
+            diff(
+                "--- a/src/p/C.java",
+                "+++ b/src/p/C.java",
+                "@@ -1 +1 @@",
+                "-package q;",
+                "+package p;",
+                "--- a/src/p/B.java",
+                "+++ /dev/null",
+                "@@ -1,4 +0,0 @@",
+                "-package p;"));
+    assertThat(lines).isEmpty();
+    assertThat(matchedMethods).isEmpty();
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.bugpatterns.ClassNewInstanceTest;
+import com.google.errorprone.bugpatterns.StringSplitterTest;
+import com.google.errorprone.bugpatterns.nullness.FieldMissingNullableTest;
+import com.google.errorprone.bugpatterns.nullness.ParameterNotNullableTest;
+import com.google.errorprone.bugpatterns.nullness.ReturnMissingNullableTest;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+import org.junit.runner.notification.Failure;
+import org.junit.runners.JUnit4;
+
+/**
+ * Runs checker tests concurrently in one JVM, to make sure that {@link CompilationTestHelper},
+ * {@link BugCheckerRefactoringTestHelper} and the analyses they exercise (e.g. dataflow and
+ * nullness inference) don't share mutable state between compilations.
+ */
+@RunWith(JUnit4.class)
+public class ConcurrentCheckerTestsTest {
+
+  /** Tests that use dataflow, nullness inference, and both test helpers. */
+  private static final ImmutableList<Class<?>> TEST_CLASSES =
+      ImmutableList.of(
+          FieldMissingNullableTest.class,
+          ParameterNotNullableTest.class,
+          ReturnMissingNullableTest.class,
+          StringSplitterTest.class,
+          ClassNewInstanceTest.class);
+
+  /** How many times each test method is run. */
+  private static final int REPETITIONS = 2;
+
+  @Test
+  public void checkerTestsPassWhenRunConcurrently() throws Exception {
+    List<Request> requests = new ArrayList<>();
+    for (int i = 0; i < REPETITIONS; i++) {
+      for (Class<?> clazz : TEST_CLASSES) {
+        for (Method method : clazz.getMethods()) {
+          if (method.isAnnotationPresent(Test.class) && !method.isAnnotationPresent(Ignore.class)) {
+            requests.add(Request.method(clazz, method.getName()));
+          }
+        }
+      }
+    }
+    assertWithMessage("number of tests").that(requests.size()).isAtLeast(100);
+
+    ForkJoinPool pool = new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+    List<Failure> failures = new ArrayList<>();
+    try {
+      List<Future<Result>> results = new ArrayList<>();
+      for (Request request : requests) {
+        results.add(pool.submit(() -> new JUnitCore().run(request)));
+      }
+      for (Future<Result> result : results) {
+        failures.addAll(result.get().getFailures());
+      }
+    } finally {
+      pool.shutdown();
+    }
+    assertWithMessage("failures").that(failures).isEmpty();
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.errorprone.BugPattern.Category.ONE_OFF;
+import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.ReturnTreeMatcher;
+import com.google.errorprone.bugpatterns.LongLiteralLowerCaseSuffix;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.scanner.ScannerSupplier;
+import com.sun.source.tree.ReturnTree;
+import com.sun.tools.javac.main.Main.Result;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link DiagnosticsOutput}Test */
+@RunWith(JUnit4.class)
+public class DiagnosticsOutputTest {
+
+  @Rule public final TemporaryFolder tempDir = new TemporaryFolder();
+
+  private final DiagnosticTestHelper diagnosticHelper = new DiagnosticTestHelper();
+
+  private boolean compile(Path output, String... lines) throws IOException {
+    return compile(
+        ScannerSupplier.fromBugCheckerClasses(LongLiteralLowerCaseSuffix.class), output, lines);
+  }
+
+  private boolean compile(ScannerSupplier scannerSupplier, Path output, String... lines)
+      throws IOException {
+    ErrorProneTestCompiler compiler =
+        new ErrorProneTestCompiler.Builder()
+            .report(scannerSupplier)
+            .listenToDiagnostics(diagnosticHelper.collector)
+            .build();
+    return compiler.compile(
+            new String[] {"-d", tempDir.newFolder().getPath(), "-XepDiagnosticsOutput:" + output},
+            ImmutableList.of(compiler.fileManager().forSourceLines("Test.java", lines)))
+        == Result.OK;
+  }
+
+  private long errorCount() {
+    return diagnosticHelper.getDiagnostics().stream()
+        .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+        .count();
+  }
+
+  @Test
+  public void jsonLines() throws IOException {
+    Path output = tempDir.getRoot().toPath().resolve("out/findings.jsonl");
+    assertThat(compile(output, "class Test {", "  long x = 1l;", "  long y = 2l;", "}")).isFalse();
+
+    List<String> lines = Files.readAllLines(output, UTF_8);
+    assertThat(lines).hasSize(2);
+    assertThat((long) lines.size()).isEqualTo(errorCount());
+    assertThat(lines.get(0)).startsWith("{\"check\":\"LongLiteralLowerCaseSuffix\"");
+    assertThat(lines.get(0)).contains("\"severity\":\"ERROR\"");
+    assertThat(lines.get(0)).contains("\"line\":2,\"column\":12");
+    assertThat(lines.get(0)).contains("\"replaceWith\":\"1L\"");
+    assertThat(lines.get(1)).contains("\"line\":3,\"column\":12");
+    assertThat(lines.get(1)).contains("\"replaceWith\":\"2L\"");
+  }
+
+  @Test
+  public void sarif() throws IOException {
+    Path output = tempDir.getRoot().toPath().resolve("findings.sarif");
+    assertThat(compile(output, "class Test {", "  long x = 1l;", "  long y = 2l;", "}")).isFalse();
+
+    String sarif = new String(Files.readAllBytes(output), UTF_8);
+    assertThat(sarif).startsWith("{\"version\":\"2.1.0\"");
+    assertThat(sarif).endsWith("]}]}\n");
+    assertThat(sarif).contains("\"name\":\"Error Prone\"");
+    assertThat(sarif).contains("{\"ruleId\":\"LongLiteralLowerCaseSuffix\",\"level\":\"error\"");
+    assertThat(sarif).contains("\"region\":{\"startLine\":3,\"startColumn\":12");
+    assertThat(sarif).contains("\"insertedContent\":{\"text\":\"2L\"}");
+    assertThat(sarif).contains("}\n,{\"ruleId\"");
+  }
+
+  @Test
+  public void noFindings() throws IOException {
+    Path output = tempDir.getRoot().toPath().resolve("findings.sarif");
+    assertThat(compile(output, "class Test {}")).isTrue();
+    assertThat(new String(Files.readAllBytes(output), UTF_8)).endsWith("\"results\":[\n]}]}\n");
+  }
+
+  @BugPattern(
+      name = "CrashOnReturn",
+      summary = "Crashes on return statements",
+      severity = ERROR,
+      category = ONE_OFF)
+  public static class CrashOnReturn extends BugChecker implements ReturnTreeMatcher {
+    @Override
+    public Description matchReturn(ReturnTree tree, VisitorState state) {
+      throw new NullPointerException();
+    }
+  }
+
+  @Test
+  public void crash() throws IOException {
+    Path output = tempDir.getRoot().toPath().resolve("findings.sarif");
+    assertThat(
+            compile(
+                ScannerSupplier.fromBugCheckerClasses(
+                    LongLiteralLowerCaseSuffix.class, CrashOnReturn.class),
+                output,
+                "class Test {",
+                "  long x = 1l;",
+                "  void f() {",
+                "    return;",
+                "  }",
+                "}"))
+        .isFalse();
+
+    // The findings before the crash are written out, and the file is complete.
+    String sarif = new String(Files.readAllBytes(output), UTF_8);
+    assertThat(sarif).contains("{\"ruleId\":\"LongLiteralLowerCaseSuffix\"");
+    assertThat(sarif).endsWith("]}]}\n");
+  }
+
+  @Test
+  public void manyFindings() throws IOException {
+    // More findings than the writer's queue holds, so the compiler has to wait for the writer.
+    int count = 5000;
+    Path output = tempDir.getRoot().toPath().resolve("findings.jsonl");
+    String[] lines = new String[count + 2];
+    lines[0] = "class Test {";
+    for (int i = 0; i < count; i++) {
+      lines[i + 1] = String.format("  long x%d = 1l;", i);
+    }
+    lines[count + 1] = "}";
+    assertThat(compile(output, lines)).isFalse();
+    assertThat(Files.readAllLines(output, UTF_8)).hasSize(count);
+  }
+
+  @Test
+  public void escaping() {
+    StringBuilder sb = new StringBuilder();
+    DiagnosticsOutput.appendString(sb, "a\"b\\c\nd\te\u0001");
+    assertThat(sb.toString()).isEqualTo("\"a\\\"b\\\\c\\nd\\te\\u0001\"");
+  }
+
+  @Test
+  public void sourceFileUri() throws IOException {
+    Path output = tempDir.getRoot().toPath().resolve("findings.jsonl");
+    compile(output, "class Test {", "  long x = 1l;", "}");
+    JavaFileObject source = diagnosticHelper.getDiagnostics().get(0).getSource();
+    assertThat(Files.readAllLines(output, UTF_8).get(0))
+        .contains("\"file\":\"" + source.toUri() + "\"");
+  }
+}
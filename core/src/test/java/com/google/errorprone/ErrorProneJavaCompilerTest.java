@@ -16,11 +16,14 @@
 
 package com.google.errorprone;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.errorprone.BugPattern.Category.JDK;
 import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
+import static com.google.errorprone.BugPattern.SeverityLevel.WARNING;
 import static com.google.errorprone.DiagnosticTestHelper.diagnosticMessage;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.junit.Assert.assertTrue;
@@ -32,10 +35,12 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.errorprone.bugpatterns.ArrayEquals;
 import com.google.errorprone.bugpatterns.BadShiftAmount;
 import com.google.errorprone.bugpatterns.BugChecker;
 import com.google.errorprone.bugpatterns.BugChecker.ClassTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.MethodTreeMatcher;
 import com.google.errorprone.bugpatterns.ChainingConstructorIgnoresParameter;
 import com.google.errorprone.bugpatterns.Finally;
 import com.google.errorprone.fixes.SuggestedFix;
@@ -271,6 +276,37 @@ public class ErrorProneJavaCompilerTest {
     assertTrue(matcher.matches(result.diagnosticHelper.getDiagnostics()));
   }
 
+  @Test
+  public void testPathSeverities() {
+    List<String> files = Arrays.asList("bugpatterns/testdata/BadShiftAmountPositiveCases.java");
+    List<Class<? extends BugChecker>> checks = ImmutableList.of(BadShiftAmount.class);
+
+    CompilationResult result =
+        doCompile(files, Arrays.asList("-Xep:BadShiftAmount:OFF@bugpatterns/testdata/**"), checks);
+    assertThat(result.succeeded).isTrue();
+    assertThat(result.diagnosticHelper.getDiagnostics()).isEmpty();
+
+    // The deeper directory takes precedence, and the unrelated directory doesn't apply.
+    result =
+        doCompile(
+            files,
+            Arrays.asList(
+                "-Xep:BadShiftAmount:WARN@errorprone/bugpatterns/testdata",
+                "-Xep:BadShiftAmount:OFF@errorprone",
+                "-Xep:BadShiftAmount:OFF@other/bugpatterns/testdata"),
+            checks);
+    assertThat(result.succeeded).isTrue();
+    assertThat(diagnosticsOfKind(result, Diagnostic.Kind.WARNING)).isNotEmpty();
+
+    // Checks that are disabled globally can be enabled for a directory.
+    result =
+        doCompile(
+            files,
+            Arrays.asList("-Xep:BadShiftAmount:OFF", "-Xep:BadShiftAmount:ERROR@bugpatterns"),
+            checks);
+    assertThat(result.succeeded).isFalse();
+  }
+
   @Test
   public void testWithCustomCheckNegative() {
     CompilationResult result =
@@ -420,6 +456,91 @@ public class ErrorProneJavaCompilerTest {
     assertThat(result.succeeded).isFalse();
   }
 
+  @BugPattern(
+      name = "SlowCheck",
+      summary = "Takes a long time to match each method",
+      explanation = "",
+      category = JDK,
+      severity = WARNING)
+  public static class SlowCheck extends BugChecker implements MethodTreeMatcher {
+    @Override
+    public Description matchMethod(MethodTree tree, VisitorState state) {
+      Uninterruptibles.sleepUninterruptibly(5, MILLISECONDS);
+      return describeMatch(tree);
+    }
+  }
+
+  @Test
+  public void testCheckTimeBudget() {
+    CompilationResult result =
+        doCompile(
+            Arrays.asList("bugpatterns/testdata/SelfAssignmentPositiveCases1.java"),
+            Collections.<String>emptyList(),
+            ImmutableList.<Class<? extends BugChecker>>of(SlowCheck.class));
+    assertThat(result.succeeded).isTrue();
+    assertThat(diagnosticsOfKind(result, Diagnostic.Kind.WARNING).size()).isGreaterThan(1);
+    assertThat(diagnosticsOfKind(result, Diagnostic.Kind.NOTE)).isEmpty();
+
+    // The first match uses up the budget, and the check is skipped for the rest of the compilation.
+    result =
+        doCompile(
+            Arrays.asList("bugpatterns/testdata/SelfAssignmentPositiveCases1.java"),
+            Arrays.asList("-XepCheckTimeBudget:1"),
+            ImmutableList.<Class<? extends BugChecker>>of(SlowCheck.class));
+    assertThat(result.succeeded).isTrue();
+    assertThat(diagnosticsOfKind(result, Diagnostic.Kind.WARNING)).hasSize(1);
+    Diagnostic<? extends JavaFileObject> note =
+        Iterables.getOnlyElement(diagnosticsOfKind(result, Diagnostic.Kind.NOTE));
+    assertThat(note.getMessage(Locale.ENGLISH))
+        .isEqualTo("Skipped checks that exceeded the time budget of 1 ms: SlowCheck");
+  }
+
+  @BugPattern(
+      name = "RunawayCheck",
+      summary = "Never finishes matching a method unless it runs out of time",
+      explanation = "",
+      category = JDK,
+      severity = WARNING)
+  public static class RunawayCheck extends BugChecker implements MethodTreeMatcher {
+    @Override
+    public Description matchMethod(MethodTree tree, VisitorState state) {
+      while (true) {
+        ErrorProneTimings.checkDeadline(state.context);
+        Uninterruptibles.sleepUninterruptibly(1, MILLISECONDS);
+      }
+    }
+  }
+
+  @Test
+  public void testCheckFileTimeLimit() {
+    CompilationResult result =
+        doCompile(
+            Arrays.asList(
+                "bugpatterns/testdata/SelfAssignmentPositiveCases1.java",
+                "bugpatterns/testdata/SelfAssignmentPositiveCases2.java"),
+            Arrays.asList("-XepCheckFileTimeLimit:20"),
+            ImmutableList.<Class<? extends BugChecker>>of(RunawayCheck.class));
+    assertThat(result.succeeded).isTrue();
+    // The check is abandoned at the first method of each file, and skipped for the rest of it.
+    ImmutableList<Diagnostic<? extends JavaFileObject>> warnings =
+        diagnosticsOfKind(result, Diagnostic.Kind.WARNING);
+    assertThat(warnings).hasSize(2);
+    for (Diagnostic<? extends JavaFileObject> warning : warnings) {
+      assertThat(warning.getMessage(Locale.ENGLISH))
+          .isEqualTo(
+              "[RunawayCheck] Skipped for the rest of this file: the check took more than its"
+                  + " time limit of 20 ms");
+    }
+    assertThat(warnings.get(0).getSource()).isNotEqualTo(warnings.get(1).getSource());
+  }
+
+  private static ImmutableList<Diagnostic<? extends JavaFileObject>> diagnosticsOfKind(
+      CompilationResult result, Diagnostic.Kind kind) {
+    return result.diagnosticHelper.getDiagnostics().stream()
+        .filter(d -> d.getKind() == kind)
+        .collect(toImmutableList());
+  }
+
   private static class CompilationResult {
     public final boolean succeeded;
     public final DiagnosticTestHelper diagnosticHelper;
@@ -147,6 +147,62 @@ public class ErrorProneJavacPluginTest {
         .inOrder();
   }
 
+  @Test
+  public void applyFixesWithPathSeverities() throws IOException {
+    // TODO(b/63064865): Test is broken on Windows.  Disable for now.
+    Assume.assumeFalse(StandardSystemProperty.OS_NAME.value().startsWith("Windows"));
+
+    Path tmp = temporaryFolder.newFolder().toPath();
+    Path fileA = tmp.resolve("A.java");
+    Path fileB = tmp.resolve("legacy/B.java");
+    Files.createDirectories(fileB.getParent());
+    Files.write(
+        fileA,
+        ImmutableList.of(
+            "class A implements Runnable {", //
+            "  public void run() {}",
+            "}"),
+        UTF_8);
+    Files.write(
+        fileB,
+        ImmutableList.of(
+            "class B implements Runnable {", //
+            "  public void run() {}",
+            "}"),
+        UTF_8);
+    JavacFileManager fileManager = new JavacFileManager(new Context(), false, UTF_8);
+    DiagnosticCollector<JavaFileObject> diagnosticCollector = new DiagnosticCollector<>();
+    JavacTask task =
+        JavacTool.create()
+            .getTask(
+                null,
+                fileManager,
+                diagnosticCollector,
+                ImmutableList.of(
+                    "-Xplugin:ErrorProne"
+                        + " -XepPatchChecks:MissingOverride -XepPatchLocation:IN_PLACE"
+                        + " -Xep:MissingOverride:OFF@legacy",
+                    "-XDcompilePolicy=byfile"),
+                ImmutableList.of(),
+                fileManager.getJavaFileObjects(fileA, fileB));
+    assertThat(task.call())
+        .named(Joiner.on('\n').join(diagnosticCollector.getDiagnostics()))
+        .isTrue();
+    assertThat(Files.readAllLines(fileA, UTF_8))
+        .containsExactly(
+            "class A implements Runnable {", //
+            "  @Override public void run() {}",
+            "}")
+        .inOrder();
+    // The check is disabled for the legacy directory, so B isn't patched.
+    assertThat(Files.readAllLines(fileB, UTF_8))
+        .containsExactly(
+            "class B implements Runnable {", //
+            "  public void run() {}",
+            "}")
+        .inOrder();
+  }
+
   @Test
   public void applyToPatchFile() throws IOException {
     // TODO(b/63064865): Test is broken on Windows.  Disable for now.
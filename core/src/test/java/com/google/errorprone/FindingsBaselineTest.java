@@ -0,0 +1,228 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.bugpatterns.LongLiteralLowerCaseSuffix;
+import com.google.errorprone.scanner.ScannerSupplier;
+import com.sun.tools.javac.main.Main.Result;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import javax.tools.Diagnostic;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link FindingsBaseline}Test */
+@RunWith(JUnit4.class)
+public class FindingsBaselineTest {
+
+  @Rule public final TemporaryFolder tempDir = new TemporaryFolder();
+
+  private DiagnosticTestHelper diagnosticHelper;
+
+  private boolean compile(List<String> options, String... lines) throws IOException {
+    diagnosticHelper = new DiagnosticTestHelper();
+    ErrorProneTestCompiler compiler =
+        new ErrorProneTestCompiler.Builder()
+            .report(ScannerSupplier.fromBugCheckerClasses(LongLiteralLowerCaseSuffix.class))
+            .listenToDiagnostics(diagnosticHelper.collector)
+            .build();
+    List<String> args =
+        ImmutableList.<String>builder()
+            .add("-d", tempDir.newFolder().getPath())
+            .addAll(options)
+            .build();
+    return compiler.compile(
+            args.toArray(new String[0]),
+            ImmutableList.of(compiler.fileManager().forSourceLines("Test.java", lines)))
+        == Result.OK;
+  }
+
+  private List<Long> errorLines() {
+    return diagnosticHelper.getDiagnostics().stream()
+        .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+        .map(Diagnostic::getLineNumber)
+        .collect(ImmutableList.toImmutableList());
+  }
+
+  private Path writeBaseline(String... lines) throws IOException {
+    Path baseline = tempDir.getRoot().toPath().resolve("baseline/findings.bin");
+    assertThat(compile(ImmutableList.of("-XepWriteBaseline", "-XepBaseline:" + baseline), lines))
+        .isTrue();
+    return baseline;
+  }
+
+  @Test
+  public void writeBaseline() throws IOException {
+    Path baseline =
+        writeBaseline(
+            "class Test {",
+            "  long x = 1l;",
+            "  void f() {",
+            "    long y = 2l;",
+            "    long z = 2l;",
+            "  }",
+            "}");
+    assertThat(errorLines()).isEmpty();
+    // The two findings in f() are identical, so they share an entry.
+    assertThat(FindingsBaseline.read(baseline).size()).isEqualTo(2);
+  }
+
+  @Test
+  public void knownFindingsAreNotReported() throws IOException {
+    Path baseline =
+        writeBaseline(
+            "class Test {", //
+            "  long x = 1l;",
+            "  void f() {",
+            "    long y = 2l;",
+            "  }",
+            "}");
+    assertThat(
+            compile(
+                ImmutableList.of("-XepBaseline:" + baseline),
+                "class Test {",
+                "  // The known findings have moved, and have been reformatted.",
+                "  int unrelated;",
+                "  long x   =   1l;",
+                "  void f() {",
+                "    long y =",
+                "        2l;",
+                "  }",
+                "}"))
+        .isTrue();
+    assertThat(errorLines()).isEmpty();
+  }
+
+  @Test
+  public void newFindingsAreReported() throws IOException {
+    Path baseline =
+        writeBaseline(
+            "class Test {", //
+            "  void f() {",
+            "    long y = 2l;",
+            "  }",
+            "}");
+    assertThat(
+            compile(
+                ImmutableList.of("-XepBaseline:" + baseline),
+                "class Test {",
+                "  void f() {",
+                "    long y = 2l;",
+                "    long z = 3l;",
+                "  }",
+                "  void g() {",
+                "    long y = 2l;",
+                "  }",
+                "}"))
+        .isFalse();
+    // The same code in another method is a new finding.
+    assertThat(errorLines()).containsExactly(4L, 7L);
+  }
+
+  @Test
+  public void writeBaselineAddsToExistingFile() throws IOException {
+    // e.g. the compilations of two modules of the same build
+    writeBaseline(
+        "class Test {", //
+        "  long x = 1l;",
+        "}");
+    Path baseline =
+        writeBaseline(
+            "class Test {", //
+            "  long y = 2l;",
+            "}");
+    assertThat(FindingsBaseline.read(baseline).size()).isEqualTo(2);
+    assertThat(
+            compile(
+                ImmutableList.of("-XepBaseline:" + baseline),
+                "class Test {",
+                "  long x = 1l;",
+                "  long y = 2l;",
+                "}"))
+        .isTrue();
+    assertThat(errorLines()).isEmpty();
+  }
+
+  @Test
+  public void anonymousClassIndicesAreIgnored() throws IOException {
+    Path baseline =
+        writeBaseline(
+            "class Test {",
+            "  Runnable r = new Runnable() {",
+            "    public void run() {",
+            "      long y = 2l;",
+            "    }",
+            "  };",
+            "}");
+    assertThat(
+            compile(
+                ImmutableList.of("-XepBaseline:" + baseline),
+                "class Test {",
+                "  Object o = new Object() {};",
+                "  Runnable r = new Runnable() {",
+                "    public void run() {",
+                "      long y = 2l;",
+                "    }",
+                "  };",
+                "}"))
+        .isTrue();
+    assertThat(errorLines()).isEmpty();
+  }
+
+  @Test
+  public void missingBaseline() {
+    Path baseline = tempDir.getRoot().toPath().resolve("missing.bin");
+    assertThrows(InvalidCommandLineOptionException.class, () -> FindingsBaseline.read(baseline));
+  }
+
+  @Test
+  public void corruptBaseline() throws IOException {
+    Path baseline = tempDir.newFile("corrupt.bin").toPath();
+    Files.write(baseline, "not a baseline".getBytes(UTF_8));
+    assertThrows(InvalidCommandLineOptionException.class, () -> FindingsBaseline.read(baseline));
+  }
+
+  @Test
+  public void largeBaseline() throws IOException {
+    long[] fingerprints = new Random(42).longs(1_000_000).sorted().distinct().toArray();
+    Path baseline = tempDir.newFile("large.bin").toPath();
+    try (OutputStream out = Files.newOutputStream(baseline)) {
+      FindingsBaseline.writeTo(fingerprints, out);
+    }
+    FindingsBaseline read = FindingsBaseline.read(baseline);
+    assertThat(read.size()).isEqualTo(fingerprints.length);
+    for (int i = 0; i < fingerprints.length; i += 997) {
+      assertThat(read.contains(fingerprints[i])).isTrue();
+      if (Arrays.binarySearch(fingerprints, fingerprints[i] + 1) < 0) {
+        assertThat(read.contains(fingerprints[i] + 1)).isFalse();
+      }
+    }
+  }
+}
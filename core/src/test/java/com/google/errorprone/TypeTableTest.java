@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.errorprone.BugPattern.Category;
+import com.google.errorprone.BugPattern.SeverityLevel;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.ClassTreeMatcher;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.suppliers.Supplier;
+import com.google.errorprone.suppliers.Suppliers;
+import com.sun.source.tree.ClassTree;
+import com.sun.tools.javac.code.Type;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link TypeTable}Test */
+@RunWith(JUnit4.class)
+public class TypeTableTest {
+
+  @Test
+  public void slots() {
+    int slot = TypeTable.slot("java.util.List");
+    assertThat(TypeTable.slot(new String("java.util.List"))).isEqualTo(slot);
+    assertThat(TypeTable.slot("java.util.Map")).isNotEqualTo(slot);
+  }
+
+  /** A {@link BugChecker} that prints which of a few types can be resolved. */
+  @BugPattern(
+      name = "PrintTypes",
+      category = Category.ONE_OFF,
+      severity = SeverityLevel.ERROR,
+      summary = "Prints which types can be resolved")
+  public static class PrintTypes extends BugChecker implements ClassTreeMatcher {
+    private static final Supplier<Type> LIST = Suppliers.typeFromString("java.util.List");
+    private static final Supplier<Type> ENTRY = Suppliers.typeFromString("java.util.Map.Entry");
+    private static final Supplier<Type> MISSING = Suppliers.typeFromString("test.Missing");
+    private static final Supplier<Type> INT = Suppliers.typeFromString("int");
+
+    @Override
+    public Description matchClass(ClassTree tree, VisitorState state) {
+      Type list = LIST.get(state);
+      assertThat(list).isSameAs(state.getTypeFromString("java.util.List"));
+      assertThat(state.getTypeFromString("test.Missing")).isNull();
+      int slots = TypeTable.slots();
+      // Names computed from the source don't get a slot
+      Type dynamic = state.getTypeFromString(tree.getSimpleName().toString());
+      assertThat(dynamic).isNotNull();
+      assertThat(state.getTypeFromString(tree.getSimpleName().toString())).isSameAs(dynamic);
+      assertThat(state.getTypeFromString(tree.getSimpleName() + "$Missing")).isNull();
+      assertThat(TypeTable.slots()).isEqualTo(slots);
+      return buildDescription(tree)
+          .setMessage(
+              String.format(
+                  "%s %s %s %s",
+                  name(list),
+                  name(ENTRY.get(state)),
+                  name(MISSING.get(state)),
+                  name(INT.get(state))))
+          .build();
+    }
+
+    private static String name(Type type) {
+      return type == null ? "null" : type.tsym.toString();
+    }
+  }
+
+  @Test
+  public void resolve() {
+    CompilationTestHelper.newInstance(PrintTypes.class, getClass())
+        .addSourceLines(
+            "A.java", //
+            "// BUG: Diagnostic contains: java.util.List java.util.Map.Entry null int",
+            "class A {}")
+        .addSourceLines(
+            "B.java", //
+            "// BUG: Diagnostic contains: java.util.List java.util.Map.Entry null int",
+            "class B {}")
+        .doTest();
+  }
+}
@@ -38,6 +38,23 @@ public class BadShiftAmountTest {
     compilationHelper.addSourceFile("BadShiftAmountPositiveCases.java").doTest();
   }
 
+  @Test
+  public void noFixForNonLiteralShiftAmount() {
+    compilationHelper
+        .addSourceLines(
+            "Test.java",
+            "class Test {",
+            "  static final int SHIFT = 100;",
+            "  int f(int x) {",
+            "    // BUG: Diagnostic matches: NO_FIX",
+            "    return x >> SHIFT;",
+            "  }",
+            "}")
+        .expectErrorMessage(
+            "NO_FIX", d -> d.contains("BadShiftAmount") && !d.contains("Did you mean"))
+        .doTest();
+  }
+
   @Test
   public void testNegativeCase() {
     compilationHelper.addSourceFile("BadShiftAmountNegativeCases.java").doTest();
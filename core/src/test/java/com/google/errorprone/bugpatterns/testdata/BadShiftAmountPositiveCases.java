@@ -53,5 +53,9 @@ public class BadShiftAmountPositiveCases {
     result += c >> 32;
     // BUG: Diagnostic contains: (long) c >>> 32
     result += c >>> 32;
+
+    int shift = 40;
+    // BUG: Diagnostic contains: (long) x >> shift
+    result += x >> shift;
   }
 }
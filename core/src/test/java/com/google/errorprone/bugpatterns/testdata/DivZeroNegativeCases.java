@@ -21,5 +21,9 @@ public class DivZeroNegativeCases {
 
   void method(int a) {
     double y = (double) a / 0.0;
+
+    int notZero = 0;
+    notZero = a;
+    int x = a / notZero;
   }
 }
@@ -25,6 +25,8 @@ public class DivZeroPositiveCases {
 
   static int staticOne = 0;
 
+  static final Integer BOXED_ZERO = 0;
+
   // BUG: Diagnostic contains: DivZero
   static int staticTwo = staticOne / 0;
 
@@ -74,6 +76,13 @@ public class DivZeroPositiveCases {
 
     // BUG: Diagnostic contains: throw new ArithmeticException
     x = f() / 0;
+
+    int zero = 0;
+    // BUG: Diagnostic contains: throw new ArithmeticException
+    x = a / zero;
+
+    // BUG: Diagnostic contains: throw new ArithmeticException
+    x = a / BOXED_ZERO;
   }
 
   // TODO(cushon): write a check for self-references via qualified names in field initializers,
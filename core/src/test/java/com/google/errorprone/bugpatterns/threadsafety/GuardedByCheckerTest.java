@@ -1557,6 +1557,45 @@ public class GuardedByCheckerTest {
         .doTest();
   }
 
+  @Test
+  public void nestedLambdasAndAnonymousClasses() {
+    compilationHelper
+        .addSourceLines(
+            "Test.java",
+            "import javax.annotation.concurrent.GuardedBy;",
+            "public class Test {",
+            "  @GuardedBy(\"this\") int x;",
+            "  synchronized void f() {",
+            "    x++;",
+            "    Runnable r = () -> {",
+            "      synchronized (this) {",
+            "        x++;",
+            "        Runnable s = () -> {",
+            "          // BUG: Diagnostic contains: should be guarded by 'this',",
+            "          x++;",
+            "        };",
+            "      }",
+            "      // BUG: Diagnostic contains: should be guarded by 'this',",
+            "      x++;",
+            "    };",
+            "    new Object() {",
+            "      void g() {",
+            "        // BUG: Diagnostic contains: should be guarded by",
+            "        x++;",
+            "        synchronized (Test.this) {",
+            "          x++;",
+            "        }",
+            "      }",
+            "    };",
+            "  }",
+            "  final Runnable field = () -> {",
+            "    // BUG: Diagnostic contains: should be guarded by 'this',",
+            "    x++;",
+            "  };",
+            "}")
+        .doTest();
+  }
+
   @Test
   public void multipleLocks() {
     compilationHelper
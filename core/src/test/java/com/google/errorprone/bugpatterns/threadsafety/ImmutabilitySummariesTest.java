@@ -0,0 +1,190 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.bugpatterns.threadsafety;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.DiagnosticTestHelper;
+import com.google.errorprone.ErrorProneInMemoryFileManager;
+import com.google.errorprone.ErrorProneJavaCompiler;
+import com.google.errorprone.scanner.ScannerSupplier;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link ImmutabilitySummaries}Test */
+@RunWith(JUnit4.class)
+public class ImmutabilitySummariesTest {
+
+  @Rule public final TemporaryFolder tempDir = new TemporaryFolder();
+
+  private final ErrorProneInMemoryFileManager fileManager = new ErrorProneInMemoryFileManager();
+
+  private DiagnosticTestHelper diagnosticHelper;
+
+  private boolean compile(Path output, List<String> options, JavaFileObject... sources) {
+    diagnosticHelper = new DiagnosticTestHelper();
+    return new ErrorProneJavaCompiler(ScannerSupplier.fromBugCheckerClasses(ImmutableChecker.class))
+        .getTask(
+            null,
+            fileManager,
+            diagnosticHelper.collector,
+            ImmutableList.<String>builder()
+                .add("-d", output.toString(), "-proc:none")
+                .addAll(options)
+                .build(),
+            null,
+            ImmutableList.copyOf(sources))
+        .call();
+  }
+
+  /**
+   * Compiles a library whose {@code Base} class is only immutable because the library knows that
+   * {@code lib.Foo} is, and returns its class output.
+   */
+  private Path compileLibrary() throws IOException {
+    Path library = tempDir.newFolder("library").toPath();
+    assertThat(
+            compile(
+                library,
+                ImmutableList.of(
+                    "-XepOpt:Immutable:Summaries=true", "-XepOpt:Immutable:KnownImmutable=lib.Foo"),
+                fileManager.forSourceLines(
+                    "lib/Foo.java", //
+                    "package lib;",
+                    "public class Foo {}"),
+                fileManager.forSourceLines(
+                    "lib/Base.java",
+                    "package lib;",
+                    "public abstract class Base {",
+                    "  private final Foo foo = null;",
+                    "}"),
+                fileManager.forSourceLines(
+                    "lib/Mutable.java",
+                    "package lib;",
+                    "public abstract class Mutable {",
+                    "  private int x;",
+                    "}"),
+                fileManager.forSourceLines(
+                    "lib/Box.java",
+                    "package lib;",
+                    "import com.google.errorprone.annotations.Immutable;",
+                    "@Immutable(containerOf = \"T\") public class Box<T> {",
+                    "  private final T t = null;",
+                    "}")))
+        .isTrue();
+    return library;
+  }
+
+  private List<Long> compileClient(Path library, String... options) throws IOException {
+    compile(
+        tempDir.newFolder().toPath(),
+        ImmutableList.<String>builder()
+            .add("-cp", library + File.pathSeparator + System.getProperty("java.class.path"))
+            .add(options)
+            .build(),
+        fileManager.forSourceLines(
+            "Sub.java",
+            "import com.google.errorprone.annotations.Immutable;",
+            "@Immutable class Sub extends lib.Base {",
+            "  private final lib.Box<String> box = null;",
+            "}"));
+    return diagnosticHelper.getDiagnostics().stream()
+        .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+        .map(Diagnostic::getLineNumber)
+        .collect(ImmutableList.toImmutableList());
+  }
+
+  @Test
+  public void writesSummary() throws IOException {
+    Path library = compileLibrary();
+    List<String> summary =
+        Files.readAllLines(library.resolve(ImmutabilitySummaries.RESOURCE), UTF_8);
+    assertThat(summary).containsExactly("lib.Base E", "lib.Box A lib.Box T").inOrder();
+  }
+
+  @Test
+  public void trustsSummaries() throws IOException {
+    Path library = compileLibrary();
+    assertThat(compileClient(library, "-XepOpt:Immutable:Summaries=true")).isEmpty();
+  }
+
+  @Test
+  public void deletesStaleSummary() throws IOException {
+    Path library = compileLibrary();
+    assertThat(
+            compile(
+                library,
+                ImmutableList.of("-XepOpt:Immutable:Summaries=true"),
+                fileManager.forSourceLines(
+                    "lib/Base.java",
+                    "package lib;",
+                    "public abstract class Base {",
+                    "  private int x;",
+                    "}")))
+        .isTrue();
+    assertThat(Files.exists(library.resolve(ImmutabilitySummaries.RESOURCE))).isFalse();
+  }
+
+  @Test
+  public void doesNotTrustStaleSummaryOfClassesBeingCompiled() throws IOException {
+    Path library = compileLibrary();
+    // The library's own class output, with its summary, is on the classpath of its next build.
+    compile(
+        library,
+        ImmutableList.of(
+            "-XepOpt:Immutable:Summaries=true",
+            "-cp",
+            library + File.pathSeparator + System.getProperty("java.class.path")),
+        fileManager.forSourceLines(
+            "lib/Base.java",
+            "package lib;",
+            "public abstract class Base {",
+            "  private int x;",
+            "}"),
+        fileManager.forSourceLines(
+            "lib/Sub.java",
+            "package lib;",
+            "import com.google.errorprone.annotations.Immutable;",
+            "@Immutable class Sub extends Base {}"));
+    assertThat(
+            diagnosticHelper.getDiagnostics().stream()
+                .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                .map(Diagnostic::getLineNumber)
+                .collect(ImmutableList.toImmutableList()))
+        .containsExactly(3L);
+    assertThat(Files.exists(library.resolve(ImmutabilitySummaries.RESOURCE))).isFalse();
+  }
+
+  @Test
+  public void summariesAreOptIn() throws IOException {
+    Path library = compileLibrary();
+    // Without the summary, this compilation doesn't know that lib.Foo is immutable.
+    assertThat(compileClient(library)).containsExactly(2L);
+  }
+}
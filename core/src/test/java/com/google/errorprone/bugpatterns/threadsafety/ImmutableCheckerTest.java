@@ -16,15 +16,19 @@
 
 package com.google.errorprone.bugpatterns.threadsafety;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import com.google.common.collect.ImmutableList;
 import com.google.common.io.ByteStreams;
 import com.google.errorprone.CompilationTestHelper;
 import com.google.errorprone.annotations.Immutable;
 import com.google.errorprone.annotations.concurrent.LazyInit;
+import com.google.errorprone.scanner.ScannerSupplier;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.List;
 import java.util.jar.JarEntry;
@@ -1464,6 +1468,43 @@ public class ImmutableCheckerTest {
         .doTest();
   }
 
+  @Test
+  public void knownImmutableFileFlag() throws IOException {
+    File file = tempFolder.newFile("known_immutable.txt");
+    Files.write(
+        file.toPath(),
+        ImmutableList.of(
+            "# known immutable classes",
+            "threadsafety.Box T",
+            "threadsafety.SomeImmutable",
+            "threadsafety.SomeImmutable$Nested"),
+        UTF_8);
+    CompilationTestHelper.newInstance(ImmutableChecker.class, getClass())
+        .setArgs(ImmutableList.of("-XepOpt:Immutable:KnownImmutableFile=" + file))
+        .addSourceLines(
+            "threadsafety/SomeImmutable.java",
+            "package threadsafety;",
+            "class SomeImmutable {",
+            "  static class Nested {}",
+            "}")
+        .addSourceLines(
+            "threadsafety/Box.java", //
+            "package threadsafety;",
+            "class Box<T> {}")
+        .addSourceLines(
+            "threadsafety/Test.java",
+            "package threadsafety;",
+            "import com.google.errorprone.annotations.Immutable;",
+            "@Immutable class Test {",
+            "  public final SomeImmutable s = new SomeImmutable();",
+            "  public final SomeImmutable.Nested n = new SomeImmutable.Nested();",
+            "  public final Box<String> b = new Box<>();",
+            "  // BUG: Diagnostic contains: 'Object' is mutable",
+            "  public final Box<Object> o = new Box<>();",
+            "}")
+        .doTest();
+  }
+
   @Test
   public void lazyInit() {
     compilationHelper
@@ -1801,4 +1842,41 @@ public class ImmutableCheckerTest {
             "}")
         .doTest();
   }
+
+  @Test
+  public void verdictsSharedWithImmutableEnumChecker() {
+    CompilationTestHelper.newInstance(
+            ScannerSupplier.fromBugCheckerClasses(
+                ImmutableChecker.class, ImmutableEnumChecker.class),
+            getClass())
+        .addSourceLines("Mutable.java", "class Mutable {}")
+        .addSourceLines(
+            "Test.java",
+            "import com.google.common.collect.ImmutableList;",
+            "import com.google.errorprone.annotations.Immutable;",
+            "@Immutable class Test<T> {",
+            "  // BUG: Diagnostic contains: instantiated with mutable type for 'E'",
+            "  final ImmutableList<Mutable> xs = null;",
+            "  // BUG: Diagnostic contains: 'T' is a mutable type variable",
+            "  final ImmutableList<T> ts = null;",
+            "  final ImmutableList<String> ss = null;",
+            "}")
+        .addSourceLines(
+            "Container.java",
+            "import com.google.common.collect.ImmutableList;",
+            "import com.google.errorprone.annotations.Immutable;",
+            "@Immutable(containerOf = \"T\") class Container<T> {",
+            "  final ImmutableList<T> ts = null;",
+            "}")
+        .addSourceLines(
+            "E.java",
+            "import com.google.common.collect.ImmutableList;",
+            "enum E {",
+            "  ONE;",
+            "  // BUG: Diagnostic contains: instantiated with mutable type for 'E'",
+            "  final ImmutableList<Mutable> xs = null;",
+            "  final ImmutableList<String> ss = null;",
+            "}")
+        .doTest();
+  }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.bugpatterns.threadsafety;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.InvalidCommandLineOptionException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link KnownImmutableFile}Test */
+@RunWith(JUnit4.class)
+public class KnownImmutableFileTest {
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private KnownImmutableFile open(String contents) throws IOException {
+    Path path = tempFolder.newFile().toPath();
+    Files.write(path, contents.getBytes(UTF_8));
+    return KnownImmutableFile.open(path);
+  }
+
+  @Test
+  public void sorted() throws IOException {
+    KnownImmutableFile file = open("a.A\na.B K,V\na.B$C\nb.D E\n");
+    assertThat(file.size()).isEqualTo(4);
+    assertThat(file.get("a.A")).isEqualTo(AnnotationInfo.create("a.A"));
+    assertThat(file.get("a.B"))
+        .isEqualTo(AnnotationInfo.create("a.B", ImmutableList.of("K", "V")));
+    assertThat(file.get("a.B$C")).isEqualTo(AnnotationInfo.create("a.B$C"));
+    assertThat(file.get("b.D")).isEqualTo(AnnotationInfo.create("b.D", ImmutableList.of("E")));
+    assertThat(file.get("a")).isNull();
+    assertThat(file.get("a.B$")).isNull();
+    assertThat(file.get("c.E")).isNull();
+  }
+
+  @Test
+  public void unsorted() throws IOException {
+    KnownImmutableFile file = open("z.Z\nb.B T\na.A\nm.M");
+    assertThat(file.size()).isEqualTo(4);
+    assertThat(file.get("a.A")).isEqualTo(AnnotationInfo.create("a.A"));
+    assertThat(file.get("b.B")).isEqualTo(AnnotationInfo.create("b.B", ImmutableList.of("T")));
+    assertThat(file.get("m.M")).isEqualTo(AnnotationInfo.create("m.M"));
+    assertThat(file.get("z.Z")).isEqualTo(AnnotationInfo.create("z.Z"));
+  }
+
+  @Test
+  public void commentsBlankLinesAndCarriageReturns() throws IOException {
+    KnownImmutableFile file = open("# header\r\n\r\na.A T\r\n  \r\nb.B\r\n");
+    assertThat(file.size()).isEqualTo(2);
+    assertThat(file.get("a.A")).isEqualTo(AnnotationInfo.create("a.A", ImmutableList.of("T")));
+    assertThat(file.get("b.B")).isEqualTo(AnnotationInfo.create("b.B"));
+    assertThat(file.get("# header")).isNull();
+  }
+
+  @Test
+  public void empty() throws IOException {
+    KnownImmutableFile file = open("");
+    assertThat(file.size()).isEqualTo(0);
+    assertThat(file.get("a.A")).isNull();
+  }
+
+  @Test
+  public void sharedByPath() throws IOException {
+    Path path = tempFolder.newFile().toPath();
+    Files.write(path, "a.A\n".getBytes(UTF_8));
+    KnownImmutableFile file = KnownImmutableFile.forPath(path);
+    assertThat(KnownImmutableFile.forPath(path)).isSameAs(file);
+    Path samePath = path.getParent().resolve(".").resolve(path.getFileName());
+    assertThat(KnownImmutableFile.forPath(samePath)).isSameAs(file);
+
+    // A file that has changed is mapped again.
+    Files.write(path, "a.A\nb.B\n".getBytes(UTF_8));
+    KnownImmutableFile changed = KnownImmutableFile.forPath(path);
+    assertThat(changed).isNotSameAs(file);
+    assertThat(changed.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void missingFile() {
+    assertThrows(
+        InvalidCommandLineOptionException.class,
+        () -> KnownImmutableFile.open(tempFolder.getRoot().toPath().resolve("missing")));
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.bugpatterns.threadsafety;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.errorprone.SubContext;
+import com.sun.tools.javac.util.Context;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link ThreadSafetyVerdicts}Test */
+@RunWith(JUnit4.class)
+public class ThreadSafetyVerdictsTest {
+
+  @Test
+  public void sharedByTheScansOfAllClasses() {
+    Context compilation = new Context();
+    // Error Prone scans each class in its own SubContext of the compilation's context.
+    ThreadSafetyVerdicts first = ThreadSafetyVerdicts.instance(new SubContext(compilation));
+    ThreadSafetyVerdicts second = ThreadSafetyVerdicts.instance(new SubContext(compilation));
+    assertThat(second).isSameAs(first);
+    assertThat(ThreadSafetyVerdicts.instance(compilation)).isSameAs(first);
+  }
+
+  @Test
+  public void notSharedBetweenCompilations() {
+    assertThat(ThreadSafetyVerdicts.instance(new SubContext(new Context())))
+        .isNotSameAs(ThreadSafetyVerdicts.instance(new SubContext(new Context())));
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.dataflow;
+
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.BugPattern.Category;
+import com.google.errorprone.BugPattern.SeverityLevel;
+import com.google.errorprone.CompilationTestHelper;
+import com.google.errorprone.SubContext;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.dataflow.nullnesspropagation.Nullness;
+import com.google.errorprone.dataflow.nullnesspropagation.NullnessAnalysis;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.util.TreePath;
+import com.sun.tools.javac.util.Context;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link DenseAnalysis}. */
+@RunWith(JUnit4.class)
+public class DenseAnalysisTest {
+
+  /**
+   * A {@link BugChecker} that prints the nullness of the argument of each call to a method named
+   * {@code f} as computed by {@link DenseAnalysis}, and checks that the checker framework's {@code
+   * Analysis} and the default choice between the two agree with it.
+   */
+  @BugPattern(
+      name = "PrintNullness",
+      category = Category.ONE_OFF,
+      severity = SeverityLevel.ERROR,
+      summary = "Prints the nullness of each argument")
+  public static class PrintNullness extends BugChecker implements MethodInvocationTreeMatcher {
+    @Override
+    public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+      if (!ASTHelpers.getSymbol(tree).getSimpleName().contentEquals("f")) {
+        return Description.NO_MATCH;
+      }
+      TreePath argument = new TreePath(state.getPath(), tree.getArguments().get(0));
+      Context denseContext = new SubContext(state.context);
+      DataFlow.useDenseAnalysis(denseContext);
+      Nullness nullness = nullness(argument, denseContext);
+      Context checkerFrameworkContext = new SubContext(state.context);
+      DataFlow.useCheckerFrameworkAnalysis(checkerFrameworkContext);
+      Nullness expected = nullness(argument, checkerFrameworkContext);
+      if (nullness != expected) {
+        throw new AssertionError(
+            String.format("%s: expected %s, was %s", argument.getLeaf(), expected, nullness));
+      }
+      Nullness byDefault = nullness(argument, new SubContext(state.context));
+      if (byDefault != expected) {
+        throw new AssertionError(
+            String.format(
+                "%s: expected %s by default, was %s", argument.getLeaf(), expected, byDefault));
+      }
+      return buildDescription(tree).setMessage("nullness: " + nullness).build();
+    }
+
+    private static Nullness nullness(TreePath path, Context context) {
+      return NullnessAnalysis.instance(context).getNullness(path, context);
+    }
+  }
+
+  @Test
+  public void nullness() {
+    CompilationTestHelper.newInstance(PrintNullness.class, getClass())
+        .addSourceLines(
+            "Test.java",
+            "import java.util.function.Consumer;",
+            "class Test {",
+            "  void f(Object o) {}",
+            "  void g() {}",
+            "  void straightLine(Object o) {",
+            "    // BUG: Diagnostic contains: nullness: Nullable",
+            "    f(o);",
+            "    // BUG: Diagnostic contains: nullness: Null",
+            "    f(null);",
+            "    o = \"\";",
+            "    // BUG: Diagnostic contains: nullness: Non-null",
+            "    f(o);",
+            "  }",
+            "  void conditions(Object o, boolean b) {",
+            "    if (o != null && b) {",
+            "      // BUG: Diagnostic contains: nullness: Non-null",
+            "      f(o);",
+            "    }",
+            "    if (o == null || b) {",
+            "      // BUG: Diagnostic contains: nullness: Nullable",
+            "      f(o);",
+            "    } else {",
+            "      // BUG: Diagnostic contains: nullness: Non-null",
+            "      f(o);",
+            "    }",
+            "    // BUG: Diagnostic contains: nullness: Non-null",
+            "    f(o != null ? o : \"\");",
+            "  }",
+            "  void loops(boolean b) {",
+            "    Object o = \"\";",
+            "    while (b) {",
+            "      // BUG: Diagnostic contains: nullness: Nullable",
+            "      f(o);",
+            "      o = null;",
+            "    }",
+            "    for (Object p = null; p == null; p = \"\") {",
+            "      // BUG: Diagnostic contains: nullness: Null",
+            "      f(p);",
+            "    }",
+            "  }",
+            "  void exceptions() {",
+            "    Object o = null;",
+            "    try {",
+            "      g();",
+            "      o = \"\";",
+            "      g();",
+            "    } catch (RuntimeException e) {",
+            "      // BUG: Diagnostic contains: nullness:",
+            "      f(o);",
+            "      // BUG: Diagnostic contains: nullness:",
+            "      f(e);",
+            "    } finally {",
+            "      // BUG: Diagnostic contains: nullness:",
+            "      f(o);",
+            "    }",
+            "  }",
+            "  void lambda() {",
+            "    Consumer<Object> c = x -> {",
+            "      Object y = x;",
+            "      // BUG: Diagnostic contains: nullness:",
+            "      f(y);",
+            "    };",
+            "  }",
+            "}")
+        .doTest();
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.matchers;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.errorprone.matchers.Matchers.allOf;
+import static com.google.errorprone.matchers.Matchers.anyOf;
+import static com.google.errorprone.matchers.Matchers.anything;
+import static com.google.errorprone.matchers.Matchers.isSameType;
+import static com.google.errorprone.matchers.Matchers.isSubtypeOf;
+import static com.google.errorprone.matchers.Matchers.kindIs;
+import static com.google.errorprone.matchers.Matchers.not;
+import static com.google.errorprone.matchers.Matchers.nothing;
+
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.matchers.CostedMatcher.Cost;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.Tree.Kind;
+import com.sun.source.tree.TreeVisitor;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link CompoundMatcher}Test */
+@RunWith(JUnit4.class)
+public class CompoundMatcherTest {
+
+  private static final Tree IDENTIFIER =
+      new Tree() {
+        @Override
+        public Kind getKind() {
+          return Kind.IDENTIFIER;
+        }
+
+        @Override
+        public <R, D> R accept(TreeVisitor<R, D> visitor, D data) {
+          throw new UnsupportedOperationException();
+        }
+      };
+
+  private final List<String> evaluated = new ArrayList<>();
+
+  /** Returns a matcher of unknown cost that records when it is evaluated. */
+  private Matcher<Tree> recording(String name, boolean result) {
+    return (tree, state) -> {
+      evaluated.add(name);
+      return result;
+    };
+  }
+
+  private static boolean matches(Matcher<Tree> matcher) {
+    return matcher.matches(IDENTIFIER, (VisitorState) null);
+  }
+
+  @Test
+  public void cheapOperandsFirst() {
+    // isSubtypeOf needs a VisitorState, so it would throw if it were evaluated first
+    assertThat(matches(allOf(isSubtypeOf("a.A"), kindIs(Kind.METHOD_INVOCATION)))).isFalse();
+    assertThat(matches(anyOf(isSubtypeOf("a.A"), kindIs(Kind.IDENTIFIER)))).isTrue();
+    assertThat(
+            matches(
+                allOf(
+                    recording("a", true),
+                    isSubtypeOf("a.A"),
+                    kindIs(Kind.METHOD_INVOCATION),
+                    recording("b", true))))
+        .isFalse();
+    assertThat(evaluated).containsExactly("a");
+  }
+
+  @Test
+  public void unknownOperandsAreBarriers() {
+    assertThat(matches(allOf(recording("a", false), kindIs(Kind.IDENTIFIER)))).isFalse();
+    assertThat(matches(anyOf(recording("b", true), kindIs(Kind.IDENTIFIER)))).isTrue();
+    assertThat(
+            matches(
+                allOf(
+                    kindIs(Kind.IDENTIFIER),
+                    recording("c", true),
+                    kindIs(Kind.METHOD_INVOCATION),
+                    recording("d", true))))
+        .isFalse();
+    assertThat(evaluated).containsExactly("a", "b", "c").inOrder();
+  }
+
+  @Test
+  public void unknownOperandsInOrder() {
+    assertThat(matches(allOf(recording("a", true), recording("b", true), recording("c", false))))
+        .isFalse();
+    assertThat(matches(anyOf(recording("d", false), recording("e", true), recording("f", true))))
+        .isTrue();
+    assertThat(evaluated).containsExactly("a", "b", "c", "d", "e").inOrder();
+  }
+
+  @Test
+  public void flattenAndDeduplicate() {
+    Matcher<Tree> a = recording("a", true);
+    Matcher<Tree> b = recording("b", true);
+    assertThat(matches(allOf(a, allOf(a, b), allOf(allOf(b), a)))).isTrue();
+    assertThat(evaluated).containsExactly("a", "b").inOrder();
+  }
+
+  @Test
+  public void nestedAnyOfIsNotFlattenedIntoAllOf() {
+    Matcher<Tree> a = recording("a", false);
+    Matcher<Tree> b = recording("b", true);
+    assertThat(matches(allOf(anyOf(a, b), a))).isFalse();
+    assertThat(evaluated).containsExactly("a", "b", "a").inOrder();
+  }
+
+  @Test
+  public void emptyAndSingleton() {
+    assertThat(matches(allOf())).isTrue();
+    assertThat(matches(anyOf())).isFalse();
+    Matcher<Tree> a = recording("a", true);
+    assertThat(allOf(a)).isSameAs(a);
+    assertThat(anyOf(a, a)).isSameAs(a);
+  }
+
+  @Test
+  public void negation() {
+    Matcher<Tree> a = recording("a", true);
+    assertThat(matches(not(a))).isFalse();
+    assertThat(not(not(a))).isSameAs(a);
+    assertThat(CostedMatcher.costOf(not(kindIs(Kind.IDENTIFIER)))).isEqualTo(Cost.TREE);
+    assertThat(CostedMatcher.costOf(not(a))).isEqualTo(Cost.UNKNOWN);
+  }
+
+  @Test
+  public void cost() {
+    assertThat(CostedMatcher.costOf(allOf(anything(), nothing()))).isEqualTo(Cost.TREE);
+    assertThat(CostedMatcher.costOf(anyOf(kindIs(Kind.IDENTIFIER), isSubtypeOf("a.A"))))
+        .isEqualTo(Cost.TYPE);
+    assertThat(CostedMatcher.costOf(allOf(kindIs(Kind.IDENTIFIER), recording("a", true))))
+        .isEqualTo(Cost.UNKNOWN);
+  }
+
+  @Test
+  public void typeMatcherCost() {
+    // Only types looked up by name are known to be safe to compare early.
+    assertThat(CostedMatcher.costOf(isSubtypeOf("a.A"))).isEqualTo(Cost.TYPE);
+    assertThat(CostedMatcher.costOf(isSubtypeOf(Object.class))).isEqualTo(Cost.TYPE);
+    assertThat(CostedMatcher.costOf(isSubtypeOf(state -> null))).isEqualTo(Cost.UNKNOWN);
+    assertThat(CostedMatcher.costOf(isSameType("a.A"))).isEqualTo(Cost.TYPE);
+    assertThat(CostedMatcher.costOf(isSameType(Object.class))).isEqualTo(Cost.TYPE);
+    assertThat(CostedMatcher.costOf(isSameType(state -> null))).isEqualTo(Cost.UNKNOWN);
+  }
+}
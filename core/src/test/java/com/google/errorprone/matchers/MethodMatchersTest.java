@@ -16,25 +16,30 @@
 
 package com.google.errorprone.matchers;
 
+import static com.google.common.truth.Truth.assertThat;
 import static com.google.errorprone.BugPattern.Category.JDK;
 import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
 import static com.google.errorprone.matchers.Description.NO_MATCH;
 import static com.google.errorprone.matchers.Matchers.instanceMethod;
 import static com.google.errorprone.matchers.Matchers.staticMethod;
 import static com.google.errorprone.matchers.method.MethodMatchers.constructor;
+import static com.google.errorprone.matchers.method.MethodMatchers.methodNames;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.BugPattern;
 import com.google.errorprone.BugPattern.ProvidesFix;
 import com.google.errorprone.CompilationTestHelper;
 import com.google.errorprone.VisitorState;
 import com.google.errorprone.bugpatterns.BugChecker;
 import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.NamedMethodInvocationTreeMatcher;
 import com.google.errorprone.fixes.SuggestedFix;
 import com.google.errorprone.matchers.method.MethodMatchers;
 import com.google.errorprone.matchers.method.MethodMatchers.MethodNameMatcher;
 import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.MethodInvocationTree;
 import com.sun.source.tree.NewClassTree;
+import java.util.regex.Pattern;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -212,4 +217,85 @@ public class MethodMatchersTest {
             "}")
         .doTest();
   }
+
+  /** {@link FlagMethodNamesChecker}, indexed by the names its matchers can match. */
+  @BugPattern(name = "FlagIndexedMethodNames", summary = "", severity = ERROR)
+  public static class FlagIndexedMethodNamesChecker extends FlagMethodNamesChecker
+      implements NamedMethodInvocationTreeMatcher {
+    @Override
+    public ImmutableSet<String> matchedMethodNames() {
+      return methodNames(
+          FlagMethodNamesChecker.INSTANCE_MATCHER, FlagMethodNamesChecker.STATIC_MATCHER);
+    }
+  }
+
+  @Test
+  public void namedAnyOf_indexedByName() {
+    CompilationTestHelper.newInstance(FlagIndexedMethodNamesChecker.class, getClass())
+        .addSourceLines(
+            "Test.java",
+            "class Test {",
+            "  void foo() {}",
+            "  static void fizz() {}",
+            "  void anotherMethod() {}",
+            "  void f() {",
+            "    // BUG: Diagnostic contains: instance varargs",
+            "    this.foo();",
+            "    // BUG: Diagnostic contains: static varargs",
+            "    Test.fizz();",
+            "    this.anotherMethod();",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  public void methodNamesTest() {
+    assertThat(methodNames(instanceMethod().anyClass().named("foo"))).containsExactly("foo");
+    assertThat(
+            methodNames(
+                instanceMethod().anyClass().namedAnyOf("foo", "bar").withParameters("int"),
+                staticMethod().onClass("java.lang.String").withSignature("valueOf(int)")))
+        .containsExactly("foo", "bar", "valueOf");
+    assertThat(methodNames(instanceMethod().anyClass().withAnyName())).isNull();
+    assertThat(methodNames(instanceMethod().anyClass().withNameMatching(Pattern.compile("f.*"))))
+        .isNull();
+    assertThat(methodNames(staticMethod().anyClass().withSignature("<T>foo(T)"))).isNull();
+    assertThat(methodNames(constructor().forClass("java.lang.Object"))).isNull();
+    assertThat(methodNames(Matchers.anything())).isNull();
+  }
+
+  /** Reports every invocation it is asked to match. */
+  @BugPattern(name = "FlagEverything", summary = "", severity = ERROR)
+  public static class FlagEverythingNamedFooChecker extends BugChecker
+      implements NamedMethodInvocationTreeMatcher {
+    @Override
+    public ImmutableSet<String> matchedMethodNames() {
+      return ImmutableSet.of("foo");
+    }
+
+    @Override
+    public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+      return describeMatch(tree);
+    }
+  }
+
+  @Test
+  public void namedMethodInvocationTreeMatcher_onlyCalledForMatchedNames() {
+    CompilationTestHelper.newInstance(FlagEverythingNamedFooChecker.class, getClass())
+        .addSourceLines(
+            "Test.java",
+            "class Test {",
+            "  void foo() {}",
+            "  void bar() {}",
+            "  void f() {",
+            "    // BUG: Diagnostic contains:",
+            "    foo();",
+            "    // BUG: Diagnostic contains:",
+            "    this.foo();",
+            "    bar();",
+            "  }",
+            "}")
+        .doTest();
+  }
 }
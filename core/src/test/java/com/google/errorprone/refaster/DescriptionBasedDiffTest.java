@@ -323,4 +323,70 @@ public class DescriptionBasedDiffTest extends CompilerBasedTest {
             "}")
         .inOrder();
   }
+
+  @Test
+  public void overlappingDiffs_mergedBySeverity() {
+    DescriptionBasedDiff diff =
+        DescriptionBasedDiff.createIgnoringOverlaps(
+            compilationUnit, ImportOrganizer.STATIC_FIRST_ORGANIZER);
+    diff.onDescribed(
+        new Description(
+            null,
+            "bah",
+            SuggestedFix.builder().replace(137, 140, "baz").addImport("com.foo.Ignored").build(),
+            SeverityLevel.SUGGESTION));
+    diff.onDescribed(
+        new Description(
+            null,
+            "message",
+            SuggestedFix.builder().replace(137, 140, "bar").build(),
+            SeverityLevel.ERROR));
+    diff.applyDifferences(sourceFile);
+
+    assertThat(sourceFile.getLines())
+        .containsExactly(
+            "package foo.bar;",
+            "import org.bar.Baz;",
+            "import com.foo.Bar;",
+            "",
+            "class Foo {",
+            "  public static void main(String[] args) {",
+            "    System.out.println(\"bar\");",
+            "  }",
+            "}")
+        .inOrder();
+  }
+
+  @Test
+  public void overlappingDiffs_conflictingFixDroppedAsAWhole() {
+    DescriptionBasedDiff diff =
+        DescriptionBasedDiff.createIgnoringOverlaps(
+            compilationUnit, ImportOrganizer.STATIC_FIRST_ORGANIZER);
+    diff.onDescribed(
+        new Description(
+            null,
+            "bah",
+            SuggestedFix.builder().replace(137, 140, "baz").build(),
+            SeverityLevel.WARNING));
+    diff.onDescribed(
+        new Description(
+            null,
+            "message",
+            SuggestedFix.builder().replace(124, 127, "longer").replace(137, 140, "bar").build(),
+            SeverityLevel.SUGGESTION));
+    diff.applyDifferences(sourceFile);
+
+    assertThat(sourceFile.getLines())
+        .containsExactly(
+            "package foo.bar;",
+            "import org.bar.Baz;",
+            "import com.foo.Bar;",
+            "",
+            "class Foo {",
+            "  public static void main(String[] args) {",
+            "    System.out.println(\"baz\");",
+            "  }",
+            "}")
+        .inOrder();
+  }
 }
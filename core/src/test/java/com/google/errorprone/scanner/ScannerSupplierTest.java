@@ -36,23 +36,30 @@ import com.google.common.truth.Subject;
 import com.google.errorprone.BugCheckerInfo;
 import com.google.errorprone.BugPattern;
 import com.google.errorprone.BugPattern.SeverityLevel;
+import com.google.errorprone.CompilationTestHelper;
 import com.google.errorprone.ErrorProneJavaCompilerTest;
 import com.google.errorprone.ErrorProneJavaCompilerTest.UnsuppressibleArrayEquals;
 import com.google.errorprone.ErrorProneOptions;
 import com.google.errorprone.InvalidCommandLineOptionException;
+import com.google.errorprone.VisitorState;
 import com.google.errorprone.bugpatterns.ArrayEquals;
 import com.google.errorprone.bugpatterns.BadShiftAmount;
 import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.ClassTreeMatcher;
 import com.google.errorprone.bugpatterns.ChainingConstructorIgnoresParameter;
 import com.google.errorprone.bugpatterns.DepAnn;
 import com.google.errorprone.bugpatterns.DivZero;
 import com.google.errorprone.bugpatterns.EqualsIncompatibleType;
 import com.google.errorprone.bugpatterns.LongLiteralLowerCaseSuffix;
+import com.google.errorprone.bugpatterns.MockitoUsage;
 import com.google.errorprone.bugpatterns.PackageLocation;
 import com.google.errorprone.bugpatterns.PreconditionsCheckNotNull;
 import com.google.errorprone.bugpatterns.RestrictedApiChecker;
 import com.google.errorprone.bugpatterns.StaticQualifiedUsingExpression;
 import com.google.errorprone.bugpatterns.StringEquality;
+import com.google.errorprone.bugpatterns.TruthSelfEquals;
+import com.google.errorprone.matchers.Description;
+import com.sun.source.tree.ClassTree;
 import com.sun.source.util.JavacTask;
 import com.sun.tools.javac.api.JavacTool;
 import com.sun.tools.javac.file.JavacFileManager;
@@ -63,7 +70,9 @@ import java.net.URLClassLoader;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.function.Supplier;
@@ -633,6 +642,60 @@ public class ScannerSupplierTest {
     assertThat(exception.getMessage()).contains("may not be disabled");
   }
 
+  @Test
+  public void disableChecksWithMissingTypes() {
+    ScannerSupplier ss =
+        ScannerSupplier.fromBugCheckerClasses(
+                ArrayEquals.class, MockitoUsage.class, TruthSelfEquals.class, StringEquality.class)
+            .filter(input -> !input.canonicalName().equals("StringEquality"));
+    List<String> lookups = new ArrayList<>();
+    ScannerSupplier gated =
+        ss.disableChecksWithMissingTypes(
+            name -> {
+              lookups.add(name);
+              return name.startsWith("com.google.common.truth.");
+            });
+    assertScanner(gated).hasEnabledChecks(ArrayEquals.class, TruthSelfEquals.class);
+    assertThat(lookups).containsExactly("org.mockito.Mockito", "com.google.common.truth.Subject");
+  }
+
+  /** A check that only applies to code using {@code test.Library}. */
+  @BugPattern(
+      name = "RequiresLibrary",
+      requiredTypes = "test.Library",
+      summary = "",
+      severity = ERROR)
+  public static class RequiresLibrary extends BugChecker implements ClassTreeMatcher {
+    @Override
+    public Description matchClass(ClassTree tree, VisitorState state) {
+      return describeMatch(tree);
+    }
+  }
+
+  @Test
+  public void requiredTypePresent() {
+    CompilationTestHelper.newInstance(RequiresLibrary.class, getClass())
+        .addSourceLines(
+            "test/Library.java", //
+            "package test;",
+            "// BUG: Diagnostic contains:",
+            "public class Library {}")
+        .addSourceLines(
+            "Test.java", //
+            "// BUG: Diagnostic contains:",
+            "class Test {}")
+        .doTest();
+  }
+
+  @Test
+  public void requiredTypeMissing() {
+    CompilationTestHelper.newInstance(RequiresLibrary.class, getClass())
+        .addSourceLines(
+            "Test.java", //
+            "class Test {}")
+        .doTest();
+  }
+
   private static class ScannerSupplierSubject
       extends Subject<ScannerSupplierSubject, ScannerSupplier> {
     ScannerSupplierSubject(FailureMetadata failureMetadata, ScannerSupplier scannerSupplier) {
@@ -394,6 +394,50 @@ public class ASTHelpersTest extends CompilerBasedAbstractTest {
     assertCompiles(scanner);
   }
 
+  @Test
+  public void testSymbolQueriesAreMemoized() {
+    writeFile(
+        "com/google/errorprone/util/InheritedAnnotation.java",
+        "package com.google.errorprone.util;",
+        "import java.lang.annotation.Inherited;",
+        "@Inherited",
+        "public @interface InheritedAnnotation {}");
+    writeFile(
+        "B.java",
+        "import com.google.errorprone.util.InheritedAnnotation;",
+        "@InheritedAnnotation",
+        "public class B {",
+        "  void f() {}",
+        "}");
+    writeFile("C.java", "public class C extends B {", "  @Override void f() {}", "}");
+
+    TestScanner scanner =
+        new TestScanner() {
+          @Override
+          public Void visitMethod(MethodTree tree, VisitorState state) {
+            ClassSymbol owner = ASTHelpers.enclosingClass(ASTHelpers.getSymbol(tree));
+            if (owner.getSimpleName().contentEquals("C") && tree.getName().contentEquals("f")) {
+              SymbolQueryCache cache = SymbolQueryCache.instance(state.context);
+              for (int i = 0; i < 2; i++) {
+                assertTrue(ASTHelpers.hasAnnotation(owner, InheritedAnnotation.class, state));
+                assertTrue(
+                    ASTHelpers.isSubtype(
+                        owner.type, ((ClassSymbol) owner.getSuperclass().tsym).type, state));
+                assertThat(ASTHelpers.findSuperMethods(ASTHelpers.getSymbol(tree), state))
+                    .hasSize(1);
+              }
+              assertThat(cache.hitRatios().get("hasAnnotation")).isGreaterThan(0.0);
+              assertThat(cache.hitRatios().get("isSubtype")).isGreaterThan(0.0);
+              assertThat(cache.hitRatios().get("findSuperMethods")).isGreaterThan(0.0);
+              setAssertionsComplete();
+            }
+            return super.visitMethod(tree, state);
+          }
+        };
+    tests.add(scanner);
+    assertCompiles(scanner);
+  }
+
   /* Tests for ASTHelpers#getType */
 
   @Test
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.util;
+
+import static java.util.stream.Collectors.joining;
+
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.BugPattern.Category;
+import com.google.errorprone.BugPattern.SeverityLevel;
+import com.google.errorprone.CompilationTestHelper;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.MethodTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.VariableTreeMatcher;
+import com.google.errorprone.matchers.Description;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.tools.javac.parser.Tokens.Comment;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link CompilationUnitTokens}Test */
+@RunWith(JUnit4.class)
+public class CompilationUnitTokensTest {
+
+  /**
+   * A {@link BugChecker} that reports any node for which the cached tokens differ from the tokens
+   * produced by re-lexing the source of that node.
+   */
+  @BugPattern(
+      name = "CompareTokens",
+      category = Category.ONE_OFF,
+      severity = SeverityLevel.ERROR,
+      summary = "Compares cached tokens with re-lexed tokens")
+  public static class CompareTokens extends BugChecker
+      implements MethodInvocationTreeMatcher, MethodTreeMatcher, VariableTreeMatcher {
+
+    @Override
+    public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+      return compare(tree, state);
+    }
+
+    @Override
+    public Description matchMethod(MethodTree tree, VisitorState state) {
+      return compare(tree, state);
+    }
+
+    @Override
+    public Description matchVariable(VariableTree tree, VisitorState state) {
+      return compare(tree, state);
+    }
+
+    private Description compare(Tree tree, VisitorState state) {
+      String cached = describe(state.getTokensForNode(tree));
+      String relexed =
+          describe(ErrorProneTokens.getTokens(state.getSourceForNode(tree), state.context));
+      if (cached.equals(relexed)) {
+        return Description.NO_MATCH;
+      }
+      return buildDescription(tree).setMessage(cached + " != " + relexed).build();
+    }
+
+    private static String describe(List<ErrorProneToken> tokens) {
+      return tokens.stream()
+          .map(
+              t ->
+                  String.format(
+                      "%s[%d,%d)%s",
+                      t.kind(),
+                      t.pos(),
+                      t.endPos(),
+                      t.comments().stream()
+                          .map(CompareTokens::describe)
+                          .collect(joining(",", "{", "}"))))
+          .collect(joining(" "));
+    }
+
+    private static String describe(Comment comment) {
+      return comment.getSourcePos(0) + ":" + comment.getText();
+    }
+  }
+
+  @Test
+  public void matchesRelexedTokens() {
+    CompilationTestHelper.newInstance(CompareTokens.class, getClass())
+        .addSourceLines(
+            "Test.java",
+            "import java.util.List;",
+            "import java.util.Map;",
+            "abstract class Test {",
+            "  /** Javadoc. */",
+            "  abstract void target(Object a, /* b= */ Object b);",
+            "  // comment",
+            "  private void test(Object param) {",
+            "    target(param, /* b= */ param);",
+            "    target(",
+            "        param, // trailing",
+            "        param);",
+            "    List<Map<String, List<String>>> xs = null;",
+            "    int i = 1 >> 2 >>> 3; // shifts",
+            "  }",
+            "}")
+        .doTest();
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.util;
+
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.BugPattern.Category;
+import com.google.errorprone.BugPattern.SeverityLevel;
+import com.google.errorprone.CompilationTestHelper;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.matchers.Description;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodInvocationTree;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ConstantValues}. */
+@RunWith(JUnit4.class)
+public class ConstantValuesTest {
+
+  /** A {@link BugChecker} that prints the constant value of the argument of each call to f. */
+  @BugPattern(
+      name = "PrintConstantValue",
+      category = Category.ONE_OFF,
+      severity = SeverityLevel.ERROR,
+      summary = "Prints the constant value of each argument")
+  public static class PrintConstantValue extends BugChecker implements MethodInvocationTreeMatcher {
+    @Override
+    public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+      if (tree.getArguments().size() != 1) {
+        return Description.NO_MATCH;
+      }
+      ExpressionTree argument = tree.getArguments().get(0);
+      ConstantValues constantValues = state.getConstantValues();
+      Object value = constantValues.constantValue(argument, state);
+      if (value != constantValues.constantValue(argument, state)) {
+        throw new AssertionError("value was recomputed for " + argument);
+      }
+      VisitorState derived = state.withPath(state.getPath());
+      if (value != derived.getConstantValues().constantValue(argument, derived)) {
+        throw new AssertionError("values are not shared for " + argument);
+      }
+      if (value == null) {
+        return Description.NO_MATCH;
+      }
+      return buildDescription(tree).setMessage("value: " + value).build();
+    }
+  }
+
+  @Test
+  public void values() {
+    CompilationTestHelper.newInstance(PrintConstantValue.class, getClass())
+        .addSourceLines(
+            "Test.java",
+            "class Test {",
+            "  static final int CONSTANT = 1 + 2;",
+            "  static final Integer BOXED = 4;",
+            "  static final Integer INDIRECT = BOXED;",
+            "  static final Integer CYCLE_A = Test.CYCLE_B;",
+            "  static final Integer CYCLE_B = Test.CYCLE_A;",
+            "  static Integer notFinal = 5;",
+            "  final Integer instance = 6;",
+            "  void f(Object o) {}",
+            "  void g(int parameter) {",
+            "    // BUG: Diagnostic contains: value: 3",
+            "    f(CONSTANT);",
+            "    // BUG: Diagnostic contains: value: 4",
+            "    f(BOXED);",
+            "    // BUG: Diagnostic contains: value: 4",
+            "    f((Test.INDIRECT));",
+            "    // BUG: Diagnostic contains: value: 6",
+            "    f(this.instance);",
+            "    // BUG: Diagnostic contains: value: hello",
+            "    f(\"hello\");",
+            "    int local = 7;",
+            "    // BUG: Diagnostic contains: value: 7",
+            "    f(local);",
+            "    local = parameter;",
+            "    f(local);",
+            "    f(CYCLE_A);",
+            "    f(notFinal);",
+            "    f(parameter);",
+            "  }",
+            "}")
+        .doTest();
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 The Error Prone Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.errorprone.util;
+
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.BugPattern.Category;
+import com.google.errorprone.BugPattern.SeverityLevel;
+import com.google.errorprone.CompilationTestHelper;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MethodTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.VariableTreeMatcher;
+import com.google.errorprone.matchers.Description;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.VariableTree;
+import com.sun.tools.javac.code.Symbol;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link SymbolIndex}. */
+@RunWith(JUnit4.class)
+public class SymbolIndexTest {
+
+  /** A {@link BugChecker} that prints how each field is accessed. */
+  @BugPattern(
+      name = "PrintAccesses",
+      category = Category.ONE_OFF,
+      severity = SeverityLevel.ERROR,
+      summary = "Prints how each field is accessed")
+  public static class PrintAccesses extends BugChecker implements VariableTreeMatcher {
+    @Override
+    public Description matchVariable(VariableTree tree, VisitorState state) {
+      Symbol sym = ASTHelpers.getSymbol(tree);
+      SymbolIndex symbolIndex = state.getSymbolIndex();
+      if (symbolIndex.getDeclaration(sym).getLeaf() != tree) {
+        throw new AssertionError(sym);
+      }
+      if (!symbolIndex.isReferenced(sym)) {
+        return Description.NO_MATCH;
+      }
+      List<String> accesses = new ArrayList<>();
+      for (SymbolIndex.Reference reference : symbolIndex.getReferences(sym)) {
+        accesses.add(reference.path().getLeaf() + ":" + reference.access());
+      }
+      return buildDescription(tree).setMessage(accesses.toString()).build();
+    }
+  }
+
+  /** A {@link BugChecker} that fails if the index isn't shared by the matches in a file. */
+  @BugPattern(
+      name = "SameIndex",
+      category = Category.ONE_OFF,
+      severity = SeverityLevel.ERROR,
+      summary = "Checks that the index is shared")
+  public static class SameIndex extends BugChecker implements MethodTreeMatcher {
+    private SymbolIndex first;
+
+    @Override
+    public Description matchMethod(MethodTree tree, VisitorState state) {
+      if (first == null) {
+        first = state.getSymbolIndex();
+      } else if (first != state.getSymbolIndex()) {
+        throw new AssertionError("index was rebuilt for " + tree.getName());
+      }
+      return Description.NO_MATCH;
+    }
+  }
+
+  @Test
+  public void accesses() {
+    CompilationTestHelper.newInstance(PrintAccesses.class, getClass())
+        .addSourceLines(
+            "Test.java",
+            "class Test {",
+            "  // BUG: Diagnostic contains: [x:WRITE, this.x:WRITE, x:READ_WRITE, x:READ_WRITE]",
+            "  int x;",
+            "  // BUG: Diagnostic contains: [y:READ, y:READ, y:READ]",
+            "  int[] y = {};",
+            "  void f() {",
+            "    x = y[0];",
+            "    this.x = y.length;",
+            "    x++;",
+            "    x += 1;",
+            "    y[0] = 1;",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  public void sharedBetweenMatches() {
+    CompilationTestHelper.newInstance(SameIndex.class, getClass())
+        .addSourceLines(
+            "Test.java", //
+            "class Test {",
+            "  void f() {}",
+            "  void g() {}",
+            "  class Inner {",
+            "    void h() {}",
+            "  }",
+            "}")
+        .doTest();
+  }
+}
@@ -47,6 +47,7 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.FileAlreadyExistsException;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -183,12 +184,19 @@ public class BugCheckerRefactoringTestHelper {
   }
 
   public void doTest(TestMode testMode) {
-    for (Map.Entry<JavaFileObject, JavaFileObject> entry : sources.entrySet()) {
-      try {
-        runTestOnPair(entry.getKey(), entry.getValue(), testMode);
-      } catch (IOException e) {
-        throw new UncheckedIOException(e);
+    try {
+      // Compile all inputs once, and refactor each of them within that compilation.
+      Context context = new Context();
+      Map<JavaFileObject, JCCompilationUnit> trees = doCompile(sources.keySet(), context);
+      for (Map.Entry<JavaFileObject, JavaFileObject> entry : sources.entrySet()) {
+        JavaFileObject transformed = applyDiff(entry.getKey(), context, trees.get(entry.getKey()));
+        testMode.verifyMatch(transformed, entry.getValue());
       }
+      if (!allowBreakingChanges) {
+        doCompile(sources.values(), new Context());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
     }
   }
 
@@ -198,20 +206,9 @@ public class BugCheckerRefactoringTestHelper {
     return this;
   }
 
-  private void runTestOnPair(JavaFileObject input, JavaFileObject output, TestMode testMode)
-      throws IOException {
-    Context context = new Context();
-    JCCompilationUnit tree = doCompile(input, sources.keySet(), context);
-    JavaFileObject transformed = applyDiff(input, context, tree);
-    testMode.verifyMatch(transformed, output);
-    if (!allowBreakingChanges) {
-      doCompile(output, sources.values(), new Context());
-    }
-  }
-
-  private JCCompilationUnit doCompile(
-      final JavaFileObject input, Iterable<JavaFileObject> files, Context context)
-      throws IOException {
+  /** Compiles the given files, and returns the compilation unit of each of them. */
+  private Map<JavaFileObject, JCCompilationUnit> doCompile(
+      Iterable<JavaFileObject> files, Context context) throws IOException {
     JavacTool tool = JavacTool.create();
     DiagnosticCollector<JavaFileObject> diagnosticsCollector = new DiagnosticCollector<>();
     context.put(ErrorProneOptions.class, ErrorProneOptions.empty());
@@ -227,18 +224,17 @@ public class BugCheckerRefactoringTestHelper {
                 context);
     Iterable<? extends CompilationUnitTree> trees = task.parse();
     task.analyze();
-    JCCompilationUnit tree =
-        Iterables.getOnlyElement(
-            Iterables.filter(
-                Iterables.filter(trees, JCCompilationUnit.class),
-                compilationUnit -> compilationUnit.getSourceFile() == input));
+    Map<JavaFileObject, JCCompilationUnit> result = new IdentityHashMap<>();
+    for (JCCompilationUnit tree : Iterables.filter(trees, JCCompilationUnit.class)) {
+      result.put(tree.getSourceFile(), tree);
+    }
     Iterable<Diagnostic<? extends JavaFileObject>> errorDiagnostics =
         Iterables.filter(
             diagnosticsCollector.getDiagnostics(), d -> d.getKind() == Diagnostic.Kind.ERROR);
     if (!Iterables.isEmpty(errorDiagnostics)) {
       fail("compilation failed unexpectedly: " + errorDiagnostics);
     }
-    return tree;
+    return result;
   }
 
   private JavaFileObject applyDiff(
@@ -16,6 +16,7 @@
 
 package com.google.errorprone;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.truth.Truth.assertWithMessage;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertTrue;
@@ -34,7 +35,6 @@ import com.sun.tools.javac.main.Main.Result;
 import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.UncheckedIOException;
@@ -46,8 +46,6 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import javax.tools.Diagnostic;
-import javax.tools.JavaCompiler;
-import javax.tools.JavaCompiler.CompilationTask;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardLocation;
 
@@ -185,9 +183,9 @@ public class CompilationTestHelper {
   }
 
   /**
-   * By default, the compilation helper will not run Error Prone on compilations that fail with
-   * javac errors. This behaviour can be disabled to test the interaction between Error Prone checks
-   * and javac diagnostics.
+   * By default, the compilation helper fails the test if the test program has javac errors. This
+   * behaviour can be disabled to test the interaction between Error Prone checks and javac
+   * diagnostics.
    */
   public CompilationTestHelper ignoreJavacErrors() {
     this.checkWellFormed = false;
@@ -289,11 +287,9 @@ public class CompilationTestHelper {
   }
 
   private Result compile(Iterable<JavaFileObject> sources, String[] args) {
-    if (checkWellFormed) {
-      checkWellFormed(sources, args);
-    }
     createAndInstallTempFolderForOutput(fileManager);
-    return compiler
+    boolean succeeded =
+        compiler
             .getTask(
                 new PrintWriter(
                     new BufferedWriter(new OutputStreamWriter(outputStream, UTF_8)),
@@ -303,9 +299,11 @@ public class CompilationTestHelper {
                 /* options= */ ImmutableList.copyOf(args),
                 /* classes= */ ImmutableList.of(),
                 sources)
-            .call()
-        ? Result.OK
-        : Result.ERROR;
+            .call();
+    if (checkWellFormed) {
+      checkWellFormed();
+    }
+    return succeeded ? Result.OK : Result.ERROR;
   }
 
   private static void createAndInstallTempFolderForOutput(
@@ -330,32 +328,44 @@ public class CompilationTestHelper {
             });
   }
 
-  private void checkWellFormed(Iterable<JavaFileObject> sources, String[] args) {
-    createAndInstallTempFolderForOutput(fileManager);
-    JavaCompiler compiler = JavacTool.create();
-    OutputStream outputStream = new ByteArrayOutputStream();
-    String[] remainingArgs = null;
-    try {
-      remainingArgs = ErrorProneOptions.processArgs(args).getRemainingArgs();
-    } catch (InvalidCommandLineOptionException e) {
-      fail("Exception during argument processing: " + e);
-    }
-    CompilationTask task =
-        compiler.getTask(
-            new PrintWriter(
-                new BufferedWriter(new OutputStreamWriter(outputStream, UTF_8)),
-                /*autoFlush=*/ true),
-            fileManager,
-            null,
-            buildArguments(Arrays.asList(remainingArgs)),
-            null,
-            sources);
-    boolean result = task.call();
+  /**
+   * Checks that the test program compiles without javac errors.
+   *
+   * <p>Rather than compiling the sources a second time without Error Prone, javac's own errors are
+   * told apart from Error Prone's by their diagnostic keys.
+   */
+  private void checkWellFormed() {
+    List<Diagnostic<? extends JavaFileObject>> diagnostics = diagnosticHelper.getDiagnostics();
+    List<Diagnostic<? extends JavaFileObject>> warnings =
+        diagnostics.stream()
+            .filter(
+                d ->
+                    d.getKind() == Diagnostic.Kind.WARNING
+                        || d.getKind() == Diagnostic.Kind.MANDATORY_WARNING)
+            .collect(toImmutableList());
+    // -Werror turns Error Prone's warnings into a javac error, which only counts against the test
+    // program if javac itself reported a warning.
+    boolean onlyErrorProneWarnings =
+        !warnings.isEmpty()
+            && warnings.stream().allMatch(CompilationTestHelper::isErrorProneDiagnostic);
+    List<Diagnostic<? extends JavaFileObject>> javacErrors =
+        diagnostics.stream()
+            .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+            .filter(d -> !isErrorProneDiagnostic(d))
+            .filter(
+                d ->
+                    !(onlyErrorProneWarnings
+                        && d.getCode().equals("compiler.err.warnings.and.werror")))
+            .collect(toImmutableList());
     assertWithMessage(
             String.format(
-                "Test program failed to compile with non Error Prone error: %s",
-                outputStream.toString()))
-        .that(result)
-        .isTrue();
+                "Test program failed to compile with non Error Prone error: %s\n%s",
+                Joiner.on('\n').join(javacErrors), outputStream))
+        .that(javacErrors)
+        .isEmpty();
+  }
+
+  private static boolean isErrorProneDiagnostic(Diagnostic<?> diagnostic) {
+    return diagnostic.getCode().contains("error.prone");
   }
 }
@@ -79,6 +79,40 @@ public class BugCheckerRefactoringTestHelperTest {
         .doTest();
   }
 
+  @Test
+  public void testMultipleFiles() {
+    helper
+        .addInputLines(
+            "in/A.java",
+            "public class A {",
+            "  public Object foo() {",
+            "    return new B();",
+            "  }",
+            "}")
+        .addOutputLines(
+            "out/A.java",
+            "public class A {",
+            "  public Object foo() {",
+            "  return null;",
+            "  }",
+            "}")
+        .addInputLines(
+            "in/B.java",
+            "public class B {",
+            "  public Object bar() {",
+            "    return new A();",
+            "  }",
+            "}")
+        .addOutputLines(
+            "out/B.java",
+            "public class B {",
+            "  public Object bar() {",
+            "  return null;",
+            "  }",
+            "}")
+        .doTest();
+  }
+
   @Test(expected = AssertionError.class)
   public void testReplaceFail() {
     helper
@@ -251,6 +251,24 @@ public class CompilationTestHelperTest {
         .contains("Test program failed to compile with non Error Prone error");
   }
 
+  @Test
+  public void fileWithJavacWarningAndWerrorFails() {
+    AssertionError expected =
+        assertThrows(
+            AssertionError.class,
+            () ->
+                compilationHelper
+                    .addSourceLines(
+                        "Test.java",
+                        "class Test {",
+                        "  String s = (String) \"\";", // a redundant cast
+                        "}")
+                    .setArgs(ImmutableList.of("-Xlint:cast", "-Werror"))
+                    .doTest());
+    assertThat(expected.getMessage())
+        .contains("Test program failed to compile with non Error Prone error");
+  }
+
   @Test
   public void expectedResultMatchesActualResultSucceeds() {
     compilationHelper